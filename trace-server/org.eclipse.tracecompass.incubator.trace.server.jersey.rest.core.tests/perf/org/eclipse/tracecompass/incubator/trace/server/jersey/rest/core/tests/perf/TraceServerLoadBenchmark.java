@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.views.QueryParameters;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.ColumnHeaderEntryStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.ExperimentModelStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.OutputResponseStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.TableColumnsOutputResponseStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.TgTreeOutputResponseStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.TimeGraphEntryStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.XyEntryStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.XyTreeOutputResponseStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.utils.RestServerTest;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Load benchmark of the REST API of the trace server, started in process with
+ * the test traces. Concurrent clients run realistic sessions: open the
+ * experiment, fetch the time graph tree, zoom and pan the states, fetch the
+ * XY tree and series and page through the events table.
+ * <p>
+ * For each number of clients, the throughput and the p50/p99 latencies of
+ * each endpoint are logged at the info level. The sessions of a single client
+ * are also measured by the performance meters, with the bytes allocated per
+ * request of each endpoint by the threads of the process. The allocations are
+ * read from the threads alive when they are measured, so the allocations of
+ * the threads that ended in between, such as idle pool threads, are missed.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class TraceServerLoadBenchmark extends RestServerTest {
+
+    /**
+     * Test test ID for trace server benchmarks
+     */
+    public static final String TEST_ID = "org.eclipse.tracecompass.incubator#TraceServer#";
+    private static final String TEST_ENDPOINT = "Trace server request: %s";
+    private static final Logger LOGGER = TraceCompassLog.getLogger(TraceServerLoadBenchmark.class);
+
+    private static final String CALL_STACK_DATAPROVIDER_ID = "org.eclipse.tracecompass.internal.analysis.profiling.callstack.provider.CallStackDataProvider";
+    private static final String XY_HISTOGRAM_DATAPROVIDER_ID = "org.eclipse.tracecompass.internal.tmf.core.histogram.HistogramDataProvider";
+    private static final String EVENTS_TABLE_DATAPROVIDER_ID = "org.eclipse.tracecompass.internal.provisional.tmf.core.model.events.TmfEventTableDataProvider";
+
+    private static final String REQUESTED_TIMERANGE_KEY = "requested_timerange";
+    private static final String REQUESTED_TIMES_KEY = "requested_times";
+    private static final String REQUESTED_ITEMS_KEY = "requested_items";
+    private static final String REQUESTED_COLUMN_IDS_KEY = "requested_table_column_ids";
+    private static final String REQUESTED_TABLE_INDEX_KEY = "requested_table_index";
+    private static final String REQUESTED_TABLE_COUNT_KEY = "requested_table_count";
+    private static final String START = "start";
+    private static final String END = "end";
+    private static final String NB_TIMES = "nbTimes";
+
+    private static final String OPEN = "open experiment";
+    private static final String TG_TREE = "time graph tree";
+    private static final String TG_STATES = "time graph states";
+    private static final String XY_TREE = "XY tree";
+    private static final String XY_SERIES = "XY series";
+    private static final String TABLE_LINES = "table lines";
+    private static final List<String> ENDPOINTS = ImmutableList.of(OPEN, TG_TREE, TG_STATES, XY_TREE, XY_SERIES, TABLE_LINES);
+
+    private static final long UST_START = 1450193697034689597L;
+    private static final long UST_END = 1450193745774189602L;
+    private static final long KERNEL_START = 1412670961211260539L;
+    private static final long KERNEL_END = 1412670967217750839L;
+
+    private static final int[] NB_CLIENTS = { 1, 4, 16 };
+    private static final int NB_SESSION_STEPS = 40;
+    private static final int NB_PIXELS = 1000;
+    private static final int TABLE_PAGE = 100;
+    private static final int MAX_ITER = 100;
+
+    /**
+     * The queries of a session: the UUIDs of the experiments and the entries
+     * and columns found once the analyses are done
+     */
+    private static final class Session {
+        private String fUstExp = ""; //$NON-NLS-1$
+        private String fKernelExp = ""; //$NON-NLS-1$
+        private List<Integer> fTgItems = Collections.emptyList();
+        private List<Integer> fXyItems = Collections.emptyList();
+        private List<Long> fColumns = Collections.emptyList();
+    }
+
+    /**
+     * Recorder of the requests of the sessions
+     */
+    private interface Recorder {
+        default void before(String endpoint) {
+            // Do nothing
+        }
+
+        void after(String endpoint, long duration);
+    }
+
+    /**
+     * Run the benchmark
+     *
+     * @throws Exception
+     *             if a session fails
+     */
+    @Test
+    public void runLoadBenchmark() throws Exception {
+        ExperimentModelStub ust = assertPostExperiment(CONTEXT_SWITCHES_UST_STUB.getName(), CONTEXT_SWITCHES_UST_STUB);
+        ExperimentModelStub kernel = assertPostExperiment(ARM_64_KERNEL_STUB.getName(), ARM_64_KERNEL_STUB);
+        Session session = prepareSession(ust.getUUID().toString(), kernel.getUUID().toString());
+
+        measureAllocations(session);
+        for (int nbClients : NB_CLIENTS) {
+            measureThroughput(session, nbClients);
+        }
+    }
+
+    /**
+     * Wait until the analyses are done, so the sessions measure the queries of
+     * the data providers and not the analyses
+     */
+    private static Session prepareSession(String ustExp, String kernelExp) throws InterruptedException {
+        Session session = new Session();
+        session.fUstExp = ustExp;
+        session.fKernelExp = kernelExp;
+        Map<String, Object> parameters = ImmutableMap.of(REQUESTED_TIMES_KEY, ImmutableList.of(UST_START, UST_END));
+
+        TgTreeOutputResponseStub tgTree = poll(getTimeGraphTreeEndpoint(ustExp, CALL_STACK_DATAPROVIDER_ID), parameters, TgTreeOutputResponseStub.class);
+        assertNotNull(tgTree.getModel());
+        List<Integer> tgItems = new ArrayList<>();
+        for (TimeGraphEntryStub entry : tgTree.getModel().getEntries()) {
+            tgItems.add(entry.getId());
+        }
+        assertFalse(tgItems.isEmpty());
+        session.fTgItems = tgItems;
+
+        XyTreeOutputResponseStub xyTree = poll(getXYTreeEndpoint(ustExp, XY_HISTOGRAM_DATAPROVIDER_ID), parameters, XyTreeOutputResponseStub.class);
+        assertNotNull(xyTree.getModel());
+        List<Integer> xyItems = new ArrayList<>();
+        for (XyEntryStub entry : xyTree.getModel().getEntries()) {
+            xyItems.add(entry.getId());
+        }
+        assertFalse(xyItems.isEmpty());
+        session.fXyItems = xyItems;
+
+        Map<String, Object> kernelParameters = ImmutableMap.of(REQUESTED_TIMES_KEY, ImmutableList.of(KERNEL_START, KERNEL_END));
+        TableColumnsOutputResponseStub columns = poll(getTableColumnsEndpoint(kernelExp, EVENTS_TABLE_DATAPROVIDER_ID), kernelParameters, TableColumnsOutputResponseStub.class);
+        assertNotNull(columns.getModel());
+        List<Long> columnIds = new ArrayList<>();
+        for (ColumnHeaderEntryStub column : columns.getModel()) {
+            columnIds.add(column.getId());
+        }
+        session.fColumns = columnIds;
+        return session;
+    }
+
+    private static <T extends OutputResponseStub> T poll(WebTarget target, Map<String, Object> parameters, Class<T> type) throws InterruptedException {
+        for (int i = 0; i < MAX_ITER; i++) {
+            Response response = target.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+            assertEquals(200, response.getStatus());
+            T model = response.readEntity(type);
+            response.close();
+            if (!model.isRunning()) {
+                return model;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("The analysis did not complete for " + target.getUri()); //$NON-NLS-1$
+    }
+
+    /**
+     * Run the steps of a session of a client, the step and the client set the
+     * zoom level, the panning and the table page
+     */
+    private static void runStep(WebTarget application, Session session, int client, int step, Recorder recorder) {
+        // Zoom in up to 1/8th of the trace, then pan across it
+        long zoom = 1L << (step % 4);
+        long width = (UST_END - UST_START) / zoom;
+        long offset = ((step / 4 + client) * width / 4) % (UST_END - UST_START - width + 1);
+        Map<String, Object> window = ImmutableMap.of(START, UST_START + offset, END, UST_START + offset + width, NB_TIMES, NB_PIXELS);
+
+        WebTarget ust = application.path(EXPERIMENTS).path(session.fUstExp);
+        WebTarget callStack = ust.path(OUTPUTS_PATH).path(TIMEGRAPH_PATH).path(CALL_STACK_DATAPROVIDER_ID);
+        WebTarget histogram = ust.path(OUTPUTS_PATH).path(XY_PATH).path(XY_HISTOGRAM_DATAPROVIDER_ID);
+        WebTarget table = application.path(EXPERIMENTS).path(session.fKernelExp).path(OUTPUTS_PATH).path(TABLE_PATH).path(EVENTS_TABLE_DATAPROVIDER_ID);
+
+        Map<String, Object> parameters = new HashMap<>();
+        measure(OPEN, ust, null, recorder);
+        parameters.put(REQUESTED_TIMES_KEY, ImmutableList.of(UST_START, UST_END));
+        measure(TG_TREE, callStack.path(TREE_PATH), parameters, recorder);
+        measure(XY_TREE, histogram.path(TREE_PATH), parameters, recorder);
+
+        parameters.clear();
+        parameters.put(REQUESTED_TIMERANGE_KEY, window);
+        parameters.put(REQUESTED_ITEMS_KEY, session.fTgItems);
+        measure(TG_STATES, callStack.path(STATE_PATH), parameters, recorder);
+        parameters.put(REQUESTED_ITEMS_KEY, session.fXyItems);
+        measure(XY_SERIES, histogram.path(XY_SERIES_PATH), parameters, recorder);
+
+        parameters.clear();
+        parameters.put(REQUESTED_TIMES_KEY, ImmutableList.of(KERNEL_START, KERNEL_END));
+        parameters.put(REQUESTED_COLUMN_IDS_KEY, session.fColumns);
+        parameters.put(REQUESTED_TABLE_INDEX_KEY, (long) (client * NB_SESSION_STEPS + step) * TABLE_PAGE);
+        parameters.put(REQUESTED_TABLE_COUNT_KEY, TABLE_PAGE);
+        measure(TABLE_LINES, table.path(TABLE_LINE_PATH), parameters, recorder);
+    }
+
+    private static void measure(String endpoint, WebTarget target, @Nullable Map<String, Object> parameters, Recorder recorder) {
+        recorder.before(endpoint);
+        long start = System.nanoTime();
+        Response response = parameters == null ? target.request().get() : target.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+        // Read the body to measure its transfer, but not its deserialization
+        response.readEntity(String.class);
+        response.close();
+        recorder.after(endpoint, System.nanoTime() - start);
+        assertEquals(endpoint, 200, response.getStatus());
+    }
+
+    private static void measureAllocations(Session session) {
+        Performance perf = Performance.getDefault();
+        Map<String, PerformanceMeter> meters = new HashMap<>();
+        Map<String, Long> allocated = new HashMap<>();
+        for (String endpoint : ENDPOINTS) {
+            String testName = String.format(TEST_ENDPOINT, endpoint);
+            PerformanceMeter pm = Objects.requireNonNull(perf.createPerformanceMeter(TEST_ID + testName));
+            perf.tagAsSummary(pm, testName, Dimension.ELAPSED_PROCESS);
+            meters.put(endpoint, pm);
+            allocated.put(endpoint, 0L);
+        }
+        // A single client, so the allocations of all the threads are those
+        // of the request of the endpoint
+        Recorder recorder = new Recorder() {
+            private long fAllocatedBefore = 0;
+
+            @Override
+            public void before(String endpoint) {
+                fAllocatedBefore = getAllocatedBytes();
+                Objects.requireNonNull(meters.get(endpoint)).start();
+            }
+
+            @Override
+            public void after(String endpoint, long duration) {
+                Objects.requireNonNull(meters.get(endpoint)).stop();
+                allocated.merge(endpoint, getAllocatedBytes() - fAllocatedBefore, Long::sum);
+            }
+        };
+        WebTarget application = getApplicationEndpoint();
+        for (int step = 0; step < NB_SESSION_STEPS; step++) {
+            runStep(application, session, 0, step, recorder);
+        }
+        for (String endpoint : ENDPOINTS) {
+            Objects.requireNonNull(meters.get(endpoint)).commit();
+            LOGGER.info(() -> String.format("%s: %d bytes allocated per request", String.format(TEST_ENDPOINT, endpoint), allocated.get(endpoint) / NB_SESSION_STEPS)); //$NON-NLS-1$
+        }
+    }
+
+    private static void measureThroughput(Session session, int nbClients) throws Exception {
+        Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(nbClients);
+        try {
+            long allocatedBefore = getAllocatedBytes();
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < nbClients; i++) {
+                int client = i;
+                futures.add(executor.submit(() -> {
+                    WebTarget application = getApplicationEndpoint();
+                    for (int step = 0; step < NB_SESSION_STEPS; step++) {
+                        runStep(application, session, client, step, (endpoint, duration) -> latencies.computeIfAbsent(endpoint, e -> new ConcurrentLinkedQueue<>()).add(duration));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+            long allocated = getAllocatedBytes() - allocatedBefore;
+
+            for (String endpoint : ENDPOINTS) {
+                long[] sorted = latencies.getOrDefault(endpoint, new ConcurrentLinkedQueue<>()).stream().mapToLong(Long::longValue).sorted().toArray();
+                if (sorted.length == 0) {
+                    continue;
+                }
+                LOGGER.info(() -> String.format("%d clients, %s: %.1f requests/s, p50 %.2f ms, p99 %.2f ms", //$NON-NLS-1$
+                        nbClients, endpoint, sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99)));
+            }
+            LOGGER.info(() -> String.format("%d clients: %.1f MB/s allocated", nbClients, allocated / seconds / (1024 * 1024))); //$NON-NLS-1$
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Get the bytes allocated so far by the live threads of the process,
+     * including the threads of the server. The counters of the threads that
+     * ended are dropped, so a difference of two calls misses what the threads
+     * that ended in between allocated, and counts the allocations before the
+     * first call of the threads started in between.
+     */
+    @SuppressWarnings("restriction")
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            long[] allocated = ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(bean.getAllThreadIds());
+            return Arrays.stream(allocated).filter(bytes -> bytes > 0).sum();
+        }
+        return 0;
+    }
+
+}
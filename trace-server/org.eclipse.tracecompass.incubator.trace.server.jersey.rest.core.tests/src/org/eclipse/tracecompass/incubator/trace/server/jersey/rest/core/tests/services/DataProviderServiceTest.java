@@ -18,6 +18,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -69,6 +70,7 @@ import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersU
 import org.eclipse.tracecompass.tmf.core.model.filters.TimeQueryFilter;
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
@@ -113,6 +115,14 @@ public class DataProviderServiceTest extends RestServerTest {
     private static final String DEEP_SEARCH = "DEEP";
     private static final String FILTER_QUERY = "test";
     private static final int DIMMED_FILTER_TAG = 1;
+    private static final String BATCH_PATH = "batch";
+    private static final String QUERIES = "queries";
+    private static final String OUTPUT_ID = "outputId";
+    private static final String KIND = "kind";
+    private static final String PARAMETERS = "parameters";
+    private static final String INDEX = "index";
+    private static final String STATUS = "status";
+    private static final String RESPONSE = "response";
 
     private static final  List<EntryHeaderStub> EXPECTED_XY_TREE_HEADERS = ImmutableList.of(new EntryHeaderStub("Process", "", null), new EntryHeaderStub("TID", "", null), new EntryHeaderStub("%", "", null), new EntryHeaderStub("Time", "", null));
 
@@ -597,6 +607,65 @@ public class DataProviderServiceTest extends RestServerTest {
         }
     }
 
+    /**
+     * Test running several queries of outputs in a batch
+     *
+     * @throws IOException
+     *             if a result of the batch cannot be read
+     */
+    @Test
+    public void testBatch() throws IOException {
+        long start = 1412670961211260539L;
+        long end = 1412670967217750839L;
+        ExperimentModelStub exp = assertPostExperiment(ARM_64_KERNEL_STUB.getName(), ARM_64_KERNEL_STUB);
+        WebTarget batch = getApplicationEndpoint().path(EXPERIMENTS)
+                .path(exp.getUUID().toString())
+                .path(OUTPUTS_PATH)
+                .path(BATCH_PATH);
+
+        Map<String, Object> treeParameters = ImmutableMap.of(REQUESTED_TIMES_KEY, ImmutableList.of(start, end));
+        Map<String, Object> statesParameters = ImmutableMap.of(REQUESTED_TIMERANGE_KEY, ImmutableMap.of(START, start, END, end, NB_TIMES, 10),
+                REQUESTED_ITEMS_KEY, ImmutableList.of(1));
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(QUERIES, ImmutableList.of(
+                ImmutableMap.of(OUTPUT_ID, XY_DATAPROVIDER_ID, KIND, "xyTree", PARAMETERS, treeParameters),
+                ImmutableMap.of(OUTPUT_ID, XY_HISTOGRAM_DATAPROVIDER_ID, KIND, "xyTree", PARAMETERS, treeParameters),
+                ImmutableMap.of(OUTPUT_ID, "unknown.output", KIND, "states", PARAMETERS, statesParameters)));
+        Response response = batch.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+        assertEquals(200, response.getStatus());
+        String body = response.readEntity(String.class);
+        response.close();
+
+        // Each result is on its own line, in the order the queries completed
+        ObjectMapper mapper = new ObjectMapper();
+        Map<Integer, Map<?, ?>> results = new HashMap<>();
+        for (String line : body.split("\n")) {
+            Map<?, ?> result = mapper.readValue(line, Map.class);
+            results.put(((Number) result.get(INDEX)).intValue(), result);
+        }
+        assertEquals(3, results.size());
+        assertEquals(XY_DATAPROVIDER_ID, results.get(0).get(OUTPUT_ID));
+        assertEquals(200, results.get(0).get(STATUS));
+        assertTrue(results.get(0).get(RESPONSE) instanceof Map);
+        assertEquals(XY_HISTOGRAM_DATAPROVIDER_ID, results.get(1).get(OUTPUT_ID));
+        assertEquals(200, results.get(1).get(STATUS));
+        assertEquals(405, results.get(2).get(STATUS));
+        assertEquals("Analysis cannot run", results.get(2).get(RESPONSE));
+
+        // An output is queried once per kind
+        parameters.put(QUERIES, ImmutableList.of(
+                ImmutableMap.of(OUTPUT_ID, XY_DATAPROVIDER_ID, KIND, "xyTree", PARAMETERS, treeParameters),
+                ImmutableMap.of(OUTPUT_ID, XY_DATAPROVIDER_ID, KIND, "xyTree", PARAMETERS, treeParameters)));
+        response = batch.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+        assertEquals(400, response.getStatus());
+        response.close();
+
+        parameters.put(QUERIES, ImmutableList.of(ImmutableMap.of(OUTPUT_ID, XY_DATAPROVIDER_ID, KIND, "unknown", PARAMETERS, treeParameters)));
+        response = batch.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+        assertEquals(400, response.getStatus());
+        response.close();
+    }
+
     /**
      * Using the custom data provider verify that only allowed types (Number,
      * String) are serialized in the metadata map of time graph entries.
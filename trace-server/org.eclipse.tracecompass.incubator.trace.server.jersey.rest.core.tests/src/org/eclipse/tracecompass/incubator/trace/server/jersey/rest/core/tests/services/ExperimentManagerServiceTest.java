@@ -12,7 +12,9 @@
 package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -21,6 +23,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
@@ -42,6 +48,7 @@ import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ExperimentManagerService;
 import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.ExperimentModelStub;
 import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.TraceModelStub;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.webapp.TestDataProviderService;
 import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.utils.RestServerTest;
 import org.eclipse.tracecompass.testtraces.ctf.CtfTestTrace;
 import org.eclipse.tracecompass.tmf.core.TmfCommonConstants;
@@ -49,6 +56,7 @@ import org.eclipse.tracecompass.tmf.core.TmfProjectNature;
 import org.eclipse.tracecompass.tmf.core.io.ResourceUtil;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 /**
@@ -59,6 +67,7 @@ import com.google.common.collect.ImmutableSet;
 public class ExperimentManagerServiceTest extends RestServerTest {
 
     private static final String TEST = "test";
+    private static final int MAX_ITER = 100;
     private static final @NonNull ImmutableSet<TraceModelStub> CONTEXT_SWITCH_SET = ImmutableSet.of(CONTEXT_SWITCHES_KERNEL_STUB, CONTEXT_SWITCHES_UST_STUB);
     private static final @NonNull ExperimentModelStub EXPECTED = new ExperimentModelStub(TEST, CONTEXT_SWITCH_SET);
 
@@ -98,6 +107,180 @@ public class ExperimentManagerServiceTest extends RestServerTest {
         response.close();
     }
 
+    /**
+     * Test that an experiment is indexed in the background, and the progress
+     * of its indexing
+     *
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the indexing
+     */
+    @Test
+    public void testIndexingProgress() throws InterruptedException {
+        WebTarget application = getApplicationEndpoint();
+        WebTarget traces = application.path(TRACES);
+        WebTarget expTarget = application.path(EXPERIMENTS);
+
+        TraceModelStub ustStub = assertPost(traces, CONTEXT_SWITCHES_UST_STUB);
+        TraceModelStub kernelStub = assertPost(traces, CONTEXT_SWITCHES_KERNEL_STUB);
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(NAME, EXPECTED.getName());
+        parameters.put(TRACES, ImmutableList.of(ustStub.getUUID().toString(), kernelStub.getUUID().toString()));
+        Response response = expTarget.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+        ExperimentModelStub expStub = response.readEntity(ExperimentModelStub.class);
+        assertEquals("Failed to POST the experiment", EXPECTED, expStub);
+        response.close();
+
+        WebTarget progressTarget = expTarget.path(expStub.getUUID().toString()).path("progress");
+        Map<?, ?> progress = progressTarget.request().get(Map.class);
+        int iteration = 0;
+        while ("RUNNING".equals(progress.get("indexingStatus")) && iteration < MAX_ITER) {
+            Thread.sleep(100);
+            progress = progressTarget.request().get(Map.class);
+            iteration++;
+        }
+        assertEquals("COMPLETED", progress.get("indexingStatus"));
+        assertTrue(((Number) progress.get("nbEvents")).longValue() > 0);
+        assertTrue(((Number) progress.get("eventsPerSecond")).doubleValue() > 0);
+        assertEquals(0L, ((Number) progress.get("estimatedRemainingTime")).longValue());
+
+        assertEquals(Status.NOT_FOUND.getStatusCode(), expTarget.path(UUID.randomUUID().toString()).path("progress").request().get().getStatus());
+    }
+
+    /**
+     * Test that the queries on an experiment that is still opening are
+     * accepted, and answered once the experiment is opened
+     */
+    @Test
+    public void testOpeningExperiment() {
+        WebTarget application = getApplicationEndpoint();
+        WebTarget traces = application.path(TRACES);
+        WebTarget expTarget = application.path(EXPERIMENTS);
+
+        TraceModelStub ustStub = assertPost(traces, CONTEXT_SWITCHES_UST_STUB);
+        TraceModelStub kernelStub = assertPost(traces, CONTEXT_SWITCHES_KERNEL_STUB);
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(NAME, EXPECTED.getName());
+        parameters.put(TRACES, ImmutableList.of(ustStub.getUUID().toString(), kernelStub.getUUID().toString()));
+
+        CountDownLatch gate = ExperimentManagerService.holdOpening();
+        ExperimentModelStub expStub;
+        try {
+            Response response = expTarget.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+            expStub = response.readEntity(ExperimentModelStub.class);
+            assertEquals("Failed to POST the experiment", EXPECTED, expStub);
+            response.close();
+
+            WebTarget outputs = expTarget.path(expStub.getUUID().toString()).path(OUTPUTS_PATH);
+            response = outputs.request().get();
+            assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+            Map<?, ?> opening = response.readEntity(Map.class);
+            assertEquals("RUNNING", opening.get("status"));
+            assertNull(opening.get("model"));
+
+            Map<?, ?> progress = expTarget.path(expStub.getUUID().toString()).path("progress").request().get(Map.class);
+            assertEquals("RUNNING", progress.get("indexingStatus"));
+        } finally {
+            gate.countDown();
+        }
+
+        int iteration = 0;
+        while (ExperimentManagerService.isOpening(expStub.getUUID()) && iteration < MAX_ITER) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            iteration++;
+        }
+        assertEquals(Status.OK.getStatusCode(), expTarget.path(expStub.getUUID().toString()).path(OUTPUTS_PATH).request().get().getStatus());
+    }
+
+    /**
+     * Test that an evicted experiment is opened again by its next request
+     *
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting for the indexing
+     */
+    @Test
+    public void testEviction() throws InterruptedException {
+        WebTarget application = getApplicationEndpoint();
+        WebTarget traces = application.path(TRACES);
+        WebTarget expTarget = application.path(EXPERIMENTS);
+
+        TraceModelStub ustStub = assertPost(traces, CONTEXT_SWITCHES_UST_STUB);
+        TraceModelStub kernelStub = assertPost(traces, CONTEXT_SWITCHES_KERNEL_STUB);
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(NAME, EXPECTED.getName());
+        parameters.put(TRACES, ImmutableList.of(ustStub.getUUID().toString(), kernelStub.getUUID().toString()));
+        Response response = expTarget.request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
+        ExperimentModelStub expStub = response.readEntity(ExperimentModelStub.class);
+        assertEquals("Failed to POST the experiment", EXPECTED, expStub);
+        response.close();
+
+        UUID expUUID = expStub.getUUID();
+        int iteration = 0;
+        while (ExperimentManagerService.isIndexing(expUUID) && iteration < MAX_ITER) {
+            Thread.sleep(100);
+            iteration++;
+        }
+        int resident = ExperimentManagerService.getResidentExperimentCount();
+        long evicted = ExperimentManagerService.getEvictedExperimentCount();
+        assertTrue(ExperimentManagerService.evictExperiment(expUUID));
+        assertEquals(resident - 1, ExperimentManagerService.getResidentExperimentCount());
+        assertEquals(evicted + 1, ExperimentManagerService.getEvictedExperimentCount());
+        assertFalse(ExperimentManagerService.evictExperiment(expUUID));
+
+        assertEquals("Evicting an experiment should not delete it", Collections.singleton(EXPECTED), getExperiments(expTarget));
+        assertEquals("Failed to open the evicted experiment", EXPECTED, expTarget.path(expUUID.toString()).request().get(ExperimentModelStub.class));
+        assertEquals(resident, ExperimentManagerService.getResidentExperimentCount());
+    }
+
+    /**
+     * Test that an experiment is not evicted while a request on it is in
+     * flight, and is evicted once the request is finished
+     *
+     * @throws Exception
+     *             if the thread is interrupted or the request fails
+     */
+    @Test
+    public void testEvictionInFlight() throws Exception {
+        ExperimentModelStub expStub = assertPostExperiment(EXPECTED.getName(), CONTEXT_SWITCHES_UST_STUB, CONTEXT_SWITCHES_KERNEL_STUB);
+        UUID expUUID = expStub.getUUID();
+        int iteration = 0;
+        while (ExperimentManagerService.isIndexing(expUUID) && iteration < MAX_ITER) {
+            Thread.sleep(100);
+            iteration++;
+        }
+
+        CountDownLatch release = TestDataProviderService.holdRequests();
+        Future<Response> future;
+        try {
+            WebTarget heldTree = getTimeGraphTreeEndpoint(expUUID.toString(), TestDataProviderService.HELD_REQUEST);
+            future = heldTree.request().async().post(Entity.json(new QueryParameters(Collections.emptyMap(), Collections.emptyList())));
+            assertTrue("The request was not received", TestDataProviderService.awaitHeldRequest());
+            assertFalse("An experiment in use should not be evicted", ExperimentManagerService.evictExperiment(expUUID));
+        } finally {
+            release.countDown();
+        }
+        Response response = future.get(MAX_ITER, TimeUnit.SECONDS);
+        assertEquals(Status.OK.getStatusCode(), response.getStatus());
+        response.close();
+
+        // The end of the request may be notified after the response is sent
+        boolean evicted = ExperimentManagerService.evictExperiment(expUUID);
+        iteration = 0;
+        while (!evicted && iteration < MAX_ITER) {
+            Thread.sleep(100);
+            evicted = ExperimentManagerService.evictExperiment(expUUID);
+            iteration++;
+        }
+        assertTrue("Failed to evict the experiment once the request is finished", evicted);
+    }
+
     /**
      * Test posting an experiment twice, it should be OK
      */
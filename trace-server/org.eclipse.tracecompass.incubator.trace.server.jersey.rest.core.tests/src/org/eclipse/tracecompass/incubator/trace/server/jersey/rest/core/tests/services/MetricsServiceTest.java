@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.MetricsService;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ServerMetrics;
+import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.utils.RestServerTest;
+import org.junit.Test;
+
+/**
+ * Test the {@link MetricsService} and the {@link ServerMetrics}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class MetricsServiceTest extends RestServerTest {
+
+    private static final String HEALTH_LABELS = "method=\"GET\",endpoint=\"/health\",output=\"\""; //$NON-NLS-1$
+
+    /**
+     * Test that the requests to the server are counted by endpoint
+     */
+    @Test
+    public void testMetrics() {
+        WebTarget application = getApplicationEndpoint();
+        Response health = application.path("health").request(MediaType.APPLICATION_JSON).get(); //$NON-NLS-1$
+        assertEquals(200, health.getStatus());
+        health.readEntity(String.class);
+
+        Response response = application.path("metrics").request(MediaType.TEXT_PLAIN).get(); //$NON-NLS-1$
+        assertEquals(200, response.getStatus());
+        String metrics = response.readEntity(String.class);
+        assertTrue(metrics, metrics.contains("traceserver_requests_total{" + HEALTH_LABELS + ",status=\"200\"}")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_request_duration_seconds_count{" + HEALTH_LABELS + "}")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_response_size_bytes_sum{" + HEALTH_LABELS + "}")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("# TYPE traceserver_response_cache_hits_total counter")); //$NON-NLS-1$
+        assertTrue(metrics, metrics.contains("# TYPE traceserver_requests_in_flight gauge")); //$NON-NLS-1$
+    }
+
+    /**
+     * Test the latency histogram and the response sizes of an endpoint
+     */
+    @Test
+    public void testHistogram() {
+        ServerMetrics serverMetrics = new ServerMetrics();
+        String endpoint = "/experiments/{expUUID}/outputs/{outputId}/tree"; //$NON-NLS-1$
+        for (long millis : new long[] { 1, 20, 20, 300, 20000 }) {
+            serverMetrics.requestStarted();
+            serverMetrics.requestCompleted("POST", endpoint, "my\"output", 200, TimeUnit.MILLISECONDS.toNanos(millis)); //$NON-NLS-1$ //$NON-NLS-2$
+            serverMetrics.requestFinished();
+        }
+        serverMetrics.requestStarted();
+        serverMetrics.responseWritten("POST", endpoint, "my\"output", 100); //$NON-NLS-1$ //$NON-NLS-2$
+        serverMetrics.responseWritten("POST", endpoint, "my\"output", 50); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(1, serverMetrics.getInFlightCount());
+
+        String metrics = serverMetrics.scrape();
+        String labels = "method=\"POST\",endpoint=\"" + endpoint + "\",output=\"my\\\"output\""; //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_requests_total{" + labels + ",status=\"200\"} 5\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_request_duration_seconds_bucket{" + labels + ",le=\"0.005\"} 1\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_request_duration_seconds_bucket{" + labels + ",le=\"0.025\"} 3\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_request_duration_seconds_bucket{" + labels + ",le=\"10.0\"} 4\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_request_duration_seconds_bucket{" + labels + ",le=\"+Inf\"} 5\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_request_duration_seconds_count{" + labels + "} 5\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_response_size_bytes_sum{" + labels + "} 150\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_response_size_bytes_count{" + labels + "} 2\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_requests_in_flight 1\n")); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that the outputs that did not answer a request are counted
+     * together, and that the unmapped exceptions are counted
+     */
+    @Test
+    public void testOutputLabels() {
+        ServerMetrics serverMetrics = new ServerMetrics();
+        String endpoint = "/experiments/{expUUID}/outputs/{outputId}/tree"; //$NON-NLS-1$
+        String output = "org.eclipse.test.output"; //$NON-NLS-1$
+        serverMetrics.requestCompleted("POST", endpoint, "no.such.output", 404, 1000); //$NON-NLS-1$ //$NON-NLS-2$
+        serverMetrics.requestCompleted("POST", endpoint, output, 202, 1000); //$NON-NLS-1$
+        serverMetrics.requestCompleted("POST", endpoint, output, 200, 1000); //$NON-NLS-1$
+        serverMetrics.requestFailed("POST", endpoint, output, 1000); //$NON-NLS-1$
+        assertEquals(1, serverMetrics.getUnmappedExceptionCount());
+
+        String metrics = serverMetrics.scrape();
+        String labels = "method=\"POST\",endpoint=\"" + endpoint + "\",output=\""; //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(metrics, metrics.contains("no.such.output")); //$NON-NLS-1$
+        assertTrue(metrics, metrics.contains("traceserver_requests_total{" + labels + "other\",status=\"404\"} 1\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_requests_total{" + labels + "other\",status=\"202\"} 1\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_requests_total{" + labels + output + "\",status=\"200\"} 1\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_requests_total{" + labels + output + "\",status=\"500\"} 1\n")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(metrics, metrics.contains("traceserver_unmapped_exceptions_total 1\n")); //$NON-NLS-1$
+    }
+
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.RequestMonitor;
+import org.junit.Test;
+
+/**
+ * Test the {@link RequestMonitor}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class RequestMonitorTest {
+
+    private static final String OUTPUT_ID = "output"; //$NON-NLS-1$
+    private static final String STATES = "states"; //$NON-NLS-1$
+
+    /**
+     * Test that a newer request of the same client cancels the request in
+     * progress, and only that one
+     */
+    @Test
+    public void testSuperseded() {
+        UUID expUUID = UUID.randomUUID();
+        long superseded = RequestMonitor.getSupersededCount();
+        try (RequestMonitor first = RequestMonitor.start("a", expUUID, OUTPUT_ID, STATES, () -> true); //$NON-NLS-1$
+                RequestMonitor otherClient = RequestMonitor.start("b", expUUID, OUTPUT_ID, STATES, () -> true); //$NON-NLS-1$
+                RequestMonitor otherKind = RequestMonitor.start("a", expUUID, OUTPUT_ID, "tree", () -> true)) { //$NON-NLS-1$ //$NON-NLS-2$
+            assertFalse(first.isCanceled());
+            try (RequestMonitor second = RequestMonitor.start("a", expUUID, OUTPUT_ID, STATES, () -> true)) { //$NON-NLS-1$
+                assertTrue(first.isCanceled());
+                assertFalse(second.isCanceled());
+                assertFalse(otherClient.isCanceled());
+                assertFalse(otherKind.isCanceled());
+                assertEquals(superseded + 1, RequestMonitor.getSupersededCount());
+            }
+        }
+        // A completed request is not cancelled by the next one
+        try (RequestMonitor third = RequestMonitor.start("a", expUUID, OUTPUT_ID, STATES, () -> true)) { //$NON-NLS-1$
+            assertFalse(third.isCanceled());
+        }
+        assertEquals(superseded + 1, RequestMonitor.getSupersededCount());
+    }
+
+    /**
+     * Test that the requests of the clients that do not identify themselves
+     * are never superseded
+     */
+    @Test
+    public void testAnonymous() {
+        UUID expUUID = UUID.randomUUID();
+        long superseded = RequestMonitor.getSupersededCount();
+        try (RequestMonitor first = RequestMonitor.start(null, expUUID, OUTPUT_ID, STATES, () -> true);
+                RequestMonitor second = RequestMonitor.start(null, expUUID, OUTPUT_ID, STATES, () -> true)) {
+            assertFalse(first.isCanceled());
+            assertFalse(second.isCanceled());
+            assertTrue(RequestMonitor.hasActiveRequests(expUUID));
+            assertEquals(superseded, RequestMonitor.getSupersededCount());
+        }
+        assertFalse(RequestMonitor.hasActiveRequests(expUUID));
+    }
+
+    /**
+     * Test that a request is cancelled once its connection is closed
+     */
+    @Test
+    public void testDisconnected() {
+        AtomicBoolean open = new AtomicBoolean(true);
+        long disconnected = RequestMonitor.getDisconnectedCount();
+        try (RequestMonitor monitor = RequestMonitor.start("a", UUID.randomUUID(), OUTPUT_ID, STATES, open::get)) { //$NON-NLS-1$
+            assertFalse(monitor.isCanceled());
+            open.set(false);
+            assertTrue(monitor.isCanceled());
+            assertTrue(monitor.isCanceled());
+            assertEquals(disconnected + 1, RequestMonitor.getDisconnectedCount());
+        }
+    }
+
+}
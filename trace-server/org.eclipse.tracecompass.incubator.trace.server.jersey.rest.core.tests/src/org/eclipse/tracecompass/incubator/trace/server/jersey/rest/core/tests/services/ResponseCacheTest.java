@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.services;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.ws.rs.core.MediaType;
+
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ResponseCache;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ResponseCache.CachedResponse;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ResponseCache.Key;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Test the {@link ResponseCache}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class ResponseCacheTest {
+
+    private static final String OUTPUT_ID = "output"; //$NON-NLS-1$
+    private static final String KIND = "states"; //$NON-NLS-1$
+    private static final MediaType JSON = MediaType.APPLICATION_JSON_TYPE;
+
+    private static Key getKey(ResponseCache cache, UUID expUUID, Map<String, Object> parameters) {
+        Key key = cache.getKey(expUUID, OUTPUT_ID, KIND, parameters, JSON);
+        assertNotNull(key);
+        return key;
+    }
+
+    /**
+     * Test that the same query parameters, in any order and with any integer
+     * type, get the same cached response
+     */
+    @Test
+    public void testNormalizedKey() {
+        ResponseCache cache = new ResponseCache(1024);
+        UUID expUUID = UUID.randomUUID();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("requested_times", ImmutableList.of(0L, 100L)); //$NON-NLS-1$
+        parameters.put("requested_items", ImmutableList.of(1, 2)); //$NON-NLS-1$
+        Map<String, Object> sameParameters = new LinkedHashMap<>();
+        sameParameters.put("requested_items", ImmutableList.of(1L, 2L)); //$NON-NLS-1$
+        sameParameters.put("requested_times", ImmutableList.of(0, 100)); //$NON-NLS-1$
+
+        byte[] body = { 1, 2, 3 };
+        cache.put(getKey(cache, expUUID, parameters), body, Collections.emptySet());
+        CachedResponse cached = cache.get(getKey(cache, expUUID, sameParameters));
+        assertNotNull(cached);
+        assertArrayEquals(body, cached.getBody());
+
+        assertNull(cache.get(getKey(cache, expUUID, ImmutableMap.of("requested_items", ImmutableList.of(1, 3))))); //$NON-NLS-1$
+        assertNull(cache.get(getKey(cache, UUID.randomUUID(), parameters)));
+
+        // A cache of size 0 is disabled
+        assertNull(new ResponseCache(0).getKey(expUUID, OUTPUT_ID, KIND, parameters, JSON));
+    }
+
+    /**
+     * Test that the least recently used responses are evicted first, with the
+     * size of their keys counted in the size of the cache
+     */
+    @Test
+    public void testEviction() {
+        UUID expUUID = UUID.randomUUID();
+        // The keys of the test have the same size
+        long entrySize = getKey(new ResponseCache(1), expUUID, ImmutableMap.of("a", 1)).getSize() + 4; //$NON-NLS-1$
+        ResponseCache cache = new ResponseCache(2 * entrySize + 2);
+        Key first = getKey(cache, expUUID, ImmutableMap.of("a", 1)); //$NON-NLS-1$
+        Key second = getKey(cache, expUUID, ImmutableMap.of("a", 2)); //$NON-NLS-1$
+        Key third = getKey(cache, expUUID, ImmutableMap.of("a", 3)); //$NON-NLS-1$
+        cache.put(first, new byte[4], Collections.emptySet());
+        cache.put(second, new byte[4], Collections.emptySet());
+        assertNotNull(cache.get(first));
+        cache.put(third, new byte[4], Collections.emptySet());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertEquals(2 * entrySize, cache.getSize());
+
+        // Larger than the cache
+        cache.put(second, new byte[(int) (2 * entrySize)], Collections.emptySet());
+        assertNull(cache.get(second));
+        assertEquals(2 * entrySize, cache.getSize());
+    }
+
+    /**
+     * Test the invalidation of the responses of an experiment, including the
+     * responses computed before the invalidation
+     */
+    @Test
+    public void testInvalidate() {
+        ResponseCache cache = new ResponseCache(1024);
+        UUID expUUID = UUID.randomUUID();
+        UUID otherUUID = UUID.randomUUID();
+        Map<String, Object> parameters = ImmutableMap.of("a", 1); //$NON-NLS-1$
+        cache.put(getKey(cache, expUUID, parameters), new byte[4], Collections.emptySet());
+        cache.put(getKey(cache, otherUUID, parameters), new byte[4], Collections.emptySet());
+        Key inProgress = getKey(cache, expUUID, ImmutableMap.of("a", 2)); //$NON-NLS-1$
+
+        cache.invalidate(expUUID);
+        assertNull(cache.get(getKey(cache, expUUID, parameters)));
+        assertNotNull(cache.get(getKey(cache, otherUUID, parameters)));
+        assertEquals(getKey(cache, otherUUID, parameters).getSize() + 4, cache.getSize());
+
+        cache.put(inProgress, new byte[4], Collections.emptySet());
+        assertNull(cache.get(inProgress));
+
+        cache.clear();
+        assertNull(cache.get(getKey(cache, otherUUID, parameters)));
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Test the entity tags of the responses
+     */
+    @Test
+    public void testEntityTag() {
+        ResponseCache cache = new ResponseCache(1024);
+        UUID expUUID = UUID.randomUUID();
+        CachedResponse response = cache.put(getKey(cache, expUUID, ImmutableMap.of("a", 1)), new byte[] { 1 }, Collections.emptySet()); //$NON-NLS-1$
+        CachedResponse other = cache.put(getKey(cache, expUUID, ImmutableMap.of("a", 2)), new byte[] { 2 }, Collections.emptySet()); //$NON-NLS-1$
+        String tag = '"' + response.getEntityTag().getValue() + '"';
+        assertFalse(tag.equals('"' + other.getEntityTag().getValue() + '"'));
+
+        assertTrue(response.matches(tag));
+        assertTrue(response.matches("W/" + tag)); //$NON-NLS-1$
+        assertTrue(response.matches("\"other\", " + tag)); //$NON-NLS-1$
+        assertTrue(response.matches("*")); //$NON-NLS-1$
+        assertFalse(response.matches(null));
+        assertFalse(other.matches(tag));
+    }
+
+}
@@ -14,6 +14,8 @@ package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.s
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.core.Response;
 
@@ -62,6 +64,39 @@ public class TestDataProviderService extends DataProviderService {
     public static final String ENTRY_NAME_WITH_METADATA = "test-with-metadata";
     /** Entry name for entry without metadata */
     public static final String ENTRY_NAME_WITHOUT_METADATA = "test-without-metadata";
+    /** Data provider whose requests are held until they are released */
+    public static final String HELD_REQUEST = "rest.core.test.held.request.dp";
+
+    private static final long HELD_TIMEOUT = 30;
+    private static CountDownLatch fHeldRequest = new CountDownLatch(0);
+    private static CountDownLatch fReleaseRequest = new CountDownLatch(0);
+
+    /**
+     * Hold the next requests to {@link #HELD_REQUEST} until the returned latch
+     * is counted down
+     *
+     * @return the latch to count down to release the requests
+     */
+    public static synchronized CountDownLatch holdRequests() {
+        fHeldRequest = new CountDownLatch(1);
+        fReleaseRequest = new CountDownLatch(1);
+        return fReleaseRequest;
+    }
+
+    /**
+     * Wait until a request to {@link #HELD_REQUEST} is held
+     *
+     * @return true if a request is held, false if none was received in time
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public static boolean awaitHeldRequest() throws InterruptedException {
+        CountDownLatch heldRequest;
+        synchronized (TestDataProviderService.class) {
+            heldRequest = fHeldRequest;
+        }
+        return heldRequest.await(HELD_TIMEOUT, TimeUnit.SECONDS);
+    }
 
     @Override
     public Response getTimeGraphTree(UUID expUUID, String outputId, QueryParameters queryParameters) {
@@ -74,6 +109,21 @@ public class TestDataProviderService extends DataProviderService {
             TmfTreeModel<@NonNull ITmfTreeDataModel> model = new TmfTreeModel<>(ImmutableList.of("test"), list);
             return Response.ok(new TmfModelResponse<>(new TreeModelWrapper(model), ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED)).build();
         }
+        if (outputId.equals(HELD_REQUEST)) {
+            CountDownLatch heldRequest;
+            CountDownLatch releaseRequest;
+            synchronized (TestDataProviderService.class) {
+                heldRequest = fHeldRequest;
+                releaseRequest = fReleaseRequest;
+            }
+            heldRequest.countDown();
+            try {
+                releaseRequest.await(HELD_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Response.ok(new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED)).build();
+        }
         return super.getTimeGraphTree(expUUID, outputId, queryParameters);
     }
 
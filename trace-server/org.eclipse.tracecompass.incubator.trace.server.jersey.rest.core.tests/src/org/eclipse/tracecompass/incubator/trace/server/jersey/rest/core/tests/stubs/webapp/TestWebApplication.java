@@ -14,10 +14,14 @@ package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.s
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ExperimentManagerService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.FilterService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.HealthService;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.MetricsService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.TraceManagerService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.XmlManagerService;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.BinaryModelWriter;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.CORSFilter;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.ExperimentUseListener;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.JacksonObjectMapperProvider;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.MetricsFilter;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.TraceServerConfiguration;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.WebApplication;
 import org.glassfish.jersey.server.ResourceConfig;
@@ -46,9 +50,13 @@ public class TestWebApplication extends WebApplication {
         rc.register(TestDataProviderService.class);
         rc.register(FilterService.class);
         rc.register(HealthService.class);
+        rc.register(MetricsService.class);
         rc.register(XmlManagerService.class);
         rc.register(CORSFilter.class);
+        rc.register(MetricsFilter.class);
+        rc.register(ExperimentUseListener.class);
         rc.register(JacksonObjectMapperProvider.class);
+        rc.register(BinaryModelWriter.class);
         rc.register(OpenApiResource.class);
     }
 }
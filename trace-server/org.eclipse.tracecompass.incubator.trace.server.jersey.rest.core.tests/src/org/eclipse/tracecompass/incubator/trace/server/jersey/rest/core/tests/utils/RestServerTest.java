@@ -12,6 +12,7 @@
 package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.utils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ import javax.ws.rs.core.Response;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.views.QueryParameters;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ExperimentManagerService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.TraceServerConfiguration;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.WebApplication;
 import org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.stubs.DataProviderDescriptorStub;
@@ -70,6 +72,8 @@ public abstract class RestServerTest {
      */
     public static final String OUTPUTS_PATH = "outputs";
 
+    private static final int MAX_OPEN_ITER = 600;
+
     /**
      * Tree path segment
      */
@@ -451,7 +455,8 @@ public abstract class RestServerTest {
     /**
      * Post an experiment from a list of {@link TraceModelStub}, ensure that the
      * post returned correctly and that the returned model was that of the
-     * expected stub.
+     * expected stub. The experiment is opened in the background, wait until
+     * its outputs can be queried.
      *
      * @param name
      *            experiment name
@@ -471,6 +476,18 @@ public abstract class RestServerTest {
         parameters.put(TRACES, traceUUIDs);
         Response response = application.path(EXPERIMENTS).request().post(Entity.json(new QueryParameters(parameters, Collections.emptyList())));
         assertEquals("Failed to POST experiment " + name + ", error code=" + response.getStatus(), 200, response.getStatus());
-        return response.readEntity(ExperimentModelStub.class);
+        ExperimentModelStub experiment = response.readEntity(ExperimentModelStub.class);
+        int iteration = 0;
+        while (ExperimentManagerService.isOpening(experiment.getUUID()) && iteration < MAX_OPEN_ITER) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            iteration++;
+        }
+        assertFalse("Failed to open experiment " + name, ExperimentManagerService.isOpening(experiment.getUUID()));
+        return experiment;
     }
 }
@@ -11,6 +11,8 @@
 package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.utils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.TraceServerConfiguration;
 import org.junit.After;
@@ -29,6 +31,10 @@ public class TraceServerConfigurationTest {
     private static final String PROPERTY_USESSL = "traceserver.useSSL"; //$NON-NLS-1$
     private static final String PROPERTY_KEYSTORE = "traceserver.keystore"; //$NON-NLS-1$
     private static final String PROPERTY_KEYSTORE_PASS = "traceserver.keystorepass"; //$NON-NLS-1$
+    private static final String PROPERTY_MAX_THREADS = "traceserver.maxThreads"; //$NON-NLS-1$
+    private static final String PROPERTY_MIN_THREADS = "traceserver.minThreads"; //$NON-NLS-1$
+    private static final String PROPERTY_VIRTUAL_THREADS = "traceserver.virtualThreads"; //$NON-NLS-1$
+    private static final String PROPERTY_COMPRESSION_MIN_SIZE = "traceserver.compressionMinSize"; //$NON-NLS-1$
 
     /**
      * Reset all properties at the end of the test
@@ -40,6 +46,10 @@ public class TraceServerConfigurationTest {
         System.setProperty(PROPERTY_USESSL, "");
         System.setProperty(PROPERTY_KEYSTORE, "");
         System.setProperty(PROPERTY_KEYSTORE_PASS, "");
+        System.setProperty(PROPERTY_MAX_THREADS, "");
+        System.setProperty(PROPERTY_MIN_THREADS, "");
+        System.setProperty(PROPERTY_VIRTUAL_THREADS, "");
+        System.setProperty(PROPERTY_COMPRESSION_MIN_SIZE, "");
     }
 
     /**
@@ -130,6 +140,36 @@ public class TraceServerConfigurationTest {
         assertConfiguration(new TraceServerConfiguration(8080, false, null, null), TraceServerConfiguration.create());
     }
 
+    /**
+     * Test the thread pool and compression configuration
+     */
+    @Test
+    public void testThreadsAndCompression() {
+        TraceServerConfiguration config = TraceServerConfiguration.create();
+        assertEquals(200, config.getMaxThreads());
+        assertEquals(8, config.getMinThreads());
+        assertFalse(config.useVirtualThreads());
+        assertEquals(1024, config.getCompressionMinSize());
+
+        System.setProperty(PROPERTY_MAX_THREADS, "16");
+        System.setProperty(PROPERTY_MIN_THREADS, "4");
+        System.setProperty(PROPERTY_VIRTUAL_THREADS, String.valueOf(true));
+        System.setProperty(PROPERTY_COMPRESSION_MIN_SIZE, "-1");
+        config = TraceServerConfiguration.create();
+        assertEquals(16, config.getMaxThreads());
+        assertEquals(4, config.getMinThreads());
+        assertTrue(config.useVirtualThreads());
+        assertEquals(-1, config.getCompressionMinSize());
+
+        // The minimum is at most the maximum, invalid values use the defaults
+        System.setProperty(PROPERTY_MAX_THREADS, "2");
+        System.setProperty(PROPERTY_COMPRESSION_MIN_SIZE, "not a number");
+        config = TraceServerConfiguration.create();
+        assertEquals(2, config.getMaxThreads());
+        assertEquals(2, config.getMinThreads());
+        assertEquals(1024, config.getCompressionMinSize());
+    }
+
     private static void assertConfiguration(TraceServerConfiguration expected, TraceServerConfiguration actual) {
         assertEquals(expected.getHost(), actual.getHost());
         assertEquals(expected.getPort(), actual.getPort());
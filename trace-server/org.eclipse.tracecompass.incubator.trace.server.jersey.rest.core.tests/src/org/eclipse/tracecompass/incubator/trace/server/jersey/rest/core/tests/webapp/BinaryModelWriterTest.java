@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.trace.server.jersey.rest.core.tests.webapp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp.BinaryModelWriter;
+import org.eclipse.tracecompass.tmf.core.model.CommonStatusMessage;
+import org.eclipse.tracecompass.tmf.core.model.OutputElementStyle;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphState;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphRowModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphState;
+import org.eclipse.tracecompass.tmf.core.response.ITmfResponse;
+import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
+import org.junit.Test;
+
+/**
+ * Test the binary layout of {@link BinaryModelWriter}
+ */
+public class BinaryModelWriterTest {
+
+    /**
+     * Test that the states of a time graph row are written column by column,
+     * with delta times and the shared style dictionary
+     *
+     * @throws IOException
+     *             if the model could not be written
+     */
+    @Test
+    public void testTimeGraphStates() throws IOException {
+        OutputElementStyle style = new OutputElementStyle("running"); //$NON-NLS-1$
+        ITimeGraphState first = new TimeGraphState(1000L, 10L, "a", style); //$NON-NLS-1$
+        ITimeGraphState second = new TimeGraphState(1010L, 5L, null, style);
+        ITimeGraphState third = new TimeGraphState(1020L, 5L, 7);
+        TimeGraphModel model = new TimeGraphModel(Collections.singletonList(new TimeGraphRowModel(42L, Arrays.asList(first, second, third))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryModelWriter.write(new TmfModelResponse<>(model, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED), out);
+
+        Reader in = new Reader(out.toByteArray());
+        assertArrayEquals("TSPB".getBytes(StandardCharsets.UTF_8), in.readBytes(4)); //$NON-NLS-1$
+        assertEquals(BinaryModelWriter.VERSION, in.readVarint());
+        assertEquals(BinaryModelWriter.KIND_TIME_GRAPH, in.readVarint());
+        assertEquals(ITmfResponse.Status.COMPLETED.ordinal(), in.readVarint());
+        assertEquals(CommonStatusMessage.COMPLETED, in.readNewString(1));
+        assertEquals(1, in.readByte());
+
+        // One row of three states
+        assertEquals(1, in.readVarint());
+        assertEquals(42L, in.readSigned());
+        assertEquals(3, in.readVarint());
+        // Start times, as deltas from the previous end
+        assertEquals(1000L, in.readSigned());
+        assertEquals(0L, in.readSigned());
+        assertEquals(5L, in.readSigned());
+        // Durations
+        assertEquals(10L, in.readSigned());
+        assertEquals(5L, in.readSigned());
+        assertEquals(5L, in.readSigned());
+        // Labels
+        assertEquals("a", in.readNewString(2)); //$NON-NLS-1$
+        assertEquals(0, in.readVarint());
+        assertEquals(0, in.readVarint());
+        // Styles, the second state refers to the style of the first one and
+        // the value of the third state is its parent key
+        assertEquals(1, in.readVarint());
+        assertEquals("running", in.readNewString(3)); //$NON-NLS-1$
+        assertEquals(0, in.readVarint());
+        assertEquals(1, in.readVarint());
+        assertEquals(2, in.readVarint());
+        assertEquals("7", in.readNewString(4)); //$NON-NLS-1$
+        assertEquals(0, in.readVarint());
+        // Tags
+        assertEquals(0, in.readVarint());
+        assertEquals(0, in.readVarint());
+        assertEquals(0, in.readVarint());
+        assertEquals(-1, in.readByte());
+    }
+
+    private static class Reader {
+        private final ByteArrayInputStream fIn;
+
+        Reader(byte[] bytes) {
+            fIn = new ByteArrayInputStream(bytes);
+        }
+
+        int readByte() {
+            return fIn.read();
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            assertEquals(length, fIn.read(bytes));
+            return bytes;
+        }
+
+        long readVarint() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = fIn.read();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readSigned() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readNewString(int reference) throws IOException {
+            assertEquals(reference, readVarint());
+            return new String(readBytes((int) readVarint()), StandardCharsets.UTF_8);
+        }
+    }
+
+}
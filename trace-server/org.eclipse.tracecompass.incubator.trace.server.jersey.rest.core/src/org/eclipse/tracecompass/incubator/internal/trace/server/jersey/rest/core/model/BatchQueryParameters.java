@@ -0,0 +1,68 @@
+/**********************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Contributes to the model used for TSP swagger-core annotations.
+ */
+public interface BatchQueryParameters {
+
+    /**
+     * @return The parameters.
+     */
+    @NonNull
+    @Schema(required = true)
+    BatchParameters getParameters();
+
+    /**
+     * The queries of the batch
+     */
+    interface BatchParameters {
+
+        /**
+         * @return The queries.
+         */
+        @Schema(required = true)
+        BatchQuery[] getQueries();
+    }
+
+    /**
+     * A query of an output in the batch
+     */
+    interface BatchQuery {
+
+        /**
+         * @return The output ID.
+         */
+        @Schema(required = true, description = "ID of the output provider to query")
+        String getOutputId();
+
+        /**
+         * @return The kind of query.
+         */
+        @Schema(required = true, description = "Kind of query, as the endpoint of the output to query", allowableValues = {
+                "dataTree", "xyTree", "xy", "timeGraphTree", "states", "arrows", "tooltip", "annotations", "style", "columns", "lines" })
+        String getKind();
+
+        /**
+         * @return The query parameters.
+         */
+        @Schema(required = true, description = "Parameters of the endpoint of this kind of query")
+        Map<String, Object> getParameters();
+    }
+}
@@ -0,0 +1,50 @@
+/**********************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Contributes to the model used for TSP swagger-core annotations.
+ */
+public interface BatchResult {
+
+    /**
+     * @return The index of the query.
+     */
+    @Schema(description = "Index of the query in the batch")
+    int getIndex();
+
+    /**
+     * @return The output ID.
+     */
+    @Schema(description = "ID of the queried output provider")
+    String getOutputId();
+
+    /**
+     * @return The kind of query.
+     */
+    @Schema(description = "Kind of the query")
+    String getKind();
+
+    /**
+     * @return The HTTP status.
+     */
+    @Schema(description = "HTTP status of the endpoint of this kind of query")
+    int getStatus();
+
+    /**
+     * @return The response.
+     */
+    @Schema(description = "Response of the endpoint of this kind of query, its model response or its error message")
+    Object getResponse();
+}
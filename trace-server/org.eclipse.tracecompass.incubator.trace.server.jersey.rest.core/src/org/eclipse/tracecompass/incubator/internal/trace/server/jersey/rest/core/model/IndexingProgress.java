@@ -0,0 +1,50 @@
+/**********************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Contributes to the model used for TSP swagger-core annotations.
+ */
+public interface IndexingProgress {
+
+    /**
+     * @return The indexing status.
+     */
+    @Schema(description = "Status of the experiment indexing")
+    IndexingStatus getIndexingStatus();
+
+    /**
+     * @return The number of indexed events.
+     */
+    @Schema(description = "Current number of indexed events in the experiment")
+    long getNbEvents();
+
+    /**
+     * @return The indexing rate.
+     */
+    @Schema(description = "Average number of events indexed per second")
+    double getEventsPerSecond();
+
+    /**
+     * @return The elapsed time.
+     */
+    @Schema(description = "Time spent opening and indexing the experiment, in milliseconds")
+    long getElapsedTime();
+
+    /**
+     * @return The estimated remaining time.
+     */
+    @Schema(description = "Estimated time before the experiment is indexed, in milliseconds, -1 if it cannot be estimated yet")
+    long getEstimatedRemainingTime();
+}
@@ -11,6 +11,9 @@
 
 package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model;
 
+import java.util.Map;
+import java.util.UUID;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 
 /**
@@ -30,4 +33,42 @@ public interface ServerStatus {
      */
     @Schema(description = "The status of the server")
     Status getStatus();
+
+    /**
+     * @return The number of requests cancelled by a newer request.
+     */
+    @Schema(description = "The number of data provider requests cancelled by a newer request of the same client, kind and output")
+    long getSupersededRequests();
+
+    /**
+     * @return The number of requests cancelled by a client disconnection.
+     */
+    @Schema(description = "The number of data provider requests cancelled because the server found the connection of the client closed")
+    long getDisconnectedRequests();
+
+    /**
+     * @return The number of opened experiments.
+     */
+    @Schema(description = "The number of experiments currently opened")
+    int getResidentExperiments();
+
+    /**
+     * @return The number of evicted experiments.
+     */
+    @Schema(description = "The number of idle experiments closed to stay in the number and disk usage budgets, they are opened again on their next request")
+    long getEvictedExperiments();
+
+    /**
+     * @return The disk usage of the supplementary files of the opened
+     *         experiments.
+     */
+    @Schema(description = "The disk usage of the supplementary files of the opened experiments, in bytes, measured periodically")
+    long getResidentDiskUsage();
+
+    /**
+     * @return The disk usage of the supplementary files of each opened
+     *         experiment.
+     */
+    @Schema(description = "The disk usage of the supplementary files of each opened experiment by experiment UUID, in bytes, measured periodically")
+    Map<UUID, Long> getExperimentDiskUsage();
 }
@@ -12,6 +12,10 @@
 package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services;
 
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.ANN;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.APPLICATION_BINARY;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.APPLICATION_BINARY_QS;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.APPLICATION_NDJSON;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.CLIENT_ID_HEADER;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.COLUMNS;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.COLUMNS_EX;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.CONSISTENT_PARENT;
@@ -27,6 +31,7 @@ import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.re
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.ELEMENT_EX;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.EMAIL;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.EXP;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.EXPERIMENT_OPENING;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.EXPRESSIONS;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.EXPRESSIONS_EX;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.EXP_UUID;
@@ -54,6 +59,8 @@ import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.re
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.ONE_OF;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.OUTPUT_ID;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.PROVIDER_NOT_FOUND;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.QUERIES;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.QUERIES_EX;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.SERVER;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.STY;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.TABLE_TIMES;
@@ -67,25 +74,44 @@ import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.re
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.TIMES_TT;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.TITLE;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.TRA;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.TOO_MANY_QUERIES;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.TREE_ENTRIES;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.VERSION;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.VTB;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.X_Y;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -93,12 +119,24 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLogBuilder;
@@ -106,7 +144,10 @@ import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.AnnotationResponse;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.AnnotationsQueryParameters;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.ArrowsQueryParameters;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.BatchQueryParameters;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.BatchResult;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.DataProvider;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.GenericResponse;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.LinesQueryParameters;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.MarkerSetsResponse;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.OptionalQueryParameters;
@@ -165,11 +206,16 @@ import org.eclipse.tracecompass.tmf.core.model.xy.ITmfXyModel;
 import org.eclipse.tracecompass.tmf.core.response.ITmfResponse;
 import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
 import org.w3c.dom.Element;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
 import io.swagger.v3.oas.annotations.Hidden;
@@ -209,9 +255,39 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Path("/experiments/{expUUID}/outputs")
 public class DataProviderService {
     private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(DataProviderService.class);
+    private static final MediaType APPLICATION_BINARY_TYPE = MediaType.valueOf(APPLICATION_BINARY);
+    private static final List<Variant> JSON_VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE).build();
+    private static final List<Variant> BINARY_VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE, MediaType.valueOf(APPLICATION_BINARY_QS)).build();
+    private static final java.lang.annotation.Annotation[] NO_ANNOTATIONS = new java.lang.annotation.Annotation[0];
+    private static final String QUERIES_KEY = "queries"; //$NON-NLS-1$
+    private static final String OUTPUT_ID_KEY = "outputId"; //$NON-NLS-1$
+    private static final String KIND_KEY = "kind"; //$NON-NLS-1$
+    private static final String PARAMETERS_KEY = "parameters"; //$NON-NLS-1$
+    private static final String INDEX_KEY = "index"; //$NON-NLS-1$
+    private static final String STATUS_KEY = "status"; //$NON-NLS-1$
+    private static final String RESPONSE_KEY = "response"; //$NON-NLS-1$
+    private static final int BATCH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    /** Number of batch queries waiting for a thread before the batches are refused */
+    private static final int BATCH_QUEUE_SIZE = 256;
+    private static final ExecutorService BATCH_EXECUTOR = createBatchExecutor();
 
     private final DataProviderManager manager = DataProviderManager.getInstance();
 
+    /** Context of the batch request, if this service runs the queries of a batch */
+    private @Nullable BatchContext batchContext;
+
+    @Context
+    private @Nullable HttpServletRequest httpRequest;
+
+    @Context
+    private @Nullable HttpHeaders httpHeaders;
+
+    @Context
+    private javax.ws.rs.core.@Nullable Request jaxrsRequest;
+
+    @Context
+    private @Nullable Providers providers;
+
     /**
      * Getter for the list of data provider descriptions
      *
@@ -224,6 +300,7 @@ public class DataProviderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "Get the list of outputs for this experiment", responses = {
             @ApiResponse(responseCode = "200", description = "Returns a list of output provider descriptors", content = @Content(array = @ArraySchema(schema = @Schema(implementation = DataProvider.class)))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class)))
     })
     public Response getProviders(@Parameter(description = EXP_UUID) @PathParam("expUUID") UUID expUUID) {
@@ -231,6 +308,9 @@ public class DataProviderService {
         if (experiment == null) {
             return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
         }
+        if (ExperimentManagerService.isOpening(expUUID)) {
+            return getOpeningResponse();
+        }
         List<IDataProviderDescriptor> list = DataProviderManager.getInstance().getAvailableProviders(experiment);
         list.addAll(getXmlDataProviderDescriptors(experiment, EnumSet.of(OutputType.TIME_GRAPH)));
         list.addAll(getXmlDataProviderDescriptors(experiment, EnumSet.of(OutputType.XY)));
@@ -259,6 +339,7 @@ public class DataProviderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "Get the output descriptor for this experiment and output", responses = {
             @ApiResponse(responseCode = "200", description = "Returns the output provider descriptor", content = @Content(schema = @Schema(implementation = DataProvider.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class)))
     })
     public Response getProvider(
@@ -268,6 +349,9 @@ public class DataProviderService {
         if (experiment == null) {
             return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
         }
+        if (ExperimentManagerService.isOpening(expUUID)) {
+            return getOpeningResponse();
+        }
         List<IDataProviderDescriptor> list = DataProviderManager.getInstance().getAvailableProviders(experiment);
         list.addAll(getXmlDataProviderDescriptors(experiment, EnumSet.of(OutputType.TIME_GRAPH)));
         list.addAll(getXmlDataProviderDescriptors(experiment, EnumSet.of(OutputType.XY)));
@@ -301,6 +385,7 @@ public class DataProviderService {
     @Operation(summary = "API to get the data tree", description = TREE_ENTRIES, responses = {
             @ApiResponse(responseCode = "200", description = "Returns a list of data tree entries. " +
                     CONSISTENT_PARENT, content = @Content(schema = @Schema(implementation = XYTreeResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = INVALID_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -335,6 +420,7 @@ public class DataProviderService {
     @Operation(summary = "API to get the XY tree", description = TREE_ENTRIES, responses = {
             @ApiResponse(responseCode = "200", description = "Returns a list of XY entries. " +
                     CONSISTENT_PARENT, content = @Content(schema = @Schema(implementation = XYTreeResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = INVALID_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -364,10 +450,11 @@ public class DataProviderService {
     @Path("/XY/{outputId}/xy")
     @Tag(name = X_Y)
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, APPLICATION_BINARY_QS })
     @Operation(summary = "API to get the XY model", description = "Unique endpoint for all xy models, " +
             "ensures that the same template is followed for all endpoints.", responses = {
                     @ApiResponse(responseCode = "200", description = "Return the queried XYResponse", content = @Content(schema = @Schema(implementation = XYResponse.class))),
+                    @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
                     @ApiResponse(responseCode = "400", description = MISSING_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
                     @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
                     @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -385,11 +472,15 @@ public class DataProviderService {
             return errorResponse;
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getXY") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "xy")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITmfTreeXYDataProvider<@NonNull ITmfTreeDataModel> provider = manager.getOrCreateDataProvider(experiment,
                     outputId, ITmfTreeXYDataProvider.class);
@@ -410,8 +501,13 @@ public class DataProviderService {
                 return Response.status(Status.BAD_REQUEST).entity(errorMessage).build();
             }
 
-            TmfModelResponse<@NonNull ITmfXyModel> response = provider.fetchXY(params, null);
-            return Response.ok(response).build();
+            ResponseCache.Key cacheKey = getCacheKey(expUUID, outputId, "xy", params, true); //$NON-NLS-1$
+            Response cachedResponse = getCachedResponse(cacheKey);
+            if (cachedResponse != null) {
+                return cachedResponse;
+            }
+            TmfModelResponse<@NonNull ITmfXyModel> response = provider.fetchXY(params, monitor);
+            return toCachedResponse(cacheKey, experiment, response);
         }
     }
 
@@ -463,6 +559,7 @@ public class DataProviderService {
     @Operation(summary = "API to get the Time Graph tree", description = TREE_ENTRIES, responses = {
             @ApiResponse(responseCode = "200", description = "Returns a list of Time Graph entries. " +
                     CONSISTENT_PARENT, content = @Content(schema = @Schema(implementation = TimeGraphTreeResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = INVALID_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -493,9 +590,10 @@ public class DataProviderService {
     @Path("/timeGraph/{outputId}/states")
     @Tag(name = TGR)
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, APPLICATION_BINARY_QS })
     @Operation(summary = "API to get the Time Graph states", description = "Unique entry point for all TimeGraph states, ensures that the same template is followed for all views", responses = {
             @ApiResponse(responseCode = "200", description = "Returns a list of time graph rows", content = @Content(schema = @Schema(implementation = TimeGraphStatesResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = MISSING_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -513,11 +611,15 @@ public class DataProviderService {
             return errorResponse;
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getStates") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "states")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITimeGraphDataProvider<@NonNull ITimeGraphEntryModel> provider = getTimeGraphProvider(experiment, outputId);
 
@@ -537,8 +639,13 @@ public class DataProviderService {
                 return Response.status(Status.BAD_REQUEST).entity(errorMessage).build();
             }
 
-            TmfModelResponse<TimeGraphModel> response = provider.fetchRowModel(params, null);
-            return Response.ok(response).build();
+            ResponseCache.Key cacheKey = getCacheKey(expUUID, outputId, "states", params, true); //$NON-NLS-1$
+            Response cachedResponse = getCachedResponse(cacheKey);
+            if (cachedResponse != null) {
+                return cachedResponse;
+            }
+            TmfModelResponse<TimeGraphModel> response = provider.fetchRowModel(params, monitor);
+            return toCachedResponse(cacheKey, experiment, response);
         }
     }
 
@@ -562,6 +669,7 @@ public class DataProviderService {
     @Operation(summary = "API to get the Time Graph arrows", description = "Unique entry point for all TimeGraph models, " +
             "ensures that the same template is followed for all models", responses = {
                     @ApiResponse(responseCode = "200", description = "Returns a sampled list of TimeGraph arrows", content = @Content(schema = @Schema(implementation = TimeGraphArrowsResponse.class))),
+                    @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
                     @ApiResponse(responseCode = "400", description = MISSING_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
                     @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
                     @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -579,11 +687,15 @@ public class DataProviderService {
             return errorResponse;
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getArrows") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "arrows")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITimeGraphDataProvider<@NonNull ITimeGraphEntryModel> provider = getTimeGraphProvider(experiment, outputId);
 
@@ -598,7 +710,7 @@ public class DataProviderService {
                 return Response.status(Status.BAD_REQUEST).entity(errorMessage).build();
             }
 
-            TmfModelResponse<@NonNull List<@NonNull ITimeGraphArrow>> response = provider.fetchArrows(params, null);
+            TmfModelResponse<@NonNull List<@NonNull ITimeGraphArrow>> response = provider.fetchArrows(params, monitor);
             return Response.ok(response).build();
         }
     }
@@ -616,6 +728,7 @@ public class DataProviderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "API to get marker sets available for this experiment", responses = {
             @ApiResponse(responseCode = "200", description = "List of marker sets", content = @Content(schema = @Schema(implementation = MarkerSetsResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class)))
     })
     public Response getMarkerSets(@Parameter(description = EXP_UUID) @PathParam("expUUID") UUID expUUID) {
@@ -625,6 +738,9 @@ public class DataProviderService {
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
             List<MarkerSet> markerSets = MarkerConfigXmlParser.getMarkerSets();
             return Response.ok(new TmfModelResponse<>(markerSets, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED)).build();
         }
@@ -646,6 +762,7 @@ public class DataProviderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "API to get annotation categories associated to this experiment and output", responses = {
             @ApiResponse(responseCode = "200", description = "Annotation categories", content = @Content(schema = @Schema(implementation = AnnotationCategoriesResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = MISSING_OUTPUTID, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -659,11 +776,15 @@ public class DataProviderService {
             return Response.status(Status.BAD_REQUEST).entity(MISSING_OUTPUTID).build();
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getAnnotationCategories") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "annotationCategories")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITmfTreeDataProvider<? extends @NonNull ITmfTreeDataModel> provider = manager.getOrCreateDataProvider(experiment,
                     outputId, ITmfTreeDataProvider.class);
@@ -682,7 +803,7 @@ public class DataProviderService {
                 @NonNull Map<@NonNull String, @NonNull Object> params =
                         (markerSetId == null) ? Collections.emptyMap() :
                             ImmutableMap.of(DataProviderParameterUtils.REQUESTED_MARKER_SET_KEY, markerSetId);
-                TmfModelResponse<@NonNull AnnotationCategoriesModel> traceAnnotations = traceAnnotationProvider.fetchAnnotationCategories(params, null);
+                TmfModelResponse<@NonNull AnnotationCategoriesModel> traceAnnotations = traceAnnotationProvider.fetchAnnotationCategories(params, monitor);
                 if (traceAnnotations.getStatus() == ITmfResponse.Status.CANCELLED || traceAnnotations.getStatus() == ITmfResponse.Status.FAILED) {
                     return Response.ok(new TmfModelResponse<>(new AnnotationCategoriesModel(Collections.emptyList()), traceAnnotations.getStatus(), traceAnnotations.getStatusMessage())).build();
                 }
@@ -691,7 +812,7 @@ public class DataProviderService {
             }
             // Fetch data provider annotation categories
             if (provider instanceof IOutputAnnotationProvider) {
-                TmfModelResponse<@NonNull AnnotationCategoriesModel> annotations = ((IOutputAnnotationProvider) provider).fetchAnnotationCategories(Collections.emptyMap(), null);
+                TmfModelResponse<@NonNull AnnotationCategoriesModel> annotations = ((IOutputAnnotationProvider) provider).fetchAnnotationCategories(Collections.emptyMap(), monitor);
                 if (annotations.getStatus() == ITmfResponse.Status.CANCELLED || annotations.getStatus() == ITmfResponse.Status.FAILED) {
                     return Response.ok(new TmfModelResponse<>(new AnnotationCategoriesModel(Collections.emptyList()), annotations.getStatus(), annotations.getStatusMessage())).build();
                 }
@@ -724,6 +845,7 @@ public class DataProviderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "API to get the annotations associated to this experiment and output", responses = {
             @ApiResponse(responseCode = "200", description = "Annotation", content = @Content(schema = @Schema(implementation = AnnotationResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = MISSING_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -743,11 +865,15 @@ public class DataProviderService {
             return errorResponse;
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getAnnotations") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "annotations")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITmfTreeDataProvider<? extends @NonNull ITmfTreeDataModel> provider = manager.getOrCreateDataProvider(experiment,
                     outputId, ITmfTreeDataProvider.class);
@@ -769,7 +895,7 @@ public class DataProviderService {
             // Fetch trace annotations
             TraceAnnotationProvider traceAnnotationProvider = ExperimentManagerService.getTraceAnnotationProvider(expUUID);
             if (traceAnnotationProvider != null) {
-                TmfModelResponse<@NonNull AnnotationModel> traceAnnotations = traceAnnotationProvider.fetchAnnotations(params, null);
+                TmfModelResponse<@NonNull AnnotationModel> traceAnnotations = traceAnnotationProvider.fetchAnnotations(params, monitor);
                 if (traceAnnotations.getStatus() == ITmfResponse.Status.CANCELLED || traceAnnotations.getStatus() == ITmfResponse.Status.FAILED) {
                     return Response.ok(new TmfModelResponse<>(new AnnotationModel(Collections.emptyMap()), traceAnnotations.getStatus(), traceAnnotations.getStatusMessage())).build();
                 }
@@ -778,7 +904,7 @@ public class DataProviderService {
             }
             // Fetch data provider annotations
             if (provider instanceof IOutputAnnotationProvider) {
-                TmfModelResponse<@NonNull AnnotationModel> annotations = ((IOutputAnnotationProvider) provider).fetchAnnotations(params, null);
+                TmfModelResponse<@NonNull AnnotationModel> annotations = ((IOutputAnnotationProvider) provider).fetchAnnotations(params, monitor);
                 if (annotations.getStatus() == ITmfResponse.Status.CANCELLED || annotations.getStatus() == ITmfResponse.Status.FAILED) {
                     return Response.ok(new TmfModelResponse<>(new AnnotationModel(Collections.emptyMap()), annotations.getStatus(), annotations.getStatusMessage())).build();
                 }
@@ -819,6 +945,7 @@ public class DataProviderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "API to get a Time Graph tooltip", description = "Endpoint to retrieve tooltips for time graph", responses = {
             @ApiResponse(responseCode = "200", description = "Returns a list of tooltip keys to values", content = @Content(schema = @Schema(implementation = TimeGraphTooltipResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = MISSING_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -836,11 +963,15 @@ public class DataProviderService {
             return errorResponse;
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getTimeGraphTooltip") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "tooltip")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITimeGraphDataProvider<@NonNull ITimeGraphEntryModel> provider = getTimeGraphProvider(experiment, outputId);
 
@@ -855,7 +986,7 @@ public class DataProviderService {
                 return Response.status(Status.BAD_REQUEST).entity(errorMessage).build();
             }
 
-            TmfModelResponse<@NonNull Map<@NonNull String, @NonNull String>> response = provider.fetchTooltip(params, null);
+            TmfModelResponse<@NonNull Map<@NonNull String, @NonNull String>> response = provider.fetchTooltip(params, monitor);
             return Response.ok(response).build();
         }
     }
@@ -891,6 +1022,7 @@ public class DataProviderService {
     @Operation(summary = "API to get table columns", description = "Unique entry point for output providers, " +
             "to get the column entries", responses = {
                     @ApiResponse(responseCode = "200", description = "Returns a list of table headers", content = @Content(schema = @Schema(implementation = TableColumnHeadersResponse.class))),
+                    @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
                     @ApiResponse(responseCode = "400", description = INVALID_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
                     @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
                     @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -935,9 +1067,10 @@ public class DataProviderService {
     @Path("/table/{outputId}/lines")
     @Tag(name = VTB)
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, APPLICATION_BINARY_QS })
     @Operation(summary = "API to get virtual table lines", responses = {
             @ApiResponse(responseCode = "200", description = "Returns a table model with a 2D array of strings and metadata", content = @Content(schema = @Schema(implementation = VirtualTableResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = INVALID_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class))),
@@ -958,11 +1091,15 @@ public class DataProviderService {
             return errorResponse;
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getLines") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "lines")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITmfVirtualTableDataProvider<? extends IVirtualTableLine, ? extends ITmfTreeDataModel> provider = manager.getOrCreateDataProvider(experiment, outputId, ITmfVirtualTableDataProvider.class);
             if (provider == null) {
@@ -975,7 +1112,7 @@ public class DataProviderService {
                 return Response.status(Status.BAD_REQUEST).entity(errorMessage).build();
             }
 
-            TmfModelResponse<?> response = provider.fetchLines(params, null);
+            TmfModelResponse<?> response = provider.fetchLines(params, monitor);
             if (response.getStatus() == ITmfResponse.Status.FAILED) {
                 return Response.status(Status.BAD_REQUEST).entity(response.getStatusMessage()).build();
             }
@@ -1055,11 +1192,15 @@ public class DataProviderService {
             return Response.status(Status.BAD_REQUEST).entity(errorMessage).build();
         }
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getTree") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "tree")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITmfTreeDataProvider<? extends @NonNull ITmfTreeDataModel> provider = manager.getOrCreateDataProvider(experiment,
                     outputId, ITmfTreeDataProvider.class);
@@ -1073,6 +1214,11 @@ public class DataProviderService {
                 // The analysis cannot be run on this trace
                 return Response.status(Status.METHOD_NOT_ALLOWED).entity(NO_PROVIDER).build();
             }
+            ResponseCache.Key cacheKey = getCacheKey(expUUID, outputId, "tree", params, false); //$NON-NLS-1$
+            Response cachedResponse = getCachedResponse(cacheKey);
+            if (cachedResponse != null) {
+                return cachedResponse;
+            }
             List<Long> timeRequested = DataProviderParameterUtils.extractTimeRequested(params);
             if (timeRequested == null || timeRequested.isEmpty()) {
                 // Make a shallow copy to be able to modify the map
@@ -1080,9 +1226,9 @@ public class DataProviderService {
                 timeRequested = ImmutableList.of(experiment.getStartTime().toNanos(), experiment.getEndTime().toNanos());
                 params.put(DataProviderParameterUtils.REQUESTED_TIME_KEY, timeRequested);
             }
-            TmfModelResponse<?> treeResponse = provider.fetchTree(params, null);
+            TmfModelResponse<?> treeResponse = provider.fetchTree(params, monitor);
             Object model = treeResponse.getModel();
-            return Response.ok(model instanceof TmfTreeModel ? new TmfModelResponse<>(new TreeModelWrapper((TmfTreeModel<@NonNull ITmfTreeDataModel>) model), treeResponse.getStatus(), treeResponse.getStatusMessage()) : treeResponse).build();
+            return toCachedResponse(cacheKey, experiment, model instanceof TmfTreeModel ? new TmfModelResponse<>(new TreeModelWrapper((TmfTreeModel<@NonNull ITmfTreeDataModel>) model), treeResponse.getStatus(), treeResponse.getStatusMessage()) : treeResponse);
         }
     }
 
@@ -1105,6 +1251,7 @@ public class DataProviderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "API to get the style map associated to this experiment and output", responses = {
             @ApiResponse(responseCode = "200", description = "Style model that can be used jointly with OutputElementStyle to retrieve specific style values", content = @Content(schema = @Schema(implementation = StylesResponse.class))),
+            @ApiResponse(responseCode = "202", description = EXPERIMENT_OPENING, content = @Content(schema = @Schema(implementation = GenericResponse.class))),
             @ApiResponse(responseCode = "400", description = MISSING_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = PROVIDER_NOT_FOUND, content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "405", description = NO_PROVIDER, content = @Content(schema = @Schema(implementation = String.class)))
@@ -1122,11 +1269,15 @@ public class DataProviderService {
         }
         Map<String, Object> params = queryParameters.getParameters();
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "DataProviderService#getStyles") //$NON-NLS-1$
-                .setCategory(outputId).build()) {
+                .setCategory(outputId).build();
+                RequestMonitor monitor = startRequest(expUUID, outputId, "styles")) { //$NON-NLS-1$
             TmfExperiment experiment = ExperimentManagerService.getExperimentByUUID(expUUID);
             if (experiment == null) {
                 return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
             }
+            if (ExperimentManagerService.isOpening(expUUID)) {
+                return getOpeningResponse();
+            }
 
             ITmfTreeDataProvider<? extends @NonNull ITmfTreeDataModel> provider = manager.getOrCreateDataProvider(experiment,
                     outputId, ITmfTreeDataProvider.class);
@@ -1137,7 +1288,7 @@ public class DataProviderService {
             }
 
             if (provider instanceof IOutputStyleProvider) {
-                TmfModelResponse<@NonNull OutputStyleModel> styleModelResponse = ((IOutputStyleProvider) provider).fetchStyle(params, null);
+                TmfModelResponse<@NonNull OutputStyleModel> styleModelResponse = ((IOutputStyleProvider) provider).fetchStyle(params, monitor);
                 return Response.ok(styleModelResponse).build();
             }
 
@@ -1147,6 +1298,346 @@ public class DataProviderService {
         }
     }
 
+    /**
+     * Run several queries of the outputs of an experiment at once. The queries
+     * run concurrently and their results are streamed back as soon as they are
+     * ready, one JSON object per line, so a client opening several views saves
+     * a round trip per view.
+     *
+     * @param expUUID
+     *            desired experiment UUID
+     * @param queryParameters
+     *            Parameters with the list of queries to run
+     * @return a stream of {@link BatchResult}, in the order the queries
+     *         complete
+     */
+    @POST
+    @Path("/batch")
+    @Tag(name = EXP)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(APPLICATION_NDJSON)
+    @Operation(summary = "API to run several queries of the outputs of an experiment at once", description = "The queries run concurrently, " +
+            "the result of each query is streamed as a JSON object on its own line as soon as it is ready, with the status and the response of its endpoint.", responses = {
+                    @ApiResponse(responseCode = "200", description = "Returns a stream of query results, one per line", content = @Content(schema = @Schema(implementation = BatchResult.class))),
+                    @ApiResponse(responseCode = "400", description = MISSING_PARAMETERS, content = @Content(schema = @Schema(implementation = String.class))),
+                    @ApiResponse(responseCode = "404", description = NO_SUCH_TRACE, content = @Content(schema = @Schema(implementation = String.class))),
+                    @ApiResponse(responseCode = "503", description = TOO_MANY_QUERIES, content = @Content(schema = @Schema(implementation = String.class)))
+            })
+    public Response getBatch(
+            @Parameter(description = EXP_UUID) @PathParam("expUUID") UUID expUUID,
+            @RequestBody(description = "Query parameters to run the batch. " + QUERIES, content = {
+                    @Content(examples = @ExampleObject("{\"parameters\":{" + QUERIES_EX +
+                            "}}"), schema = @Schema(implementation = BatchQueryParameters.class))
+            }, required = true) QueryParameters queryParameters) {
+        if (queryParameters == null) {
+            return Response.status(Status.BAD_REQUEST).entity(MISSING_PARAMETERS).build();
+        }
+        List<BatchQuery> queries = new ArrayList<>();
+        String errorMessage = readBatchQueries(queryParameters.getParameters().get(QUERIES_KEY), queries);
+        if (errorMessage != null) {
+            return Response.status(Status.BAD_REQUEST).entity(errorMessage).build();
+        }
+        if (ExperimentManagerService.getExperimentByUUID(expUUID) == null) {
+            return Response.status(Status.NOT_FOUND).entity(NO_SUCH_TRACE).build();
+        }
+        Providers contextProviders = providers;
+        ContextResolver<ObjectMapper> resolver = contextProviders != null ? contextProviders.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE) : null;
+        ObjectMapper mapper = resolver != null ? resolver.getContext(BatchResult.class) : null;
+        if (mapper == null) {
+            return Response.status(Status.INTERNAL_SERVER_ERROR).build();
+        }
+
+        /*
+         * The queries run in other threads, outside of the scope of this
+         * request, resolve what they need from the request beforehand.
+         */
+        AtomicBoolean batchEnded = new AtomicBoolean();
+        BooleanSupplier connectionOpen = getConnectionOpen();
+        batchContext = new BatchContext(getClientId(), () -> !batchEnded.get() && connectionOpen.getAsBoolean(), mapper);
+        CompletionService<byte[]> completionService = new ExecutorCompletionService<>(BATCH_EXECUTOR);
+        List<Future<byte[]>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < queries.size(); i++) {
+                int index = i;
+                BatchQuery query = queries.get(i);
+                results.add(completionService.submit(() -> toBatchResult(mapper, index, query, runBatchQuery(expUUID, query))));
+            }
+        } catch (RejectedExecutionException e) {
+            // The client tries again once the queued queries are run
+            batchEnded.set(true);
+            results.forEach(result -> result.cancel(false));
+            return Response.status(Status.SERVICE_UNAVAILABLE).entity(TOO_MANY_QUERIES).build();
+        }
+        StreamingOutput stream = output -> {
+            try {
+                for (int i = 0; i < results.size(); i++) {
+                    output.write(completionService.take().get());
+                    output.flush();
+                }
+            } catch (InterruptedException e) {
+                // Abort the response rather than end it as if it was complete
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            } finally {
+                /*
+                 * Cancel what is left if the stream failed or was interrupted.
+                 * The running queries are not interrupted, that would close the
+                 * files of their state systems, their monitors cancel them.
+                 */
+                batchEnded.set(true);
+                results.forEach(result -> result.cancel(false));
+            }
+        };
+        return Response.ok(stream).build();
+    }
+
+    /**
+     * Read the queries of a batch
+     *
+     * @return an error message if the queries are invalid, null otherwise
+     */
+    private static @Nullable String readBatchQueries(@Nullable Object queriesParameter, List<BatchQuery> queries) {
+        if (!(queriesParameter instanceof List<?>) || ((List<?>) queriesParameter).isEmpty()) {
+            return MISSING_PARAMETERS + ": " + QUERIES_KEY; //$NON-NLS-1$
+        }
+        Set<String> queried = new HashSet<>();
+        for (Object element : (List<?>) queriesParameter) {
+            if (!(element instanceof Map<?, ?>)) {
+                return INVALID_PARAMETERS + ": " + QUERIES_KEY; //$NON-NLS-1$
+            }
+            Map<?, ?> query = (Map<?, ?>) element;
+            Object outputId = query.get(OUTPUT_ID_KEY);
+            Object kind = query.get(KIND_KEY);
+            Object parameters = query.get(PARAMETERS_KEY);
+            if (!(outputId instanceof String) || !(kind instanceof String) || !(parameters instanceof Map<?, ?>)) {
+                return INVALID_PARAMETERS + ": " + QUERIES_KEY; //$NON-NLS-1$
+            }
+            if (!BatchQuery.KINDS.contains(kind)) {
+                return INVALID_PARAMETERS + ": " + KIND_KEY + ' ' + kind; //$NON-NLS-1$
+            }
+            /*
+             * The queries of a client supersede its queries in progress of the
+             * same output and kind
+             */
+            if (!queried.add(outputId + '/' + kind)) {
+                return INVALID_PARAMETERS + ": " + outputId + ' ' + kind + " queried twice"; //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> queryParameters = new HashMap<>((Map<String, Object>) parameters);
+            queries.add(new BatchQuery((String) outputId, (String) kind, queryParameters));
+        }
+        return null;
+    }
+
+    /**
+     * Run a query of a batch with the endpoint of its kind
+     */
+    private Response runBatchQuery(UUID expUUID, BatchQuery query) {
+        QueryParameters queryParameters = new QueryParameters(query.fParameters, Collections.emptyList());
+        try {
+            switch (query.fKind) {
+            case "dataTree": //$NON-NLS-1$
+                return getDataTree(expUUID, query.fOutputId, queryParameters);
+            case "xyTree": //$NON-NLS-1$
+                return getXYTree(expUUID, query.fOutputId, queryParameters);
+            case "xy": //$NON-NLS-1$
+                return getXY(expUUID, query.fOutputId, queryParameters);
+            case "timeGraphTree": //$NON-NLS-1$
+                return getTimeGraphTree(expUUID, query.fOutputId, queryParameters);
+            case "states": //$NON-NLS-1$
+                return getStates(expUUID, query.fOutputId, queryParameters);
+            case "arrows": //$NON-NLS-1$
+                return getArrows(expUUID, query.fOutputId, queryParameters);
+            case "tooltip": //$NON-NLS-1$
+                return getTimeGraphTooltip(expUUID, query.fOutputId, queryParameters);
+            case "annotations": //$NON-NLS-1$
+                return getAnnotations(expUUID, query.fOutputId, queryParameters);
+            case "style": //$NON-NLS-1$
+                return getStyles(expUUID, query.fOutputId, queryParameters);
+            case "columns": //$NON-NLS-1$
+                return getColumns(expUUID, query.fOutputId, queryParameters);
+            case "lines": //$NON-NLS-1$
+                return getLines(expUUID, query.fOutputId, queryParameters);
+            default:
+                return Response.status(Status.BAD_REQUEST).entity(INVALID_PARAMETERS).build();
+            }
+        } catch (WebApplicationException e) {
+            return e.getResponse();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Batch query failed: " + query.fOutputId + ' ' + query.fKind, e); //$NON-NLS-1$
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(String.valueOf(e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Serialize the result of a query of a batch as a line of JSON
+     */
+    private static byte[] toBatchResult(ObjectMapper mapper, int index, BatchQuery query, Response response) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeNumberField(INDEX_KEY, index);
+            generator.writeStringField(OUTPUT_ID_KEY, query.fOutputId);
+            generator.writeStringField(KIND_KEY, query.fKind);
+            generator.writeNumberField(STATUS_KEY, response.getStatus());
+            generator.writeFieldName(RESPONSE_KEY);
+            Object entity = response.getEntity();
+            if (entity instanceof byte[]) {
+                // Cached response, already serialized in JSON
+                generator.writeRawValue(new String((byte[]) entity, StandardCharsets.UTF_8));
+            } else {
+                generator.writeObject(entity);
+            }
+            generator.writeEndObject();
+        }
+        line.write('\n');
+        return line.toByteArray();
+    }
+
+    private static ExecutorService createBatchExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(BATCH_THREADS, BATCH_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(BATCH_QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "Batch Query " + count.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Start monitoring a request of the client, to cancel it when the client
+     * sends a newer request of the same kind for this output, or when the
+     * server finds its connection closed
+     */
+    private RequestMonitor startRequest(UUID expUUID, String outputId, String kind) {
+        BatchContext batch = batchContext;
+        if (batch != null) {
+            return RequestMonitor.start(batch.fClientId, expUUID, outputId, kind, batch.fConnectionOpen);
+        }
+        return RequestMonitor.start(getClientId(), expUUID, outputId, kind, getConnectionOpen());
+    }
+
+    /**
+     * Get the identifier sent by the client. Clients behind the same address
+     * may be different users, so the clients that do not send it are not
+     * identified.
+     *
+     * @return the identifier of the client, or null if it did not send one
+     */
+    private @Nullable String getClientId() {
+        HttpServletRequest servletRequest = httpRequest;
+        String clientId = servletRequest != null ? servletRequest.getHeader(CLIENT_ID_HEADER) : null;
+        return clientId == null || clientId.isEmpty() ? null : clientId;
+    }
+
+    private BooleanSupplier getConnectionOpen() {
+        HttpServletRequest servletRequest = httpRequest;
+        Request baseRequest = servletRequest != null ? Request.getBaseRequest(servletRequest) : null;
+        EndPoint endPoint = baseRequest != null ? baseRequest.getHttpChannel().getEndPoint() : null;
+        // Jetty only finds a connection closed when it fails to use it
+        return endPoint != null ? endPoint::isOpen : () -> true;
+    }
+
+    /**
+     * Get the key of a request in the response cache
+     *
+     * @param binary
+     *            whether the endpoint also produces the binary representation
+     * @return the key, or null if the response is not cached
+     */
+    private ResponseCache.@Nullable Key getCacheKey(UUID expUUID, String outputId, String kind, Map<String, Object> params, boolean binary) {
+        if (batchContext != null) {
+            // The results of a batch are in JSON
+            return ResponseCache.getInstance().getKey(expUUID, outputId, kind, params, MediaType.APPLICATION_JSON_TYPE);
+        }
+        javax.ws.rs.core.Request request = jaxrsRequest;
+        if (request == null || providers == null) {
+            return null;
+        }
+        /*
+         * Negotiate like the endpoint, with the quality of the Accept header
+         * and the lower quality of the binary representation
+         */
+        Variant variant = request.selectVariant(binary ? BINARY_VARIANTS : JSON_VARIANTS);
+        MediaType mediaType = variant != null ? variant.getMediaType() : null;
+        if (mediaType == null) {
+            return null;
+        }
+        if (mediaType.isCompatible(APPLICATION_BINARY_TYPE)) {
+            return ResponseCache.getInstance().getKey(expUUID, outputId, kind, params, APPLICATION_BINARY_TYPE);
+        }
+        return ResponseCache.getInstance().getKey(expUUID, outputId, kind, params, MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    private @Nullable Response getCachedResponse(ResponseCache.@Nullable Key cacheKey) {
+        if (cacheKey == null) {
+            return null;
+        }
+        ResponseCache.CachedResponse cached = ResponseCache.getInstance().get(cacheKey);
+        return cached != null ? toResponse(cached) : null;
+    }
+
+    /**
+     * Serialize and cache a completed response. The other responses are not
+     * cached, as a newer request may get more data.
+     */
+    private Response toCachedResponse(ResponseCache.@Nullable Key cacheKey, TmfExperiment experiment, TmfModelResponse<?> response) {
+        if (cacheKey == null || response.getStatus() != ITmfResponse.Status.COMPLETED) {
+            return Response.ok(response).build();
+        }
+        byte[] body = serialize(response, cacheKey.getMediaType());
+        if (body == null) {
+            return Response.ok(response).build();
+        }
+        return toResponse(ResponseCache.getInstance().put(cacheKey, body, TmfTraceManager.getTraceSetWithExperiment(experiment)));
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private byte @Nullable [] serialize(TmfModelResponse<?> response, MediaType mediaType) {
+        BatchContext batch = batchContext;
+        if (batch != null) {
+            try {
+                return batch.fMapper.writeValueAsBytes(response);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+        Providers bodyWriters = providers;
+        MessageBodyWriter writer = bodyWriters != null ? bodyWriters.getMessageBodyWriter(response.getClass(), response.getClass(), NO_ANNOTATIONS, mediaType) : null;
+        if (writer == null) {
+            return null;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            writer.writeTo(response, response.getClass(), response.getClass(), NO_ANNOTATIONS, mediaType, new MultivaluedHashMap<>(), body);
+        } catch (IOException e) {
+            return null;
+        }
+        return body.toByteArray();
+    }
+
+    private Response toResponse(ResponseCache.CachedResponse cached) {
+        HttpHeaders headers = batchContext == null ? httpHeaders : null;
+        EntityTag tag = cached.getEntityTag();
+        if (headers != null && cached.matches(headers.getHeaderString(HttpHeaders.IF_NONE_MATCH))) {
+            return Response.notModified(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        // The media type of the cached response depends on the Accept header
+        return Response.ok(cached.getBody(), cached.getMediaType()).tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+    }
+
+    /**
+     * Response of a request of an experiment still being opened in the
+     * background, before its analyses are scheduled. The client queries again
+     * later, like for a running response.
+     */
+    private static Response getOpeningResponse() {
+        return Response.status(Status.ACCEPTED).entity(new TmfModelResponse<>(null, ITmfResponse.Status.RUNNING, EXPERIMENT_OPENING)).build();
+    }
+
     private static Response validateParameters(String outputId, QueryParameters queryParameters) {
         if (outputId == null) {
             return Response.status(Status.BAD_REQUEST).entity(MISSING_OUTPUTID).build();
@@ -1156,4 +1647,37 @@ public class DataProviderService {
         }
         return null;
     }
+
+    /**
+     * What the queries of a batch need from the batch request
+     */
+    private static final class BatchContext {
+        private final @Nullable String fClientId;
+        private final BooleanSupplier fConnectionOpen;
+        private final ObjectMapper fMapper;
+
+        BatchContext(@Nullable String clientId, BooleanSupplier connectionOpen, ObjectMapper mapper) {
+            fClientId = clientId;
+            fConnectionOpen = connectionOpen;
+            fMapper = mapper;
+        }
+    }
+
+    /**
+     * A query of an output in a batch
+     */
+    private static final class BatchQuery {
+        private static final Set<String> KINDS = ImmutableSet.of("dataTree", "xyTree", "xy", "timeGraphTree", "states", "arrows", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+                "tooltip", "annotations", "style", "columns", "lines"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+        private final String fOutputId;
+        private final String fKind;
+        private final Map<String, Object> fParameters;
+
+        BatchQuery(String outputId, String kind, Map<String, Object> parameters) {
+            fOutputId = outputId;
+            fKind = kind;
+            fParameters = parameters;
+        }
+    }
 }
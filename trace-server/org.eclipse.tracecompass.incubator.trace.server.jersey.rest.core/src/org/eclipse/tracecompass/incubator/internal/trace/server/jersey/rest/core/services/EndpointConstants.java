@@ -43,9 +43,37 @@ public final class EndpointConstants {
     /** Error message returned for a request for trace that doesn't exist */
     public static final String NO_SUCH_TRACE = "No such trace"; //$NON-NLS-1$
 
+    /** Message returned for a request of an experiment still being opened */
+    public static final String EXPERIMENT_OPENING = "The experiment is being opened, query again later"; //$NON-NLS-1$
+
+    /** Error message returned when too many experiments wait to be opened */
+    public static final String TOO_MANY_OPENING = "Too many experiments are being opened, try again later"; //$NON-NLS-1$
+
+    /** Error message returned when too many batch queries wait to be run */
+    public static final String TOO_MANY_QUERIES = "Too many queries are waiting to be run, try again later"; //$NON-NLS-1$
+
     /** Error message returned for a request with missing output Id */
     public static final String MISSING_OUTPUTID = "Missing parameter outputId"; //$NON-NLS-1$
 
+    /**
+     * Optional request header that identifies a client, a newer request of a
+     * client cancels its request in progress of the same kind and output. The
+     * requests of the clients that do not send it are never superseded.
+     */
+    public static final String CLIENT_ID_HEADER = "Tsp-Client-Id"; //$NON-NLS-1$
+
+    /** Media type of the compact binary representation of the models */
+    public static final String APPLICATION_BINARY = "application/vnd.tracecompass.binary"; //$NON-NLS-1$
+
+    /**
+     * Media type of the binary representation in the Produces annotations,
+     * with a lower quality than JSON so that JSON stays the default
+     */
+    static final String APPLICATION_BINARY_QS = APPLICATION_BINARY + ";qs=0.5"; //$NON-NLS-1$
+
+    /** Media type of a stream of JSON objects, one per line */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson"; //$NON-NLS-1$
+
     /** Query parameter key for requested time range */
     private static final String REQUESTED_TIMERANGE_KEY = "requested_timerange"; //$NON-NLS-1$
 
@@ -123,6 +151,9 @@ public final class EndpointConstants {
     static final String MARKER_CATEGORIES = "The array '" + REQUESTED_MARKER_CATEGORIES_KEY + "' is the list of requested annotation categories; if absent, all annotations are returned."; //$NON-NLS-1$ //$NON-NLS-2$
     static final String MARKER_SET = "The string '" + REQUESTED_MARKER_SET_KEY + "' is the optional requested marker set's id. "; //$NON-NLS-1$ //$NON-NLS-2$
     static final String ONE_OF = "One of '" + REQUESTED_TABLE_INDEX_KEY + "' or '" + REQUESTED_TIME_KEY + "' should be present. "; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    static final String QUERIES = "The array 'queries' is the list of queries to run, each with the 'outputId' to query, the 'kind' of query, one of " + //$NON-NLS-1$
+            "[dataTree, xyTree, xy, timeGraphTree, states, arrows, tooltip, annotations, style, columns, lines], and the 'parameters' of the endpoint of this kind. " + //$NON-NLS-1$
+            "An output is queried at most once per kind in a batch."; //$NON-NLS-1$
     static final String TABLE_TIMES = "If '" + REQUESTED_TIME_KEY + "' is used it should contain an array with a single timestamp. The returned lines starting at the given timestamp (or the nearest following) will be returned. "; //$NON-NLS-1$ //$NON-NLS-2$
     static final String TIMERANGE = "The object '" + REQUESTED_TIMERANGE_KEY + "' is the requested time range and number of samples."; //$NON-NLS-1$ //$NON-NLS-2$
     static final String TIMERANGE_TREE = "The object '" + REQUESTED_TIMERANGE_KEY + "' specifies the requested time range. When absent the tree for the full range is returned."; //$NON-NLS-1$ //$NON-NLS-2$
@@ -146,6 +177,7 @@ public final class EndpointConstants {
     static final String FILTER_QUERY_PARAMETERS_EX = "\"" + FILTER_QUERY_PARAMETERS_KEY + "\": {\"" + FILTER_QUERY_STRATEGY + "\": \"SAMPLED\", \"" + FILTER_EXPRESSIONS_MAP + "\": {\"1\":[\"openat\", \"duration>10ms\"]}}"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
     static final String TIMERANGE_EX_TREE = "\"" + REQUESTED_TIMERANGE_KEY + "\": {\"start\": 111111111, \"end\": 222222222}"; //$NON-NLS-1$ //$NON-NLS-2$
     static final String TIMES_EX_TT = "\"" + REQUESTED_TIME_KEY + "\": [111200000],"; //$NON-NLS-1$ //$NON-NLS-2$
+    static final String QUERIES_EX = "\"queries\": [{\"outputId\": \"outputId\", \"kind\": \"states\", \"parameters\": {" + TIMERANGE_EX + "," + ITEMS_EX + "}}]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
     /** Swagger @ApiResponse description constants reused, or centralized. */
     static final String CANNOT_READ = "Cannot read this trace type"; //$NON-NLS-1$
@@ -98,7 +98,7 @@ public final class Experiment implements Serializable {
                 experiment.getNbEvents(),
                 experiment.getStartTime().toNanos(),
                 experiment.getEndTime().toNanos(),
-                experiment.isIndexing() ? "RUNNING" : "COMPLETED", //$NON-NLS-1$ //$NON-NLS-2$
+                experiment.isIndexing() || ExperimentManagerService.isIndexing(expUUID) ? "RUNNING" : "COMPLETED", //$NON-NLS-1$ //$NON-NLS-2$
                 traces);
     }
 
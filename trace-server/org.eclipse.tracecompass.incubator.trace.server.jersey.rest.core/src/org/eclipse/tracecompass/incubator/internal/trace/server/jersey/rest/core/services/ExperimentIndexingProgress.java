@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
+
+/**
+ * Progress of the opening of an experiment in the background: the experiment
+ * is opened once its first event is read and its analyses are scheduled, then
+ * it is indexed until all its events are read.
+ * <p>
+ * The remaining time is estimated from the part of the time range of the
+ * experiment already indexed.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class ExperimentIndexingProgress {
+
+    private final TmfExperiment fExperiment;
+    private final long fStartTime = System.nanoTime();
+    private final CountDownLatch fOpened = new CountDownLatch(1);
+    private volatile long fEstimatedEnd = Long.MIN_VALUE;
+    private volatile long fCompletedTime = -1;
+
+    /**
+     * Constructor
+     *
+     * @param experiment
+     *            the experiment being opened
+     */
+    public ExperimentIndexingProgress(TmfExperiment experiment) {
+        fExperiment = experiment;
+    }
+
+    /**
+     * Set the estimated end time of the experiment, before it is indexed
+     *
+     * @param estimatedEnd
+     *            the estimated end time, in nanoseconds
+     */
+    public void setEstimatedEnd(long estimatedEnd) {
+        fEstimatedEnd = estimatedEnd;
+    }
+
+    /**
+     * Mark the experiment as opened, its analyses are scheduled
+     */
+    public void opened() {
+        fOpened.countDown();
+    }
+
+    /**
+     * @return whether the experiment is opened, with its analyses scheduled
+     */
+    public boolean isOpened() {
+        return fOpened.getCount() == 0;
+    }
+
+    /**
+     * @return whether the experiment is still being opened or indexed
+     */
+    public boolean isRunning() {
+        if (fCompletedTime >= 0) {
+            return false;
+        }
+        if (fOpened.getCount() > 0 || fExperiment.isIndexing()) {
+            return true;
+        }
+        // The indexing is done since at most the previous query
+        fCompletedTime = System.nanoTime();
+        return false;
+    }
+
+    /**
+     * @return the number of events indexed so far
+     */
+    public long getNbEvents() {
+        return fExperiment.getNbEvents();
+    }
+
+    /**
+     * @return the time spent opening and indexing the experiment, in
+     *         milliseconds
+     */
+    public long getElapsedTime() {
+        long end = isRunning() ? System.nanoTime() : fCompletedTime;
+        return TimeUnit.NANOSECONDS.toMillis(end - fStartTime);
+    }
+
+    /**
+     * @return the average number of events indexed per second
+     */
+    public double getEventsPerSecond() {
+        long elapsed = getElapsedTime();
+        return elapsed > 0 ? getNbEvents() * 1000.0 / elapsed : 0.0;
+    }
+
+    /**
+     * @return the estimated time remaining before the experiment is indexed,
+     *         in milliseconds, 0 once it is indexed, or -1 if it cannot be
+     *         estimated yet
+     */
+    public long getEstimatedRemainingTime() {
+        if (!isRunning()) {
+            return 0;
+        }
+        long start = fExperiment.getStartTime().toNanos();
+        long indexedEnd = fExperiment.getEndTime().toNanos();
+        long estimatedEnd = fEstimatedEnd;
+        if (estimatedEnd <= start || indexedEnd <= start) {
+            return -1;
+        }
+        double ratio = Math.min(1.0, (double) (indexedEnd - start) / (estimatedEnd - start));
+        return (long) (getElapsedTime() * (1.0 - ratio) / ratio);
+    }
+}
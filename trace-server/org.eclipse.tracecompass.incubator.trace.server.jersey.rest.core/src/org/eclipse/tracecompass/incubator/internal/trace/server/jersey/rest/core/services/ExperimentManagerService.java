@@ -15,6 +15,7 @@ import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.re
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.INVALID_PARAMETERS;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.MISSING_PARAMETERS;
 import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.NO_SUCH_EXPERIMENT;
+import static org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants.TOO_MANY_OPENING;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -29,6 +30,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -37,6 +49,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -67,10 +80,13 @@ import org.eclipse.tracecompass.tmf.core.project.model.TraceTypeHelper;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSignalManager;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceClosedSignal;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceOpenedSignal;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
@@ -93,10 +109,59 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = EndpointConstants.EXP)
 public class ExperimentManagerService {
 
-    private static final Map<UUID, List<UUID>> TRACE_UUIDS = Collections.synchronizedMap(new HashMap<>());
-    private static final Map<UUID, IResource> EXPERIMENT_RESOURCES = Collections.synchronizedMap(initExperimentResources());
-    private static final Map<UUID, TmfExperiment> EXPERIMENTS = Collections.synchronizedMap(new HashMap<>());
-    private static final Map<UUID, TraceAnnotationProvider> TRACE_ANNOTATION_PROVIDERS = Collections.synchronizedMap(new HashMap<>());
+    private static final Map<UUID, List<UUID>> TRACE_UUIDS = new ConcurrentHashMap<>();
+    private static final Map<UUID, IResource> EXPERIMENT_RESOURCES = new ConcurrentHashMap<>(initExperimentResources());
+    private static final Map<UUID, TmfExperiment> EXPERIMENTS = new ConcurrentHashMap<>();
+    private static final Map<UUID, TraceAnnotationProvider> TRACE_ANNOTATION_PROVIDERS = new ConcurrentHashMap<>();
+    private static final int LOCK_STRIPES = 64;
+    /**
+     * Locks serializing the creation and deletion of the experiments, the
+     * lookups do not take them. The locks are striped by UUID, so there is no
+     * lock to remove when an experiment is deleted. A thread holds the lock
+     * of one experiment at a time, so experiments sharing a lock only wait
+     * for each other.
+     */
+    private static final Object[] EXPERIMENT_LOCKS = createExperimentLocks();
+    private static final Map<UUID, ExperimentIndexingProgress> INDEXING_PROGRESS = new ConcurrentHashMap<>();
+    private static final int OPEN_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    private static final int OPEN_QUEUE_SIZE = 64;
+
+    /**
+     * Executor opening and indexing the experiments in the background, the
+     * experiments are opened in parallel up to the number of threads, and
+     * the experiments waiting for a thread are bounded
+     */
+    private static final ExecutorService OPEN_EXECUTOR = createOpenExecutor();
+
+    private static volatile CountDownLatch fOpenGate = new CountDownLatch(0);
+
+    /**
+     * System property of the maximum number of experiments kept opened, 0 for
+     * no limit
+     */
+    public static final String PROPERTY_MAX_EXPERIMENTS = "traceserver.maxOpenedExperiments"; //$NON-NLS-1$
+    /**
+     * System property of the budget of the disk usage of the supplementary
+     * files of the opened experiments, in bytes, 0 for no limit. The
+     * supplementary files are what the analyses of the experiments and their
+     * caches are built from, their size stands for the memory they use.
+     */
+    public static final String PROPERTY_EXPERIMENT_BUDGET = "traceserver.experimentBudget"; //$NON-NLS-1$
+    private static final int MAX_EXPERIMENTS = Integer.getInteger(PROPERTY_MAX_EXPERIMENTS, 0);
+    private static final long EXPERIMENT_BUDGET = Long.getLong(PROPERTY_EXPERIMENT_BUDGET, 0L);
+    private static final long MAINTENANCE_PERIOD = 30;
+    private static final Map<UUID, Long> LAST_ACCESS = new ConcurrentHashMap<>();
+    /** Number of requests in progress by experiment, which is not idle */
+    private static final Map<UUID, Integer> IN_USE = new ConcurrentHashMap<>();
+    /**
+     * Disk usage of the opened experiments, measured in the background so the
+     * status requests do not walk the supplementary folders
+     */
+    private static final Map<UUID, Long> DISK_USAGE = new ConcurrentHashMap<>();
+    private static final AtomicLong EVICTED_EXPERIMENTS = new AtomicLong();
+    private static final Object MAINTENANCE_LOCK = new Object();
+    private static final ScheduledExecutorService MAINTENANCE_EXECUTOR = createMaintenanceExecutor();
 
     private static final String EXPERIMENTS_FOLDER = "Experiments"; //$NON-NLS-1$
     private static final String TRACES_FOLDER = "Traces"; //$NON-NLS-1$
@@ -113,18 +178,16 @@ public class ExperimentManagerService {
             @ApiResponse(responseCode = "200", description = "Returns a list of experiments", content = @Content(array = @ArraySchema(schema = @Schema(implementation = org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.Experiment.class))))
     })
     public Response getExperiments() {
-        synchronized (EXPERIMENT_RESOURCES) {
-            List<Experiment> experiments = Lists.transform(new ArrayList<>(EXPERIMENT_RESOURCES.entrySet()), e -> {
-                UUID expUUID = e.getKey();
-                TmfExperiment experiment = EXPERIMENTS.get(expUUID);
-                if (experiment != null) {
-                    return Experiment.from(experiment, expUUID);
-                }
-                IResource experimentResource = e.getValue();
-                return Experiment.from(experimentResource, expUUID);
-            });
-            return Response.ok(experiments).build();
-        }
+        List<Experiment> experiments = Lists.transform(new ArrayList<>(EXPERIMENT_RESOURCES.entrySet()), e -> {
+            UUID expUUID = e.getKey();
+            TmfExperiment experiment = EXPERIMENTS.get(expUUID);
+            if (experiment != null) {
+                return Experiment.from(experiment, expUUID);
+            }
+            IResource experimentResource = e.getValue();
+            return Experiment.from(experimentResource, expUUID);
+        });
+        return Response.ok(experiments).build();
     }
 
     private static Map<UUID, IResource> initExperimentResources() {
@@ -190,6 +253,35 @@ public class ExperimentManagerService {
         return Response.status(Status.NOT_FOUND).build();
     }
 
+    /**
+     * Getter for the progress of the opening and indexing of an experiment.
+     *
+     * @param expUUID
+     *            UUID of the experiment to search for
+     *
+     * @return The indexing progress of the experiment with the queried
+     *         {@link UUID} if it exists.
+     */
+    @GET
+    @Path("/{expUUID}/progress")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the indexing progress of an experiment", responses = {
+            @ApiResponse(responseCode = "200", description = "Return the indexing progress, with the indexing rate and the estimated remaining time", content = @Content(schema = @Schema(implementation = org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.IndexingProgress.class))),
+            @ApiResponse(responseCode = "404", description = NO_SUCH_EXPERIMENT, content = @Content(schema = @Schema(implementation = String.class)))
+    })
+    public Response getIndexingProgress(@Parameter(description = EXP_UUID) @PathParam("expUUID") UUID expUUID) {
+        TmfExperiment experiment = getExperimentByUUID(expUUID);
+        if (experiment == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+        ExperimentIndexingProgress progress = INDEXING_PROGRESS.get(expUUID);
+        if (progress == null) {
+            // Evicted or deleted meanwhile, do not track it again
+            return Response.ok(IndexingProgress.from(experiment)).build();
+        }
+        return Response.ok(IndexingProgress.from(progress)).build();
+    }
+
     /**
      * Delete an experiment by {@link UUID}.
      *
@@ -206,42 +298,46 @@ public class ExperimentManagerService {
             @ApiResponse(responseCode = "404", description = NO_SUCH_EXPERIMENT, content = @Content(schema = @Schema(implementation = String.class)))
     })
     public Response deleteExperiment(@Parameter(description = EXP_UUID) @PathParam("expUUID") UUID expUUID) {
-        IResource resource = EXPERIMENT_RESOURCES.remove(expUUID);
-        if (resource == null) {
-            return Response.status(Status.NOT_FOUND).build();
-        }
-        Experiment experimentModel = Experiment.from(resource, expUUID);
-        TmfExperiment experiment = EXPERIMENTS.remove(expUUID);
-        if (experiment != null) {
-            TmfSignalManager.dispatchSignal(new TmfTraceClosedSignal(this, experiment));
-            experiment.dispose();
-        }
-        TRACE_ANNOTATION_PROVIDERS.remove(expUUID);
-        TRACE_UUIDS.remove(expUUID);
-        boolean deleteResources = true;
-        synchronized (EXPERIMENTS) {
+        synchronized (getExperimentLock(expUUID)) {
+            IResource resource = EXPERIMENT_RESOURCES.remove(expUUID);
+            if (resource == null) {
+                return Response.status(Status.NOT_FOUND).build();
+            }
+            Experiment experimentModel = Experiment.from(resource, expUUID);
+            TmfExperiment experiment = EXPERIMENTS.remove(expUUID);
+            if (experiment != null) {
+                TmfSignalManager.dispatchSignal(new TmfTraceClosedSignal(this, experiment));
+                experiment.dispose();
+            }
+            TRACE_ANNOTATION_PROVIDERS.remove(expUUID);
+            TRACE_UUIDS.remove(expUUID);
+            INDEXING_PROGRESS.remove(expUUID);
+            LAST_ACCESS.remove(expUUID);
+            DISK_USAGE.remove(expUUID);
+            ResponseCache.getInstance().invalidate(expUUID);
+            boolean deleteResources = true;
             for (TmfExperiment e : EXPERIMENTS.values()) {
                 if (resource.equals(e.getResource())) {
                     deleteResources = false;
                     break;
                 }
             }
-        }
-        if (deleteResources) {
-            try {
-                // Delete supplementary files and folders
-                File supplFolder = new File(resource.getPersistentProperty(TmfCommonConstants.TRACE_SUPPLEMENTARY_FOLDER));
-                FileUtils.cleanDirectory(supplFolder);
-                supplFolder.delete();
-                // Delete experiment resource
-                resource.delete(true, null);
-                // Refresh the workspace
-                resource.getProject().refreshLocal(Integer.MAX_VALUE, null);
-            } catch (CoreException | IOException e) {
-                Activator.getInstance().logError("Failed to delete experiment", e); //$NON-NLS-1$
+            if (deleteResources) {
+                try {
+                    // Delete supplementary files and folders
+                    File supplFolder = new File(resource.getPersistentProperty(TmfCommonConstants.TRACE_SUPPLEMENTARY_FOLDER));
+                    FileUtils.cleanDirectory(supplFolder);
+                    supplFolder.delete();
+                    // Delete experiment resource
+                    resource.delete(true, null);
+                    // Refresh the workspace
+                    resource.getProject().refreshLocal(Integer.MAX_VALUE, null);
+                } catch (CoreException | IOException e) {
+                    Activator.getInstance().logError("Failed to delete experiment", e); //$NON-NLS-1$
+                }
             }
+            return Response.ok(experimentModel).build();
         }
-        return Response.ok(experimentModel).build();
     }
 
     /**
@@ -299,43 +395,45 @@ public class ExperimentManagerService {
         }
 
         UUID expUUID = UUID.nameUUIDFromBytes(Objects.requireNonNull(name.getBytes(Charset.defaultCharset())));
-        IFolder resource;
-        try {
-            resource = getExperimentResource(name);
-            if (resource.exists()) {
-                // An experiment with that name has already been created
-                Multiset<IResource> oldTraceResources = HashMultiset.create(getTraceResources(resource));
-                Multiset<IResource> newTraceResources = HashMultiset.create(traceResources);
-                if (!oldTraceResources.equals(newTraceResources)) {
-                    // It's a different experiment, return a conflict
-                    TmfExperiment oldExperiment = new TmfExperiment(ITmfEvent.class, resource.getLocation().toOSString(), new ITmfTrace[0], TmfExperiment.DEFAULT_INDEX_PAGE_SIZE, resource);
-                    Experiment entity = Experiment.from(oldExperiment, expUUID);
-                    oldExperiment.dispose();
-                    return Response.status(Status.CONFLICT).entity(entity).build();
-                }
-                // It's the same experiment, check if it is opened already
-                TmfExperiment experiment = EXPERIMENTS.get(expUUID);
-                if (experiment != null) {
-                    // It's already opened, return it
-                    return Response.ok(Experiment.from(experiment, expUUID)).build();
+        synchronized (getExperimentLock(expUUID)) {
+            IFolder resource;
+            try {
+                resource = getExperimentResource(name);
+                if (resource.exists()) {
+                    // An experiment with that name has already been created
+                    Multiset<IResource> oldTraceResources = HashMultiset.create(getTraceResources(resource));
+                    Multiset<IResource> newTraceResources = HashMultiset.create(traceResources);
+                    if (!oldTraceResources.equals(newTraceResources)) {
+                        // It's a different experiment, return a conflict
+                        TmfExperiment oldExperiment = new TmfExperiment(ITmfEvent.class, resource.getLocation().toOSString(), new ITmfTrace[0], TmfExperiment.DEFAULT_INDEX_PAGE_SIZE, resource);
+                        Experiment entity = Experiment.from(oldExperiment, expUUID);
+                        oldExperiment.dispose();
+                        return Response.status(Status.CONFLICT).entity(entity).build();
+                    }
+                    // It's the same experiment, check if it is opened already
+                    TmfExperiment experiment = EXPERIMENTS.get(expUUID);
+                    if (experiment != null) {
+                        // It's already opened, return it
+                        return Response.ok(Experiment.from(experiment, expUUID)).build();
+                    }
+                    // It's not opened, continue below to instantiate it
+                } else {
+                    // It's a new experiment, create the experiment resources
+                    createExperiment(resource, traceResources);
                 }
-                // It's not opened, continue below to instantiate it
-            } else {
-                // It's a new experiment, create the experiment resources
-                createExperiment(resource, traceResources);
+            } catch (CoreException e) {
+                return Response.status(Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
             }
-        } catch (CoreException e) {
-            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
-        }
 
-        TRACE_UUIDS.put(expUUID, traceUUIDs);
-        EXPERIMENT_RESOURCES.put(expUUID, resource);
-        TmfExperiment experiment = createExperimentInstance(expUUID);
-        if (experiment == null) {
-            return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Failed to instantiate experiment").build(); //$NON-NLS-1$
-        }
+            TRACE_UUIDS.put(expUUID, traceUUIDs);
+            EXPERIMENT_RESOURCES.put(expUUID, resource);
+            TmfExperiment experiment = getExperimentByUUID(expUUID);
+            if (experiment == null) {
+                return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Failed to instantiate experiment").build(); //$NON-NLS-1$
+            }
 
-        return Response.ok(Experiment.from(experiment, expUUID)).build();
+            return Response.ok(Experiment.from(experiment, expUUID)).build();
+        }
     }
 
     private static @Nullable TmfExperiment createExperimentInstance(UUID expUUID) {
@@ -360,16 +458,28 @@ public class ExperimentManagerService {
             experiment = TmfTraceType.instantiateExperiment(experimentTypeId);
             if (experiment != null) {
                 experiment.initExperiment(ITmfEvent.class, resource.getLocation().toOSString(), traces, cacheSize, resource, experimentTypeId);
-                experiment.indexTrace(false);
-                // read first event to make sure start time is initialized
-                ITmfContext ctx = experiment.seekEvent(0);
-                experiment.getNext(ctx);
-                ctx.dispose();
-
-                TmfSignalManager.dispatchSignal(new TmfTraceOpenedSignal(ExperimentManagerService.class, experiment, null));
-
                 EXPERIMENTS.put(expUUID, experiment);
+                LAST_ACCESS.put(expUUID, System.nanoTime());
                 TRACE_ANNOTATION_PROVIDERS.put(expUUID, new TraceAnnotationProvider(experiment));
+
+                // Index the experiment and schedule its analyses in the
+                // background, the request returns with the experiment indexing
+                ExperimentIndexingProgress progress = new ExperimentIndexingProgress(experiment);
+                INDEXING_PROGRESS.put(expUUID, progress);
+                TmfExperiment openedExperiment = experiment;
+                try {
+                    OPEN_EXECUTOR.execute(() -> openExperiment(expUUID, openedExperiment, progress));
+                } catch (RejectedExecutionException e) {
+                    // The client tries again once other experiments are opened
+                    EXPERIMENTS.remove(expUUID);
+                    LAST_ACCESS.remove(expUUID);
+                    TRACE_ANNOTATION_PROVIDERS.remove(expUUID);
+                    INDEXING_PROGRESS.remove(expUUID);
+                    experiment.dispose();
+                    throw new ServiceUnavailableException(Response.status(Status.SERVICE_UNAVAILABLE).entity(TOO_MANY_OPENING).build());
+                }
+                // Measure the new experiment and make room for it
+                MAINTENANCE_EXECUTOR.execute(ExperimentManagerService::maintainExperiments);
                 return experiment;
             }
         } catch (CoreException e) {
@@ -378,6 +488,224 @@ public class ExperimentManagerService {
         return experiment;
     }
 
+    private static void openExperiment(UUID expUUID, TmfExperiment experiment, ExperimentIndexingProgress progress) {
+        try {
+            fOpenGate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            ITmfTimestamp estimatedEnd = experiment.readEnd();
+            if (estimatedEnd != null) {
+                progress.setEstimatedEnd(estimatedEnd.toNanos());
+            }
+            experiment.indexTrace(false);
+            // read first event to make sure start time is initialized
+            ITmfContext ctx = experiment.seekEvent(0);
+            experiment.getNext(ctx);
+            ctx.dispose();
+
+            if (INDEXING_PROGRESS.get(expUUID) == progress) {
+                TmfSignalManager.dispatchSignal(new TmfTraceOpenedSignal(ExperimentManagerService.class, experiment, null));
+            }
+        } catch (RuntimeException e) {
+            // The experiment may have been deleted while opening
+            Activator.getInstance().logWarning("Error opening experiment " + experiment.getName(), e); //$NON-NLS-1$
+        } finally {
+            progress.opened();
+        }
+    }
+
+    /**
+     * Hold the opening of the experiments until the returned latch is counted
+     * down. Use only for unit tests, to observe an experiment while it opens.
+     *
+     * @return the latch to count down to resume the opening
+     */
+    @VisibleForTesting
+    public static CountDownLatch holdOpening() {
+        CountDownLatch gate = new CountDownLatch(1);
+        fOpenGate = gate;
+        return gate;
+    }
+
+    private static ScheduledExecutorService createMaintenanceExecutor() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Experiment Maintenance"); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(ExperimentManagerService::maintainExperiments, MAINTENANCE_PERIOD, MAINTENANCE_PERIOD, TimeUnit.SECONDS);
+        return executor;
+    }
+
+    /**
+     * Measure the disk usage of the opened experiments, then close the least
+     * recently used idle experiments until the opened experiments fit in the
+     * number and disk usage budgets. Experiments being indexed or queried are
+     * not idle.
+     */
+    private static void maintainExperiments() {
+        synchronized (MAINTENANCE_LOCK) {
+            List<UUID> expUUIDs = new ArrayList<>(EXPERIMENTS.keySet());
+            DISK_USAGE.keySet().retainAll(expUUIDs);
+            long diskUsage = 0;
+            for (UUID expUUID : expUUIDs) {
+                TmfExperiment experiment = EXPERIMENTS.get(expUUID);
+                if (experiment != null) {
+                    long experimentUsage = getDiskUsage(experiment);
+                    DISK_USAGE.put(expUUID, experimentUsage);
+                    diskUsage += experimentUsage;
+                }
+            }
+            if (MAX_EXPERIMENTS <= 0 && EXPERIMENT_BUDGET <= 0) {
+                return;
+            }
+            expUUIDs.sort(Comparator.comparingLong(uuid -> LAST_ACCESS.getOrDefault(uuid, 0L)));
+            int count = expUUIDs.size();
+            for (UUID expUUID : expUUIDs) {
+                boolean overCount = MAX_EXPERIMENTS > 0 && count > MAX_EXPERIMENTS;
+                boolean overBudget = EXPERIMENT_BUDGET > 0 && diskUsage > EXPERIMENT_BUDGET;
+                if (!overCount && !overBudget) {
+                    break;
+                }
+                long experimentUsage = DISK_USAGE.getOrDefault(expUUID, 0L);
+                if (evictExperiment(expUUID)) {
+                    count--;
+                    diskUsage -= experimentUsage;
+                }
+            }
+        }
+    }
+
+    /**
+     * Close an experiment if it is idle, keeping its resources and
+     * supplementary files. It is opened again on its next request.
+     *
+     * @param expUUID
+     *            UUID of the experiment to close
+     * @return true if the experiment was closed, false if it is not opened or
+     *         not idle
+     */
+    public static boolean evictExperiment(UUID expUUID) {
+        synchronized (getExperimentLock(expUUID)) {
+            if (isIndexing(expUUID) || isInUse(expUUID)) {
+                return false;
+            }
+            TmfExperiment experiment = EXPERIMENTS.remove(expUUID);
+            if (experiment == null) {
+                return false;
+            }
+            // The requests register before looking up their experiment, check
+            // again for a request that got it before it was removed
+            if (isInUse(expUUID)) {
+                EXPERIMENTS.put(expUUID, experiment);
+                return false;
+            }
+            TRACE_ANNOTATION_PROVIDERS.remove(expUUID);
+            INDEXING_PROGRESS.remove(expUUID);
+            LAST_ACCESS.remove(expUUID);
+            DISK_USAGE.remove(expUUID);
+            TmfSignalManager.dispatchSignal(new TmfTraceClosedSignal(ExperimentManagerService.class, experiment));
+            // Experiment dispose() will dispose its traces as well.
+            experiment.dispose();
+            EVICTED_EXPERIMENTS.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Mark an experiment as used by a request in progress, it is not evicted
+     * until the request is finished
+     *
+     * @param expUUID
+     *            UUID of the queried experiment
+     */
+    public static void startUse(UUID expUUID) {
+        IN_USE.merge(expUUID, 1, Integer::sum);
+    }
+
+    /**
+     * Mark the end of a request that used an experiment
+     *
+     * @param expUUID
+     *            UUID of the queried experiment
+     */
+    public static void endUse(UUID expUUID) {
+        IN_USE.computeIfPresent(expUUID, (uuid, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static boolean isInUse(UUID expUUID) {
+        // The monitored requests also include the queries of the batches
+        return IN_USE.containsKey(expUUID) || RequestMonitor.hasActiveRequests(expUUID);
+    }
+
+    /**
+     * Measure the disk usage of the supplementary files of the experiment and
+     * its traces: the state histories, segment stores and indexes that the
+     * analyses and their caches are built from
+     */
+    private static long getDiskUsage(TmfExperiment experiment) {
+        long diskUsage = 0;
+        for (ITmfTrace trace : TmfTraceManager.getTraceSetWithExperiment(experiment)) {
+            File supplFolder = new File(TmfTraceManager.getSupplementaryFileDir(trace));
+            if (supplFolder.isDirectory()) {
+                try {
+                    diskUsage += FileUtils.sizeOfDirectory(supplFolder);
+                } catch (IllegalArgumentException e) {
+                    // The folder was deleted while measuring it
+                }
+            }
+        }
+        return diskUsage;
+    }
+
+    /**
+     * @return the number of experiments currently opened
+     */
+    public static int getResidentExperimentCount() {
+        return EXPERIMENTS.size();
+    }
+
+    /**
+     * @return the number of experiments closed to stay in the budget since the
+     *         server started
+     */
+    public static long getEvictedExperimentCount() {
+        return EVICTED_EXPERIMENTS.get();
+    }
+
+    /**
+     * @return the disk usage of the supplementary files of the opened
+     *         experiments, in bytes, as last measured in the background
+     */
+    public static long getResidentDiskUsage() {
+        long diskUsage = 0;
+        for (long experimentUsage : DISK_USAGE.values()) {
+            diskUsage += experimentUsage;
+        }
+        return diskUsage;
+    }
+
+    /**
+     * @return the disk usage of the supplementary files of each opened
+     *         experiment, in bytes, as last measured in the background
+     */
+    public static Map<UUID, Long> getExperimentDiskUsage() {
+        return new HashMap<>(DISK_USAGE);
+    }
+
+    private static ExecutorService createOpenExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(OPEN_THREADS, OPEN_THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(OPEN_QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "Experiment Opener " + count.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Get experiment type from experiment resource or auto-detect if it has not
      * been detected. It will fall-back to the default experiment if experiment
@@ -502,13 +830,71 @@ public class ExperimentManagerService {
      * @param expUUID
      *            queried {@link UUID}
      * @return the experiment or null if none match.
+     * @throws ServiceUnavailableException
+     *             if the experiment is not opened and too many experiments
+     *             are waiting to be opened
      */
-    public static synchronized @Nullable TmfExperiment getExperimentByUUID(UUID expUUID) {
+    public static @Nullable TmfExperiment getExperimentByUUID(UUID expUUID) {
         TmfExperiment experiment = EXPERIMENTS.get(expUUID);
-        if (experiment == null) {
-            experiment = createExperimentInstance(expUUID);
+        if (experiment != null) {
+            LAST_ACCESS.put(expUUID, System.nanoTime());
+            return experiment;
         }
-        return experiment;
+        synchronized (getExperimentLock(expUUID)) {
+            // Another thread may have created it while waiting for the lock
+            experiment = EXPERIMENTS.get(expUUID);
+            if (experiment == null) {
+                experiment = createExperimentInstance(expUUID);
+            }
+            return experiment;
+        }
+    }
+
+    private static Object getExperimentLock(UUID expUUID) {
+        return EXPERIMENT_LOCKS[Math.floorMod(expUUID.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Object[] createExperimentLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * Whether an experiment is still being opened in the background, before
+     * its analyses are scheduled. Its outputs are not queried until then.
+     *
+     * @param expUUID
+     *            queried {@link UUID}
+     * @return true if the experiment is being opened
+     */
+    public static boolean isOpening(UUID expUUID) {
+        ExperimentIndexingProgress progress = INDEXING_PROGRESS.get(expUUID);
+        return progress != null && !progress.isOpened();
+    }
+
+    /**
+     * Whether an experiment is still being opened or indexed in the
+     * background
+     *
+     * @param expUUID
+     *            queried {@link UUID}
+     * @return true if the experiment is being opened or indexed
+     */
+    public static boolean isIndexing(UUID expUUID) {
+        ExperimentIndexingProgress progress = INDEXING_PROGRESS.get(expUUID);
+        return progress != null && progress.isRunning();
+    }
+
+    /**
+     * Get the progress of the opening and indexing of the opened experiments
+     *
+     * @return the indexing progress by experiment UUID
+     */
+    public static Map<UUID, ExperimentIndexingProgress> getIndexingProgress() {
+        return Collections.unmodifiableMap(INDEXING_PROGRESS);
     }
 
     /**
@@ -530,9 +916,7 @@ public class ExperimentManagerService {
      * @return true if the given trace is in use by any experiment
      */
     public static boolean isTraceInUse(UUID uuid) {
-        synchronized (TRACE_UUIDS) {
-            return TRACE_UUIDS.values().stream().anyMatch(traceUUIDs -> traceUUIDs.contains(uuid));
-        }
+        return TRACE_UUIDS.values().stream().anyMatch(traceUUIDs -> traceUUIDs.contains(uuid));
     }
 
     /**
@@ -550,6 +934,9 @@ public class ExperimentManagerService {
      * Dispose method to be only called at server shutdown. It disposes experiments, traces etc.
      */
     public static void dispose() {
+        INDEXING_PROGRESS.clear();
+        LAST_ACCESS.clear();
+        DISK_USAGE.clear();
         for (TmfExperiment experiment : EXPERIMENTS.values()) {
             if (experiment != null) {
                 TmfSignalManager.dispatchSignal(new TmfTraceClosedSignal(experiment, experiment));
@@ -37,11 +37,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class HealthService {
 
     private static final String STATUS_KEY = "status"; //$NON-NLS-1$
+    private static final String SUPERSEDED_KEY = "supersededRequests"; //$NON-NLS-1$
+    private static final String DISCONNECTED_KEY = "disconnectedRequests"; //$NON-NLS-1$
+    private static final String RESIDENT_EXPERIMENTS_KEY = "residentExperiments"; //$NON-NLS-1$
+    private static final String EVICTED_EXPERIMENTS_KEY = "evictedExperiments"; //$NON-NLS-1$
+    private static final String RESIDENT_DISK_USAGE_KEY = "residentDiskUsage"; //$NON-NLS-1$
+    private static final String EXPERIMENT_DISK_USAGE_KEY = "experimentDiskUsage"; //$NON-NLS-1$
 
     /**
      * Getter for the health status
      *
-     * @return UP status.
+     * @return UP status, with the number of data provider requests cancelled
+     *         so far, the opened and evicted experiments and their disk usage
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
@@ -51,6 +58,14 @@ public class HealthService {
     })
     public Response getHealthStatus() {
         // If the server can answer this call, it is up!!
-        return Response.ok(ImmutableMap.of(STATUS_KEY, ServerStatus.Status.UP.name())).build();
+        return Response.ok(ImmutableMap.builder()
+                .put(STATUS_KEY, ServerStatus.Status.UP.name())
+                .put(SUPERSEDED_KEY, RequestMonitor.getSupersededCount())
+                .put(DISCONNECTED_KEY, RequestMonitor.getDisconnectedCount())
+                .put(RESIDENT_EXPERIMENTS_KEY, ExperimentManagerService.getResidentExperimentCount())
+                .put(EVICTED_EXPERIMENTS_KEY, ExperimentManagerService.getEvictedExperimentCount())
+                .put(RESIDENT_DISK_USAGE_KEY, ExperimentManagerService.getResidentDiskUsage())
+                .put(EXPERIMENT_DISK_USAGE_KEY, ExperimentManagerService.getExperimentDiskUsage())
+                .build()).build();
     }
 }
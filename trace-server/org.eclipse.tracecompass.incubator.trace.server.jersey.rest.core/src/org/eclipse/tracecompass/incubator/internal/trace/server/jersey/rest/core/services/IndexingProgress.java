@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services;
+
+import java.io.Serializable;
+
+import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Indexing progress model for TSP
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class IndexingProgress implements Serializable {
+    private static final long serialVersionUID = 6127468313946541937L;
+    private final String fIndexingStatus;
+    private final long fNbEvents;
+    private final double fEventsPerSecond;
+    private final long fElapsedTime;
+    private final long fEstimatedRemainingTime;
+
+    /**
+     * {@link JsonCreator} Constructor for final fields
+     *
+     * @param indexingStatus
+     *            indexing status
+     * @param nbEvents
+     *            number of current indexed events
+     * @param eventsPerSecond
+     *            average number of events indexed per second
+     * @param elapsedTime
+     *            time spent opening and indexing the experiment, in
+     *            milliseconds
+     * @param estimatedRemainingTime
+     *            estimated time before the experiment is indexed, in
+     *            milliseconds, or -1 if it cannot be estimated yet
+     */
+    @JsonCreator
+    public IndexingProgress(@JsonProperty("indexingStatus") String indexingStatus,
+            @JsonProperty("nbEvents") long nbEvents,
+            @JsonProperty("eventsPerSecond") double eventsPerSecond,
+            @JsonProperty("elapsedTime") long elapsedTime,
+            @JsonProperty("estimatedRemainingTime") long estimatedRemainingTime) {
+        fIndexingStatus = indexingStatus;
+        fNbEvents = nbEvents;
+        fEventsPerSecond = eventsPerSecond;
+        fElapsedTime = elapsedTime;
+        fEstimatedRemainingTime = estimatedRemainingTime;
+    }
+
+    /**
+     * Constructs an indexing progress model from the tracked progress of an
+     * experiment
+     *
+     * @param progress
+     *            the progress of the opening of the experiment
+     * @return the indexing progress model
+     */
+    public static IndexingProgress from(ExperimentIndexingProgress progress) {
+        boolean running = progress.isRunning();
+        return new IndexingProgress(running ? "RUNNING" : "COMPLETED", //$NON-NLS-1$ //$NON-NLS-2$
+                progress.getNbEvents(),
+                progress.getEventsPerSecond(),
+                progress.getElapsedTime(),
+                progress.getEstimatedRemainingTime());
+    }
+
+    /**
+     * Constructs an indexing progress model from an experiment whose progress
+     * is not tracked
+     *
+     * @param experiment
+     *            the experiment
+     * @return the indexing progress model
+     */
+    public static IndexingProgress from(TmfExperiment experiment) {
+        boolean running = experiment.isIndexing();
+        return new IndexingProgress(running ? "RUNNING" : "COMPLETED", //$NON-NLS-1$ //$NON-NLS-2$
+                experiment.getNbEvents(),
+                0.0,
+                0L,
+                running ? -1L : 0L);
+    }
+
+    /**
+     * Returns the indexing status
+     * @return the indexing status
+     */
+    public String getIndexingStatus() {
+        return fIndexingStatus;
+    }
+
+    /**
+     * Returns the number of indexed events
+     * @return the number of indexed events
+     */
+    public long getNbEvents() {
+        return fNbEvents;
+    }
+
+    /**
+     * Returns the indexing rate
+     * @return the average number of events indexed per second
+     */
+    public double getEventsPerSecond() {
+        return fEventsPerSecond;
+    }
+
+    /**
+     * Returns the elapsed time
+     * @return the elapsed time, in milliseconds
+     */
+    public long getElapsedTime() {
+        return fElapsedTime;
+    }
+
+    /**
+     * Returns the estimated remaining time
+     * @return the estimated remaining time, in milliseconds, or -1 if it cannot
+     *         be estimated yet
+     */
+    public long getEstimatedRemainingTime() {
+        return fEstimatedRemainingTime;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexingProgress [fIndexingStatus=" + fIndexingStatus + ", fNbEvents=" + fNbEvents + ", fEventsPerSecond=" + fEventsPerSecond + ", fElapsedTime=" + fElapsedTime + ", fEstimatedRemainingTime=" + fEstimatedRemainingTime + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+    }
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * Service to scrape the metrics of the server, in the Prometheus text format
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+@Path("/metrics")
+@Tag(name = EndpointConstants.DIA)
+public class MetricsService {
+
+    /**
+     * Getter for the metrics of the server
+     *
+     * @return the request counts, latencies and response sizes by endpoint
+     *         and output, and the state of the server
+     */
+    @GET
+    @Produces(ServerMetrics.CONTENT_TYPE)
+    @Operation(summary = "Get the metrics of this server, in the Prometheus text format", responses = {
+            @ApiResponse(responseCode = "200", description = "The metrics of the requests handled by the server and of its opened experiments", content = @Content(schema = @Schema(implementation = String.class)))
+    })
+    public Response getMetrics() {
+        return Response.ok(ServerMetrics.getInstance().scrape()).build();
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Progress monitor of a data provider request of the trace server. The
+ * monitor is cancelled when the same client sends a newer request of the same
+ * kind for the same output, which supersedes this one. Only the clients that
+ * identify themselves can supersede their requests.
+ * <p>
+ * The monitor is also cancelled once the server knows that the connection of
+ * the client is closed. The server may only find out when it fails to read or
+ * write the connection, so this does not catch every closed connection while
+ * the request is computed.
+ * <p>
+ * The monitors of the requests in progress are registered by client,
+ * experiment, output and kind of request until they are closed.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class RequestMonitor extends NullProgressMonitor implements AutoCloseable {
+
+    private static final Map<RequestKey, RequestMonitor> ACTIVE_REQUESTS = new ConcurrentHashMap<>();
+    private static final AtomicLong SUPERSEDED_REQUESTS = new AtomicLong();
+    private static final AtomicLong DISCONNECTED_REQUESTS = new AtomicLong();
+
+    private final RequestKey fKey;
+    private final BooleanSupplier fConnectionOpen;
+    private final AtomicBoolean fCounted = new AtomicBoolean();
+
+    private RequestMonitor(RequestKey key, BooleanSupplier connectionOpen) {
+        fKey = key;
+        fConnectionOpen = connectionOpen;
+    }
+
+    /**
+     * Start monitoring a request. The request in progress of the same client,
+     * kind and output of the experiment, if any, is cancelled.
+     *
+     * @param clientId
+     *            the identifier of the client, or null if the client did not
+     *            identify itself and its requests are never superseded
+     * @param expUUID
+     *            the UUID of the queried experiment
+     * @param outputId
+     *            the ID of the queried output
+     * @param kind
+     *            the kind of request, for instance "states"
+     * @param connectionOpen
+     *            whether the connection of the client is still open
+     * @return the monitor of the request, to close once the request is done
+     */
+    public static RequestMonitor start(@Nullable String clientId, UUID expUUID, String outputId, String kind, BooleanSupplier connectionOpen) {
+        RequestKey key = new RequestKey(clientId, expUUID, outputId, kind);
+        RequestMonitor monitor = new RequestMonitor(key, connectionOpen);
+        RequestMonitor previous = ACTIVE_REQUESTS.put(key, monitor);
+        if (previous != null) {
+            previous.cancel(SUPERSEDED_REQUESTS);
+        }
+        return monitor;
+    }
+
+    /**
+     * @return the number of requests cancelled by a newer request
+     */
+    public static long getSupersededCount() {
+        return SUPERSEDED_REQUESTS.get();
+    }
+
+    /**
+     * @return the number of requests cancelled because the server found the
+     *         connection of their client closed
+     */
+    public static long getDisconnectedCount() {
+        return DISCONNECTED_REQUESTS.get();
+    }
+
+    /**
+     * Whether requests are in progress for an experiment
+     *
+     * @param expUUID
+     *            the UUID of the experiment
+     * @return true if a request of the experiment is not closed yet
+     */
+    public static boolean hasActiveRequests(UUID expUUID) {
+        return ACTIVE_REQUESTS.keySet().stream().anyMatch(key -> key.fExpUUID.equals(expUUID));
+    }
+
+    @Override
+    public boolean isCanceled() {
+        if (super.isCanceled()) {
+            return true;
+        }
+        if (!fConnectionOpen.getAsBoolean()) {
+            cancel(DISCONNECTED_REQUESTS);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        ACTIVE_REQUESTS.remove(fKey, this);
+    }
+
+    private void cancel(AtomicLong counter) {
+        setCanceled(true);
+        // Count each request once, whatever the cause
+        if (fCounted.compareAndSet(false, true)) {
+            counter.incrementAndGet();
+        }
+    }
+
+    private static final class RequestKey {
+        private final @Nullable String fClientId;
+        private final UUID fExpUUID;
+        private final String fOutputId;
+        private final String fKind;
+
+        RequestKey(@Nullable String clientId, UUID expUUID, String outputId, String kind) {
+            fClientId = clientId;
+            fExpUUID = expUUID;
+            fOutputId = outputId;
+            fKind = kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fClientId, fExpUUID, fOutputId, fKind);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) obj;
+            String clientId = fClientId;
+            if (clientId == null) {
+                // Anonymous requests are distinct from any other request
+                return this == other;
+            }
+            return clientId.equals(other.fClientId) && fExpUUID.equals(other.fExpUUID) && fOutputId.equals(other.fOutputId)
+                    && fKind.equals(other.fKind);
+        }
+    }
+
+}
@@ -0,0 +1,453 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.analysis.IAnalysisModule;
+import org.eclipse.tracecompass.tmf.core.analysis.TmfAbstractAnalysisModule;
+import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
+import org.eclipse.tracecompass.tmf.core.signal.TmfSignalManager;
+import org.eclipse.tracecompass.tmf.core.signal.TmfStartAnalysisSignal;
+import org.eclipse.tracecompass.tmf.core.signal.TmfTraceClosedSignal;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+/**
+ * Cache of the serialized completed responses of the data providers, shared
+ * by the clients of the server. The responses are cached by experiment,
+ * output, kind of request, normalized query parameters and media type, and
+ * identified by an entity tag so the clients can revalidate them.
+ * <p>
+ * The cache is bounded by the total size of the cached bodies and of their
+ * keys, the least recently used responses are evicted first. The responses of an experiment
+ * are invalidated when the experiment or one of its traces is closed, or when
+ * an analysis of one of its traces is started again.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class ResponseCache {
+
+    /**
+     * System property of the maximum size of the cache, in bytes. A size of 0
+     * disables the cache.
+     */
+    public static final String PROPERTY_MAX_SIZE = "traceserver.responseCacheSize"; //$NON-NLS-1$
+    private static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    private static @Nullable ResponseCache fInstance = null;
+
+    private final long fMaxSize;
+    private final Map<Key, CachedResponse> fResponses = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<UUID, Set<ITmfTrace>> fTraceSets = new HashMap<>();
+    private final Map<UUID, Long> fGenerations = new HashMap<>();
+    private long fClearCount = 0;
+    private long fSize = 0;
+    private long fHits = 0;
+    private long fMisses = 0;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize
+     *            the maximum total size of the cached bodies and keys, in
+     *            bytes
+     */
+    public ResponseCache(long maxSize) {
+        fMaxSize = maxSize;
+    }
+
+    /**
+     * Get the cache of the server, sized by the {@link #PROPERTY_MAX_SIZE}
+     * system property
+     *
+     * @return the cache
+     */
+    public static synchronized ResponseCache getInstance() {
+        ResponseCache instance = fInstance;
+        if (instance == null) {
+            instance = new ResponseCache(Long.getLong(PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE));
+            TmfSignalManager.register(instance);
+            fInstance = instance;
+        }
+        return instance;
+    }
+
+    /**
+     * Dispose the cache of the server, to be called at server shutdown
+     */
+    public static synchronized void dispose() {
+        ResponseCache instance = fInstance;
+        if (instance != null) {
+            TmfSignalManager.deregister(instance);
+            instance.clear();
+            fInstance = null;
+        }
+    }
+
+    /**
+     * Get the key of a request. The key keeps the generation of the responses
+     * of the experiment, so a response computed before an invalidation is not
+     * cached.
+     *
+     * @param expUUID
+     *            the UUID of the queried experiment
+     * @param outputId
+     *            the ID of the queried output
+     * @param kind
+     *            the kind of request, for instance "states"
+     * @param parameters
+     *            the query parameters
+     * @param mediaType
+     *            the media type of the response
+     * @return the key, or null if the cache is disabled
+     */
+    public synchronized @Nullable Key getKey(UUID expUUID, String outputId, String kind, Map<String, Object> parameters, MediaType mediaType) {
+        if (fMaxSize <= 0) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        query.append(outputId).append('\n').append(kind).append('\n');
+        appendNormalized(query, parameters);
+        return new Key(expUUID, query.toString(), mediaType, getGeneration(expUUID));
+    }
+
+    /**
+     * Get a cached response
+     *
+     * @param key
+     *            the key of the request
+     * @return the cached response, or null if it is not cached
+     */
+    public synchronized @Nullable CachedResponse get(Key key) {
+        CachedResponse response = fResponses.get(key);
+        if (response != null) {
+            fHits++;
+        } else {
+            fMisses++;
+        }
+        return response;
+    }
+
+    /**
+     * Cache the body of a completed response. The body is not cached if it is
+     * larger than the cache, or if the responses of the experiment were
+     * invalidated since the key was created.
+     *
+     * @param key
+     *            the key of the request
+     * @param body
+     *            the serialized body of the response
+     * @param traceSet
+     *            the experiment and its traces, whose closing invalidates the
+     *            response
+     * @return the response, cached or not
+     */
+    public synchronized CachedResponse put(Key key, byte[] body, Collection<ITmfTrace> traceSet) {
+        CachedResponse response = new CachedResponse(body, key.fMediaType);
+        if (getSize(key, response) > fMaxSize || key.fGeneration != getGeneration(key.fExpUUID)) {
+            return response;
+        }
+        CachedResponse previous = fResponses.put(key, response);
+        if (previous != null) {
+            fSize -= getSize(key, previous);
+        }
+        fSize += getSize(key, response);
+        fTraceSets.computeIfAbsent(key.fExpUUID, uuid -> new HashSet<>()).addAll(traceSet);
+        Iterator<Entry<Key, CachedResponse>> iterator = fResponses.entrySet().iterator();
+        while (fSize > fMaxSize && iterator.hasNext()) {
+            Entry<Key, CachedResponse> entry = iterator.next();
+            fSize -= getSize(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+        return response;
+    }
+
+    /**
+     * Invalidate the cached responses of an experiment
+     *
+     * @param expUUID
+     *            the UUID of the experiment
+     */
+    public synchronized void invalidate(UUID expUUID) {
+        fGenerations.merge(expUUID, 1L, Long::sum);
+        fTraceSets.remove(expUUID);
+        Iterator<Entry<Key, CachedResponse>> iterator = fResponses.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<Key, CachedResponse> entry = iterator.next();
+            if (entry.getKey().fExpUUID.equals(expUUID)) {
+                fSize -= getSize(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalidate all the cached responses
+     */
+    public synchronized void clear() {
+        fClearCount++;
+        fTraceSets.clear();
+        fResponses.clear();
+        fSize = 0;
+    }
+
+    /**
+     * @return the total size of the cached bodies and keys, in bytes
+     */
+    public synchronized long getSize() {
+        return fSize;
+    }
+
+    /**
+     * @return the number of requests answered from the cache
+     */
+    public synchronized long getHitCount() {
+        return fHits;
+    }
+
+    /**
+     * @return the number of cacheable requests that were not in the cache
+     */
+    public synchronized long getMissCount() {
+        return fMisses;
+    }
+
+    /**
+     * Signal handler for the traceClosed signal, invalidates the responses of
+     * the experiments of the trace
+     *
+     * @param signal
+     *            The incoming signal
+     */
+    @TmfSignalHandler
+    public void traceClosed(TmfTraceClosedSignal signal) {
+        invalidate(signal.getTrace());
+    }
+
+    /**
+     * Signal handler for the analysis started signal, invalidates the
+     * responses of the experiments of the analyzed trace
+     *
+     * @param signal
+     *            The incoming signal
+     */
+    @TmfSignalHandler
+    public void analysisStarted(TmfStartAnalysisSignal signal) {
+        IAnalysisModule module = signal.getAnalysisModule();
+        if (module instanceof TmfAbstractAnalysisModule) {
+            ITmfTrace trace = ((TmfAbstractAnalysisModule) module).getTrace();
+            if (trace != null) {
+                invalidate(trace);
+            }
+        }
+    }
+
+    private static long getSize(Key key, CachedResponse response) {
+        return key.getSize() + response.fBody.length;
+    }
+
+    private long getGeneration(UUID expUUID) {
+        // Both counts only increase, so does their sum
+        return fClearCount + fGenerations.getOrDefault(expUUID, 0L);
+    }
+
+    private synchronized void invalidate(ITmfTrace trace) {
+        Set<UUID> expUUIDs = new HashSet<>();
+        for (Entry<UUID, Set<ITmfTrace>> entry : fTraceSets.entrySet()) {
+            if (entry.getValue().contains(trace)) {
+                expUUIDs.add(entry.getKey());
+            }
+        }
+        expUUIDs.forEach(this::invalidate);
+    }
+
+    /**
+     * Append the normalized form of a parameter, where the entries of the maps
+     * are sorted and the integer numbers have the same form whatever their
+     * type
+     */
+    private static void appendNormalized(StringBuilder builder, @Nullable Object value) {
+        if (value instanceof Map) {
+            Map<String, @Nullable Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> sorted.put(String.valueOf(k), v));
+            builder.append('{');
+            sorted.forEach((k, v) -> {
+                appendString(builder, k);
+                builder.append(':');
+                appendNormalized(builder, v);
+                builder.append(',');
+            });
+            builder.append('}');
+        } else if (value instanceof Collection) {
+            builder.append('[');
+            for (Object element : (Collection<?>) value) {
+                appendNormalized(builder, element);
+                builder.append(',');
+            }
+            builder.append(']');
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            builder.append(((Number) value).longValue());
+        } else if (value instanceof String) {
+            appendString(builder, (String) value);
+        } else {
+            builder.append(value);
+        }
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append('"'); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    }
+
+    /**
+     * Key of a cached response
+     */
+    public static final class Key {
+        /* The UUID, the media type and the fields, shared or of fixed size */
+        private static final int KEY_OVERHEAD = 64;
+
+        private final UUID fExpUUID;
+        private final String fQuery;
+        private final MediaType fMediaType;
+        private final long fGeneration;
+
+        private Key(UUID expUUID, String query, MediaType mediaType, long generation) {
+            fExpUUID = expUUID;
+            fQuery = query;
+            fMediaType = mediaType;
+            fGeneration = generation;
+        }
+
+        /**
+         * @return the media type of the response
+         */
+        public MediaType getMediaType() {
+            return fMediaType;
+        }
+
+        /**
+         * @return the size of the key counted in the size of the cache, in
+         *         bytes, with a byte per character of the normalized query
+         */
+        public long getSize() {
+            return KEY_OVERHEAD + fQuery.length();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fExpUUID, fQuery, fMediaType);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return fExpUUID.equals(other.fExpUUID) && fQuery.equals(other.fQuery) && fMediaType.equals(other.fMediaType);
+        }
+    }
+
+    /**
+     * Serialized response, with its entity tag
+     */
+    public static final class CachedResponse {
+        private final byte[] fBody;
+        private final MediaType fMediaType;
+        private final EntityTag fEntityTag;
+
+        private CachedResponse(byte[] body, MediaType mediaType) {
+            fBody = body;
+            fMediaType = mediaType;
+            fEntityTag = new EntityTag(digest(body));
+        }
+
+        /**
+         * @return the serialized body
+         */
+        public byte[] getBody() {
+            return fBody;
+        }
+
+        /**
+         * @return the media type of the body
+         */
+        public MediaType getMediaType() {
+            return fMediaType;
+        }
+
+        /**
+         * @return the entity tag of the body
+         */
+        public EntityTag getEntityTag() {
+            return fEntityTag;
+        }
+
+        /**
+         * Whether the client already has this response
+         *
+         * @param ifNoneMatch
+         *            the value of the If-None-Match header of the request
+         * @return true if one of the tags of the header is the tag of this
+         *         response
+         */
+        public boolean matches(@Nullable String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            String tag = '"' + fEntityTag.getValue() + '"';
+            for (String value : ifNoneMatch.split(",")) { //$NON-NLS-1$
+                value = value.trim();
+                if (value.startsWith("W/")) { //$NON-NLS-1$
+                    // If-None-Match uses the weak comparison
+                    value = value.substring(2);
+                }
+                if (value.equals("*") || value.equals(tag)) { //$NON-NLS-1$
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String digest(byte[] body) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(body); //$NON-NLS-1$
+                StringBuilder builder = new StringBuilder();
+                // The first 128 bits are enough to tell the bodies apart
+                for (int i = 0; i < 16; i++) {
+                    builder.append(String.format("%02x", hash[i])); //$NON-NLS-1$
+                }
+                return builder.toString();
+            } catch (NoSuchAlgorithmException e) {
+                // Every Java platform has SHA-256
+                return Integer.toHexString(Arrays.hashCode(body));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,364 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Metrics of the requests handled by the trace server, exposed in the
+ * Prometheus text format. The requests are counted by HTTP method, endpoint
+ * template and output, with the distribution of their latency and of the size
+ * of their responses. The output IDs are sent by the clients, so only the
+ * outputs that answered a request are labeled by their ID, the other ones are
+ * counted together as "other".
+ * <p>
+ * The scrape also reports the state of the server: the requests in progress,
+ * the response cache, the cancelled requests and the opened experiments with
+ * their indexing progress.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class ServerMetrics {
+
+    /**
+     * Content type of the Prometheus text format
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4"; //$NON-NLS-1$
+
+    private static final String PREFIX = "traceserver_"; //$NON-NLS-1$
+    private static final double[] LATENCY_BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final String OTHER_OUTPUT = "other"; //$NON-NLS-1$
+    private static final int INTERNAL_SERVER_ERROR = 500;
+
+    private static final ServerMetrics INSTANCE = new ServerMetrics();
+
+    private final Map<EndpointKey, EndpointMetrics> fEndpoints = new ConcurrentHashMap<>();
+    private final Set<String> fAnsweredOutputs = ConcurrentHashMap.newKeySet();
+    private final LongAdder fInFlight = new LongAdder();
+    private final LongAdder fUnmappedExceptions = new LongAdder();
+
+    /**
+     * Constructor. Use only for unit tests, otherwise use
+     * {@link #getInstance()} to get the metrics of the server.
+     */
+    public ServerMetrics() {
+        // Do nothing
+    }
+
+    /**
+     * Get the metrics of the server
+     *
+     * @return the metrics
+     */
+    public static ServerMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record the start of a request
+     */
+    public void requestStarted() {
+        fInFlight.increment();
+    }
+
+    /**
+     * Record the end of a request, whether it completed or failed, once its
+     * response is written
+     */
+    public void requestFinished() {
+        fInFlight.decrement();
+    }
+
+    /**
+     * Record the completion of a request, once its response is ready to be
+     * written
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param endpoint
+     *            the template of the matched endpoint, for instance
+     *            "/experiments/{expUUID}/outputs/{outputId}/tree"
+     * @param outputId
+     *            the ID of the queried output, or null if the endpoint is not
+     *            specific to an output
+     * @param status
+     *            the HTTP status of the response
+     * @param durationNanos
+     *            the time spent handling the request, in nanoseconds
+     */
+    public void requestCompleted(String method, String endpoint, @Nullable String outputId, int status, long durationNanos) {
+        if (outputId != null && isAnswered(status)) {
+            fAnsweredOutputs.add(outputId);
+        }
+        EndpointMetrics metrics = getMetrics(method, endpoint, outputId);
+        metrics.fStatuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        double seconds = durationNanos / NANOS_PER_SECOND;
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            if (seconds <= LATENCY_BUCKETS[i]) {
+                metrics.fLatencyBuckets.incrementAndGet(i);
+                break;
+            }
+        }
+        metrics.fLatencyNanos.add(durationNanos);
+    }
+
+    /**
+     * Record a request that failed with an exception that was not mapped to a
+     * response, it is answered with an internal server error
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param endpoint
+     *            the template of the matched endpoint
+     * @param outputId
+     *            the ID of the queried output, or null if the endpoint is not
+     *            specific to an output
+     * @param durationNanos
+     *            the time spent handling the request, in nanoseconds
+     */
+    public void requestFailed(String method, String endpoint, @Nullable String outputId, long durationNanos) {
+        fUnmappedExceptions.increment();
+        requestCompleted(method, endpoint, outputId, INTERNAL_SERVER_ERROR, durationNanos);
+    }
+
+    /**
+     * Record the size of the body written for a response
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param endpoint
+     *            the template of the matched endpoint
+     * @param outputId
+     *            the ID of the queried output, or null if the endpoint is not
+     *            specific to an output
+     * @param size
+     *            the size of the body, in bytes, before compression
+     */
+    public void responseWritten(String method, String endpoint, @Nullable String outputId, long size) {
+        EndpointMetrics metrics = getMetrics(method, endpoint, outputId);
+        metrics.fResponseBytes.add(size);
+        metrics.fResponseCount.increment();
+    }
+
+    /**
+     * @return the number of requests in progress
+     */
+    public long getInFlightCount() {
+        return fInFlight.sum();
+    }
+
+    /**
+     * @return the number of requests failed with an exception that was not
+     *         mapped to a response
+     */
+    public long getUnmappedExceptionCount() {
+        return fUnmappedExceptions.sum();
+    }
+
+    /**
+     * Whether the queried output answered the request. The requests on an
+     * experiment being opened are accepted before their output is looked up.
+     */
+    private static boolean isAnswered(int status) {
+        return (status >= 200 && status < 300 && status != 202) || status == 304;
+    }
+
+    private EndpointMetrics getMetrics(String method, String endpoint, @Nullable String outputId) {
+        String output = ""; //$NON-NLS-1$
+        if (outputId != null) {
+            output = fAnsweredOutputs.contains(outputId) ? outputId : OTHER_OUTPUT;
+        }
+        return fEndpoints.computeIfAbsent(new EndpointKey(method, endpoint, output), k -> new EndpointMetrics());
+    }
+
+    /**
+     * Write the metrics of the requests and the state of the server in the
+     * Prometheus text format
+     *
+     * @param writer
+     *            the writer of the scrape
+     */
+    public void scrape(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        List<Entry<EndpointKey, EndpointMetrics>> endpoints = fEndpoints.entrySet().stream()
+                .sorted(Comparator.comparing(Entry::getKey))
+                .collect(Collectors.toList());
+
+        header(out, "requests_total", "counter", "Number of handled requests by endpoint, output and status"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (Entry<EndpointKey, EndpointMetrics> entry : endpoints) {
+            for (Entry<Integer, LongAdder> status : entry.getValue().fStatuses.entrySet()) {
+                sample(out, "requests_total", entry.getKey().labels() + ",status=\"" + status.getKey() + '"', status.getValue().sum()); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+
+        header(out, "request_duration_seconds", "histogram", "Time spent handling the requests, until their response is ready to be written"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (Entry<EndpointKey, EndpointMetrics> entry : endpoints) {
+            String labels = entry.getKey().labels();
+            EndpointMetrics metrics = entry.getValue();
+            long count = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                count += metrics.fLatencyBuckets.get(i);
+                sample(out, "request_duration_seconds_bucket", labels + ",le=\"" + LATENCY_BUCKETS[i] + '"', count); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            // The requests slower than the last bucket are only in the total
+            long total = Math.max(count, metrics.fStatuses.values().stream().mapToLong(LongAdder::sum).sum());
+            sample(out, "request_duration_seconds_bucket", labels + ",le=\"+Inf\"", total); //$NON-NLS-1$ //$NON-NLS-2$
+            sample(out, "request_duration_seconds_sum", labels, metrics.fLatencyNanos.sum() / NANOS_PER_SECOND); //$NON-NLS-1$
+            sample(out, "request_duration_seconds_count", labels, total); //$NON-NLS-1$
+        }
+
+        header(out, "response_size_bytes", "summary", "Size of the bodies of the responses, before compression"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (Entry<EndpointKey, EndpointMetrics> entry : endpoints) {
+            String labels = entry.getKey().labels();
+            sample(out, "response_size_bytes_sum", labels, entry.getValue().fResponseBytes.sum()); //$NON-NLS-1$
+            sample(out, "response_size_bytes_count", labels, entry.getValue().fResponseCount.sum()); //$NON-NLS-1$
+        }
+
+        header(out, "requests_in_flight", "gauge", "Number of requests in progress"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "requests_in_flight", null, getInFlightCount()); //$NON-NLS-1$
+        header(out, "unmapped_exceptions_total", "counter", "Number of requests failed with an exception that was not mapped to a response"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "unmapped_exceptions_total", null, getUnmappedExceptionCount()); //$NON-NLS-1$
+
+        ResponseCache cache = ResponseCache.getInstance();
+        header(out, "response_cache_hits_total", "counter", "Number of data provider requests answered from the response cache"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "response_cache_hits_total", null, cache.getHitCount()); //$NON-NLS-1$
+        header(out, "response_cache_misses_total", "counter", "Number of cacheable data provider requests not in the response cache"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "response_cache_misses_total", null, cache.getMissCount()); //$NON-NLS-1$
+        header(out, "response_cache_size_bytes", "gauge", "Total size of the cached responses"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "response_cache_size_bytes", null, cache.getSize()); //$NON-NLS-1$
+
+        header(out, "cancelled_requests_total", "counter", "Number of data provider requests cancelled, by cause"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "cancelled_requests_total", "cause=\"superseded\"", RequestMonitor.getSupersededCount()); //$NON-NLS-1$ //$NON-NLS-2$
+        sample(out, "cancelled_requests_total", "cause=\"disconnected\"", RequestMonitor.getDisconnectedCount()); //$NON-NLS-1$ //$NON-NLS-2$
+
+        header(out, "resident_experiments", "gauge", "Number of opened experiments"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "resident_experiments", null, ExperimentManagerService.getResidentExperimentCount()); //$NON-NLS-1$
+        header(out, "evicted_experiments_total", "counter", "Number of idle experiments closed to stay in the budgets"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "evicted_experiments_total", null, ExperimentManagerService.getEvictedExperimentCount()); //$NON-NLS-1$
+        header(out, "resident_disk_usage_bytes", "gauge", "Disk usage of the supplementary files of the opened experiments, as last measured"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        sample(out, "resident_disk_usage_bytes", null, ExperimentManagerService.getResidentDiskUsage()); //$NON-NLS-1$
+
+        Map<UUID, ExperimentIndexingProgress> progress = new TreeMap<>(ExperimentManagerService.getIndexingProgress());
+        header(out, "experiment_indexing", "gauge", "Whether the experiment is still being opened or indexed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        progress.forEach((uuid, p) -> sample(out, "experiment_indexing", experimentLabel(uuid), p.isRunning() ? 1 : 0)); //$NON-NLS-1$
+        header(out, "experiment_indexed_events", "gauge", "Number of events of the experiment indexed so far"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        progress.forEach((uuid, p) -> sample(out, "experiment_indexed_events", experimentLabel(uuid), p.getNbEvents())); //$NON-NLS-1$
+        header(out, "experiment_indexing_events_per_second", "gauge", "Average number of events of the experiment indexed per second"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        progress.forEach((uuid, p) -> sample(out, "experiment_indexing_events_per_second", experimentLabel(uuid), p.getEventsPerSecond())); //$NON-NLS-1$
+        out.flush();
+    }
+
+    /**
+     * Get the scrape of the metrics as a string
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    public String scrape() {
+        StringWriter writer = new StringWriter();
+        scrape(writer);
+        return writer.toString();
+    }
+
+    private static String experimentLabel(UUID uuid) {
+        return "experiment=\"" + uuid + '"'; //$NON-NLS-1$
+    }
+
+    private static void header(PrintWriter out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n'); //$NON-NLS-1$
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n'); //$NON-NLS-1$
+    }
+
+    private static void sample(PrintWriter out, String name, @Nullable String labels, Number value) {
+        out.append(PREFIX).append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(String.valueOf(value)).append('\n');
+    }
+
+    /**
+     * Escape a label value of the Prometheus text format
+     *
+     * @param value
+     *            the value to escape
+     * @return the escaped value
+     */
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+    }
+
+    private static final class EndpointMetrics {
+        private final Map<Integer, LongAdder> fStatuses = new ConcurrentSkipListMap<>();
+        private final AtomicLongArray fLatencyBuckets = new AtomicLongArray(LATENCY_BUCKETS.length);
+        private final LongAdder fLatencyNanos = new LongAdder();
+        private final LongAdder fResponseBytes = new LongAdder();
+        private final LongAdder fResponseCount = new LongAdder();
+    }
+
+    private static final class EndpointKey implements Comparable<EndpointKey> {
+        private final String fMethod;
+        private final String fEndpoint;
+        private final String fOutputId;
+
+        EndpointKey(String method, String endpoint, String outputId) {
+            fMethod = method;
+            fEndpoint = endpoint;
+            fOutputId = outputId;
+        }
+
+        String labels() {
+            return "method=\"" + escape(fMethod) + "\",endpoint=\"" + escape(fEndpoint) + "\",output=\"" + escape(fOutputId) + '"'; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+
+        @Override
+        public int compareTo(EndpointKey other) {
+            return Comparator.comparing((EndpointKey key) -> key.fEndpoint)
+                    .thenComparing(key -> key.fMethod)
+                    .thenComparing(key -> key.fOutputId)
+                    .compare(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fMethod, fEndpoint, fOutputId);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof EndpointKey)) {
+                return false;
+            }
+            EndpointKey other = (EndpointKey) obj;
+            return fMethod.equals(other.fMethod) && fEndpoint.equals(other.fEndpoint) && fOutputId.equals(other.fOutputId);
+        }
+    }
+
+}
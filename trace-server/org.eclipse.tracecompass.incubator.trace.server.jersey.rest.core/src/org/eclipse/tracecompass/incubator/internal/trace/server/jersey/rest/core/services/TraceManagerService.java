@@ -24,7 +24,6 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +31,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.Consumes;
@@ -89,7 +89,7 @@ public class TraceManagerService {
 
     private static final boolean IS_WINDOWS = System.getProperty("os.name").contains("Windows"); //$NON-NLS-1$ //$NON-NLS-2$
 
-    private static final Map<UUID, IResource> TRACES = Collections.synchronizedMap(initTraces());
+    private static final Map<UUID, IResource> TRACES = new ConcurrentHashMap<>(initTraces());
 
     private static final String TRACES_FOLDER = "Traces"; //$NON-NLS-1$
 
@@ -104,16 +104,14 @@ public class TraceManagerService {
             @ApiResponse(responseCode = "200", description = "Returns a list of traces", content = @Content(array = @ArraySchema(schema = @Schema(implementation = org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.Trace.class))))
     })
     public Response getTraces() {
-        synchronized (TRACES) {
-            List<Trace> traces = new ArrayList<>();
-            for (UUID uuid : TRACES.keySet()) {
-                Trace trace = createTraceModel(uuid);
-                if (trace != null) {
-                    traces.add(trace);
-                }
+        List<Trace> traces = new ArrayList<>();
+        for (UUID uuid : TRACES.keySet()) {
+            Trace trace = createTraceModel(uuid);
+            if (trace != null) {
+                traces.add(trace);
             }
-            return Response.ok(traces).build();
         }
+        return Response.ok(traces).build();
     }
 
     private static Map<UUID, IResource> initTraces() {
@@ -214,14 +212,12 @@ public class TraceManagerService {
             IPath oldLocation = ResourceUtil.getLocation(resource);
             if (oldLocation == null || !targetLocation.equals(oldLocation.removeTrailingSeparator()) ||
                     !traceType.equals(resource.getPersistentProperty(TmfCommonConstants.TRACETYPE))) {
-                synchronized (TRACES) {
-                    Optional<@NonNull Entry<UUID, IResource>> oldEntry = TRACES.entrySet().stream().filter(entry -> resource.equals(entry.getValue())).findFirst();
-                    if (!oldEntry.isPresent()) {
-                        return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Failed to find conflicting trace").build(); //$NON-NLS-1$
-                    }
-                    UUID oldUUID = oldEntry.get().getKey();
-                    return Response.status(Status.CONFLICT).entity(createTraceModel(oldUUID)).build();
+                Optional<@NonNull Entry<UUID, IResource>> oldEntry = TRACES.entrySet().stream().filter(entry -> resource.equals(entry.getValue())).findFirst();
+                if (!oldEntry.isPresent()) {
+                    return Response.status(Status.INTERNAL_SERVER_ERROR).entity("Failed to find conflicting trace").build(); //$NON-NLS-1$
                 }
+                UUID oldUUID = oldEntry.get().getKey();
+                return Response.status(Status.CONFLICT).entity(createTraceModel(oldUUID)).build();
             }
         }
         UUID uuid = getTraceUUID(resource);
@@ -95,6 +95,8 @@ public class XmlManagerService {
         }
         XmlUtils.deleteFiles(ImmutableList.of(Objects.requireNonNull(name)));
         XmlUtils.saveFilesStatus();
+        // The analyses of the file are removed
+        ResponseCache.getInstance().clear();
         return Response.ok().build();
     }
 
@@ -111,6 +113,7 @@ public class XmlManagerService {
             if (status.isOK()) {
                 XmlAnalysisModuleSource.notifyModuleChange();
                 XmlUtils.saveFilesStatus();
+                ResponseCache.getInstance().clear();
                 return Response.ok().build();
             }
         }
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.ScopeLog;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.model.views.VirtualTableModelWrapper;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.EndpointConstants;
+import org.eclipse.tracecompass.internal.provisional.tmf.core.model.table.IVirtualTableLine;
+import org.eclipse.tracecompass.internal.provisional.tmf.core.model.table.VirtualTableCell;
+import org.eclipse.tracecompass.tmf.core.model.OutputElementStyle;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphRowModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphState;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphModel;
+import org.eclipse.tracecompass.tmf.core.model.xy.ISeriesModel;
+import org.eclipse.tracecompass.tmf.core.model.xy.ITmfXyModel;
+import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
+
+/**
+ * Writes the time graph states, XY series and virtual table lines responses
+ * in a compact binary layout, for the clients that send
+ * {@link EndpointConstants#APPLICATION_BINARY} in their Accept header. JSON
+ * stays the default representation.
+ * <p>
+ * The layout is:
+ * <ul>
+ * <li>a header: the magic bytes <code>TSPB</code>, the format version, the
+ * kind of model (1 for time graph states, 2 for XY, 3 for table lines), the
+ * ordinal of the response status and the status message,</li>
+ * <li>a presence byte, then the model, written column by column: all the
+ * start times of a row, then all its durations, labels, styles and tags.</li>
+ * </ul>
+ * Integers are unsigned LEB128 varints, signed values are zigzag encoded and
+ * times are written as the delta from the previous time of the column, so
+ * dense rows take a few bytes per state. Doubles are 8 bytes big-endian.
+ * <p>
+ * Strings and styles are written through dictionaries shared by the whole
+ * response: a reference is a varint, 0 for null, the index plus one of an
+ * entry already written, or the size of the dictionary plus one followed by
+ * the new entry, which is then added to the dictionary. A string entry is
+ * its UTF-8 length and bytes. A style entry is its parent key string
+ * reference, its number of values and the values, each a key string
+ * reference, a type byte (0 null, 1 string, 2 integer, 3 double) and the
+ * value.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+@SuppressWarnings("restriction")
+@Provider
+@Produces(EndpointConstants.APPLICATION_BINARY)
+public class BinaryModelWriter implements MessageBodyWriter<TmfModelResponse<?>> {
+
+    /** Version of the binary layout */
+    public static final int VERSION = 1;
+
+    /** Kind of a time graph states model */
+    public static final int KIND_TIME_GRAPH = 1;
+    /** Kind of an XY model */
+    public static final int KIND_XY = 2;
+    /** Kind of a virtual table lines model */
+    public static final int KIND_TABLE = 3;
+
+    private static final byte[] MAGIC = { 'T', 'S', 'P', 'B' };
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_INTEGER = 2;
+    private static final int TYPE_DOUBLE = 3;
+
+    private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(BinaryModelWriter.class);
+
+    @Override
+    public boolean isWriteable(@Nullable Class<?> type, @Nullable Type genericType, Annotation @Nullable [] annotations, @Nullable MediaType mediaType) {
+        return type != null && TmfModelResponse.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(TmfModelResponse<?> response, @Nullable Class<?> type, @Nullable Type genericType, Annotation @Nullable [] annotations, @Nullable MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(TmfModelResponse<?> response, @Nullable Class<?> type, @Nullable Type genericType, Annotation @Nullable [] annotations, @Nullable MediaType mediaType,
+            @Nullable MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        try (ScopeLog sl = new ScopeLog(LOGGER, Level.FINE, "BinaryModelWrite")) { //$NON-NLS-1$
+            // Do not close the entity stream, the container owns it
+            BufferedOutputStream out = new BufferedOutputStream(entityStream, BUFFER_SIZE);
+            write(response, out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Write a response in the binary layout
+     *
+     * @param response
+     *            the response, its model is a {@link TimeGraphModel}, an
+     *            {@link ITmfXyModel}, a {@link VirtualTableModelWrapper} or
+     *            null
+     * @param out
+     *            the stream to write to
+     * @throws IOException
+     *             if the stream could not be written
+     * @throws WebApplicationException
+     *             if the model has no binary layout
+     */
+    public static void write(TmfModelResponse<?> response, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(out);
+        Object model = response.getModel();
+        int kind;
+        if (model instanceof TimeGraphModel) {
+            kind = KIND_TIME_GRAPH;
+        } else if (model instanceof ITmfXyModel) {
+            kind = KIND_XY;
+        } else if (model instanceof VirtualTableModelWrapper) {
+            kind = KIND_TABLE;
+        } else if (model == null) {
+            kind = 0;
+        } else {
+            throw new WebApplicationException("No binary representation of " + model.getClass().getName(), 406); //$NON-NLS-1$
+        }
+        out.write(MAGIC);
+        encoder.writeVarint(VERSION);
+        encoder.writeVarint(kind);
+        encoder.writeVarint(response.getStatus().ordinal());
+        encoder.writeString(response.getStatusMessage());
+        out.write(model == null ? 0 : 1);
+        if (model instanceof TimeGraphModel) {
+            writeTimeGraph(encoder, (TimeGraphModel) model);
+        } else if (model instanceof ITmfXyModel) {
+            writeXy(encoder, (ITmfXyModel) model);
+        } else if (model instanceof VirtualTableModelWrapper) {
+            writeTable(encoder, (VirtualTableModelWrapper) model);
+        }
+    }
+
+    private static void writeTimeGraph(Encoder encoder, TimeGraphModel model) throws IOException {
+        List<ITimeGraphRowModel> rows = model.getRows();
+        encoder.writeVarint(rows.size());
+        for (ITimeGraphRowModel row : rows) {
+            List<ITimeGraphState> states = row.getStates();
+            encoder.writeSigned(row.getEntryID());
+            encoder.writeVarint(states.size());
+            long previousEnd = 0;
+            for (ITimeGraphState state : states) {
+                // Contiguous states have a delta of 0
+                encoder.writeSigned(state.getStartTime() - previousEnd);
+                previousEnd = state.getStartTime() + state.getDuration();
+            }
+            for (ITimeGraphState state : states) {
+                encoder.writeSigned(state.getDuration());
+            }
+            for (ITimeGraphState state : states) {
+                encoder.writeString(state.getLabel());
+            }
+            for (ITimeGraphState state : states) {
+                OutputElementStyle style = state.getStyle();
+                if (style == null && state.getValue() != Integer.MIN_VALUE) {
+                    // Transform the value to a style, as the JSON does
+                    style = new OutputElementStyle(String.valueOf(state.getValue()));
+                }
+                encoder.writeStyle(style);
+            }
+            for (ITimeGraphState state : states) {
+                encoder.writeVarint(state.getActiveProperties());
+            }
+        }
+    }
+
+    private static void writeXy(Encoder encoder, ITmfXyModel model) throws IOException {
+        encoder.writeString(model.getTitle());
+        encoder.writeVarint(model.getSeriesData().size());
+        for (ISeriesModel series : model.getSeriesData()) {
+            encoder.writeSigned(series.getId());
+            encoder.writeString(series.getName());
+            encoder.writeString(series.getDisplayType().name().toLowerCase(Locale.ROOT));
+            long[] xValues = series.getXAxis();
+            encoder.writeVarint(xValues.length);
+            long previous = 0;
+            for (long x : xValues) {
+                encoder.writeSigned(x - previous);
+                previous = x;
+            }
+            double[] yValues = series.getData();
+            encoder.writeVarint(yValues.length);
+            for (double y : yValues) {
+                encoder.writeDouble(y);
+            }
+        }
+    }
+
+    private static void writeTable(Encoder encoder, VirtualTableModelWrapper model) throws IOException {
+        List<Long> columnIds = model.getColumnIds();
+        encoder.writeVarint(columnIds.size());
+        for (Long columnId : columnIds) {
+            encoder.writeSigned(columnId);
+        }
+        encoder.writeSigned(model.getLowIndex());
+        encoder.writeSigned(model.getSize());
+        List<IVirtualTableLine> lines = model.getLines();
+        encoder.writeVarint(lines.size());
+        long previousIndex = model.getLowIndex();
+        for (IVirtualTableLine line : lines) {
+            encoder.writeSigned(line.getIndex() - previousIndex);
+            previousIndex = line.getIndex();
+            encoder.writeVarint(line.getActiveProperties());
+            List<VirtualTableCell> cells = line.getCells();
+            encoder.writeVarint(cells.size());
+            for (VirtualTableCell cell : cells) {
+                encoder.writeString(cell.getContent());
+                encoder.writeVarint(cell.getActiveProperties());
+            }
+        }
+    }
+
+    /**
+     * Varint writer with the string and style dictionaries of one response
+     */
+    private static final class Encoder {
+        private final OutputStream fOut;
+        private final Map<String, Integer> fStrings = new HashMap<>();
+        private final Map<OutputElementStyle, Integer> fStyles = new HashMap<>();
+
+        Encoder(OutputStream out) {
+            fOut = out;
+        }
+
+        void writeVarint(long value) throws IOException {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                fOut.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            fOut.write((int) v);
+        }
+
+        void writeSigned(long value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                fOut.write((int) (bits >>> shift));
+            }
+        }
+
+        void writeString(@Nullable String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = fStrings.get(value);
+            if (index != null) {
+                writeVarint(index + 1L);
+                return;
+            }
+            int newIndex = fStrings.size();
+            fStrings.put(value, newIndex);
+            writeVarint(newIndex + 1L);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            fOut.write(bytes);
+        }
+
+        void writeStyle(@Nullable OutputElementStyle style) throws IOException {
+            if (style == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = fStyles.get(style);
+            if (index != null) {
+                writeVarint(index + 1L);
+                return;
+            }
+            int newIndex = fStyles.size();
+            fStyles.put(style, newIndex);
+            writeVarint(newIndex + 1L);
+            writeString(style.getParentKey());
+            Map<String, Object> values = style.getStyleValues();
+            writeVarint(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeValue(@Nullable Object value) throws IOException {
+            if (value == null) {
+                fOut.write(TYPE_NULL);
+            } else if (value instanceof Double || value instanceof Float) {
+                fOut.write(TYPE_DOUBLE);
+                writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                fOut.write(TYPE_INTEGER);
+                writeSigned(((Number) value).longValue());
+            } else {
+                fOut.write(TYPE_STRING);
+                writeString(String.valueOf(value));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp;
+
+import java.util.UUID;
+
+import javax.ws.rs.ext.Provider;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ExperimentManagerService;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * This listener marks the experiment of every request as used until the
+ * request is finished, so that the experiment is not evicted while any
+ * endpoint uses it. The end of a request is notified even if the request
+ * failed or its response is streamed.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+@Provider
+public class ExperimentUseListener implements ApplicationEventListener {
+
+    private static final String EXP_UUID = "expUUID"; //$NON-NLS-1$
+
+    @Override
+    public void onEvent(@Nullable ApplicationEvent event) {
+        // Nothing to do
+    }
+
+    @Override
+    public @Nullable RequestEventListener onRequest(@Nullable RequestEvent requestEvent) {
+        return new ExperimentUse();
+    }
+
+    private static final class ExperimentUse implements RequestEventListener {
+        private @Nullable UUID fExpUUID = null;
+
+        @Override
+        public void onEvent(@Nullable RequestEvent event) {
+            if (event == null) {
+                return;
+            }
+            switch (event.getType()) {
+            case REQUEST_MATCHED:
+                String expUUID = event.getUriInfo().getPathParameters().getFirst(EXP_UUID);
+                if (expUUID != null) {
+                    try {
+                        UUID uuid = UUID.fromString(expUUID);
+                        ExperimentManagerService.startUse(uuid);
+                        fExpUUID = uuid;
+                    } catch (IllegalArgumentException e) {
+                        // Not an experiment, the endpoint answers the error
+                    }
+                }
+                break;
+            case FINISHED:
+                UUID uuid = fExpUUID;
+                if (uuid != null) {
+                    ExperimentManagerService.endUse(uuid);
+                    fExpUUID = null;
+                }
+                break;
+            // $CASES-OMITTED$
+            default:
+                break;
+            }
+        }
+    }
+}
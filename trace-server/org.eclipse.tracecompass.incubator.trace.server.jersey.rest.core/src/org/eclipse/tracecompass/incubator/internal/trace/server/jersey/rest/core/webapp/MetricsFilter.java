@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ServerMetrics;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+
+/**
+ * This filter measures every request handled by the server for the
+ * {@link ServerMetrics}: the requests are identified by the template of their
+ * matched endpoint and by their queried output, so the services are
+ * instrumented without having to record their own metrics. The requests in
+ * progress are counted by a request event listener, which is notified of the
+ * end of every request. It also records the requests failed with an unmapped
+ * exception, which skip the response filters.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+@Provider
+@PreMatching
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor, ApplicationEventListener {
+
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start"; //$NON-NLS-1$
+    private static final String METHOD_PROPERTY = MetricsFilter.class.getName() + ".method"; //$NON-NLS-1$
+    private static final String ENDPOINT_PROPERTY = MetricsFilter.class.getName() + ".endpoint"; //$NON-NLS-1$
+    private static final String OUTPUT_ID_PROPERTY = MetricsFilter.class.getName() + ".outputId"; //$NON-NLS-1$
+    private static final String COMPLETED_PROPERTY = MetricsFilter.class.getName() + ".completed"; //$NON-NLS-1$
+    private static final String OUTPUT_ID = "outputId"; //$NON-NLS-1$
+    private static final String UNMATCHED = "unmatched"; //$NON-NLS-1$
+
+    @Override
+    public void onEvent(@Nullable ApplicationEvent event) {
+        // Nothing to do
+    }
+
+    @Override
+    public @Nullable RequestEventListener onRequest(@Nullable RequestEvent requestEvent) {
+        ServerMetrics.getInstance().requestStarted();
+        return event -> {
+            if (event != null && event.getType() == RequestEvent.Type.FINISHED) {
+                ContainerRequest request = event.getContainerRequest();
+                if (event.getException() != null && request != null && request.getProperty(COMPLETED_PROPERTY) == null) {
+                    // The exception was not mapped to a response, the response
+                    // filter did not record the request
+                    Object start = request.getProperty(START_PROPERTY);
+                    long duration = start instanceof Long ? System.nanoTime() - (Long) start : 0;
+                    UriInfo uriInfo = request.getUriInfo();
+                    ServerMetrics.getInstance().requestFailed(request.getMethod(), getEndpoint(uriInfo), uriInfo.getPathParameters().getFirst(OUTPUT_ID), duration);
+                }
+                ServerMetrics.getInstance().requestFinished();
+            }
+        };
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        request.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        Object start = request.getProperty(START_PROPERTY);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        long duration = System.nanoTime() - (Long) start;
+        request.setProperty(COMPLETED_PROPERTY, Boolean.TRUE);
+        UriInfo uriInfo = request.getUriInfo();
+        String endpoint = getEndpoint(uriInfo);
+        String outputId = uriInfo.getPathParameters().getFirst(OUTPUT_ID);
+        ServerMetrics.getInstance().requestCompleted(request.getMethod(), endpoint, outputId, response.getStatus(), duration);
+        if (response.hasEntity()) {
+            request.setProperty(METHOD_PROPERTY, request.getMethod());
+            request.setProperty(ENDPOINT_PROPERTY, endpoint);
+            if (outputId != null) {
+                request.setProperty(OUTPUT_ID_PROPERTY, outputId);
+            }
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object method = context.getProperty(METHOD_PROPERTY);
+        Object endpoint = context.getProperty(ENDPOINT_PROPERTY);
+        if (!(method instanceof String) || !(endpoint instanceof String)) {
+            context.proceed();
+            return;
+        }
+        CountingOutputStream stream = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(stream);
+        try {
+            context.proceed();
+        } finally {
+            Object outputId = context.getProperty(OUTPUT_ID_PROPERTY);
+            ServerMetrics.getInstance().responseWritten((String) method, (String) endpoint,
+                    outputId instanceof String ? (String) outputId : null, stream.getCount());
+        }
+    }
+
+    private static String getEndpoint(UriInfo uriInfo) {
+        if (!(uriInfo instanceof ExtendedUriInfo)) {
+            return UNMATCHED;
+        }
+        // The templates are listed from the last matched to the first
+        List<UriTemplate> templates = ((ExtendedUriInfo) uriInfo).getMatchedTemplates();
+        if (templates.isEmpty()) {
+            return UNMATCHED;
+        }
+        StringBuilder endpoint = new StringBuilder();
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            String template = templates.get(i).getTemplate();
+            if (template.isEmpty() || template.equals("/")) { //$NON-NLS-1$
+                continue;
+            }
+            if (!template.startsWith("/")) { //$NON-NLS-1$
+                endpoint.append('/');
+            }
+            endpoint.append(template);
+        }
+        return endpoint.length() == 0 ? "/" : endpoint.toString(); //$NON-NLS-1$
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long fCount = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            fCount++;
+        }
+
+        @Override
+        public void write(byte @Nullable [] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            fCount += len;
+        }
+
+        long getCount() {
+            return fCount;
+        }
+    }
+}
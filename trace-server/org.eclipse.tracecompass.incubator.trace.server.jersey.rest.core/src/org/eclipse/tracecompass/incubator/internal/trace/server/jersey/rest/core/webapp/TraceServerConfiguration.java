@@ -40,15 +40,38 @@ public class TraceServerConfiguration {
     private static final String PROPERTY_USESSL = "traceserver.useSSL"; //$NON-NLS-1$
     private static final String PROPERTY_KEYSTORE = "traceserver.keystore"; //$NON-NLS-1$
     private static final String PROPERTY_KEYSTORE_PASS = "traceserver.keystorepass"; //$NON-NLS-1$
+    /**
+     * This is protected so it may be linked from other JavaDoc in this class.
+     */
+    protected static final String PROPERTY_MAX_THREADS = "traceserver.maxThreads"; //$NON-NLS-1$
+    /**
+     * This is protected so it may be linked from other JavaDoc in this class.
+     */
+    protected static final String PROPERTY_MIN_THREADS = "traceserver.minThreads"; //$NON-NLS-1$
+    /**
+     * This is protected so it may be linked from other JavaDoc in this class.
+     */
+    protected static final String PROPERTY_VIRTUAL_THREADS = "traceserver.virtualThreads"; //$NON-NLS-1$
+    /**
+     * This is protected so it may be linked from other JavaDoc in this class.
+     */
+    protected static final String PROPERTY_COMPRESSION_MIN_SIZE = "traceserver.compressionMinSize"; //$NON-NLS-1$
 
     private static final int DEFAULT_HTTP_PORT = 8080;
     private static final int DEFAULT_SSL_PORT = 8443;
+    private static final int DEFAULT_MAX_THREADS = 200;
+    private static final int DEFAULT_MIN_THREADS = 8;
+    private static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
 
     private final int fPort;
     private final boolean fUseSSL;
     private final @Nullable String fKeystore;
     private final @Nullable String fKeystorePass;
     private final @Nullable String fHost;
+    private int fMaxThreads = DEFAULT_MAX_THREADS;
+    private int fMinThreads = DEFAULT_MIN_THREADS;
+    private boolean fVirtualThreads = false;
+    private int fCompressionMinSize = DEFAULT_COMPRESSION_MIN_SIZE;
 
     /**
      * Create the trace server configuration
@@ -80,11 +103,37 @@ public class TraceServerConfiguration {
             }
         }
         String host = System.getProperty(PROPERTY_HOST);
+        TraceServerConfiguration config;
         if (host != null && !host.isEmpty()) {
-            return new TraceServerConfiguration(host, port, useSSL, keystore, keystorePass);
+            config = new TraceServerConfiguration(host, port, useSSL, keystore, keystorePass);
+        } else {
+            // Otherwise host already assumed as null, meaning 0.0.0.0 or wild-card.
+            config = new TraceServerConfiguration(port, useSSL, keystore, keystorePass);
+        }
+
+        int maxThreads = getIntProperty(PROPERTY_MAX_THREADS, DEFAULT_MAX_THREADS);
+        if (maxThreads <= 0) {
+            Activator.getInstance().logWarning(String.format("Invalid maximum number of threads: %d. Will use default %d", maxThreads, DEFAULT_MAX_THREADS)); //$NON-NLS-1$
+            maxThreads = DEFAULT_MAX_THREADS;
+        }
+        config.fMaxThreads = maxThreads;
+        config.fMinThreads = Math.max(1, Math.min(maxThreads, getIntProperty(PROPERTY_MIN_THREADS, DEFAULT_MIN_THREADS)));
+        config.fVirtualThreads = Boolean.parseBoolean(System.getProperty(PROPERTY_VIRTUAL_THREADS));
+        config.fCompressionMinSize = getIntProperty(PROPERTY_COMPRESSION_MIN_SIZE, DEFAULT_COMPRESSION_MIN_SIZE);
+        return config;
+    }
+
+    private static int getIntProperty(String property, int defaultValue) {
+        String valueStr = System.getProperty(property);
+        if (valueStr == null || valueStr.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(valueStr);
+        } catch (NumberFormatException e) {
+            Activator.getInstance().logWarning(String.format("Invalid value specified for %s: %s. Will use default value %d", property, valueStr, defaultValue)); //$NON-NLS-1$
+            return defaultValue;
         }
-        // Otherwise host already assumed as null, meaning 0.0.0.0 or wild-card.
-        return new TraceServerConfiguration(port, useSSL, keystore, keystorePass);
     }
 
     /**
@@ -179,4 +228,49 @@ public class TraceServerConfiguration {
     public @Nullable String getKeystorePass() {
         return fKeystorePass;
     }
+
+    /**
+     * Get the maximum number of threads of the server to handle the requests.
+     * It can be specified using the system property
+     * {@link #PROPERTY_MAX_THREADS}
+     *
+     * @return The maximum number of threads
+     */
+    public int getMaxThreads() {
+        return fMaxThreads;
+    }
+
+    /**
+     * Get the minimum number of threads kept by the server to handle the
+     * requests. It can be specified using the system property
+     * {@link #PROPERTY_MIN_THREADS}
+     *
+     * @return The minimum number of threads
+     */
+    public int getMinThreads() {
+        return fMinThreads;
+    }
+
+    /**
+     * Get whether the requests should be handled in virtual threads, when
+     * both the JVM and the server support them. It can be specified using the
+     * system property {@link #PROPERTY_VIRTUAL_THREADS}
+     *
+     * @return if <code>true</code>, the server will use virtual threads
+     */
+    public boolean useVirtualThreads() {
+        return fVirtualThreads;
+    }
+
+    /**
+     * Get the minimum size of the responses to compress, for the clients that
+     * accept compressed responses. It can be specified using the system
+     * property {@link #PROPERTY_COMPRESSION_MIN_SIZE}
+     *
+     * @return The minimum size in bytes, or a negative value if the responses
+     *         are not compressed
+     */
+    public int getCompressionMinSize() {
+        return fCompressionMinSize;
+    }
 }
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.webapp;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
@@ -17,26 +20,32 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.Activator;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.DataProviderService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ExperimentManagerService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.FilterService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.HealthService;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.MetricsService;
+import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.ResponseCache;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.TraceManagerService;
 import org.eclipse.tracecompass.incubator.internal.trace.server.jersey.rest.core.services.XmlManagerService;
 import org.eclipse.tracecompass.tmf.core.TmfCommonConstants;
 import org.eclipse.tracecompass.tmf.core.TmfProjectNature;
 import org.glassfish.jersey.message.GZipEncoder;
 import org.glassfish.jersey.server.ResourceConfig;
-import org.glassfish.jersey.server.filter.EncodingFilter;
 import org.glassfish.jersey.servlet.ServletContainer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
@@ -54,6 +63,7 @@ public class WebApplication {
 
     private static final String CONTEXT_PATH = "/tsp/api"; //$NON-NLS-1$
     private static final String PATH_SPEC = "/*"; //$NON-NLS-1$
+    private static final String THREAD_POOL_NAME = "Trace Server"; //$NON-NLS-1$
 
     private Server fServer;
     private final TraceServerConfiguration fConfig;
@@ -91,13 +101,13 @@ public class WebApplication {
         ServletHolder holder = new ServletHolder(sc);
         sch.addServlet(holder, PATH_SPEC);
 
-        fServer = new Server();
+        fServer = new Server(getThreadPool(fConfig));
         // https://www.programcreek.com/java-api-examples/?api=org.eclipse.jetty.server.SslConnectionFactory
 
         @SuppressWarnings("resource")
         ServerConnector connector = getConnector(fServer, fConfig);
         fServer.addConnector(connector);
-        fServer.setHandler(sch);
+        fServer.setHandler(getCompressionHandler(sch, fConfig));
 
         // create and open a default eclipse project.
         IProject project = ResourcesPlugin.getWorkspace().getRoot()
@@ -137,10 +147,15 @@ public class WebApplication {
         rc.register(DataProviderService.class);
         rc.register(FilterService.class);
         rc.register(HealthService.class);
+        rc.register(MetricsService.class);
         rc.register(XmlManagerService.class);
         rc.register(CORSFilter.class);
+        rc.register(MetricsFilter.class);
+        rc.register(ExperimentUseListener.class);
         rc.register(JacksonObjectMapperProvider.class);
-        EncodingFilter.enableFor(rc, GZipEncoder.class);
+        rc.register(BinaryModelWriter.class);
+        // Decode the compressed requests, the responses are compressed by Jetty
+        rc.register(GZipEncoder.class);
         rc.register(OpenApiResource.class);
     }
 
@@ -181,6 +196,57 @@ public class WebApplication {
         return serverConnector;
     }
 
+    /**
+     * Given the server configuration, get the pool of threads handling the
+     * requests. The requests are handled in virtual threads if requested and
+     * supported by both the JVM and Jetty.
+     *
+     * @param config
+     *            a class describing the desired server configuration
+     * @return a configured thread pool
+     */
+    protected static QueuedThreadPool getThreadPool(TraceServerConfiguration config) {
+        QueuedThreadPool threadPool = new QueuedThreadPool(config.getMaxThreads(), config.getMinThreads());
+        threadPool.setName(THREAD_POOL_NAME);
+        if (config.useVirtualThreads()) {
+            // Available from Java 21, the bundle targets an earlier version
+            try {
+                Object executor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null); //$NON-NLS-1$
+                QueuedThreadPool.class.getMethod("setVirtualThreadsExecutor", Executor.class).invoke(threadPool, executor); //$NON-NLS-1$
+            } catch (ReflectiveOperationException e) {
+                Activator.getInstance().logWarning("Virtual threads are not supported by this JVM or server, will use platform threads instead"); //$NON-NLS-1$
+            }
+        }
+        return threadPool;
+    }
+
+    /**
+     * Given the handler of the requests and the server configuration, get the
+     * handler that compresses the large responses for the clients that accept
+     * them.
+     *
+     * @param handler
+     *            the handler of the requests
+     * @param config
+     *            a class describing the desired server configuration
+     * @return the compressing handler, or the handler of the requests if the
+     *         responses are not compressed
+     */
+    protected static Handler getCompressionHandler(Handler handler, TraceServerConfiguration config) {
+        int minSize = config.getCompressionMinSize();
+        if (minSize < 0) {
+            return handler;
+        }
+        GzipHandler gzipHandler = new GzipHandler();
+        gzipHandler.setMinGzipSize(minSize);
+        // The models are queried with POST requests
+        gzipHandler.setIncludedMethods(HttpMethod.GET.asString(), HttpMethod.POST.asString());
+        // Send the streamed responses as they are written
+        gzipHandler.setSyncFlush(true);
+        gzipHandler.setHandler(handler);
+        return gzipHandler;
+    }
+
     /**
      * Method to dispose all necessary resources.
      *
@@ -189,6 +255,7 @@ public class WebApplication {
     public void dispose() {
         ExperimentManagerService.dispose();
         TraceManagerService.dispose();
+        ResponseCache.dispose();
     }
 
     /**
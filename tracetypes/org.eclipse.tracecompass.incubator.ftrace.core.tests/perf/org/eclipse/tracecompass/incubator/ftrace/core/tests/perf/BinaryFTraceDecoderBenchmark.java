@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.ftrace.core.tests.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
+import org.eclipse.tracecompass.incubator.ftrace.core.tests.shared.FTraceUtils;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.event.BinaryFTraceEvent;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator.BinaryFTraceReader;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.parser.BinaryFTraceFileParser;
+import org.eclipse.tracecompass.testtraces.ftrace.FtraceTestTrace;
+import org.junit.Test;
+
+/**
+ * Benchmarks the decoding of the events of binary FTrace traces, with the
+ * sequential and the pipelined readers. The fields of the sched_switch events
+ * are read, as an analysis would, so that their decoding is measured. The CPU
+ * time is reported by the performance meters and the number of events decoded
+ * per second is logged at the info level.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class BinaryFTraceDecoderBenchmark {
+
+    /**
+     * Test test ID for binary FTrace benchmarks
+     */
+    public static final String TEST_ID = "org.eclipse.tracecompass.incubator#FTrace#";
+    private static final Logger LOGGER = TraceCompassLog.getLogger(BinaryFTraceDecoderBenchmark.class);
+    private static final String TEST_SEQUENTIAL = "Decode binary ftrace events, sequential (%s)";
+    private static final String TEST_PIPELINED = "Decode binary ftrace events, pipelined (%s)";
+
+    private static final String SCHED_SWITCH = "sched_switch";
+    private static final String[] SCHED_SWITCH_FIELDS = { "prev_comm", "prev_pid", "prev_state", "next_comm", "next_pid" };
+    private static final int LOOP_COUNT = 25;
+
+    /**
+     * Run the benchmark
+     *
+     * @throws Exception
+     *             An error occurred while reading the trace
+     */
+    @Test
+    public void runDecoderBenchmark() throws Exception {
+        FtraceTestTrace testTrace = FtraceTestTrace.TEST_2_6_MULTIPLE_CPUS;
+        BinaryFTraceHeaderInfo trace = BinaryFTraceFileParser.parse(FTraceUtils.getTraceAbsolutePath(testTrace));
+        long sequentialCount = benchmark(String.format(TEST_SEQUENTIAL, testTrace.name()), trace, false);
+        long pipelinedCount = benchmark(String.format(TEST_PIPELINED, testTrace.name()), trace, true);
+        assertEquals(sequentialCount, pipelinedCount);
+    }
+
+    private static long benchmark(String testName, BinaryFTraceHeaderInfo trace, boolean pipelined) throws Exception {
+        Performance perf = Performance.getDefault();
+        PerformanceMeter pm = Objects.requireNonNull(perf.createPerformanceMeter(TEST_ID + testName));
+        perf.tagAsSummary(pm, testName, Dimension.CPU_TIME);
+
+        long nbEvents = 0;
+        long nbSchedSwitch = 0;
+        long duration = 0;
+        for (int i = 0; i < LOOP_COUNT; i++) {
+            nbEvents = 0;
+            nbSchedSwitch = 0;
+            long start = System.nanoTime();
+            pm.start();
+            try (BinaryFTraceReader reader = new BinaryFTraceReader(trace, pipelined)) {
+                while (reader.hasMoreEvents()) {
+                    BinaryFTraceEvent event = reader.getTopStream().getCurrentEvent();
+                    assertNotNull(event);
+                    if (event.getEventName().equals(SCHED_SWITCH)) {
+                        Map<String, Object> fields = event.getFields();
+                        for (String field : SCHED_SWITCH_FIELDS) {
+                            fields.get(field);
+                        }
+                        nbSchedSwitch++;
+                    }
+                    nbEvents++;
+                    reader.advance();
+                }
+            }
+            pm.stop();
+            duration += System.nanoTime() - start;
+        }
+        pm.commit();
+        long events = nbEvents;
+        long schedSwitches = nbSchedSwitch;
+        long eventsPerSecond = nbEvents * LOOP_COUNT * 1000000000L / Math.max(1, duration);
+        LOGGER.info(() -> String.format("%s: %d events (%d sched_switch), %d events per second", testName, events, schedSwitches, eventsPerSecond)); //$NON-NLS-1$
+        return nbEvents;
+    }
+}
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.ftrace.core.tests.binary.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceDataType;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceEventFormat;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFormatField;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFormatField.BinaryFTraceFormatFieldBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo.BinaryFTraceHeaderInfoBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceValueSign;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator.BinaryFTraceEventDecoder;
+import org.junit.Test;
+
+/**
+ * Test the {@link BinaryFTraceEventDecoder} against the decoding of the fields
+ * one at a time, as the events were decoded before the decoders were compiled,
+ * for every kind of field.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class BinaryFTraceEventDecoderTest {
+
+    private static final String EVENT_NAME = "test_event";
+    private static final int EVENT_TYPE = 1;
+    private static final int PAYLOAD_SIZE = 128;
+    private static final int NB_PAYLOADS = 1000;
+
+    private static final long MAPPED_POINTER = 0xdeadbeefL;
+    private static final Map<String, String> POINTER_MAPPING = Collections.singletonMap("0xdeadbeef", "mapped string");
+
+    private static final int DATA_LOC_FIELD_OFFSET = 76;
+    // The dynamic strings are between the fields and the last fixed string
+    private static final int DATA_OFFSET = 84;
+    private static final int DATA_SIZE = 36;
+
+    private static final String COMMON_PREFIX = "common_";
+    private static final int DATALOC_SHIFT = 16;
+    private static final int DATA_LOC_OFFSET = 0x0000FFFF;
+
+    private static BinaryFTraceFormatField field(String name, BinaryFTraceDataType type, int offset, int size, BinaryFTraceValueSign sign) {
+        return new BinaryFTraceFormatFieldBuilder().fieldName(name).fieldType(type).offset(offset).size(size).signed(sign).build();
+    }
+
+    private static BinaryFTraceFormatField string(String name, int offset, int size, boolean dataLoc) {
+        return new BinaryFTraceFormatFieldBuilder().fieldName(name).fieldType(BinaryFTraceDataType.CHAR).offset(offset).size(size)
+                .signed(BinaryFTraceValueSign.SIGNED).array(dataLoc ? 0 : size).dataLoc(dataLoc).build();
+    }
+
+    private static Map<String, BinaryFTraceFormatField> fields(BinaryFTraceFormatField... fields) {
+        Map<String, BinaryFTraceFormatField> map = new LinkedHashMap<>();
+        for (BinaryFTraceFormatField field : fields) {
+            map.put(field.getFieldName(), field);
+        }
+        return map;
+    }
+
+    private static Map<String, BinaryFTraceFormatField> commonFields() {
+        return fields(field("common_type", BinaryFTraceDataType.SHORT, 0, 2, BinaryFTraceValueSign.UNSIGNED),
+                field("common_flags", BinaryFTraceDataType.CHAR, 2, 1, BinaryFTraceValueSign.UNSIGNED),
+                field("common_preempt_count", BinaryFTraceDataType.CHAR, 3, 1, BinaryFTraceValueSign.UNSIGNED),
+                field("common_pid", BinaryFTraceDataType.INT, 4, 4, BinaryFTraceValueSign.SIGNED));
+    }
+
+    private static BinaryFTraceHeaderInfo createHeader(BinaryFTraceEventFormat format) {
+        return new BinaryFTraceHeaderInfoBuilder()
+                .endianess(ByteOrder.LITTLE_ENDIAN)
+                .longValueSize(8)
+                .fTraceEventFormats(Collections.singletonMap(EVENT_TYPE, format))
+                .eventSystems(Collections.emptyList())
+                .printKPointerStringMapping(POINTER_MAPPING)
+                .build();
+    }
+
+    /**
+     * Test the decoding of random payloads with a field of every kind
+     */
+    @Test
+    public void testFieldKinds() {
+        Map<String, BinaryFTraceFormatField> customFields = fields(
+                field("s_char", BinaryFTraceDataType.CHAR, 8, 1, BinaryFTraceValueSign.SIGNED),
+                field("u_char", BinaryFTraceDataType.CHAR, 9, 1, BinaryFTraceValueSign.UNSIGNED),
+                // A char that is not a byte has no value
+                field("wide_char", BinaryFTraceDataType.CHAR, 10, 2, BinaryFTraceValueSign.UNSIGNED),
+                field("s_short", BinaryFTraceDataType.SHORT, 12, 2, BinaryFTraceValueSign.SIGNED),
+                field("u_short", BinaryFTraceDataType.SHORT, 14, 2, BinaryFTraceValueSign.UNSIGNED),
+                field("s_int", BinaryFTraceDataType.INT, 16, 4, BinaryFTraceValueSign.SIGNED),
+                field("u_int", BinaryFTraceDataType.INT, 20, 4, BinaryFTraceValueSign.UNSIGNED),
+                field("s_long", BinaryFTraceDataType.LONG, 24, 8, BinaryFTraceValueSign.SIGNED),
+                field("u_long", BinaryFTraceDataType.LONG, 32, 8, BinaryFTraceValueSign.UNSIGNED),
+                new BinaryFTraceFormatFieldBuilder().fieldName("pointer").fieldType(BinaryFTraceDataType.LONG).offset(40).size(8).pointer(true).build(),
+                // Non string arrays of unknown length are read as pointers
+                new BinaryFTraceFormatFieldBuilder().fieldName("array").fieldType(BinaryFTraceDataType.INT).offset(48).size(8).array(0).build(),
+                field("unknown", BinaryFTraceDataType.UNKNOWN, 56, 4, BinaryFTraceValueSign.UNSIGNED),
+                string("comm", 60, 16, false),
+                string("msg", DATA_LOC_FIELD_OFFSET, 4, true),
+                // A dynamic field that is not 4 bytes is an empty string
+                string("bad_loc", 80, 2, true),
+                // The fixed string ends at the end of the payload
+                string("tail", 120, 16, false));
+        BinaryFTraceEventFormat format = new BinaryFTraceEventFormat(EVENT_TYPE, EVENT_NAME, commonFields(), customFields, "");
+        BinaryFTraceHeaderInfo header = createHeader(format);
+        BinaryFTraceEventDecoder decoder = BinaryFTraceEventDecoder.compile(format, header);
+
+        Random random = new Random(42);
+        byte[] scratch = new byte[8];
+        for (int i = 0; i < NB_PAYLOADS; i++) {
+            ByteBuffer data = ByteBuffer.allocate(PAYLOAD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            random.nextBytes(data.array());
+            if (i % 2 == 0) {
+                data.putLong(40, MAPPED_POINTER);
+            }
+            if (i % 3 != 0) {
+                // Otherwise the random data location is mostly out of bounds
+                int length = random.nextInt(DATA_SIZE + 1);
+                data.putInt(DATA_LOC_FIELD_OFFSET, length << DATALOC_SHIFT | DATA_OFFSET);
+            }
+            if (i % 5 == 0) {
+                data.putLong(32, -1L);
+            }
+
+            Map<String, Object> expected = referenceDecode(format, data);
+            Map<String, Object> fields = decoder.decode(data, scratch);
+            assertEquals(expected, fields);
+            for (Entry<String, Object> entry : expected.entrySet()) {
+                assertEquals(entry.getKey(), entry.getValue(), fields.get(entry.getKey()));
+            }
+            assertEquals(expected, new HashMap<>(fields));
+
+            Map<String, Object> expectedPayload = new HashMap<>();
+            for (Entry<String, Object> entry : expected.entrySet()) {
+                if (entry.getValue() != null && !entry.getKey().startsWith(COMMON_PREFIX)) {
+                    expectedPayload.put(entry.getKey(), entry.getValue());
+                }
+            }
+            Map<String, Object> payload = BinaryFTraceEventDecoder.getPayloadFields(fields);
+            assertEquals(expectedPayload, payload);
+            assertEquals(expectedPayload, new HashMap<>(payload));
+            assertNull(payload.get("common_pid"));
+            assertNull(payload.get("wide_char"));
+        }
+
+        // The unsigned long values that do not fit in a long are strings
+        ByteBuffer data = ByteBuffer.allocate(PAYLOAD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        data.putLong(32, -1L);
+        data.putLong(40, MAPPED_POINTER);
+        Map<String, Object> fields = decoder.decode(data, scratch);
+        assertEquals("18446744073709551615", fields.get("u_long"));
+        assertEquals("mapped string", fields.get("pointer"));
+        assertEquals(EVENT_NAME, fields.get("name"));
+    }
+
+    /**
+     * Test that the payload fields are only available for decoded fields
+     */
+    @Test
+    public void testPayloadOfOtherMaps() {
+        assertNull(BinaryFTraceEventDecoder.getPayloadFields(new HashMap<>()));
+    }
+
+    /**
+     * Test that the values that do not fit in their field cannot be decoded
+     */
+    @Test
+    public void testTruncatedFields() {
+        List<BinaryFTraceFormatField> truncatedFields = Arrays.asList(
+                field("short", BinaryFTraceDataType.SHORT, 8, 1, BinaryFTraceValueSign.SIGNED),
+                field("int", BinaryFTraceDataType.INT, 8, 2, BinaryFTraceValueSign.UNSIGNED),
+                field("long", BinaryFTraceDataType.LONG, 8, 4, BinaryFTraceValueSign.UNSIGNED),
+                new BinaryFTraceFormatFieldBuilder().fieldName("pointer").fieldType(BinaryFTraceDataType.LONG).offset(8).size(4).pointer(true).build());
+        for (BinaryFTraceFormatField truncatedField : truncatedFields) {
+            BinaryFTraceEventFormat format = new BinaryFTraceEventFormat(EVENT_TYPE, EVENT_NAME, commonFields(), fields(truncatedField), "");
+            BinaryFTraceEventDecoder decoder = BinaryFTraceEventDecoder.compile(format, createHeader(format));
+            ByteBuffer data = ByteBuffer.allocate(PAYLOAD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                referenceDecode(format, data);
+                fail(truncatedField.getFieldName());
+            } catch (BufferUnderflowException e) {
+                // Expected
+            }
+            try {
+                decoder.decode(data, new byte[8]);
+                fail(truncatedField.getFieldName());
+            } catch (BufferUnderflowException e) {
+                // Expected
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // The decoding of the fields one at a time
+    // ------------------------------------------------------------------------
+
+    private static Map<String, Object> referenceDecode(BinaryFTraceEventFormat format, ByteBuffer data) {
+        Map<String, Object> eventProperties = new HashMap<>();
+        eventProperties.put("name", format.getEventName());
+        for (Entry<String, BinaryFTraceFormatField> fieldEntry : format.getCommonFields().entrySet()) {
+            eventProperties.put(fieldEntry.getKey(), referenceFieldValue(fieldEntry.getValue(), data));
+        }
+        for (Entry<String, BinaryFTraceFormatField> fieldEntry : format.getCustomFields().entrySet()) {
+            eventProperties.put(fieldEntry.getKey(), referenceFieldValue(fieldEntry.getValue(), data));
+        }
+        return eventProperties;
+    }
+
+    private static Object referenceFieldValue(BinaryFTraceFormatField field, ByteBuffer data) {
+        if (field.isPointer()) {
+            return referencePointer(field, data);
+        }
+        if (field.isString()) {
+            if (field.isDataLoc()) {
+                if (field.getSize() != 4) {
+                    return "";
+                }
+                int dataLocation = data.getInt(field.getOffset());
+                int length = dataLocation >> DATALOC_SHIFT;
+                int offset = dataLocation & DATA_LOC_OFFSET;
+                if (offset + length <= data.limit()) {
+                    return referenceString(data, offset, length);
+                }
+                return "";
+            }
+            return referenceString(data, field.getOffset(), field.getSize());
+        }
+        if (field.getArrayLength() == 0) {
+            return referencePointer(field, data);
+        }
+
+        boolean signed = field.getSigned() == BinaryFTraceValueSign.SIGNED;
+        switch (field.getFieldType()) {
+        case CHAR: {
+            if (field.getSize() != 1) {
+                return null;
+            }
+            byte value = data.get(field.getOffset());
+            return signed || value >= 0 ? Long.valueOf(value) : Long.valueOf(Byte.toUnsignedLong(value));
+        }
+        case SHORT: {
+            short value = data.getShort(getValueOffset(field, Short.BYTES));
+            return signed || value >= 0 ? Long.valueOf(value) : Long.valueOf(Short.toUnsignedLong(value));
+        }
+        case INT: {
+            int value = data.getInt(getValueOffset(field, Integer.BYTES));
+            return signed || value >= 0 ? Long.valueOf(value) : Long.valueOf(Integer.toUnsignedLong(value));
+        }
+        case LONG: {
+            long value = data.getLong(getValueOffset(field, Long.BYTES));
+            if (field.getSigned() == BinaryFTraceValueSign.UNSIGNED && value < 0) {
+                return Long.toUnsignedString(value);
+            }
+            return value;
+        }
+        case UNKNOWN:
+        default:
+            return null;
+        }
+    }
+
+    private static int getValueOffset(BinaryFTraceFormatField field, int valueSize) {
+        if (field.getSize() < valueSize) {
+            throw new BufferUnderflowException();
+        }
+        return field.getOffset();
+    }
+
+    private static String referencePointer(BinaryFTraceFormatField field, ByteBuffer data) {
+        long pointerAddress = data.getLong(getValueOffset(field, Long.BYTES));
+        String hexAddress = "0x" + Long.toHexString(pointerAddress);
+        String mappedString = POINTER_MAPPING.get(hexAddress);
+        return mappedString != null ? mappedString : hexAddress;
+    }
+
+    private static String referenceString(ByteBuffer data, int offset, int size) {
+        int maxLength = Math.min(size, data.limit() - offset);
+        int length = 0;
+        while (length < maxLength && data.get(offset + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = data.get(offset + i);
+        }
+        return new String(bytes);
+    }
+}
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.ftrace.core.tests.binary.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.event.BinaryFTraceEvent;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceCPUDataPage;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceCPUDataPage.BinaryFTraceCPUDataPageBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceDataType;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceEventFormat;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFileCPU;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFormatField;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFormatField.BinaryFTraceFormatFieldBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderEvent.BinaryFTraceHeaderEventBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo.BinaryFTraceHeaderInfoBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceValueSign;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator.BinaryFTraceCPUSectionIterator;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator.BinaryFTracePipelinedSectionIterator;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator.BinaryFTraceResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link BinaryFTracePipelinedSectionIterator} on a synthetic binary
+ * FTrace file, written by the test, so that it does not need external traces.
+ * The section has more events than a few batches of the iterator, so that the
+ * ring of batches is reused, and another section ends with a truncated event.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class BinaryFTracePipelinedSectionIteratorTest {
+
+    private static final String EVENT_NAME = "synthetic";
+    private static final String VALUE_FIELD = "value";
+    private static final int EVENT_TYPE = 1;
+
+    private static final int PAGE_SIZE = 4096;
+    private static final int PAGE_HEADER_SIZE = 16;
+    private static final int NB_PAGES = 4;
+    private static final int EVENTS_PER_PAGE = 100;
+    private static final int NB_EVENTS = NB_PAGES * EVENTS_PER_PAGE;
+    // A 4 bytes header and a payload of 2 words
+    private static final int PAYLOAD_TYPE_LEN = 2;
+    private static final int EVENT_SIZE = 4 + PAYLOAD_TYPE_LEN * 4;
+    private static final int TIME_DELTA = 10;
+    private static final long START_TIME = 1000000L;
+
+    private static final int NB_TRUNCATED_EVENTS = 10;
+    // The header of a custom length event, without room for its length
+    private static final int TRUNCATED_PAGE_SIZE = PAGE_HEADER_SIZE + NB_TRUNCATED_EVENTS * EVENT_SIZE + 6;
+
+    private File fFile;
+    private BinaryFTraceHeaderInfo fHeader;
+    private BinaryFTraceFileCPU fCpu;
+    private BinaryFTraceFileCPU fTruncatedCpu;
+
+    /**
+     * Write a binary FTrace file with a section of several pages and a section
+     * ending with a truncated event
+     *
+     * @throws IOException
+     *             If the file cannot be written
+     */
+    @Before
+    public void setUp() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(NB_PAGES * PAGE_SIZE + TRUNCATED_PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        List<BinaryFTraceCPUDataPage> pages = new ArrayList<>();
+        BinaryFTraceCPUDataPage nextPage = null;
+        for (int i = NB_PAGES - 1; i >= 0; i--) {
+            nextPage = writePage(buffer, 0, i * PAGE_SIZE, PAGE_SIZE, i * EVENTS_PER_PAGE, EVENTS_PER_PAGE, nextPage);
+            pages.add(0, nextPage);
+        }
+        fCpu = new BinaryFTraceFileCPU(0, NB_PAGES * PAGE_SIZE, 0, pages);
+
+        int truncatedOffset = NB_PAGES * PAGE_SIZE;
+        BinaryFTraceCPUDataPage truncatedPage = writePage(buffer, 1, truncatedOffset, TRUNCATED_PAGE_SIZE, 0, NB_TRUNCATED_EVENTS, null);
+        buffer.putInt(truncatedOffset + PAGE_HEADER_SIZE + NB_TRUNCATED_EVENTS * EVENT_SIZE, TIME_DELTA << 5);
+        fTruncatedCpu = new BinaryFTraceFileCPU(truncatedOffset, TRUNCATED_PAGE_SIZE, 1, Collections.singletonList(truncatedPage));
+
+        fFile = File.createTempFile("binary-ftrace", ".dat"); //$NON-NLS-1$ //$NON-NLS-2$
+        Files.write(fFile.toPath(), buffer.array());
+
+        BinaryFTraceFormatField commonType = new BinaryFTraceFormatFieldBuilder().fieldName("common_type").fieldType(BinaryFTraceDataType.SHORT) //$NON-NLS-1$
+                .offset(0).size(2).signed(BinaryFTraceValueSign.UNSIGNED).build();
+        BinaryFTraceFormatField value = new BinaryFTraceFormatFieldBuilder().fieldName(VALUE_FIELD).fieldType(BinaryFTraceDataType.INT)
+                .offset(4).size(4).signed(BinaryFTraceValueSign.SIGNED).build();
+        BinaryFTraceEventFormat format = new BinaryFTraceEventFormat(EVENT_TYPE, EVENT_NAME, Collections.singletonMap("common_type", commonType), //$NON-NLS-1$
+                Collections.singletonMap(VALUE_FIELD, value), ""); //$NON-NLS-1$
+        fHeader = new BinaryFTraceHeaderInfoBuilder()
+                .filePath(fFile.getAbsolutePath())
+                .endianess(ByteOrder.LITTLE_ENDIAN)
+                .longValueSize(8)
+                .hostMachinePageSize(PAGE_SIZE)
+                .headerEventInfo(new BinaryFTraceHeaderEventBuilder().typeLen(5).timeDelta(27).dataMaxTypeLen(28)
+                        .paddingTypeLen(29).timeExtendedTypeLen(30).timeStampTypeLen(31).build())
+                .fTraceEventFormats(Collections.singletonMap(EVENT_TYPE, format))
+                .eventSystems(Collections.emptyList())
+                .printKPointerStringMapping(Collections.emptyMap())
+                .cpus(Arrays.asList(fCpu, fTruncatedCpu))
+                .build();
+    }
+
+    /**
+     * Delete the file
+     */
+    @After
+    public void tearDown() {
+        fFile.delete();
+    }
+
+    /**
+     * Write a page of events, the value of each event is its index in the
+     * section
+     */
+    private static BinaryFTraceCPUDataPage writePage(ByteBuffer buffer, int cpu, int offset, int size, int firstEvent, int nbEvents, BinaryFTraceCPUDataPage nextPage) {
+        long pageTimeStamp = getTimeStamp(firstEvent) - TIME_DELTA;
+        buffer.putLong(offset, pageTimeStamp);
+        buffer.putLong(offset + 8, size - PAGE_HEADER_SIZE);
+        int position = offset + PAGE_HEADER_SIZE;
+        for (int i = 0; i < nbEvents; i++) {
+            buffer.putInt(position, TIME_DELTA << 5 | PAYLOAD_TYPE_LEN);
+            buffer.putShort(position + 4, (short) EVENT_TYPE);
+            buffer.putInt(position + 8, firstEvent + i);
+            position += EVENT_SIZE;
+        }
+        return new BinaryFTraceCPUDataPageBuilder()
+                .pageStartingOffset(offset)
+                .pageDataStartingOffset(offset + PAGE_HEADER_SIZE)
+                .timeStamp(pageTimeStamp)
+                .cpu(cpu)
+                .size(size)
+                .nextPage(nextPage)
+                .build();
+    }
+
+    private static long getTimeStamp(int event) {
+        return START_TIME + (event + 1L) * TIME_DELTA;
+    }
+
+    private static void assertEvent(int expected, BinaryFTraceEvent event, long timeStamp) {
+        assertNotNull(event);
+        assertEquals(EVENT_NAME, event.getEventName());
+        assertEquals(getTimeStamp(expected), event.getTimeSinceBoot());
+        assertEquals(getTimeStamp(expected), timeStamp);
+        Map<String, Object> fields = event.getFields();
+        assertEquals(EVENT_NAME, fields.get("name")); //$NON-NLS-1$
+        assertEquals((long) EVENT_TYPE, fields.get("common_type")); //$NON-NLS-1$
+        assertEquals((long) expected, fields.get(VALUE_FIELD));
+    }
+
+    /**
+     * Read the following events, up to the end of the section
+     *
+     * @return the number of events read
+     */
+    private static int readEvents(BinaryFTraceCPUSectionIterator iterator, int firstEvent, BinaryFTraceResponse expectedEnd) throws IOException {
+        int count = 0;
+        BinaryFTraceResponse response = iterator.readNextEvent();
+        while (response == BinaryFTraceResponse.OK) {
+            assertEvent(firstEvent + count, iterator.getCurrentEvent(), iterator.getCurrentTimeStamp());
+            count++;
+            response = iterator.readNextEvent();
+        }
+        assertEquals(expectedEnd, response);
+        return count;
+    }
+
+    /**
+     * Test that the events decoded in batches are those of the sequential
+     * iterator, and that the events read remain valid when their batch is
+     * reused
+     *
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    @Test
+    public void testBatches() throws IOException {
+        List<BinaryFTraceEvent> events = new ArrayList<>();
+        try (BinaryFTraceCPUSectionIterator sequential = new BinaryFTraceCPUSectionIterator(fCpu, fHeader);
+                BinaryFTracePipelinedSectionIterator pipelined = new BinaryFTracePipelinedSectionIterator(fCpu, fHeader)) {
+            BinaryFTraceResponse response = sequential.readNextEvent();
+            while (response == BinaryFTraceResponse.OK) {
+                assertEquals(response, pipelined.readNextEvent());
+                BinaryFTraceEvent event = pipelined.getCurrentEvent();
+                assertEvent(events.size(), event, pipelined.getCurrentTimeStamp());
+                assertEquals(sequential.getCurrentTimeStamp(), pipelined.getCurrentTimeStamp());
+                assertEquals(sequential.getCurrentEvent().getFields(), event.getFields());
+                events.add(event);
+                response = sequential.readNextEvent();
+            }
+            assertEquals(BinaryFTraceResponse.FINISH, response);
+            assertEquals(BinaryFTraceResponse.FINISH, pipelined.readNextEvent());
+            assertNull(pipelined.getCurrentEvent());
+            // The end of the section is kept
+            assertEquals(BinaryFTraceResponse.FINISH, pipelined.readNextEvent());
+        }
+        assertEquals(NB_EVENTS, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEvent(i, events.get(i), events.get(i).getTimeSinceBoot());
+        }
+    }
+
+    /**
+     * Test seeking while the next batch is decoded, then decoding again from
+     * the new position
+     *
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    @Test
+    public void testSeek() throws IOException {
+        try (BinaryFTracePipelinedSectionIterator pipelined = new BinaryFTracePipelinedSectionIterator(fCpu, fHeader)) {
+            // Seek while the first batch is decoded
+            assertTrue(pipelined.seek(getTimeStamp(250)));
+            assertEvent(250, pipelined.getCurrentEvent(), pipelined.getCurrentTimeStamp());
+            assertEquals(NB_EVENTS - 251, readEvents(pipelined, 251, BinaryFTraceResponse.FINISH));
+
+            // Seek back once the section is read, in the middle of a batch
+            assertTrue(pipelined.seek(getTimeStamp(10)));
+            assertEvent(10, pipelined.getCurrentEvent(), pipelined.getCurrentTimeStamp());
+            for (int i = 11; i < 20; i++) {
+                assertEquals(BinaryFTraceResponse.OK, pipelined.readNextEvent());
+                assertEvent(i, pipelined.getCurrentEvent(), pipelined.getCurrentTimeStamp());
+            }
+
+            // Seek to the first event of a page, between two events
+            assertTrue(pipelined.seek(getTimeStamp(2 * EVENTS_PER_PAGE) - 1));
+            assertEvent(2 * EVENTS_PER_PAGE, pipelined.getCurrentEvent(), pipelined.getCurrentTimeStamp());
+            assertEquals(NB_EVENTS - 2 * EVENTS_PER_PAGE - 1, readEvents(pipelined, 2 * EVENTS_PER_PAGE + 1, BinaryFTraceResponse.FINISH));
+
+            // Seek after the last event
+            assertFalse(pipelined.seek(getTimeStamp(NB_EVENTS)));
+            assertNull(pipelined.getCurrentEvent());
+            assertEquals(BinaryFTraceResponse.FINISH, pipelined.readNextEvent());
+
+            // And back to the start
+            assertTrue(pipelined.seek(0));
+            assertEvent(0, pipelined.getCurrentEvent(), pipelined.getCurrentTimeStamp());
+            assertEquals(NB_EVENTS - 1, readEvents(pipelined, 1, BinaryFTraceResponse.FINISH));
+        }
+    }
+
+    /**
+     * Test stopping the decoding of the batches ahead by seeking repeatedly and
+     * closing the iterator while a batch is decoded
+     *
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    @Test
+    public void testStopDecoding() throws IOException {
+        BinaryFTracePipelinedSectionIterator pipelined = new BinaryFTracePipelinedSectionIterator(fCpu, fHeader);
+        for (int i = 0; i < NB_EVENTS; i += 37) {
+            assertTrue(pipelined.seek(getTimeStamp(i)));
+            assertEvent(i, pipelined.getCurrentEvent(), pipelined.getCurrentTimeStamp());
+            assertEquals(BinaryFTraceResponse.OK, pipelined.readNextEvent());
+            assertEvent(i + 1, pipelined.getCurrentEvent(), pipelined.getCurrentTimeStamp());
+        }
+        pipelined.close();
+        assertNull(pipelined.getCurrentEvent());
+        assertEquals(BinaryFTraceResponse.FINISH, pipelined.readNextEvent());
+
+        // Close while the first batch is decoded
+        pipelined = new BinaryFTracePipelinedSectionIterator(fCpu, fHeader);
+        pipelined.close();
+        assertEquals(BinaryFTraceResponse.FINISH, pipelined.readNextEvent());
+    }
+
+    /**
+     * Test that the response ending a section in error is returned after the
+     * events decoded before it
+     *
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    @Test
+    public void testError() throws IOException {
+        try (BinaryFTraceCPUSectionIterator sequential = new BinaryFTraceCPUSectionIterator(fTruncatedCpu, fHeader);
+                BinaryFTracePipelinedSectionIterator pipelined = new BinaryFTracePipelinedSectionIterator(fTruncatedCpu, fHeader)) {
+            assertEquals(NB_TRUNCATED_EVENTS, readEvents(sequential, 0, BinaryFTraceResponse.ERROR));
+            assertEquals(NB_TRUNCATED_EVENTS, readEvents(pipelined, 0, BinaryFTraceResponse.ERROR));
+            assertNull(pipelined.getCurrentEvent());
+            // The end of the section is kept
+            assertEquals(BinaryFTraceResponse.ERROR, pipelined.readNextEvent());
+        }
+
+        // A section without pages has no iterator to read from
+        BinaryFTraceFileCPU emptyCpu = new BinaryFTraceFileCPU(0, 0, 2, Collections.emptyList());
+        try (BinaryFTracePipelinedSectionIterator pipelined = new BinaryFTracePipelinedSectionIterator(emptyCpu, fHeader)) {
+            assertEquals(BinaryFTraceResponse.ERROR, pipelined.readNextEvent());
+            assertNull(pipelined.getCurrentEvent());
+        }
+    }
+}
@@ -220,4 +220,42 @@ public class BinaryFTraceReaderTest {
             assertEquals(reader.hasMoreEvents(), false);
         }
     }
+
+    /**
+     * Test that the pipelined reader, which decodes the CPU sections in
+     * parallel, reads the same events in the same order as the sequential
+     * reader, also after a seek.
+     *
+     * @throws Exception
+     *             An error occurred while iterating through the trace events
+     */
+    @Test
+    public void testPipelined() throws Exception {
+        try (BinaryFTraceReader reader = new BinaryFTraceReader(multipleEventTrace, false);
+                BinaryFTraceReader pipelinedReader = new BinaryFTraceReader(multipleEventTrace, true)) {
+            assertEquals(reader.getStartTime(), pipelinedReader.getStartTime());
+            assertSameEvents(reader, pipelinedReader);
+
+            reader.seek(BinaryFTraceReaderTestData.MID_TRACE_EVENT_IMPRECISE_TS);
+            pipelinedReader.seek(BinaryFTraceReaderTestData.MID_TRACE_EVENT_IMPRECISE_TS);
+            assertSameEvents(reader, pipelinedReader);
+        }
+    }
+
+    private static void assertSameEvents(BinaryFTraceReader expected, BinaryFTraceReader actual) throws Exception {
+        while (expected.hasMoreEvents()) {
+            assertTrue(actual.hasMoreEvents());
+            BinaryFTraceEvent expectedEvent = expected.getTopStream().getCurrentEvent();
+            BinaryFTraceEvent actualEvent = actual.getTopStream().getCurrentEvent();
+            assertNotNull(expectedEvent);
+            assertNotNull(actualEvent);
+            assertEquals(expectedEvent.getTimeSinceBoot(), actualEvent.getTimeSinceBoot());
+            assertEquals(expectedEvent.getCpu(), actualEvent.getCpu());
+            assertEquals(expectedEvent.getFields(), actualEvent.getFields());
+            expected.advance();
+            actual.advance();
+        }
+        assertFalse(actual.hasMoreEvents());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+    }
 }
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.ftrace.core.tests.binary.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceCPUDataPage;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceCPUDataPage.BinaryFTraceCPUDataPageBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFileCPU;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo.BinaryFTraceHeaderInfoBuilder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.parser.BinaryFTraceMappedSections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BinaryFTraceMappedSections}, with chunks of a few pages
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class BinaryFTraceMappedSectionsTest {
+    private static final int PAGE_SIZE = 16;
+    private static final int NB_PAGES = 10;
+    private static final long SECTION_OFFSET = 2 * PAGE_SIZE;
+    private static final long SECTION_SIZE = NB_PAGES * PAGE_SIZE;
+    private static final int FILE_SIZE = (int) (SECTION_OFFSET + SECTION_SIZE + PAGE_SIZE);
+    // Not a multiple of the page size, it is rounded down to 3 pages
+    private static final long CHUNK_SIZE = 3 * PAGE_SIZE + 5;
+
+    private Path fFile;
+
+    /**
+     * Create a file whose bytes are their offset in the file
+     *
+     * @throws IOException
+     *             If the file cannot be written
+     */
+    @Before
+    public void createFile() throws IOException {
+        fFile = Files.createTempFile("mappedSections", ".dat"); //$NON-NLS-1$ //$NON-NLS-2$
+        byte[] content = new byte[FILE_SIZE];
+        for (int i = 0; i < FILE_SIZE; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(fFile, content);
+    }
+
+    /**
+     * Delete the file
+     *
+     * @throws IOException
+     *             If the file cannot be deleted
+     */
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(fFile);
+    }
+
+    /**
+     * Test that every page of a section that spans several chunks is read
+     * from the right offset
+     *
+     * @throws IOException
+     *             If the section cannot be mapped
+     */
+    @Test
+    public void testSectionSpanningChunks() throws IOException {
+        List<BinaryFTraceCPUDataPage> pages = new ArrayList<>();
+        for (int i = 0; i < NB_PAGES; i++) {
+            pages.add(createPage(SECTION_OFFSET + i * PAGE_SIZE));
+        }
+        BinaryFTraceMappedSections sections = new BinaryFTraceMappedSections(createHeader(pages), CHUNK_SIZE);
+
+        for (BinaryFTraceCPUDataPage page : pages) {
+            assertPage(page.getPageStartingOffset(), sections.getPage(page));
+        }
+    }
+
+    /**
+     * Test that a page that is not aligned with the pages of its section, and
+     * that straddles two chunks, is read in full
+     *
+     * @throws IOException
+     *             If the section cannot be mapped
+     */
+    @Test
+    public void testPageStraddlingChunks() throws IOException {
+        // The second chunk starts 3 pages after the section
+        BinaryFTraceCPUDataPage page = createPage(SECTION_OFFSET + 3 * PAGE_SIZE - PAGE_SIZE / 2);
+        BinaryFTraceMappedSections sections = new BinaryFTraceMappedSections(createHeader(Collections.singletonList(page)), CHUNK_SIZE);
+
+        ByteBuffer buffer = sections.getPage(page);
+        assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+        assertPage(page.getPageStartingOffset(), buffer);
+    }
+
+    /**
+     * Test that a page outside of the CPU sections is not read
+     *
+     * @throws IOException
+     *             If the page is not in the mapped sections
+     */
+    @Test(expected = IOException.class)
+    public void testPageOutsideSections() throws IOException {
+        BinaryFTraceCPUDataPage page = createPage(SECTION_OFFSET + SECTION_SIZE - PAGE_SIZE / 2);
+        BinaryFTraceMappedSections sections = new BinaryFTraceMappedSections(createHeader(Collections.singletonList(page)), CHUNK_SIZE);
+        sections.getPage(page);
+    }
+
+    private static BinaryFTraceCPUDataPage createPage(long offset) {
+        return new BinaryFTraceCPUDataPageBuilder()
+                .pageStartingOffset(offset)
+                .size(PAGE_SIZE)
+                .build();
+    }
+
+    private BinaryFTraceHeaderInfo createHeader(List<BinaryFTraceCPUDataPage> pages) {
+        return new BinaryFTraceHeaderInfoBuilder()
+                .filePath(fFile.toString())
+                .endianess(ByteOrder.LITTLE_ENDIAN)
+                .hostMachinePageSize(PAGE_SIZE)
+                .fTraceEventFormats(Collections.emptyMap())
+                .eventSystems(Collections.emptyList())
+                .cpus(Collections.singletonList(new BinaryFTraceFileCPU(SECTION_OFFSET, SECTION_SIZE, 0, pages)))
+                .build();
+    }
+
+    private static void assertPage(long offset, ByteBuffer buffer) {
+        assertEquals(PAGE_SIZE, buffer.remaining());
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            assertEquals("Byte " + i + " of the page at offset " + offset, (byte) (offset + i), buffer.get(buffer.position() + i)); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+}
@@ -13,6 +13,7 @@ package org.eclipse.tracecompass.incubator.ftrace.core.tests.event;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.util.List;
 import java.util.Map;
@@ -172,6 +173,42 @@ public class FtraceFieldTest {
         assertEquals((Long) 0xfffffffffffffff5L, field.getContent().getFieldValue(Long.class, "ret"));
     }
 
+    /**
+     * Testing of parse line with a sched_switch line with the tgid of the
+     * thread, using line from an ftrace output
+     */
+    @Test
+    public void testParseSchedSwitchWithTgid() {
+        String line = "kworker/u16:6-214   (  200) [002] d...   149.136514: sched_switch: prev_comm=kworker/u16:6 prev_pid=214 prev_prio=120 prev_state=R+ ==> next_comm=swapper/2 next_pid=0 next_prio=120";
+
+        GenericFtraceField field = GenericFtraceField.parseLine(line);
+
+        assertNotNull(field);
+        assertEquals((Integer) 2, field.getCpu());
+        assertEquals((Integer) 200, field.getPid());
+        assertEquals((Integer) 214, field.getTid());
+        assertEquals(149136514000L, (long) field.getTs());
+        assertEquals("sched_switch", field.getName());
+
+        assertEquals(7, field.getContent().getFields().size());
+        assertEquals("kworker/u16:6", field.getContent().getFieldValue(String.class, "prev_comm"));
+        assertEquals((Long) 214L, field.getContent().getFieldValue(Long.class, "prev_pid"));
+        assertEquals((Long) 0L, field.getContent().getFieldValue(Long.class, "prev_state"));
+        assertEquals("swapper/2", field.getContent().getFieldValue(String.class, "next_comm"));
+        assertEquals((Long) 0L, field.getContent().getFieldValue(Long.class, "next_pid"));
+    }
+
+    /**
+     * Testing of parse line with lines that are not ftrace events
+     */
+    @Test
+    public void testParseInvalidLines() {
+        assertNull(GenericFtraceField.parseLine(""));
+        assertNull(GenericFtraceField.parseLine("#           TASK-PID     CPU#  ||||   TIMESTAMP  FUNCTION"));
+        assertNull(GenericFtraceField.parseLine("kworker/0:0-9514  [000] d..4  3210.263482 sched_wakeup: comm=daemonsu"));
+        assertNull(GenericFtraceField.parseLine("kworker/0:0-9514  [000] d..4  3210.263482: sched_wakeup: comm=daemonsu) pid=1"));
+    }
+
     /**
      * Testing of parse line with Irq_raise event function using line from an
      * ftrace output
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.ftrace.core.tests.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.event.GenericFtraceField;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.trace.FtraceChunkReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link FtraceChunkReader}, that reads the lines of text ftrace files
+ * ahead in parallel chunks
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class FtraceChunkReaderTest {
+
+    private static final String EVENT_LINE = "kworker/0:0-9514  [000] d..4  3210.%06d: sched_wakeup: comm=daemonsu pid=%d prio=120 success=1 target_cpu=000";
+    // Enough lines for several chunks of the reader
+    private static final int NB_LINES = 40000;
+
+    private File fFile;
+
+    /**
+     * Write a text ftrace file with comments and different line terminators
+     *
+     * @throws IOException
+     *             If the file cannot be written
+     */
+    @Before
+    public void setUp() throws IOException {
+        fFile = File.createTempFile("ftrace-chunks", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+        StringBuilder builder = new StringBuilder("# tracer: nop\n#\n"); //$NON-NLS-1$
+        for (int i = 0; i < NB_LINES; i++) {
+            if (i % 1000 == 500) {
+                builder.append("# comment between events\n"); //$NON-NLS-1$
+            }
+            builder.append(String.format(EVENT_LINE, i, i));
+            builder.append(i % 3 == 0 ? "\r\n" : "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        builder.append("not an event"); //$NON-NLS-1$
+        Files.write(fFile.toPath(), builder.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Delete the file
+     */
+    @After
+    public void tearDown() {
+        fFile.delete();
+    }
+
+    /**
+     * Test that the lines read ahead are the lines read from the file
+     *
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    @Test
+    public void testReadLines() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fFile, "r"); //$NON-NLS-1$
+                FtraceChunkReader reader = new FtraceChunkReader(fFile, 0, GenericFtraceField::parseLine)) {
+            long offset = 0;
+            for (int i = 0; i < NB_LINES; i++) {
+                assertTrue(reader.readLine(offset));
+                GenericFtraceField field = reader.getField();
+                assertNotNull(field);
+                assertEquals((Long) (long) i, field.getContent().getFieldValue(Long.class, "pid"));
+
+                file.seek(offset);
+                String line = file.readLine();
+                while (line.startsWith("#")) { //$NON-NLS-1$
+                    line = file.readLine();
+                }
+                assertEquals(file.getFilePointer(), reader.getLineEnd());
+                offset = reader.getLineEnd();
+            }
+
+            // The last line is not an event
+            assertTrue(reader.readLine(offset));
+            assertNull(reader.getField());
+            assertEquals(fFile.length(), reader.getLineEnd());
+            assertFalse(reader.readLine(reader.getLineEnd()));
+        }
+    }
+
+    /**
+     * Test that reading a line that was not read ahead fails
+     *
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    @Test
+    public void testReadUnexpectedLine() throws IOException {
+        try (FtraceChunkReader reader = new FtraceChunkReader(fFile, 0, GenericFtraceField::parseLine)) {
+            assertTrue(reader.readLine(0));
+            assertFalse(reader.readLine(reader.getLineEnd() + 1));
+        }
+    }
+}
@@ -11,12 +11,17 @@
 
 package org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header;
 
+import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator.BinaryFTraceEventDecoder;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.parser.BinaryFTraceMappedSections;
+
 /**
  * A representation of all header information required for parsing the events in
  * the FTrace file.
@@ -46,6 +51,12 @@ public class BinaryFTraceHeaderInfo {
 
     private List<BinaryFTraceFileCPU> cpus;
 
+    // The decoders of the event formats, by event format ID
+    private final Map<Integer, BinaryFTraceEventDecoder> fEventDecoders = new HashMap<>();
+
+    // Mapping of the CPU sections, shared by all the iterators of the file
+    private BinaryFTraceMappedSections fMappedSections = null;
+
     /**
      * Constructor
      *
@@ -72,6 +83,20 @@ public class BinaryFTraceHeaderInfo {
         fOptions = builder.fBuilderOptions;
         fEventCommonFields = builder.fBuilderEventCommonFields;
         cpus = builder.fBuilderCpus;
+
+        compileEventDecoders();
+    }
+
+    private void compileEventDecoders() {
+        // The formats are looked up in the same order as getEventFormatByID
+        for (BinaryFTraceEventFormat format : fFTraceEventFormats.values()) {
+            fEventDecoders.putIfAbsent(format.getEventFormatID(), BinaryFTraceEventDecoder.compile(format, this));
+        }
+        for (BinaryFTraceEventSystem eventSystem : fEventSystems) {
+            for (BinaryFTraceEventFormat format : eventSystem.getMapEventFormat().values()) {
+                fEventDecoders.putIfAbsent(format.getEventFormatID(), BinaryFTraceEventDecoder.compile(format, this));
+            }
+        }
     }
 
     /**
@@ -89,8 +114,9 @@ public class BinaryFTraceHeaderInfo {
      * @param filePath
      *            The file path of the trace file.
      */
-    public void setFilePath(String filePath) {
+    public synchronized void setFilePath(String filePath) {
         this.fFilePath = filePath;
+        fMappedSections = null;
     }
 
     /**
@@ -234,6 +260,18 @@ public class BinaryFTraceHeaderInfo {
         return null;
     }
 
+    /**
+     * Get the decoder of the events of an event format.
+     *
+     * @param eventTypeID
+     *            The ID of the event.
+     * @return The decoder of the event format with this ID, or null if there
+     *         is no such format.
+     */
+    public BinaryFTraceEventDecoder getEventDecoder(int eventTypeID) {
+        return fEventDecoders.get(eventTypeID);
+    }
+
     /**
      * Get the list of CPUS.
      *
@@ -243,6 +281,23 @@ public class BinaryFTraceHeaderInfo {
         return cpus;
     }
 
+    /**
+     * Get the memory mapping of the CPU sections of this binary file. The
+     * sections are mapped the first time this method is called.
+     *
+     * @return The mapped CPU sections
+     * @throws IOException
+     *             Cannot open or map the file
+     */
+    public synchronized BinaryFTraceMappedSections getMappedSections() throws IOException {
+        BinaryFTraceMappedSections mappedSections = fMappedSections;
+        if (mappedSections == null) {
+            mappedSections = new BinaryFTraceMappedSections(this);
+            fMappedSections = mappedSections;
+        }
+        return mappedSections;
+    }
+
     /**
      * Get the file type of this binary file
      *
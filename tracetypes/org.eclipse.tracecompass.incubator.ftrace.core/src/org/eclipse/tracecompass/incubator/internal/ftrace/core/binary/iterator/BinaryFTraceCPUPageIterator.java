@@ -13,6 +13,7 @@ package org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,9 +23,7 @@ import org.eclipse.tracecompass.incubator.internal.ftrace.core.Activator;
 import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.event.BinaryFTraceEvent;
 import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.event.BinaryFTraceEventDefinition;
 import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceCPUDataPage;
-import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceEventFormat;
 import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
-import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.parser.BinaryFTraceByteBuffer;
 
 /**
  * An iterator to loop through events in a single CPU data page. A CPU maybe
@@ -34,8 +33,9 @@ import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.parser.Bin
  * @Author Hoang Thuan Pham
  */
 public class BinaryFTraceCPUPageIterator implements Closeable {
-    // The buffer
-    private @Nullable BinaryFTraceByteBuffer fBuffer;
+    // The view of the page in the mapped CPU section, its position is the
+    // absolute offset minus the starting offset of the page
+    private @Nullable ByteBuffer fBuffer;
 
     private final BinaryFTraceHeaderInfo fFileHeader;
     private final long fLimit;
@@ -103,11 +103,8 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
      */
     @Override
     public void close() throws IOException {
-        BinaryFTraceByteBuffer buffer = fBuffer;
-        if (buffer != null) {
-            buffer.close();
-            fBuffer = null;
-        }
+        // The mapping is shared with the other iterators of the trace
+        fBuffer = null;
     }
 
     /**
@@ -212,10 +209,10 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
             return false;
         }
 
-        BinaryFTraceByteBuffer buffer = fBuffer;
+        ByteBuffer buffer = fBuffer;
         if (buffer != null) {
-            buffer.movePointerToOffset(fCurrentOffset);
-            int eventTypeLengthAndTimeStamp = buffer.getNextInt();
+            buffer.position(toPosition(fCurrentOffset));
+            int eventTypeLengthAndTimeStamp = buffer.getInt();
             fCurrentTypeLen = fDataParser.getEventTypeLength(eventTypeLengthAndTimeStamp);
             fCurrentTimeDelta = fDataParser.getDeltaTime(eventTypeLengthAndTimeStamp);
             fCurrentOffset += 4;
@@ -241,10 +238,10 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
             return -1;
         }
 
-        BinaryFTraceByteBuffer buffer = fBuffer;
+        ByteBuffer buffer = fBuffer;
         if (buffer != null) {
-            buffer.movePointerToOffset(fCurrentOffset);
-            int nextEventTypeLen = buffer.getNextInt();
+            buffer.position(toPosition(fCurrentOffset));
+            int nextEventTypeLen = buffer.getInt();
             return fDataParser.getEventTypeLength(nextEventTypeLen);
         }
 
@@ -264,9 +261,9 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
         if (fCurrentTypeLen <= fFileHeader.getHeaderEventInfo().getDataMaxTypeLen()) {
             fCurrentTimeStamp += fCurrentTimeDelta;
         } else {
-            BinaryFTraceByteBuffer buffer = fBuffer;
+            ByteBuffer buffer = fBuffer;
             if (buffer != null) {
-                long extend = buffer.getNextInt();
+                long extend = buffer.getInt();
                 extend = extend <<= 27;
                 extend += fCurrentTimeDelta;
 
@@ -299,10 +296,10 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
         if (fCurrentTypeLen == fFileHeader.getHeaderEventInfo().getCustomLengthEventTypeLen()) {
             // If the type length is 0, then the next 4 bytes contain the actual
             // length
-            BinaryFTraceByteBuffer buffer = fBuffer;
+            ByteBuffer buffer = fBuffer;
             if (buffer != null) {
                 // the size includes the size field itself, subtract it to get the actual event length
-                payloadSize = buffer.getNextInt() - 4;
+                payloadSize = buffer.getInt() - 4;
                 this.fCurrentOffset += 4;
             }
         } else if (fCurrentTypeLen <= fFileHeader.getHeaderEventInfo().getDataMaxTypeLen()) {
@@ -335,35 +332,60 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
         BinaryFTraceEventDefinition eventDef = fEventDef;
 
         if (eventDef != null) {
-            // We use a new buffer to read the current event
-            try (BinaryFTraceByteBuffer tempBuffer = new BinaryFTraceByteBuffer(fFileHeader.getFilePath());) {
-                tempBuffer.setByteOrder(fFileHeader.getEndianess());
-                tempBuffer.movePointerToOffset(eventDef.getPayloadOffset());
-
-                byte[] data = tempBuffer.getNextBytes(eventDef.getPayloadSize());
-                BinaryFTraceEventFormat eventFormat = fDataParser.getEventFormat(data);
-                if (eventFormat == null) {
-                    return null;
-                }
+            ByteBuffer data = getPayload(eventDef);
+            if (data == null) {
+                return null;
+            }
 
-                Map<String, Object> properties;
-                if (eventDef.getPayloadSize() > 0) {
-                    properties = fDataParser.parseEventData(eventFormat, data);
-                } else {
-                    properties = new HashMap<>();
-                }
+            BinaryFTraceEventDecoder decoder = fDataParser.getEventDecoder(data);
+            if (decoder == null) {
+                return null;
+            }
 
-                BinaryFTraceEvent event = new BinaryFTraceEvent(fCurrentTimeStamp,
-                        properties,
-                        eventFormat.getEventName(),
-                        fPage.getCpu());
-                return event;
+            Map<String, Object> properties;
+            if (eventDef.getPayloadSize() > 0) {
+                properties = fDataParser.parseEventData(decoder, data);
+            } else {
+                properties = new HashMap<>();
             }
+
+            BinaryFTraceEvent event = new BinaryFTraceEvent(fCurrentTimeStamp,
+                    properties,
+                    decoder.getFormat().getEventName(),
+                    fPage.getCpu());
+            return event;
         }
 
         return null;
     }
 
+    /**
+     * Get a view of the payload of an event in the page, without copying it.
+     *
+     * @param eventDef
+     *            The definition of the event
+     * @return The payload, starting at position 0 and in the byte order of the
+     *         file, or null if it is not within the page
+     */
+    private @Nullable ByteBuffer getPayload(BinaryFTraceEventDefinition eventDef) {
+        ByteBuffer buffer = fBuffer;
+        long payloadOffset = eventDef.getPayloadOffset();
+        int payloadSize = eventDef.getPayloadSize();
+        if (buffer == null || payloadSize < 0 || payloadOffset + payloadSize > fLimit) {
+            return null;
+        }
+
+        ByteBuffer payload = buffer.duplicate();
+        int position = toPosition(payloadOffset);
+        payload.limit(position + payloadSize);
+        payload.position(position);
+        return payload.slice().order(fFileHeader.getEndianess());
+    }
+
+    private int toPosition(long offset) {
+        return (int) (offset - fPage.getPageStartingOffset());
+    }
+
     /**
      * Seek an event with the specified time stamp
      *
@@ -411,7 +433,7 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
     public boolean hasNext() throws IOException {
         boolean ret = true;
 
-        BinaryFTraceByteBuffer buffer = fBuffer;
+        ByteBuffer buffer = fBuffer;
 
         if (buffer == null) {
             ret = false;
@@ -426,7 +448,7 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
                 ret = false;
             } else {
                 // We check the header type length and timestamp
-                int typeLengthAndTimeStamp = buffer.getNextInt();
+                int typeLengthAndTimeStamp = buffer.getInt();
 
                 /*
                  * If the type length and timestamp is 0, it might be a custom
@@ -439,7 +461,7 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
                         ret = false;
                     } else {
                         // No custom length, guaranteed to be paddings
-                        int customLength = buffer.getNextInt();
+                        int customLength = buffer.getInt();
                         if (customLength == 0) {
                             ret = false;
                         }
@@ -448,7 +470,7 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
             }
 
             // Reset the buffer to avoid issues with other methods
-            buffer.movePointerToOffset(fCurrentOffset);
+            buffer.position(toPosition(fCurrentOffset));
         }
 
         return ret;
@@ -462,15 +484,12 @@ public class BinaryFTraceCPUPageIterator implements Closeable {
         fEventDef = null;
 
         // Reset the iterator
-        if (fBuffer != null) {
-            fBuffer.movePointerToOffset(fPage.getDataStartingOffset());
-        } else {
-            // Prepare the buffer
-            BinaryFTraceByteBuffer newBuffer = new BinaryFTraceByteBuffer(fFileHeader.getFilePath());
-            newBuffer.setByteOrder(fFileHeader.getEndianess());
-            newBuffer.movePointerToOffset(fPage.getDataStartingOffset());
-
-            fBuffer = newBuffer;
+        ByteBuffer buffer = fBuffer;
+        if (buffer == null) {
+            // Get a view of the page, the mapping is shared by the iterators
+            buffer = fFileHeader.getMappedSections().getPage(fPage);
+            fBuffer = buffer;
         }
+        buffer.position(toPosition(fPage.getDataStartingOffset()));
     }
 }
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.event.BinaryFTraceConstants;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceEventFormat;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFormatField;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceValueSign;
+
+/**
+ * A decoder of the payload of the events of one event format. The field list
+ * of the format is interpreted once, when the decoder is compiled, into readers
+ * at precomputed offsets. The decoded values are stored in a flat array and
+ * the numeric values are only boxed when they are accessed.
+ *
+ * The decoded fields are exposed as a map, with the same entries as the event
+ * properties parsed before: the name of the event, then the common fields and
+ * the custom fields of the format. The payload fields, without the common
+ * fields and the fields without value, are also exposed as a view of the same
+ * values.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class BinaryFTraceEventDecoder {
+    private static final String NAME_FIELD = "name"; //$NON-NLS-1$
+    private static final String HEX_PREFIX = "0x"; //$NON-NLS-1$
+    private static final int DATALOC_SHIFT = 16;
+    private static final int DATA_LOC_OFFSET = 0x0000FFFF;
+
+    /**
+     * How a field is read from the payload
+     */
+    private enum Kind {
+        EVENT_NAME, NONE, TRUNCATED, POINTER, STRING, DATA_LOC_STRING, DATA_LOC_INVALID, CHAR, SHORT, INT, LONG
+    }
+
+    /**
+     * The reader of a field, at a precomputed offset
+     */
+    static final class FieldReader {
+        private final Kind fKind;
+        private final int fOffset;
+        private final int fSize;
+        // Whether the value is sign extended, or read as unsigned
+        private final boolean fSigned;
+
+        private FieldReader(Kind kind, int offset, int size, boolean signed) {
+            fKind = kind;
+            fOffset = offset;
+            fSize = size;
+            fSigned = signed;
+        }
+
+        private boolean isNumeric() {
+            return fKind == Kind.CHAR || fKind == Kind.SHORT || fKind == Kind.INT || fKind == Kind.LONG;
+        }
+    }
+
+    private final BinaryFTraceEventFormat fFormat;
+    private final BinaryFTraceHeaderInfo fHeader;
+    private final String[] fNames;
+    private final FieldReader[] fReaders;
+    private final Map<String, Integer> fIndexes;
+    // The indexes of the payload fields, and whether each field is one of them
+    private final int[] fPayloadIndexes;
+    private final boolean[] fIsPayload;
+
+    private BinaryFTraceEventDecoder(BinaryFTraceEventFormat format, BinaryFTraceHeaderInfo header) {
+        fFormat = format;
+        fHeader = header;
+
+        // A field with the same name as a previous one replaces it
+        Map<String, FieldReader> readers = new LinkedHashMap<>();
+        readers.put(NAME_FIELD, new FieldReader(Kind.EVENT_NAME, 0, 0, false));
+        for (Entry<String, BinaryFTraceFormatField> field : format.getCommonFields().entrySet()) {
+            readers.put(field.getKey(), compileField(field.getValue()));
+        }
+        for (Entry<String, BinaryFTraceFormatField> field : format.getCustomFields().entrySet()) {
+            readers.put(field.getKey(), compileField(field.getValue()));
+        }
+
+        fNames = readers.keySet().toArray(new String[readers.size()]);
+        fReaders = readers.values().toArray(new FieldReader[readers.size()]);
+        fIndexes = new HashMap<>();
+        for (int i = 0; i < fNames.length; i++) {
+            fIndexes.put(fNames[i], i);
+        }
+
+        // The fields without value are known from the format
+        fIsPayload = new boolean[fNames.length];
+        int payloadSize = 0;
+        for (int i = 0; i < fNames.length; i++) {
+            Kind kind = fReaders[i].fKind;
+            boolean hasValue = kind != Kind.NONE && (kind != Kind.EVENT_NAME || format.getEventName() != null);
+            fIsPayload[i] = hasValue && !fNames[i].startsWith(BinaryFTraceConstants.EVENT_FORMAT_COMMON_FIELD_PREFIX);
+            if (fIsPayload[i]) {
+                payloadSize++;
+            }
+        }
+        fPayloadIndexes = new int[payloadSize];
+        for (int i = 0, j = 0; i < fNames.length; i++) {
+            if (fIsPayload[i]) {
+                fPayloadIndexes[j++] = i;
+            }
+        }
+    }
+
+    /**
+     * Compile the decoder of an event format
+     *
+     * @param format
+     *            The event format
+     * @param header
+     *            The header of the trace of the events
+     * @return The decoder of the events of this format
+     */
+    public static BinaryFTraceEventDecoder compile(BinaryFTraceEventFormat format, BinaryFTraceHeaderInfo header) {
+        return new BinaryFTraceEventDecoder(format, header);
+    }
+
+    /**
+     * Get the event format decoded by this decoder
+     *
+     * @return The event format
+     */
+    public BinaryFTraceEventFormat getFormat() {
+        return fFormat;
+    }
+
+    /**
+     * Decode the payload of an event of this format
+     *
+     * @param data
+     *            The binary payload of the event, starting at position 0 and
+     *            in the byte order of the file. It is read with absolute reads.
+     * @param scratch
+     *            A scratch array to decode the strings, used by the calling
+     *            thread only
+     * @return The fields of the event, by name
+     */
+    public Map<String, Object> decode(ByteBuffer data, byte[] scratch) {
+        long[] values = new long[fReaders.length];
+        @Nullable Object[] objects = new Object[fReaders.length];
+        for (int i = 0; i < fReaders.length; i++) {
+            FieldReader reader = fReaders[i];
+            if (reader.isNumeric()) {
+                values[i] = readNumber(reader, data);
+            } else {
+                objects[i] = readObject(reader, data, scratch, fHeader, fFormat.getEventName());
+            }
+        }
+        return new DecodedFields(values, objects, false);
+    }
+
+    /**
+     * Get the payload fields of decoded fields, that is the fields that are
+     * not common fields and that have a value. The returned map is a view of
+     * the decoded values, that are not copied.
+     *
+     * @param fields
+     *            The fields of an event
+     * @return The payload fields, or null if the fields were not returned by
+     *         {@link #decode(ByteBuffer, byte[])}
+     */
+    public static @Nullable Map<String, Object> getPayloadFields(Map<String, Object> fields) {
+        if (fields instanceof BinaryFTraceEventDecoder.DecodedFields) {
+            return ((BinaryFTraceEventDecoder.DecodedFields) fields).getPayload();
+        }
+        return null;
+    }
+
+    /**
+     * Compile the reader of a field
+     *
+     * @param field
+     *            The field of an event format
+     * @return The reader of the field
+     */
+    static FieldReader compileField(BinaryFTraceFormatField field) {
+        int offset = field.getOffset();
+        int size = field.getSize();
+        if (field.isPointer() || (!field.isString() && field.getArrayLength() == 0)) {
+            // For now for non string arrays we just print out the pointer value
+            return new FieldReader(size < Long.BYTES ? Kind.TRUNCATED : Kind.POINTER, offset, size, false);
+        }
+        if (field.isString()) {
+            if (field.isDataLoc()) {
+                // The dynamic field should be 4 bytes
+                return new FieldReader(size == Integer.BYTES ? Kind.DATA_LOC_STRING : Kind.DATA_LOC_INVALID, offset, size, false);
+            }
+            return new FieldReader(Kind.STRING, offset, size, false);
+        }
+
+        boolean signed = field.getSigned() == BinaryFTraceValueSign.SIGNED;
+        switch (field.getFieldType()) {
+        case CHAR:
+            // A char for ftrace is a 8bit = 1byte value
+            return new FieldReader(size == 1 ? Kind.CHAR : Kind.NONE, offset, size, signed);
+        case SHORT:
+            return new FieldReader(size < Short.BYTES ? Kind.TRUNCATED : Kind.SHORT, offset, size, signed);
+        case INT:
+            return new FieldReader(size < Integer.BYTES ? Kind.TRUNCATED : Kind.INT, offset, size, signed);
+        case LONG:
+            // Long values that are not explicitly unsigned are signed
+            return new FieldReader(size < Long.BYTES ? Kind.TRUNCATED : Kind.LONG, offset, size, field.getSigned() != BinaryFTraceValueSign.UNSIGNED);
+        case UNKNOWN:
+        default:
+            return new FieldReader(Kind.NONE, offset, size, signed);
+        }
+    }
+
+    /**
+     * Read the value of a single field, which is not the event name
+     *
+     * @param reader
+     *            The reader of the field
+     * @param data
+     *            The binary payload of the event
+     * @param scratch
+     *            A scratch array to decode the strings
+     * @param header
+     *            The header of the trace of the event
+     * @return The value of the field
+     */
+    static @Nullable Object read(FieldReader reader, ByteBuffer data, byte[] scratch, BinaryFTraceHeaderInfo header) {
+        if (reader.isNumeric()) {
+            return box(reader, readNumber(reader, data));
+        }
+        return readObject(reader, data, scratch, header, null);
+    }
+
+    private static long readNumber(FieldReader reader, ByteBuffer data) {
+        switch (reader.fKind) {
+        case CHAR: {
+            byte value = data.get(reader.fOffset);
+            return reader.fSigned ? value : Byte.toUnsignedLong(value);
+        }
+        case SHORT: {
+            short value = data.getShort(reader.fOffset);
+            return reader.fSigned ? value : Short.toUnsignedLong(value);
+        }
+        case INT: {
+            int value = data.getInt(reader.fOffset);
+            return reader.fSigned ? value : Integer.toUnsignedLong(value);
+        }
+        case LONG:
+            return data.getLong(reader.fOffset);
+        case EVENT_NAME:
+        case NONE:
+        case TRUNCATED:
+        case POINTER:
+        case STRING:
+        case DATA_LOC_STRING:
+        case DATA_LOC_INVALID:
+        default:
+            throw new IllegalStateException("Not a numeric field: " + reader.fKind); //$NON-NLS-1$
+        }
+    }
+
+    private static Object box(FieldReader reader, long value) {
+        // Unsigned long values that do not fit in a long are strings
+        if (reader.fKind == Kind.LONG && !reader.fSigned && value < 0) {
+            return Long.toUnsignedString(value);
+        }
+        return value;
+    }
+
+    private static @Nullable Object readObject(FieldReader reader, ByteBuffer data, byte[] scratch, BinaryFTraceHeaderInfo header, @Nullable String eventName) {
+        switch (reader.fKind) {
+        case EVENT_NAME:
+            return eventName;
+        case TRUNCATED:
+            // The value does not fit in its field
+            throw new BufferUnderflowException();
+        case POINTER:
+            return readPointer(data.getLong(reader.fOffset), header);
+        case STRING:
+            return readString(data, reader.fOffset, reader.fSize, scratch);
+        case DATA_LOC_STRING: {
+            int dataLocation = data.getInt(reader.fOffset);
+            int length = dataLocation >> DATALOC_SHIFT;
+            int offset = dataLocation & DATA_LOC_OFFSET;
+            if (offset + length <= data.limit()) {
+                return readString(data, offset, length, scratch);
+            }
+            return ""; //$NON-NLS-1$
+        }
+        case DATA_LOC_INVALID:
+            return ""; //$NON-NLS-1$
+        case NONE:
+        case CHAR:
+        case SHORT:
+        case INT:
+        case LONG:
+        default:
+            return null;
+        }
+    }
+
+    private static String readPointer(long pointerAddress, BinaryFTraceHeaderInfo header) {
+        // If the we have a mapping of address to string in the file header, get
+        // the string
+        String hexAddress = HEX_PREFIX + Long.toHexString(pointerAddress);
+        String mappedString = header.getPrintKPointerStringMapping().get(hexAddress);
+        if (mappedString != null) {
+            return mappedString;
+        }
+
+        // Else we return the hex string representation like trace-cmd
+        return hexAddress;
+    }
+
+    private static String readString(ByteBuffer data, int offset, int size, byte[] scratch) {
+        // Like the field, the string ends at the end of the payload
+        int maxLength = Math.min(size, data.limit() - offset);
+        int length = 0;
+        while (length < maxLength && data.get(offset + length) != 0) {
+            length++;
+        }
+
+        byte[] bytes = scratch.length >= length ? scratch : new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = data.get(offset + i);
+        }
+        return new String(bytes, 0, length);
+    }
+
+    /**
+     * The decoded fields of an event, boxed when they are accessed. The
+     * payload fields share the values of all the fields.
+     */
+    private final class DecodedFields extends AbstractMap<String, Object> {
+        private final long[] fValues;
+        private final @Nullable Object[] fObjects;
+        private final boolean fPayloadOnly;
+
+        private DecodedFields(long[] values, @Nullable Object[] objects, boolean payloadOnly) {
+            fValues = values;
+            fObjects = objects;
+            fPayloadOnly = payloadOnly;
+        }
+
+        private DecodedFields getPayload() {
+            return fPayloadOnly ? this : new DecodedFields(fValues, fObjects, true);
+        }
+
+        private @Nullable Object getValue(int index) {
+            Object value = fObjects[index];
+            if (value == null && fReaders[index].isNumeric()) {
+                value = box(fReaders[index], fValues[index]);
+                fObjects[index] = value;
+            }
+            return value;
+        }
+
+        private @Nullable Integer getIndex(@Nullable Object key) {
+            Integer index = fIndexes.get(key);
+            return index == null || (fPayloadOnly && !fIsPayload[index]) ? null : index;
+        }
+
+        private int getIndexAt(int position) {
+            return fPayloadOnly ? fPayloadIndexes[position] : position;
+        }
+
+        @Override
+        public @Nullable Object get(@Nullable Object key) {
+            Integer index = getIndex(key);
+            return index == null ? null : getValue(index);
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            return getIndex(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return fPayloadOnly ? fPayloadIndexes.length : fNames.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int fPosition = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return fPosition < DecodedFields.this.size();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = getIndexAt(fPosition++);
+                            return new SimpleImmutableEntry<>(fNames[index], getValue(index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return DecodedFields.this.size();
+                }
+            };
+        }
+    }
+}
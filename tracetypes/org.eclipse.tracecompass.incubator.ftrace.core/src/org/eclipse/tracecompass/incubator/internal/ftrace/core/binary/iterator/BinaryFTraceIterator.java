@@ -75,7 +75,26 @@ public class BinaryFTraceIterator extends BinaryFTraceReader implements ITmfCont
      *             a read error.
      */
     public BinaryFTraceIterator(BinaryFTraceHeaderInfo headerInfo, @NonNull BinaryFTrace ftrace) throws IOException {
-        super(headerInfo);
+        this(headerInfo, ftrace, Boolean.getBoolean(PIPELINED_PROPERTY));
+    }
+
+    /**
+     * Create a new iterator, which initially points at the first event in the
+     * trace.
+     *
+     * @param headerInfo
+     *            The {@link BinaryFTraceHeaderInfo} linked to the trace.
+     * @param ftrace
+     *            The {@link BinaryFTrace} to iterate over
+     * @param pipelined
+     *            Whether to decode each CPU section on a decoder thread ahead
+     *            of the iterator
+     * @throws IOException
+     *             If the iterator couldn't not be instantiated, probably due to
+     *             a read error.
+     */
+    public BinaryFTraceIterator(BinaryFTraceHeaderInfo headerInfo, @NonNull BinaryFTrace ftrace, boolean pipelined) throws IOException {
+        super(headerInfo, pipelined);
         this.fTrace = ftrace;
 
         if (hasMoreEvents()) {
@@ -144,23 +163,34 @@ public class BinaryFTraceIterator extends BinaryFTraceReader implements ITmfCont
             }
         }
 
-        Map<@NonNull String, @NonNull Object> fields = new HashMap<>();
-        for (Entry<String, Object> field : event.getFields().entrySet()) {
+        // The payload fields are passed as a view of the decoded values,
+        // unless a field is renamed
+        boolean isFork = name.equals(GenericFtraceEventLayout.getInstance().eventSchedProcessFork());
+        Map<String, Object> fields = BinaryFTraceEventDecoder.getPayloadFields(event.getFields());
+        if (isFork || fields == null) {
+            fields = copyPayloadFields(event.getFields(), isFork);
+        }
+
+        @SuppressWarnings("null")
+        GenericFtraceField parsedEvent = new GenericFtraceField(name, cpu, timestampInNano, pid, tid, fields);
+        return new GenericFtraceEvent(fTrace, fCurRank, parsedEvent);
+    }
+
+    private static Map<String, Object> copyPayloadFields(Map<String, Object> eventFields, boolean isFork) {
+        Map<String, Object> fields = new HashMap<>();
+        for (Entry<String, Object> field : eventFields.entrySet()) {
             String key = field.getKey();
             Object value = field.getValue();
 
             if (value != null && !key.startsWith(BinaryFTraceConstants.EVENT_FORMAT_COMMON_FIELD_PREFIX)) {
-                if (key.equals("parent_pid") && name.equals(GenericFtraceEventLayout.getInstance().eventSchedProcessFork())) { //$NON-NLS-1$
+                if (isFork && key.equals("parent_pid")) { //$NON-NLS-1$
                     key = "pid"; //$NON-NLS-1$
                 }
 
                 fields.put(key, value);
             }
         }
-
-        @SuppressWarnings("null")
-        GenericFtraceField parsedEvent = new GenericFtraceField(name, cpu, timestampInNano, pid, tid, fields);
-        return new GenericFtraceEvent(fTrace, fCurRank, parsedEvent);
+        return fields;
     }
 
     @Override
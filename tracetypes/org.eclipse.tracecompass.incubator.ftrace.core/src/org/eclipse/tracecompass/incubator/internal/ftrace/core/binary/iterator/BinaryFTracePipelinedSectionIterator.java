@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.iterator;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.Activator;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.event.BinaryFTraceEvent;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFileCPU;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
+
+/**
+ * A {@link BinaryFTraceCPUSectionIterator} that decodes the events of its CPU
+ * section ahead of the reader, on a pool of decoder threads. The events are
+ * decoded in batches into a ring of two pre-allocated batches: while the
+ * reader consumes a batch, the next one is decoded. The reader thread then only
+ * merges the already parsed events of the CPU sections.
+ *
+ * At most one batch of a section is decoded at a time, so the underlying
+ * iterator is never accessed concurrently. Seeking and closing wait for the
+ * batch being decoded.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class BinaryFTracePipelinedSectionIterator extends BinaryFTraceCPUSectionIterator {
+    private static final int BATCH_SIZE = 128;
+
+    private static final ExecutorService DECODERS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "Binary FTrace decoder"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A batch of decoded events
+     */
+    private static final class Batch {
+        private final long[] fTimeStamps = new long[BATCH_SIZE];
+        private final @Nullable BinaryFTraceEvent[] fEvents = new BinaryFTraceEvent[BATCH_SIZE];
+        private int fSize = 0;
+        // The response that ended the section, null if there are more events
+        private @Nullable BinaryFTraceResponse fEnd = null;
+
+        private void clear() {
+            for (int i = 0; i < fSize; i++) {
+                fEvents[i] = null;
+            }
+            fSize = 0;
+            fEnd = null;
+        }
+    }
+
+    private Batch fBatch = new Batch();
+    private Batch fFreeBatch = new Batch();
+    private int fIndex = 0;
+    private @Nullable Future<Batch> fNextBatch = null;
+    private volatile boolean fStopped = false;
+
+    private @Nullable BinaryFTraceEvent fCurrentEvent = null;
+    private long fCurrentTimeStamp;
+
+    /**
+     * Constructor
+     *
+     * @param cpu
+     *            The CPU section to iterator to loop over
+     * @param headerInfo
+     *            The trace header
+     * @throws IOException
+     *             If fail to obtain the iterator
+     */
+    public BinaryFTracePipelinedSectionIterator(BinaryFTraceFileCPU cpu, BinaryFTraceHeaderInfo headerInfo) throws IOException {
+        super(cpu, headerInfo);
+        fCurrentTimeStamp = super.getCurrentTimeStamp();
+        decodeNextBatch();
+    }
+
+    @Override
+    public BinaryFTraceResponse readNextEvent() {
+        if (fIndex >= fBatch.fSize) {
+            BinaryFTraceResponse end = fBatch.fEnd;
+            if (end == null) {
+                end = takeNextBatch();
+            }
+            if (end != null) {
+                fCurrentEvent = null;
+                return end;
+            }
+        }
+
+        fCurrentEvent = fBatch.fEvents[fIndex];
+        fCurrentTimeStamp = fBatch.fTimeStamps[fIndex];
+        fIndex++;
+        return BinaryFTraceResponse.OK;
+    }
+
+    /**
+     * Make the decoded batch the current batch and decode the following one
+     *
+     * @return The response that ended the section if the new batch is empty,
+     *         or null
+     */
+    private @Nullable BinaryFTraceResponse takeNextBatch() {
+        Future<Batch> nextBatch = fNextBatch;
+        fNextBatch = null;
+        if (nextBatch == null) {
+            return BinaryFTraceResponse.ERROR;
+        }
+        Batch batch = awaitBatch(nextBatch);
+        if (batch == null) {
+            return BinaryFTraceResponse.ERROR;
+        }
+        fFreeBatch = fBatch;
+        fBatch = batch;
+        fIndex = 0;
+
+        if (fBatch.fEnd == null) {
+            decodeNextBatch();
+        }
+        return fBatch.fSize == 0 ? fBatch.fEnd : null;
+    }
+
+    private void decodeNextBatch() {
+        Batch batch = fFreeBatch;
+        batch.clear();
+        fNextBatch = DECODERS.submit(() -> decode(batch));
+    }
+
+    private Batch decode(Batch batch) {
+        while (batch.fSize < BATCH_SIZE && !fStopped) {
+            BinaryFTraceResponse response = super.readNextEvent();
+            if (response != BinaryFTraceResponse.OK) {
+                batch.fEnd = response;
+                return batch;
+            }
+            try {
+                batch.fEvents[batch.fSize] = super.getCurrentEvent();
+            } catch (IOException e) {
+                Activator.getInstance().logInfo("An error occured while reading the next trace event", e); //$NON-NLS-1$
+                batch.fEnd = BinaryFTraceResponse.ERROR;
+                return batch;
+            }
+            batch.fTimeStamps[batch.fSize] = super.getCurrentTimeStamp();
+            batch.fSize++;
+        }
+        return batch;
+    }
+
+    /**
+     * Wait for a batch to be decoded. The wait is not interrupted, so that the
+     * underlying iterator is never used by two threads.
+     *
+     * @param batch
+     *            The batch being decoded
+     * @return The decoded batch, or null if the decoding failed
+     */
+    private static @Nullable Batch awaitBatch(Future<Batch> batch) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return batch.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Activator.getInstance().logInfo("An error occured while decoding the trace events", e); //$NON-NLS-1$
+            return null;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stop decoding the events ahead, and wait for the batch being decoded.
+     * The underlying iterator can then be used by the calling thread.
+     */
+    private void stopDecoding() {
+        Future<Batch> nextBatch = fNextBatch;
+        fNextBatch = null;
+        if (nextBatch != null) {
+            fStopped = true;
+            awaitBatch(nextBatch);
+            fStopped = false;
+        }
+        fBatch.clear();
+        fIndex = 0;
+    }
+
+    @Override
+    public long getCurrentTimeStamp() {
+        return fCurrentTimeStamp;
+    }
+
+    @Override
+    public @Nullable BinaryFTraceEvent getCurrentEvent() throws IOException {
+        return fCurrentEvent;
+    }
+
+    @Override
+    public boolean seek(long timestamp) throws IOException {
+        stopDecoding();
+        boolean ret = super.seek(timestamp);
+
+        // The event the section is positioned at was read by the seek
+        fCurrentEvent = super.getCurrentEvent();
+        fCurrentTimeStamp = super.getCurrentTimeStamp();
+        if (fCurrentEvent != null) {
+            decodeNextBatch();
+        } else {
+            fBatch.fEnd = BinaryFTraceResponse.FINISH;
+        }
+        return ret;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopDecoding();
+        fBatch.fEnd = BinaryFTraceResponse.FINISH;
+        fCurrentEvent = null;
+        super.close();
+    }
+}
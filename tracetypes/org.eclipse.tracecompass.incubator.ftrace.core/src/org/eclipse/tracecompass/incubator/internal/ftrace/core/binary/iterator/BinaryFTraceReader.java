@@ -37,6 +37,12 @@ import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 public class BinaryFTraceReader implements AutoCloseable {
     private static final int MIN_PRIO_SIZE = 16;
 
+    /**
+     * System property to decode the CPU sections in parallel by default, see
+     * {@link BinaryFTracePipelinedSectionIterator}
+     */
+    public static final String PIPELINED_PROPERTY = "org.eclipse.tracecompass.incubator.ftrace.binary.pipelined"; //$NON-NLS-1$
+
     // ------------------------------------------------------------------------
     // Attributes
     // ------------------------------------------------------------------------
@@ -76,12 +82,19 @@ public class BinaryFTraceReader implements AutoCloseable {
      */
     private boolean fClosed = false;
 
+    /**
+     * Whether the CPU sections are decoded in parallel
+     */
+    private final boolean fPipelined;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
 
     /**
-     * Constructs a BinaryFTraceReader to read a trace.
+     * Constructs a BinaryFTraceReader to read a trace. The CPU sections are
+     * decoded in parallel if the {@link #PIPELINED_PROPERTY} system property
+     * is set to true.
      *
      * @param trace
      *            The trace to read from.
@@ -89,7 +102,24 @@ public class BinaryFTraceReader implements AutoCloseable {
      *             if an error occurs
      */
     public BinaryFTraceReader(BinaryFTraceHeaderInfo trace) throws IOException {
+        this(trace, Boolean.getBoolean(PIPELINED_PROPERTY));
+    }
+
+    /**
+     * Constructs a BinaryFTraceReader to read a trace.
+     *
+     * @param trace
+     *            The trace to read from.
+     * @param pipelined
+     *            Whether to decode each CPU section on a decoder thread ahead
+     *            of the reader, the reader thread then only merges the decoded
+     *            events
+     * @throws IOException
+     *             if an error occurs
+     */
+    public BinaryFTraceReader(BinaryFTraceHeaderInfo trace, boolean pipelined) throws IOException {
         fTrace = trace;
+        fPipelined = pipelined && trace.getCpus().size() > 1;
         fIterators.clear();
 
         /**
@@ -182,7 +212,7 @@ public class BinaryFTraceReader implements AutoCloseable {
          * For each stream.
          */
         for (BinaryFTraceFileCPU cpu : fTrace.getCpus()) {
-            BinaryFTraceCPUSectionIterator iterator = new BinaryFTraceCPUSectionIterator(cpu, fTrace);
+            BinaryFTraceCPUSectionIterator iterator = fPipelined ? new BinaryFTracePipelinedSectionIterator(cpu, fTrace) : new BinaryFTraceCPUSectionIterator(cpu, fTrace);
             fIterators.add(iterator);
         }
 
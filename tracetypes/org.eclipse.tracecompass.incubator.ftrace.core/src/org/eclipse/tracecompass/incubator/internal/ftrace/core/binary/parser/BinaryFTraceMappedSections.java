@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceCPUDataPage;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceFileCPU;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.binary.header.BinaryFTraceHeaderInfo;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A read-only memory mapping of the CPU sections of a binary FTrace file. The
+ * sections are mapped once per trace and the pages are read from views of the
+ * mapping, so the iterators do not need to open the file nor to copy the
+ * events they read.
+ *
+ * A section is mapped in chunks, as a single mapping is limited to 2 GiB. The
+ * chunks are a multiple of the page size and start with the section, like
+ * its pages, so that a page is contained in a single chunk. A page that is
+ * not aligned with the pages of its section is mapped on its own.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class BinaryFTraceMappedSections {
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    private final String fFilePath;
+    private final ByteOrder fByteOrder;
+    // The mapped chunks, by their offset in the file
+    private final TreeMap<Long, MappedByteBuffer> fChunks = new TreeMap<>();
+
+    /**
+     * Map the CPU sections of a binary FTrace file. The file is only open
+     * while it is mapped, the mapping remains valid until it is garbage
+     * collected.
+     *
+     * @param header
+     *            The header information of the file to map
+     * @throws IOException
+     *             Cannot open or map the file
+     */
+    public BinaryFTraceMappedSections(BinaryFTraceHeaderInfo header) throws IOException {
+        this(header, MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Map the CPU sections of a binary FTrace file in chunks of a given size.
+     * Use only for unit tests, otherwise use
+     * {@link #BinaryFTraceMappedSections(BinaryFTraceHeaderInfo)} to map the
+     * sections in the largest chunks.
+     *
+     * @param header
+     *            The header information of the file to map
+     * @param maxChunkSize
+     *            The maximum size of a chunk, in bytes, rounded down to a
+     *            multiple of the page size
+     * @throws IOException
+     *             Cannot open or map the file
+     */
+    @VisibleForTesting
+    public BinaryFTraceMappedSections(BinaryFTraceHeaderInfo header, long maxChunkSize) throws IOException {
+        fFilePath = header.getFilePath();
+        fByteOrder = header.getEndianess();
+        int pageSize = Math.max(1, header.getHostMachinePageSize());
+        long chunkSize = Math.max(pageSize, maxChunkSize - (maxChunkSize % pageSize));
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fFilePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            for (BinaryFTraceFileCPU cpu : header.getCpus()) {
+                long start = cpu.getOffset();
+                long sectionEnd = Math.min(start + cpu.getSectionSize(), fileSize);
+                while (start < sectionEnd) {
+                    long end = Math.min(sectionEnd, start + chunkSize);
+                    fChunks.put(start, channel.map(MapMode.READ_ONLY, start, end - start));
+                    start = end;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a view of a CPU data page. The view starts at the beginning of the
+     * page, is limited to the page and is in the byte order of the file.
+     *
+     * @param page
+     *            The CPU data page to read
+     * @return The view of the page
+     * @throws IOException
+     *             If the page is not in the mapped sections
+     */
+    public ByteBuffer getPage(BinaryFTraceCPUDataPage page) throws IOException {
+        long pageStart = page.getPageStartingOffset();
+        long pageEnd = pageStart + page.getSize();
+        Entry<Long, MappedByteBuffer> chunk = fChunks.floorEntry(pageStart);
+        if (chunk == null || pageEnd > chunk.getKey() + chunk.getValue().capacity()) {
+            return mapPage(pageStart, pageEnd);
+        }
+
+        ByteBuffer view = chunk.getValue().duplicate();
+        int position = (int) (pageStart - chunk.getKey());
+        view.position(position);
+        view.limit(position + page.getSize());
+        return view.slice().order(fByteOrder);
+    }
+
+    /**
+     * Map a page that is not contained in a single chunk on its own, the
+     * chunks must cover the whole page
+     */
+    private ByteBuffer mapPage(long pageStart, long pageEnd) throws IOException {
+        long offset = pageStart;
+        while (offset < pageEnd) {
+            Entry<Long, MappedByteBuffer> chunk = fChunks.floorEntry(offset);
+            if (chunk == null || offset >= chunk.getKey() + chunk.getValue().capacity()) {
+                throw new IOException("The CPU page at offset " + pageStart + " is not in a mapped CPU section"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            offset = chunk.getKey() + chunk.getValue().capacity();
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(fFilePath), StandardOpenOption.READ)) {
+            return channel.map(MapMode.READ_ONLY, pageStart, pageEnd - pageStart).order(fByteOrder);
+        }
+    }
+}
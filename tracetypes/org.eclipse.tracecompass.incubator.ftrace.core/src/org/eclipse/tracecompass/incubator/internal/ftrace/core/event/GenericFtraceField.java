@@ -22,6 +22,7 @@ import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -103,40 +104,62 @@ public class GenericFtraceField {
      * @return An event field
      */
     public static @Nullable GenericFtraceField parseLine(String line) {
+        GenericFtraceLineTokenizer tokens = GenericFtraceLineTokenizer.tokenize(line);
+        if (tokens != null) {
+            return createField(tokens.getPid(), tokens.getTgid(), tokens.getCpu(), tokens.getTimestamp(),
+                    tokens.getName(), tokens.getSeparator(), tokens.getData());
+        }
         Matcher matcher = IGenericFtraceConstants.FTRACE_PATTERN.matcher(line);
         if (matcher.matches()) {
-            Integer pid = Integer.parseInt(matcher.group(IGenericFtraceConstants.FTRACE_PID_GROUP));
-            Integer tid = pid;
-            Integer cpu = Integer.parseInt(matcher.group(IGenericFtraceConstants.FTRACE_CPU_GROUP));
-            Double timestampInSec = Double.parseDouble(matcher.group(IGenericFtraceConstants.FTRACE_TIMESTAMP_GROUP));
-            Long timestampInNano = (long) (timestampInSec * SECONDS_TO_NANO);
-
-            String name = matcher.group(IGenericFtraceConstants.FTRACE_NAME_GROUP);
-            name = name.trim();
+            return createField(matcher.group(IGenericFtraceConstants.FTRACE_PID_GROUP),
+                    matcher.group(IGenericFtraceConstants.FTRACE_TGID_GROUP),
+                    matcher.group(IGenericFtraceConstants.FTRACE_CPU_GROUP),
+                    matcher.group(IGenericFtraceConstants.FTRACE_TIMESTAMP_GROUP),
+                    matcher.group(IGenericFtraceConstants.FTRACE_NAME_GROUP),
+                    matcher.group(IGenericFtraceConstants.FTRACE_SEPARATOR_GROUP),
+                    matcher.group(IGenericFtraceConstants.FTRACE_DATA_GROUP));
+        }
+        return null;
+    }
 
-            String separator = matcher.group(IGenericFtraceConstants.FTRACE_SEPARATOR_GROUP);
-            separator = separator.trim();
+    private static GenericFtraceField createField(String pidGroup, @Nullable String tgid, String cpuGroup, String timestampGroup,
+            String nameGroup, String separatorGroup, @Nullable String data) {
+        Integer pid = Integer.parseInt(pidGroup);
+        Integer tid = pid;
+        Integer cpu = Integer.parseInt(cpuGroup);
+        Double timestampInSec = Double.parseDouble(timestampGroup);
+        Long timestampInNano = (long) (timestampInSec * SECONDS_TO_NANO);
 
-            String attributes = matcher.group(IGenericFtraceConstants.FTRACE_DATA_GROUP);
+        String name = nameGroup.trim();
+        String separator = separatorGroup.trim();
+        String attributes = data;
 
-            name = eventNameRewrite(name, separator);
+        name = eventNameRewrite(name, separator);
 
-            /*
-             * There's no distinction between pid and tid in scheduling events. However,when there's a mismatch
-             * between the tgid and the pid, we know the event happened on a thread and that
-             * the tgid is the actual pid, and the pid the tid.
-             */
-            String tgid = matcher.group(IGenericFtraceConstants.FTRACE_TGID_GROUP);
-            if (tgid != null) {
-                Integer tgidNumeric = Integer.parseInt(tgid);
-                if (!tgidNumeric.equals(pid)) {
-                    pid = tgidNumeric;
-                }
+        /*
+         * There's no distinction between pid and tid in scheduling events. However,when there's a mismatch
+         * between the tgid and the pid, we know the event happened on a thread and that
+         * the tgid is the actual pid, and the pid the tid.
+         */
+        if (tgid != null) {
+            Integer tgidNumeric = Integer.parseInt(tgid);
+            if (!tgidNumeric.equals(pid)) {
+                pid = tgidNumeric;
             }
+        }
 
-            Map<@NonNull String, @NonNull Object> fields = new HashMap<>();
+        Map<@NonNull String, @NonNull Object> fields = new HashMap<>();
 
-            if (attributes != null && !attributes.isEmpty()) {
+        if (attributes != null && !attributes.isEmpty()) {
+            List<String> keyValues = GenericFtraceLineTokenizer.splitKeyValues(attributes);
+            if (keyValues != null) {
+                for (int i = 0; i < keyValues.size(); i += 2) {
+                    putKeyValueField(name, fields, keyValues.get(i), keyValues.get(i + 1));
+                }
+                if (!keyValues.isEmpty()) {
+                    attributes = keyValues.get(keyValues.size() - 1);
+                }
+            } else {
                 int valStart = 0;
                 Matcher keyvalMatcher = KEYVAL_KEY_PATTERN.matcher(attributes);
                 String key = null;
@@ -157,32 +180,32 @@ public class GenericFtraceField {
                 if (key != null && valStart > 0) {
                     putKeyValueField(name, fields, key, attributes);
                 }
+            }
 
-                /*
-                 * If anything else fails, but we have discovered sort of a valid event
-                 * attributes lets just add the unparsed attributes with key "data".
-                 */
-                if (fields.isEmpty()) {
-                    key = "data"; //$NON-NLS-1$
-                    if (name.equals(IGenericFtraceConstants.FTRACE_EXIT_SYSCALL)) {
-                        key = "ret"; //$NON-NLS-1$
-                    }
-                    fields.put(key, decodeString(attributes));
+            /*
+             * If anything else fails, but we have discovered sort of a valid event
+             * attributes lets just add the unparsed attributes with key "data".
+             */
+            if (fields.isEmpty()) {
+                String key = "data"; //$NON-NLS-1$
+                if (name.equals(IGenericFtraceConstants.FTRACE_EXIT_SYSCALL)) {
+                    key = "ret"; //$NON-NLS-1$
                 }
+                fields.put(key, decodeString(attributes));
             }
-
-            return new GenericFtraceField(name, cpu, timestampInNano, pid, tid, fields);
         }
-        return null;
+
+        return new GenericFtraceField(name, cpu, timestampInNano, pid, tid, fields);
     }
 
     private static void putKeyValueField(String name, Map<@NonNull String, @NonNull Object> fields, String key, String value) {
-        String actualValue;
-        Matcher valMatcher = KEYVAL_VALUE_PATTERN.matcher(value);
-        if (!KEYVAL_VALUE_DOCKER_BYPASS.matcher(value).find() && valMatcher.matches()) {
-            actualValue = valMatcher.group(KEYVAL_VALUE_GROUP).trim();
-        } else {
-            actualValue = value.trim();
+        // Without brackets nor commas, the value pattern matches the whole value
+        String actualValue = value.trim();
+        if (value.indexOf('[') >= 0 || value.indexOf(']') >= 0 || value.indexOf(',') >= 0) {
+            Matcher valMatcher = KEYVAL_VALUE_PATTERN.matcher(value);
+            if (!KEYVAL_VALUE_DOCKER_BYPASS.matcher(value).find() && valMatcher.matches()) {
+                actualValue = valMatcher.group(KEYVAL_VALUE_GROUP).trim();
+            }
         }
         if (!actualValue.trim().isEmpty()) {
             // This is a temporary solution. Refactor suggestions
@@ -0,0 +1,364 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.ftrace.core.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Hand-written tokenizer for the common layouts of the ftrace text lines, like:
+ *
+ * <pre>
+ * kworker/u16:6-214   [002] d...   149.136514: sched_switch: prev_comm=kworker/u16:6 prev_pid=214 ...
+ * </pre>
+ *
+ * It splits a line into the same groups as
+ * {@link IGenericFtraceConstants#FTRACE_PATTERN} and the attributes into the
+ * same keys and values as the key-value patterns of {@link GenericFtraceField},
+ * without backtracking. The lines it is not sure to split like the patterns,
+ * for instance those with more than one bracket, are left to the patterns.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+@NonNullByDefault
+final class GenericFtraceLineTokenizer {
+
+    private final String fPid;
+    private final @Nullable String fTgid;
+    private final String fCpu;
+    private final String fTimestamp;
+    private final String fName;
+    private final String fSeparator;
+    private final String fData;
+
+    private GenericFtraceLineTokenizer(String pid, @Nullable String tgid, String cpu, String timestamp, String name, String separator, String data) {
+        fPid = pid;
+        fTgid = tgid;
+        fCpu = cpu;
+        fTimestamp = timestamp;
+        fName = name;
+        fSeparator = separator;
+        fData = data;
+    }
+
+    /**
+     * Tokenize an ftrace line
+     *
+     * @param line
+     *            The line to tokenize
+     * @return The tokens of the line, or null if the line is not in a common
+     *         layout and must be matched by the patterns
+     */
+    public static @Nullable GenericFtraceLineTokenizer tokenize(String line) {
+        int length = line.length();
+
+        // The CPU is the only bracket of the common layout
+        int cpuStart = line.indexOf('[');
+        if (cpuStart < 0 || line.indexOf('[', cpuStart + 1) >= 0) {
+            return null;
+        }
+        int cpuEnd = skipDigits(line, cpuStart + 1);
+        if (cpuEnd == cpuStart + 1 || cpuEnd >= length || line.charAt(cpuEnd) != ']') {
+            return null;
+        }
+
+        // The pid and the optional tgid are read backwards from the CPU
+        int pos = skipSpacesBackward(line, cpuStart - 1);
+        if (pos == cpuStart - 1 || pos < 0) {
+            return null;
+        }
+        String tgid = null;
+        if (line.charAt(pos) == ')') {
+            int open = line.lastIndexOf('(', pos);
+            int tgidStart = skipDigitsBackward(line, pos - 1) + 1;
+            if (open < 0 || tgidStart <= open) {
+                return null;
+            }
+            for (int i = open + 1; i < tgidStart; i++) {
+                char c = line.charAt(i);
+                if (isDigit(c) || c == ')') {
+                    return null;
+                }
+            }
+            tgid = tgidStart < pos ? line.substring(tgidStart, pos) : null;
+            int beforeOpen = skipSpacesBackward(line, open - 1);
+            if (beforeOpen == open - 1 || beforeOpen < 0) {
+                return null;
+            }
+            pos = beforeOpen;
+        }
+        int pidStart = skipDigitsBackward(line, pos) + 1;
+        if (pidStart > pos || pidStart == 0 || line.charAt(pidStart - 1) != '-') {
+            return null;
+        }
+        for (int i = 0; i < pidStart - 1; i++) {
+            if (isLineTerminator(line.charAt(i))) {
+                return null;
+            }
+        }
+
+        /*
+         * The timestamp is either preceded by flags or directly follows the
+         * CPU, the flags are tried first like the optional group of the
+         * pattern
+         */
+        int tokenStart = skipSpaces(line, cpuEnd + 1);
+        if (tokenStart == cpuEnd + 1) {
+            return null;
+        }
+        int tokenEnd = skipNonSpaces(line, tokenStart);
+        int timestampStart = skipSpaces(line, tokenEnd);
+        int timestampEnd = timestampStart > tokenEnd ? skipTimestamp(line, timestampStart) : -1;
+        if (timestampEnd < 0) {
+            timestampStart = tokenStart;
+            timestampEnd = skipTimestamp(line, timestampStart);
+            if (timestampEnd < 0) {
+                return null;
+            }
+        }
+
+        // The event name, the separator and the data
+        int nameStart = timestampEnd + 2;
+        int nameEnd = skipWordChars(line, nameStart);
+        if (nameEnd == nameStart || nameEnd >= length) {
+            return null;
+        }
+        int dataStart;
+        char c = line.charAt(nameEnd);
+        if (c == ':') {
+            dataStart = skipSpaces(line, nameEnd + 1);
+            if (dataStart == nameEnd + 1) {
+                return null;
+            }
+        } else if (c == '(') {
+            dataStart = nameEnd + 1;
+        } else if (isSpace(c)) {
+            int arrow = skipSpaces(line, nameEnd);
+            if (!line.startsWith("->", arrow)) { //$NON-NLS-1$
+                return null;
+            }
+            dataStart = skipSpaces(line, arrow + 2);
+            if (dataStart == arrow + 2) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        int dataEnd = line.indexOf(')', dataStart);
+        if (dataEnd < 0) {
+            dataEnd = length;
+        } else if (dataEnd != length - 1) {
+            return null;
+        }
+
+        return new GenericFtraceLineTokenizer(line.substring(pidStart, pos + 1), tgid, line.substring(cpuStart + 1, cpuEnd),
+                line.substring(timestampStart, timestampEnd), line.substring(nameStart, nameEnd),
+                line.substring(nameEnd, dataStart), line.substring(dataStart, dataEnd));
+    }
+
+    /**
+     * Split the attributes of an event in the common "key=value" layout. Like
+     * the key-value patterns, a key is a run of characters other than
+     * whitespaces, '=', '[', ']' or ',' followed by '=', and its value extends
+     * to the next key.
+     *
+     * @param attributes
+     *            The attributes of the event
+     * @return The keys and their unparsed values, alternated, or null if the
+     *         attributes are not in the "key=value" layout and must be split by
+     *         the patterns
+     */
+    public static @Nullable List<String> splitKeyValues(String attributes) {
+        List<String> keyValues = new ArrayList<>();
+        int length = attributes.length();
+        int keyStart = 0;
+        int valueStart = -1;
+        for (int i = 0; i < length; i++) {
+            char c = attributes.charAt(i);
+            if (c == '=') {
+                if (keyStart < i) {
+                    if (valueStart >= 0) {
+                        keyValues.add(attributes.substring(valueStart, keyStart));
+                    }
+                    keyValues.add(attributes.substring(keyStart, i));
+                    valueStart = i + 1;
+                }
+                keyStart = i + 1;
+            } else if (c == ':' && valueStart < 0) {
+                // The first key may be separated by ':'
+                return null;
+            } else if (isSpace(c) || c == '[' || c == ']' || c == ',') {
+                keyStart = i + 1;
+            }
+        }
+        if (valueStart >= 0) {
+            keyValues.add(attributes.substring(valueStart));
+        }
+        return keyValues;
+    }
+
+    /**
+     * Get the process ID
+     *
+     * @return The pid group
+     */
+    public String getPid() {
+        return fPid;
+    }
+
+    /**
+     * Get the thread group ID
+     *
+     * @return The tgid group, or null if the line has no tgid
+     */
+    public @Nullable String getTgid() {
+        return fTgid;
+    }
+
+    /**
+     * Get the CPU
+     *
+     * @return The CPU group
+     */
+    public String getCpu() {
+        return fCpu;
+    }
+
+    /**
+     * Get the timestamp
+     *
+     * @return The timestamp group, in seconds
+     */
+    public String getTimestamp() {
+        return fTimestamp;
+    }
+
+    /**
+     * Get the event name
+     *
+     * @return The name group
+     */
+    public String getName() {
+        return fName;
+    }
+
+    /**
+     * Get the separator between the event name and its data
+     *
+     * @return The separator group
+     */
+    public String getSeparator() {
+        return fSeparator;
+    }
+
+    /**
+     * Get the event data
+     *
+     * @return The data group
+     */
+    public String getData() {
+        return fData;
+    }
+
+    /*
+     * The character classes of the patterns: \s, \d and \w are ASCII and '.'
+     * does not match line terminators
+     */
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int skipSpaces(String line, int start) {
+        int i = start;
+        while (i < line.length() && isSpace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNonSpaces(String line, int start) {
+        int i = start;
+        while (i < line.length() && !isSpace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(String line, int start) {
+        int i = start;
+        while (i < line.length() && isDigit(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWordChars(String line, int start) {
+        int i = start;
+        while (i < line.length() && isWordChar(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipSpacesBackward(String line, int end) {
+        int i = end;
+        while (i >= 0 && isSpace(line.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int skipDigitsBackward(String line, int end) {
+        int i = end;
+        while (i >= 0 && isDigit(line.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Skip a timestamp in seconds followed by ": "
+     *
+     * @return The end of the timestamp, or -1 if there is no timestamp at the
+     *         start position
+     */
+    private static int skipTimestamp(String line, int start) {
+        int end = skipDigits(line, start);
+        if (end == start) {
+            return -1;
+        }
+        if (end < line.length() && line.charAt(end) == '.') {
+            int fractionEnd = skipDigits(line, end + 1);
+            if (fractionEnd == end + 1) {
+                return -1;
+            }
+            end = fractionEnd;
+        }
+        return line.startsWith(": ", end) ? end : -1; //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.ftrace.core.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.Activator;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.event.GenericFtraceField;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.event.IGenericFtraceConstants;
+
+/**
+ * Reads the lines of a text ftrace file ahead of a sequential reader. The file
+ * is split in chunks of a fixed size that are read with large positional reads
+ * and parsed in parallel on a pool of parser threads, while the reader consumes
+ * the lines of the previous chunks.
+ *
+ * A chunk holds the lines that start in its range: the first line of a chunk
+ * is the first one that starts at or after its start offset, and its last line
+ * is read past its end. The chunks are thus split independently of each other
+ * and the lines are the same as those read by
+ * {@link java.io.RandomAccessFile#readLine()}.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class FtraceChunkReader implements AutoCloseable {
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int LINE_MARGIN = 4096;
+    private static final int MAX_CHUNKS_AHEAD = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService PARSERS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "Text FTrace parser"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final byte LINE_EVENT = 0;
+    private static final byte LINE_COMMENT = 1;
+    private static final byte LINE_ERROR = 2;
+
+    /**
+     * The parsed lines of a chunk
+     */
+    private static final class Chunk {
+        private int fSize = 0;
+        private long[] fStarts = new long[256];
+        private long[] fEnds = new long[256];
+        private byte[] fKinds = new byte[256];
+        private @Nullable GenericFtraceField[] fFields = new GenericFtraceField[256];
+
+        private void add(long start, long end, byte kind, @Nullable GenericFtraceField field) {
+            if (fSize == fStarts.length) {
+                int capacity = fSize * 2;
+                fStarts = Arrays.copyOf(fStarts, capacity);
+                fEnds = Arrays.copyOf(fEnds, capacity);
+                fKinds = Arrays.copyOf(fKinds, capacity);
+                fFields = Arrays.copyOf(fFields, capacity);
+            }
+            fStarts[fSize] = start;
+            fEnds[fSize] = end;
+            fKinds[fSize] = kind;
+            fFields[fSize] = field;
+            fSize++;
+        }
+    }
+
+    /**
+     * A window of the file, that is extended when a line goes past its end
+     */
+    private static final class Window {
+        private final FileChannel fChannel;
+        private final long fOffset;
+        private final long fFileSize;
+        private byte[] fBytes;
+        private int fLength = 0;
+
+        private Window(FileChannel channel, long offset, long fileSize, int size) {
+            fChannel = channel;
+            fOffset = offset;
+            fFileSize = fileSize;
+            fBytes = new byte[size];
+        }
+
+        /**
+         * Make sure a byte of the window is read
+         *
+         * @return false if the byte is past the end of the file
+         */
+        private boolean has(int index) throws IOException {
+            while (index >= fLength) {
+                if (fOffset + fLength >= fFileSize) {
+                    return false;
+                }
+                if (fLength == fBytes.length) {
+                    fBytes = Arrays.copyOf(fBytes, fBytes.length * 2);
+                }
+                int toRead = (int) Math.min(fBytes.length - fLength, fFileSize - fOffset - fLength);
+                int read = fChannel.read(ByteBuffer.wrap(fBytes, fLength, toRead), fOffset + fLength);
+                if (read < 0) {
+                    return false;
+                }
+                fLength += read;
+            }
+            return true;
+        }
+
+        private byte get(int index) {
+            return fBytes[index];
+        }
+    }
+
+    private final FileChannel fChannel;
+    private final long fFileSize;
+    private final Function<String, @Nullable GenericFtraceField> fParser;
+    private final Deque<Future<Chunk>> fChunks = new ArrayDeque<>();
+    private long fNextChunkStart;
+
+    private @Nullable Chunk fChunk = null;
+    private int fIndex = 0;
+    private @Nullable GenericFtraceField fField = null;
+    private long fLineEnd = -1;
+
+    /**
+     * Constructor, starts reading the file ahead
+     *
+     * @param file
+     *            The text ftrace file
+     * @param start
+     *            The offset of the first line to read
+     * @param parser
+     *            The line parser, it is called concurrently by the parser
+     *            threads
+     * @throws IOException
+     *             If the file cannot be opened
+     */
+    public FtraceChunkReader(File file, long start, Function<String, @Nullable GenericFtraceField> parser) throws IOException {
+        fChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        fFileSize = fChannel.size();
+        fParser = parser;
+        fNextChunkStart = start;
+        while (fChunks.size() < MAX_CHUNKS_AHEAD && fNextChunkStart < fFileSize) {
+            parseNextChunk();
+        }
+    }
+
+    /**
+     * Read the event line at an offset, skipping the comment lines before it,
+     * like {@link GenericFtrace#parseEvent}. The offset is expected to be the
+     * end of the previous line read.
+     *
+     * @param offset
+     *            The offset of the line
+     * @return true if the line was read ahead and its field is available with
+     *         {@link #getField()}, false if it must be read from the file
+     */
+    public boolean readLine(long offset) {
+        long lineStart = offset;
+        while (true) {
+            Chunk chunk = fChunk;
+            if (chunk == null || fIndex >= chunk.fSize) {
+                chunk = takeNextChunk();
+                if (chunk == null) {
+                    return false;
+                }
+                continue;
+            }
+            if (chunk.fStarts[fIndex] != lineStart) {
+                return false;
+            }
+            byte kind = chunk.fKinds[fIndex];
+            if (kind == LINE_ERROR) {
+                return false;
+            }
+            fLineEnd = chunk.fEnds[fIndex];
+            fField = chunk.fFields[fIndex];
+            chunk.fFields[fIndex] = null;
+            fIndex++;
+            if (kind == LINE_EVENT) {
+                return true;
+            }
+            lineStart = fLineEnd;
+        }
+    }
+
+    /**
+     * Get the field of the last line read
+     *
+     * @return The parsed field, or null if the line is not an ftrace event
+     */
+    public @Nullable GenericFtraceField getField() {
+        return fField;
+    }
+
+    /**
+     * Get the end of the last line read
+     *
+     * @return The offset of the next line
+     */
+    public long getLineEnd() {
+        return fLineEnd;
+    }
+
+    @Override
+    public void close() {
+        for (Future<Chunk> chunk : fChunks) {
+            chunk.cancel(false);
+        }
+        fChunks.clear();
+        fChunk = null;
+        try {
+            fChannel.close();
+        } catch (IOException e) {
+            Activator.getInstance().logError("Error closing the text ftrace read ahead", e); //$NON-NLS-1$
+        }
+    }
+
+    private @Nullable Chunk takeNextChunk() {
+        Future<Chunk> next = fChunks.poll();
+        fChunk = null;
+        fIndex = 0;
+        if (next == null) {
+            return null;
+        }
+        if (fNextChunkStart < fFileSize) {
+            parseNextChunk();
+        }
+        try {
+            fChunk = next.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Activator.getInstance().logInfo("An error occured while reading the text ftrace ahead", e); //$NON-NLS-1$
+        }
+        return fChunk;
+    }
+
+    private void parseNextChunk() {
+        long start = fNextChunkStart;
+        long end = Math.min(start + CHUNK_SIZE, fFileSize);
+        fNextChunkStart = end;
+        fChunks.add(PARSERS.submit(() -> parse(start, end)));
+    }
+
+    private Chunk parse(long start, long end) throws IOException {
+        Chunk chunk = new Chunk();
+        // The byte before the chunk tells whether a line starts at its start
+        long windowStart = Math.max(0, start - 1);
+        Window window = new Window(fChannel, windowStart, fFileSize, (int) (end - windowStart) + LINE_MARGIN);
+        int limit = (int) (end - windowStart);
+        int pos = (int) (start - windowStart);
+        if (start > 0) {
+            while (pos < limit && !isLineStart(window, pos)) {
+                pos++;
+            }
+        }
+
+        while (pos < limit && window.has(pos)) {
+            int lineEnd = pos;
+            byte b = 0;
+            while (window.has(lineEnd) && (b = window.get(lineEnd)) != '\n' && b != '\r') {
+                lineEnd++;
+            }
+            int next = lineEnd;
+            if (window.has(lineEnd)) {
+                next = (b == '\r' && window.has(lineEnd + 1) && window.get(lineEnd + 1) == '\n') ? lineEnd + 2 : lineEnd + 1;
+            }
+            // Like RandomAccessFile.readLine(), a byte is a character
+            String line = new String(window.fBytes, pos, lineEnd - pos, StandardCharsets.ISO_8859_1);
+            if (line.startsWith(IGenericFtraceConstants.FTRACE_COMMENT_CHAR)) {
+                chunk.add(windowStart + pos, windowStart + next, LINE_COMMENT, null);
+            } else {
+                try {
+                    chunk.add(windowStart + pos, windowStart + next, LINE_EVENT, fParser.apply(line));
+                } catch (RuntimeException e) {
+                    // Let the reader parse the line again and fail
+                    chunk.add(windowStart + pos, windowStart + next, LINE_ERROR, null);
+                }
+            }
+            pos = next;
+        }
+        return chunk;
+    }
+
+    private static boolean isLineStart(Window window, int pos) throws IOException {
+        if (!window.has(pos)) {
+            return false;
+        }
+        byte previous = window.get(pos - 1);
+        return previous == '\n' || (previous == '\r' && window.get(pos) != '\n');
+    }
+}
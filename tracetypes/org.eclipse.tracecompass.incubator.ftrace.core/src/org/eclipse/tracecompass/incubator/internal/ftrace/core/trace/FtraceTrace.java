@@ -14,30 +14,57 @@ package org.eclipse.tracecompass.incubator.internal.ftrace.core.trace;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.incubator.internal.ftrace.core.Activator;
+import org.eclipse.tracecompass.incubator.internal.ftrace.core.event.GenericFtraceEvent;
 import org.eclipse.tracecompass.incubator.internal.ftrace.core.event.GenericFtraceField;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.io.BufferedRandomAccessFile;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
 import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfPersistentlyIndexable;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
 
 /**
  * Ftrace trace.
  *
+ * The checkpoints of the trace are persisted in its supplementary folder, so
+ * that it is indexed only once. When the trace is read sequentially, the lines
+ * are read ahead and parsed in parallel by a {@link FtraceChunkReader}: the
+ * {@link #parseLine(String)} method must then be safe to call concurrently.
+ *
  * @author Guillaume Champagne
  * @author Alexis-Maurer Fortin
  * @author Hugo Genesse
  * @author Pierre-Yves Lajoie
  * @author Eva Terriault
  */
-public abstract class FtraceTrace extends GenericFtrace {
+public abstract class FtraceTrace extends GenericFtrace implements ITmfPersistentlyIndexable {
 
     private static final int MAX_LINES = 100;
     private static final int MAX_CONFIDENCE = 100;
+    // Number of consecutive lines read before reading ahead
+    private static final int READ_AHEAD_THRESHOLD = 1000;
+
+    private static int fCheckpointSize = -1;
+
+    private @Nullable FtraceChunkReader fReadAhead = null;
+    private int fSequentialReads = 0;
+    // End of the last event line read, -1 if unknown
+    private long fLastLineEnd = -1;
+    // Location after the last line read ahead, -1 if it is the file pointer
+    private long fCurrentOffset = -1;
 
     @Override
     public IStatus validate(IProject project, String path) {
@@ -94,4 +121,91 @@ public abstract class FtraceTrace extends GenericFtrace {
         }
         return new TraceValidationStatus(confidence, Activator.PLUGIN_ID);
     }
+
+    @Override
+    protected synchronized ITmfEvent parseEvent(RandomAccessFile fileInput, TmfLongLocation tmfLongLocation, long rank) {
+        long offset = tmfLongLocation.getLocationInfo();
+        if (offset < 0 || offset != fLastLineEnd) {
+            fSequentialReads = 0;
+        } else {
+            FtraceChunkReader readAhead = fReadAhead;
+            if (readAhead == null && ++fSequentialReads >= READ_AHEAD_THRESHOLD) {
+                readAhead = startReadAhead(offset);
+            }
+            if (readAhead != null && readAhead.readLine(offset)) {
+                fLastLineEnd = readAhead.getLineEnd();
+                fCurrentOffset = fLastLineEnd;
+                GenericFtraceField field = readAhead.getField();
+                return field == null ? null : new GenericFtraceEvent(this, rank, field);
+            }
+        }
+
+        // Random access, or the lines were not read ahead
+        stopReadAhead();
+        fCurrentOffset = -1;
+        ITmfEvent event = super.parseEvent(fileInput, tmfLongLocation, rank);
+        try {
+            if (event == null) {
+                fSequentialReads = 0;
+                fLastLineEnd = -1;
+            } else {
+                fLastLineEnd = fileInput.getFilePointer();
+            }
+        } catch (IOException e) {
+            fLastLineEnd = -1;
+        }
+        return event;
+    }
+
+    private @Nullable FtraceChunkReader startReadAhead(long offset) {
+        try {
+            fReadAhead = new FtraceChunkReader(getFile(), offset, this::parseLine);
+        } catch (IOException e) {
+            Activator.getInstance().logError("Error reading ahead. File: " + getPath(), e); //$NON-NLS-1$
+            fSequentialReads = 0;
+        }
+        return fReadAhead;
+    }
+
+    private void stopReadAhead() {
+        FtraceChunkReader readAhead = fReadAhead;
+        if (readAhead != null) {
+            readAhead.close();
+            fReadAhead = null;
+            fSequentialReads = 0;
+        }
+    }
+
+    @Override
+    public synchronized ITmfLocation getCurrentLocation() {
+        if (fCurrentOffset >= 0) {
+            return new TmfLongLocation(fCurrentOffset);
+        }
+        return super.getCurrentLocation();
+    }
+
+    @Override
+    public synchronized void dispose() {
+        stopReadAhead();
+        super.dispose();
+    }
+
+    @Override
+    public ITmfLocation restoreLocation(ByteBuffer bufferIn) {
+        return new TmfLongLocation(bufferIn);
+    }
+
+    @Override
+    public int getCheckpointSize() {
+        synchronized (FtraceTrace.class) {
+            if (fCheckpointSize == -1) {
+                TmfCheckpoint c = new TmfCheckpoint(TmfTimestamp.fromNanos(0L), new TmfLongLocation(0L), 0);
+                ByteBuffer b = ByteBuffer.allocate(ITmfCheckpoint.MAX_SERIALIZE_SIZE);
+                b.clear();
+                c.serialize(b);
+                fCheckpointSize = b.position();
+            }
+        }
+        return fCheckpointSize;
+    }
 }
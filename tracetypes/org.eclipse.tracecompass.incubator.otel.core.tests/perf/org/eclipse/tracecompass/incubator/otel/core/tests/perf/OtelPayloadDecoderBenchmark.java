@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelPayloadDecoder;
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.InstrumentationLibrary;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.resource.v1.Resource;
+import io.opentelemetry.proto.trace.v1.InstrumentationLibrarySpans;
+import io.opentelemetry.proto.trace.v1.ResourceSpans;
+import io.opentelemetry.proto.trace.v1.Span;
+
+/**
+ * Benchmarks the decoding of the resource spans payloads of OpenTelemetry
+ * traces, comparing the copy to a new byte array per payload with the
+ * {@link OtelPayloadDecoder} reusing its buffer. The CPU time is reported by
+ * the performance meters and the bytes allocated per span by the benchmark
+ * thread are logged at the info level.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelPayloadDecoderBenchmark {
+
+    /**
+     * Test test ID for OpenTelemetry benchmarks
+     */
+    public static final String TEST_ID = "org.eclipse.tracecompass.incubator#Otel#";
+    private static final Logger LOGGER = TraceCompassLog.getLogger(OtelPayloadDecoderBenchmark.class);
+    private static final String TEST_COPY = "Decode resource spans, copy (%d spans per payload)";
+    private static final String TEST_POOLED = "Decode resource spans, pooled buffer (%d spans per payload)";
+
+    private static final int[] SPANS_PER_PAYLOAD = { 1, 16, 256 };
+    private static final int NB_DECODES = 20000;
+    private static final int LOOP_COUNT = 10;
+
+    /**
+     * Run the benchmark
+     */
+    @Test
+    public void runDecodeBenchmark() {
+        for (int nbSpans : SPANS_PER_PAYLOAD) {
+            long[] payload = createPayload(nbSpans);
+            benchmark(String.format(TEST_COPY, nbSpans), nbSpans, payload, values -> {
+                try {
+                    return ResourceSpans.parseFrom(OtelPayloadDecoder.toByteArray(values));
+                } catch (InvalidProtocolBufferException e) {
+                    return null;
+                }
+            });
+            OtelPayloadDecoder decoder = new OtelPayloadDecoder();
+            benchmark(String.format(TEST_POOLED, nbSpans), nbSpans, payload, decoder::parseResourceSpans);
+        }
+    }
+
+    private static void benchmark(String testName, int nbSpans, long[] payload, Function<long[], ResourceSpans> decode) {
+        Performance perf = Performance.getDefault();
+        PerformanceMeter pm = Objects.requireNonNull(perf.createPerformanceMeter(TEST_ID + testName));
+        perf.tagAsSummary(pm, testName, Dimension.CPU_TIME);
+
+        long allocated = 0;
+        for (int i = 0; i < LOOP_COUNT; i++) {
+            long allocatedBefore = getAllocatedBytes();
+            pm.start();
+            for (int j = 0; j < NB_DECODES; j++) {
+                ResourceSpans resourceSpans = decode.apply(payload);
+                assertNotNull(resourceSpans);
+                assertEquals(nbSpans, resourceSpans.getInstrumentationLibrarySpans(0).getSpansCount());
+            }
+            pm.stop();
+            allocated += getAllocatedBytes() - allocatedBefore;
+        }
+        pm.commit();
+        long allocatedPerSpan = allocated / ((long) LOOP_COUNT * NB_DECODES * nbSpans);
+        LOGGER.info(() -> String.format("%s: %d bytes allocated per span", testName, allocatedPerSpan)); //$NON-NLS-1$
+    }
+
+    @SuppressWarnings("restriction")
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static long[] createPayload(int nbSpans) {
+        Resource resource = Resource.newBuilder()
+                .addAttributes(KeyValue.newBuilder().setKey("service.name").setValue(AnyValue.newBuilder().setStringValue("benchmark-service")))
+                .addAttributes(KeyValue.newBuilder().setKey("process.runtime.name").setValue(AnyValue.newBuilder().setStringValue("OpenJDK Runtime Environment")))
+                .build();
+        InstrumentationLibrarySpans.Builder ilSpans = InstrumentationLibrarySpans.newBuilder()
+                .setInstrumentationLibrary(InstrumentationLibrary.newBuilder().setName("benchmark").setVersion("1.0.0"));
+        for (int i = 0; i < nbSpans; i++) {
+            ilSpans.addSpans(Span.newBuilder()
+                    .setTraceId(ByteString.copyFrom(new byte[16]))
+                    .setSpanId(ByteString.copyFrom(new byte[] { 0, 0, 0, 0, 0, 0, 0, (byte) i }))
+                    .setName("operation-" + i)
+                    .setStartTimeUnixNano(1000L * i)
+                    .setEndTimeUnixNano(1000L * i + 500)
+                    .addAttributes(KeyValue.newBuilder().setKey("http.method").setValue(AnyValue.newBuilder().setStringValue("GET"))));
+        }
+        byte[] bytes = ResourceSpans.newBuilder()
+                .setResource(resource)
+                .addInstrumentationLibrarySpans(ilSpans)
+                .build()
+                .toByteArray();
+        // The CTF sequence fields are read as arrays of longs
+        long[] values = new long[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            values[i] = bytes[i];
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.criticalpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath.CriticalPathBuilder;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath.CriticalPathSection;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath.CriticalPathSpan;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath.CriticalPathStore;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CriticalPathStore} and {@link CriticalPathBuilder}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class CriticalPathStoreTest {
+
+    /**
+     * Test that the critical paths are read back by trace id, before and
+     * after the store is committed and opened again
+     *
+     * @throws IOException
+     *             if the temporary files could not be written
+     */
+    @Test
+    public void testPutGet() throws IOException {
+        File file = File.createTempFile("paths", ".paths"); //$NON-NLS-1$ //$NON-NLS-2$
+        File indexFile = File.createTempFile("paths", ".idx"); //$NON-NLS-1$ //$NON-NLS-2$
+        List<CriticalPathSection> path = Arrays.asList(
+                new CriticalPathSection(0, 10, 1L, "GET /api", "frontend", false), //$NON-NLS-1$ //$NON-NLS-2$
+                new CriticalPathSection(10, 25, -2L, "SELECT", "db", true)); //$NON-NLS-1$ //$NON-NLS-2$
+        try {
+            try (CriticalPathStore store = CriticalPathStore.create(file, indexFile, 1)) {
+                for (long i = 0; i < 5000; i++) {
+                    store.put(i, ~i, Collections.singletonList(new CriticalPathSection(i, i + 1, i, "op", "service", false))); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                store.put(0x0123456789abcdefL, 0xfedcba9876543210L, path);
+                assertEquals(path, store.get(0x0123456789abcdefL, 0xfedcba9876543210L));
+                assertNull(store.get(0L, 0L));
+                // Not committed yet
+                assertNull(CriticalPathStore.open(file, indexFile, 1));
+                store.commit();
+            }
+            assertNull(CriticalPathStore.open(file, indexFile, 2));
+            try (CriticalPathStore store = CriticalPathStore.open(file, indexFile, 1)) {
+                assertNotNull(store);
+                assertEquals(5001, store.size());
+                assertEquals(path, store.get(0x0123456789abcdefL, 0xfedcba9876543210L));
+                List<CriticalPathSection> other = store.get(4321L, ~4321L);
+                assertNotNull(other);
+                assertEquals(4321L, other.get(0).getSpanId());
+                assertFalse(store.contains(4321L, 4321L));
+            }
+        } finally {
+            file.delete();
+            indexFile.delete();
+        }
+    }
+
+    /**
+     * Test that the builder stores the critical path of a trace once the
+     * grace period after its last span is over
+     *
+     * @throws IOException
+     *             if the temporary files could not be written
+     */
+    @Test
+    public void testBuilder() throws IOException {
+        File file = File.createTempFile("paths", ".paths"); //$NON-NLS-1$ //$NON-NLS-2$
+        File indexFile = File.createTempFile("paths", ".idx"); //$NON-NLS-1$ //$NON-NLS-2$
+        try (CriticalPathStore store = CriticalPathStore.create(file, indexFile, 1)) {
+            CriticalPathBuilder builder = new CriticalPathBuilder(store, 100);
+            builder.startSpan(0L, 1L, 0);
+            builder.startSpan(0L, 1L, 10);
+            builder.endSpan(0L, 1L, new CriticalPathSpan(2L, 1L, 10, 40, "child", "backend"), 40); //$NON-NLS-1$ //$NON-NLS-2$
+            builder.endSpan(0L, 1L, new CriticalPathSpan(1L, CriticalPathSpan.NO_PARENT, 0, 50, "root", "frontend"), 50); //$NON-NLS-1$ //$NON-NLS-2$
+            builder.startSpan(0L, 2L, 120);
+            // Still in its grace period
+            assertFalse(store.contains(0L, 1L));
+
+            builder.startSpan(0L, 3L, 151);
+            assertTrue(store.contains(0L, 1L));
+            assertEquals(Arrays.asList(
+                    new CriticalPathSection(0, 10, 1L, "root", "frontend", false), //$NON-NLS-1$ //$NON-NLS-2$
+                    new CriticalPathSection(10, 40, 2L, "child", "backend", false), //$NON-NLS-1$ //$NON-NLS-2$
+                    new CriticalPathSection(40, 50, 1L, "root", "frontend", false)), //$NON-NLS-1$ //$NON-NLS-2$
+                    store.get(0L, 1L));
+
+            // A span of a completed trace is not added to its path
+            builder.endSpan(0L, 1L, new CriticalPathSpan(3L, 1L, 45, 160, "late", "backend"), 160); //$NON-NLS-1$ //$NON-NLS-2$
+            assertEquals(1, builder.getLateSpanCount());
+
+            builder.finish();
+            assertEquals(3, builder.getCompletedTraceCount());
+            assertEquals(3, store.size());
+        } finally {
+            file.delete();
+            indexFile.delete();
+        }
+    }
+
+    /**
+     * Test that a grace period past the end of time does not complete the
+     * traces early
+     *
+     * @throws IOException
+     *             if the temporary files could not be written
+     */
+    @Test
+    public void testBuilderLongGracePeriod() throws IOException {
+        File file = File.createTempFile("paths", ".paths"); //$NON-NLS-1$ //$NON-NLS-2$
+        File indexFile = File.createTempFile("paths", ".idx"); //$NON-NLS-1$ //$NON-NLS-2$
+        try (CriticalPathStore store = CriticalPathStore.create(file, indexFile, 1)) {
+            CriticalPathBuilder builder = new CriticalPathBuilder(store, Long.MAX_VALUE);
+            builder.startSpan(0L, 1L, 0);
+            builder.endSpan(0L, 1L, new CriticalPathSpan(1L, CriticalPathSpan.NO_PARENT, 0, 50, "root", "frontend"), 50); //$NON-NLS-1$ //$NON-NLS-2$
+            builder.startSpan(0L, 2L, Long.MAX_VALUE - 1);
+            assertFalse(store.contains(0L, 1L));
+
+            builder.finish();
+            assertTrue(store.contains(0L, 1L));
+        } finally {
+            file.delete();
+            indexFile.delete();
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.criticalpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath.CriticalPathSection;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath.CriticalPathSpan;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath.OtelCriticalPath;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OtelCriticalPath}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelCriticalPathTest {
+
+    private static final long A = 1L;
+    private static final long B = 2L;
+    private static final long C = 3L;
+
+    private static CriticalPathSpan span(long spanId, long parentSpanId, long start, long end) {
+        return new CriticalPathSpan(spanId, parentSpanId, start, end, "op" + spanId, "service"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static CriticalPathSection section(long spanId, long start, long end, boolean gap) {
+        return new CriticalPathSection(start, end, spanId, "op" + spanId, "service", gap); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Test the critical path of sequential children, with the gap between
+     * them and the self times of the spans
+     */
+    @Test
+    public void testSequentialChildren() {
+        List<CriticalPathSection> path = OtelCriticalPath.compute(Arrays.asList(
+                span(C, A, 50, 90),
+                span(A, CriticalPathSpan.NO_PARENT, 0, 100),
+                span(B, A, 10, 40)));
+        assertEquals(Arrays.asList(
+                section(A, 0, 10, false),
+                section(B, 10, 40, false),
+                section(A, 40, 50, true),
+                section(C, 50, 90, false),
+                section(A, 90, 100, false)), path);
+
+        Map<Long, Long> selfTimes = OtelCriticalPath.getSelfTimes(path);
+        assertEquals(Long.valueOf(30), selfTimes.get(A));
+        assertEquals(Long.valueOf(30), selfTimes.get(B));
+        assertEquals(Long.valueOf(40), selfTimes.get(C));
+    }
+
+    /**
+     * Test that of parallel children, only the one blocking the parent is on
+     * the critical path
+     */
+    @Test
+    public void testParallelChildren() {
+        List<CriticalPathSection> path = OtelCriticalPath.compute(Arrays.asList(
+                span(A, CriticalPathSpan.NO_PARENT, 0, 100),
+                span(B, A, 10, 80),
+                span(C, A, 20, 60)));
+        assertEquals(Arrays.asList(
+                section(A, 0, 10, false),
+                section(B, 10, 80, false),
+                section(A, 80, 100, false)), path);
+    }
+
+    /**
+     * Test that a child ending after its parent is clipped to the parent
+     */
+    @Test
+    public void testChildOutlivingParent() {
+        List<CriticalPathSection> path = OtelCriticalPath.compute(Arrays.asList(
+                span(A, CriticalPathSpan.NO_PARENT, 0, 50),
+                span(B, A, 10, 70)));
+        assertEquals(Arrays.asList(
+                section(A, 0, 10, false),
+                section(B, 10, 50, false)), path);
+    }
+
+    /**
+     * Test that a span whose parent is missing is a root, and that the path
+     * starts at the root ending last
+     */
+    @Test
+    public void testMissingParent() {
+        List<CriticalPathSection> path = OtelCriticalPath.compute(Arrays.asList(
+                span(A, CriticalPathSpan.NO_PARENT, 0, 30),
+                span(B, 42L, 5, 60),
+                span(C, B, 20, 40)));
+        assertEquals(Arrays.asList(
+                section(B, 5, 20, false),
+                section(C, 20, 40, false),
+                section(B, 40, 60, false)), path);
+    }
+
+    /**
+     * Test the critical path of no spans
+     */
+    @Test
+    public void testEmpty() {
+        assertTrue(OtelCriticalPath.compute(Collections.emptyList()).isEmpty());
+    }
+
+}
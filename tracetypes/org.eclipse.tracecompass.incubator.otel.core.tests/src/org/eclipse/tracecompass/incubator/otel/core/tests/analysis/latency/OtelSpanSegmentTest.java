@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.latency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.tracecompass.datastore.core.serialization.SafeByteBufferFactory;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.latency.OtelSpanSegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OtelSpanSegment}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelSpanSegmentTest {
+
+    /**
+     * Test that a segment read back from its serialized form is equal to the
+     * original segment
+     */
+    @Test
+    public void testSerialization() {
+        OtelSpanSegment segment = new OtelSpanSegment(10L, 25L, "GET /api", "frontend", 0x0123456789abcdefL, 0xfedcba9876543210L, 0x8000000000000001L, true);
+        int size = segment.getSizeOnDisk();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        segment.writeSegment(SafeByteBufferFactory.wrapWriter(buffer, size));
+        assertEquals(size, buffer.position());
+
+        buffer.flip();
+        ISegment read = OtelSpanSegment.READER.readInterval(SafeByteBufferFactory.wrapReader(buffer, size));
+        assertTrue(read instanceof OtelSpanSegment);
+        OtelSpanSegment span = (OtelSpanSegment) read;
+        assertEquals(10L, span.getStart());
+        assertEquals(25L, span.getEnd());
+        assertEquals(15L, span.getLength());
+        assertEquals("GET /api", span.getName());
+        assertEquals("frontend", span.getServiceName());
+        assertEquals("0123456789abcdeffedcba9876543210", span.getTraceId());
+        assertEquals("8000000000000001", span.getSpanId());
+        assertTrue(span.hasError());
+        assertEquals(0, segment.compareTo(span));
+    }
+
+    /**
+     * Test that spans with the same times are ordered by span id
+     */
+    @Test
+    public void testCompare() {
+        OtelSpanSegment first = new OtelSpanSegment(10L, 20L, "op", "svc", 1L, 2L, 1L, false);
+        OtelSpanSegment second = new OtelSpanSegment(10L, 20L, "op", "svc", 1L, 2L, -1L, false);
+        OtelSpanSegment later = new OtelSpanSegment(15L, 20L, "op", "svc", 1L, 2L, 0L, false);
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(first) > 0);
+        assertTrue(second.compareTo(later) < 0);
+        assertFalse(first.hasError());
+    }
+
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.metrics.OtelMetricSummary;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OtelMetricSummary}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelMetricSummaryTest {
+
+    private static final double DELTA = 1e-9;
+    private static final long SMALL_BUCKET = 1L << 16;
+
+    /**
+     * Test that the buckets are written with their minimum, maximum and
+     * average, and that empty buckets have no value
+     *
+     * @throws AttributeNotFoundException
+     *             if a summary attribute is missing
+     * @throws StateSystemDisposedException
+     *             if the state system is disposed
+     */
+    @Test
+    public void testBuckets() throws AttributeNotFoundException, StateSystemDisposedException {
+        IStateHistoryBackend backend = StateHistoryBackendFactory.createInMemoryBackend("Test", 0L);
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
+        int summaryQuark = ss.getQuarkAbsoluteAndAdd("summary");
+        OtelMetricSummary summary = new OtelMetricSummary(ss, summaryQuark);
+
+        summary.update(0, 1.0);
+        summary.update(1000, 3.0);
+        // Skip two small buckets
+        summary.update(3 * SMALL_BUCKET, 10.0);
+        summary.flush();
+        ss.closeHistory(4 * SMALL_BUCKET);
+
+        int smallAvg = ss.getQuarkRelative(summaryQuark, "16", OtelMetricSummary.AVG);
+        assertEquals(2.0, ss.querySingleState(100, smallAvg).unboxDouble(), DELTA);
+        assertNull(ss.querySingleState(SMALL_BUCKET + 10, smallAvg).getValue());
+        assertEquals(10.0, ss.querySingleState(3 * SMALL_BUCKET + 10, smallAvg).unboxDouble(), DELTA);
+
+        int largeMin = ss.getQuarkRelative(summaryQuark, "20", OtelMetricSummary.MIN);
+        int largeMax = ss.getQuarkRelative(summaryQuark, "20", OtelMetricSummary.MAX);
+        int largeAvg = ss.getQuarkRelative(summaryQuark, "20", OtelMetricSummary.AVG);
+        assertEquals(1.0, ss.querySingleState(SMALL_BUCKET, largeMin).unboxDouble(), DELTA);
+        assertEquals(10.0, ss.querySingleState(SMALL_BUCKET, largeMax).unboxDouble(), DELTA);
+        assertEquals(14.0 / 3, ss.querySingleState(SMALL_BUCKET, largeAvg).unboxDouble(), DELTA);
+    }
+
+}
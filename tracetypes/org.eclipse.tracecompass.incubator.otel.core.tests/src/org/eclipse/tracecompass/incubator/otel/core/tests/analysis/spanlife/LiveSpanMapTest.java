@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.spanlife;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife.LiveSpanMap;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife.SpanQuarkMap;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LiveSpanMap}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class LiveSpanMapTest {
+
+    private static final long GRACE_PERIOD = 100;
+    private static final long PARENT_ID = 1;
+    private static final int PARENT_QUARK = 10;
+
+    /**
+     * Test that a child starting within the grace period after the end of its
+     * parent still finds the quark of the parent
+     */
+    @Test
+    public void testGracePeriod() {
+        LiveSpanMap map = new LiveSpanMap(GRACE_PERIOD);
+        map.add(PARENT_ID, PARENT_QUARK);
+        map.end(1000, PARENT_ID, PARENT_QUARK);
+
+        map.evict(1050);
+        assertEquals(PARENT_QUARK, map.find(PARENT_ID));
+        // The last moment of the grace period
+        map.evict(1000 + GRACE_PERIOD);
+        assertEquals(PARENT_QUARK, map.find(PARENT_ID));
+        assertEquals(0, map.getEvictedSpanCount());
+        assertEquals(0, map.getMissedSpanCount());
+    }
+
+    /**
+     * Test that a span is evicted after the grace period, and that a child
+     * starting later misses it
+     */
+    @Test
+    public void testEviction() {
+        LiveSpanMap map = new LiveSpanMap(GRACE_PERIOD);
+        map.add(PARENT_ID, PARENT_QUARK);
+        map.add(2, 20);
+        assertEquals(2, map.getPeakSpanCount());
+        map.end(1000, PARENT_ID, PARENT_QUARK);
+
+        map.evict(1001 + GRACE_PERIOD);
+        assertEquals(1, map.getEvictedSpanCount());
+        assertEquals(1, map.size());
+        assertEquals(SpanQuarkMap.NO_QUARK, map.find(PARENT_ID));
+        assertEquals(1, map.getMissedSpanCount());
+        // The span that did not end is kept
+        assertEquals(20, map.find(2));
+        assertEquals(2, map.getPeakSpanCount());
+    }
+
+    /**
+     * Test that a span whose id was reused by a span that is still alive is
+     * not evicted
+     */
+    @Test
+    public void testReusedSpanId() {
+        LiveSpanMap map = new LiveSpanMap(GRACE_PERIOD);
+        map.add(PARENT_ID, PARENT_QUARK);
+        map.end(1000, PARENT_ID, PARENT_QUARK);
+        map.add(PARENT_ID, 30);
+
+        map.evict(2000);
+        assertEquals(0, map.getEvictedSpanCount());
+        assertEquals(30, map.find(PARENT_ID));
+    }
+
+    /**
+     * Test that the deadline of a span ending near the end of time does not
+     * overflow, which would evict the span right away
+     */
+    @Test
+    public void testEndNearMaxValue() {
+        LiveSpanMap map = new LiveSpanMap(GRACE_PERIOD);
+        long end = Long.MAX_VALUE - GRACE_PERIOD / 2;
+        map.add(PARENT_ID, PARENT_QUARK);
+        map.end(end, PARENT_ID, PARENT_QUARK);
+
+        map.evict(end + 1);
+        map.evict(Long.MAX_VALUE);
+        assertEquals(PARENT_QUARK, map.find(PARENT_ID));
+        assertEquals(0, map.getEvictedSpanCount());
+    }
+
+}
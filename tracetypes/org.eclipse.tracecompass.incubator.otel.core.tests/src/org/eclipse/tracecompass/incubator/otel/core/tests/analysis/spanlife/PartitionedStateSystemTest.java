@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.spanlife;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife.PartitionedStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PartitionedStateSystem}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class PartitionedStateSystemTest {
+
+    private static final long END = 100L;
+
+    private PartitionedStateSystem fSs;
+
+    /**
+     * Build two partitions with one trace each, the first one with more
+     * attributes than the second one
+     */
+    @Before
+    public void setUp() {
+        ITmfStateSystemBuilder main = newStateSystem("main");
+        ITmfStateSystemBuilder first = newStateSystem("first");
+        ITmfStateSystemBuilder second = newStateSystem("second");
+
+        int traceA = first.getQuarkAbsoluteAndAdd("trace=a");
+        first.modifyAttribute(10L, "a1", first.getQuarkRelativeAndAdd(traceA, "span1"));
+        first.modifyAttribute(20L, "a2", first.getQuarkRelativeAndAdd(traceA, "span1", "span2"));
+        int traceB = second.getQuarkAbsoluteAndAdd("trace=b");
+        second.modifyAttribute(30L, "b1", second.getQuarkRelativeAndAdd(traceB, "span1"));
+
+        first.closeHistory(END);
+        second.closeHistory(END);
+        main.closeHistory(END);
+        fSs = new PartitionedStateSystem(main, Arrays.asList(first, second));
+    }
+
+    private static ITmfStateSystemBuilder newStateSystem(String id) {
+        return StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend(id, 0L));
+    }
+
+    /**
+     * Test the attribute tree of the view
+     *
+     * @throws AttributeNotFoundException
+     *             if an attribute is missing
+     */
+    @Test
+    public void testAttributes() throws AttributeNotFoundException {
+        assertEquals("main", fSs.getSSID());
+        assertEquals(END, fSs.getCurrentEndTime());
+        assertTrue(fSs.waitUntilBuilt(0));
+
+        List<Integer> traces = fSs.getSubAttributes(ITmfStateSystem.ROOT_ATTRIBUTE, false);
+        assertEquals(2, traces.size());
+        int traceA = fSs.getQuarkAbsolute("trace=a");
+        int traceB = fSs.getQuarkAbsolute("trace=b");
+        assertEquals(Arrays.asList(traceA, traceB), traces);
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, fSs.optQuarkAbsolute("trace=c"));
+
+        int span2 = fSs.getQuarkRelative(traceA, "span1", "span2");
+        assertArrayEquals(new String[] { "trace=a", "span1", "span2" }, fSs.getFullAttributePathArray(span2));
+        assertEquals("span2", fSs.getAttributeName(span2));
+        assertEquals(fSs.getQuarkRelative(traceA, "span1"), fSs.getParentAttributeQuark(span2));
+        assertEquals(ITmfStateSystem.ROOT_ATTRIBUTE, fSs.getParentAttributeQuark(traceB));
+        assertEquals(3, fSs.getSubAttributes(traceA, true).size());
+        assertEquals(2, fSs.getQuarks("*", "span1").size());
+        assertEquals(Arrays.asList(span2), fSs.getQuarks("trace=a", "*", "*"));
+
+        // Every quark of the view is a quark of one partition
+        for (int quark : fSs.getSubAttributes(ITmfStateSystem.ROOT_ATTRIBUTE, true)) {
+            assertTrue(quark < fSs.getNbAttributes());
+            int partition = quark % fSs.getPartitionCount();
+            int partitionQuark = quark / fSs.getPartitionCount();
+            assertEquals(quark, fSs.toQuark(partition, partitionQuark));
+            assertArrayEquals(fSs.getPartition(partition).getFullAttributePathArray(partitionQuark), fSs.getFullAttributePathArray(quark));
+        }
+    }
+
+    /**
+     * Test the queries of the view
+     *
+     * @throws StateSystemDisposedException
+     *             if the state system is disposed
+     * @throws AttributeNotFoundException
+     *             if an attribute is missing
+     */
+    @Test
+    public void testQueries() throws StateSystemDisposedException, AttributeNotFoundException {
+        int spanA = fSs.getQuarkAbsolute("trace=a", "span1");
+        int spanB = fSs.getQuarkAbsolute("trace=b", "span1");
+
+        ITmfStateInterval interval = fSs.querySingleState(50L, spanB);
+        assertEquals("b1", interval.getValue());
+        assertEquals(spanB, interval.getAttribute());
+        assertEquals(30L, interval.getStartTime());
+
+        Map<Integer, Object> values = new HashMap<>();
+        for (ITmfStateInterval result : fSs.query2D(Arrays.asList(spanA, spanB), 40L, 60L)) {
+            values.put(result.getAttribute(), result.getValue());
+        }
+        assertEquals("a1", values.get(spanA));
+        assertEquals("b1", values.get(spanB));
+
+        List<ITmfStateInterval> fullState = fSs.queryFullState(25L);
+        assertEquals(fSs.getNbAttributes(), fullState.size());
+        List<Object> fullStateValues = new ArrayList<>();
+        for (int quark = 0; quark < fullState.size(); quark++) {
+            assertEquals(quark, fullState.get(quark).getAttribute());
+            fullStateValues.add(fullState.get(quark).getValue());
+        }
+        assertEquals("a1", fullState.get(spanA).getValue());
+        assertNull(fullState.get(spanB).getValue());
+        assertTrue(fullStateValues.contains("a2"));
+    }
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.spanlife;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife.SpanMetadataTable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SpanMetadataTable}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class SpanMetadataTableTest {
+
+    /**
+     * Test the lookups of the spans of a table
+     */
+    @Test
+    public void testLookups() {
+        SpanMetadataTable table = new SpanMetadataTable();
+        table.addSpan(3, 0xdeadbeefL, "frontend", false);
+        table.addSpan(5000, -1L, "backend", true);
+        table.setLogQuark(3, 7);
+        table.setResourceQuark(5000, 8);
+
+        assertTrue(table.contains(3));
+        assertFalse(table.contains(4));
+        assertFalse(table.contains(-1));
+        assertEquals(0xdeadbeefL, table.getSpanId(3));
+        assertEquals(-1L, table.getSpanId(5000));
+        assertEquals("frontend", table.getProcessName(3));
+        assertEquals("backend", table.getProcessName(5000));
+        assertEquals("", table.getProcessName(4));
+        assertFalse(table.hasError(3));
+        assertTrue(table.hasError(5000));
+        assertEquals(7, table.getLogQuark(3));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, table.getLogQuark(5000));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, table.getResourceQuark(3));
+        assertEquals(8, table.getResourceQuark(5000));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, table.getLogQuark(100000));
+    }
+
+    /**
+     * Test that a table read from a file is the table that was written, and
+     * that a file of another version is not read
+     *
+     * @throws IOException
+     *             if the temporary file could not be written
+     */
+    @Test
+    public void testWriteRead() throws IOException {
+        SpanMetadataTable table = new SpanMetadataTable();
+        table.addSpan(1, 12L, "frontend", true);
+        table.addSpan(2, 13L, "frontend", false);
+        table.setLogQuark(2, 10);
+        table.setResourceQuark(2, 11);
+
+        File file = File.createTempFile("spans", ".spans"); //$NON-NLS-1$ //$NON-NLS-2$
+        try {
+            table.writeTo(file, 4);
+            SpanMetadataTable read = SpanMetadataTable.readFrom(file, 4);
+            assertNotNull(read);
+            assertTrue(read.contains(1));
+            assertTrue(read.contains(2));
+            assertFalse(read.contains(3));
+            assertEquals(12L, read.getSpanId(1));
+            assertTrue(read.hasError(1));
+            assertEquals("frontend", read.getProcessName(2));
+            assertEquals(10, read.getLogQuark(2));
+            assertEquals(11, read.getResourceQuark(2));
+            assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, read.getLogQuark(1));
+
+            assertNull(SpanMetadataTable.readFrom(file, 5));
+        } finally {
+            file.delete();
+        }
+        assertNull(SpanMetadataTable.readFrom(file, 4));
+    }
+
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.analysis.spanlife;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife.SpanQuarkMap;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SpanQuarkMap}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class SpanQuarkMapTest {
+
+    /**
+     * Test the basic operations
+     */
+    @Test
+    public void testPutGetRemove() {
+        SpanQuarkMap map = new SpanQuarkMap();
+        assertEquals(SpanQuarkMap.NO_QUARK, map.get(42));
+        map.put(42, 1);
+        map.put(0, 2);
+        map.put(-1, 3);
+        assertEquals(3, map.size());
+        assertEquals(1, map.get(42));
+        assertEquals(2, map.get(0));
+        assertEquals(3, map.get(-1));
+        map.put(42, 4);
+        assertEquals(3, map.size());
+        assertEquals(4, map.remove(42));
+        assertEquals(SpanQuarkMap.NO_QUARK, map.get(42));
+        assertEquals(SpanQuarkMap.NO_QUARK, map.remove(42));
+        assertEquals(2, map.size());
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(SpanQuarkMap.NO_QUARK, map.get(0));
+    }
+
+    /**
+     * Test random operations against a {@link HashMap}, to cover the growth
+     * of the map and the removals in the middle of probe sequences
+     */
+    @Test
+    public void testAgainstHashMap() {
+        SpanQuarkMap map = new SpanQuarkMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 200000; i++) {
+            long spanId = random.nextInt(10000) * (random.nextBoolean() ? 1L : 0x100000000L);
+            switch (random.nextInt(3)) {
+            case 0:
+                int quark = random.nextInt(Integer.MAX_VALUE);
+                map.put(spanId, quark);
+                expected.put(spanId, quark);
+                break;
+            case 1:
+                Integer removed = expected.remove(spanId);
+                assertEquals(removed == null ? SpanQuarkMap.NO_QUARK : removed.intValue(), map.remove(spanId));
+                break;
+            default:
+                Integer value = expected.get(spanId);
+                assertEquals(value == null ? SpanQuarkMap.NO_QUARK : value.intValue(), map.get(spanId));
+                break;
+            }
+        }
+        assertEquals(expected.size(), map.size());
+    }
+
+}
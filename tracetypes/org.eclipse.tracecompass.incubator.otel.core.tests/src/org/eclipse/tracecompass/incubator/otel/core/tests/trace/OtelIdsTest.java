@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.trace;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Tests for {@link OtelIds}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelIdsTest {
+
+    private static ByteString fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return ByteString.copyFrom(bytes);
+    }
+
+    /**
+     * Test that a trace id is read as two longs and formatted back
+     */
+    @Test
+    public void testTraceId() {
+        String hex = "5b8efff798038103d269b633813fc60c";
+        ByteString traceId = fromHex(hex);
+        long high = OtelIds.getTraceIdHigh(traceId);
+        long low = OtelIds.getTraceIdLow(traceId);
+        assertEquals(0x5b8efff798038103L, high);
+        assertEquals(0xd269b633813fc60cL, low);
+        assertEquals(hex, OtelIds.toHexString(high, low));
+    }
+
+    /**
+     * Test that a span id is read as a long and formatted back, keeping its
+     * leading zeros
+     */
+    @Test
+    public void testSpanId() {
+        String hex = "00f067aa0ba902b7";
+        long spanId = OtelIds.getSpanId(fromHex(hex));
+        assertEquals(0x00f067aa0ba902b7L, spanId);
+        assertEquals(hex, OtelIds.toHexString(spanId));
+    }
+
+    /**
+     * Test that an empty id is 0
+     */
+    @Test
+    public void testEmptyId() {
+        assertEquals(0L, OtelIds.getSpanId(ByteString.EMPTY));
+        assertEquals(0L, OtelIds.getTraceIdHigh(ByteString.EMPTY));
+        assertEquals(0L, OtelIds.getTraceIdLow(ByteString.EMPTY));
+    }
+
+    /**
+     * Test that a trace id is parsed back from its hexadecimal string
+     */
+    @Test
+    public void testParseTraceId() {
+        String hex = "5b8efff798038103d269b633813fc60c";
+        assertEquals(0x5b8efff798038103L, OtelIds.parseTraceIdHigh(hex));
+        assertEquals(0xd269b633813fc60cL, OtelIds.parseTraceIdLow(hex));
+        assertEquals(0L, OtelIds.parseTraceIdHigh("2a"));
+        assertEquals(0x2aL, OtelIds.parseTraceIdLow("2a"));
+    }
+
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelResourceTable;
+import org.junit.Test;
+
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.InstrumentationLibrary;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.resource.v1.Resource;
+
+/**
+ * Tests for {@link OtelResourceTable}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelResourceTableTest {
+
+    private static final String SCHEMA_URL = "https://opentelemetry.io/schemas/1.8.0";
+
+    private static Resource createResource(String serviceName) {
+        return Resource.newBuilder()
+                .addAttributes(KeyValue.newBuilder().setKey("service.name").setValue(AnyValue.newBuilder().setStringValue(serviceName)))
+                .build();
+    }
+
+    private static InstrumentationLibrary createLibrary(String name) {
+        return InstrumentationLibrary.newBuilder().setName(name).setVersion("1.0").build();
+    }
+
+    /**
+     * Test that equal scopes decoded separately share the same id and the same
+     * instances
+     */
+    @Test
+    public void testIntern() {
+        OtelResourceTable table = new OtelResourceTable();
+        int first = table.intern(createResource("frontend"), SCHEMA_URL, createLibrary("http"), "");
+        int second = table.intern(createResource("frontend"), SCHEMA_URL, createLibrary("http"), "");
+        assertEquals(first, second);
+        assertEquals(1, table.size());
+
+        int other = table.intern(createResource("frontend"), SCHEMA_URL, createLibrary("grpc"), "");
+        assertNotEquals(first, other);
+        assertEquals(2, table.size());
+
+        // The resource is shared by the two scopes
+        assertSame(table.getResource(first), table.getResource(other));
+        assertEquals(createLibrary("grpc"), table.getInstrumentationLibrary(other));
+        assertEquals(SCHEMA_URL, table.getResourceSchemaUrl(other));
+        assertEquals("", table.getInstrumentationLibrarySchemaUrl(other));
+    }
+
+    /**
+     * Test that a saved table is loaded with the same scope ids
+     *
+     * @throws IOException
+     *             if the table could not be saved or loaded
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        File file = Files.createTempFile("otel-scopes", ".dat").toFile();
+        try {
+            OtelResourceTable table = new OtelResourceTable();
+            int first = table.intern(createResource("frontend"), SCHEMA_URL, createLibrary("http"), "");
+            int second = table.intern(createResource("backend"), "", createLibrary("grpc"), SCHEMA_URL);
+            table.save(file);
+
+            OtelResourceTable loaded = new OtelResourceTable();
+            assertTrue(loaded.load(file));
+            assertEquals(2, loaded.size());
+            assertEquals(createResource("frontend"), loaded.getResource(first));
+            assertEquals(createLibrary("http"), loaded.getInstrumentationLibrary(first));
+            assertEquals(createResource("backend"), loaded.getResource(second));
+            assertEquals(SCHEMA_URL, loaded.getInstrumentationLibrarySchemaUrl(second));
+
+            // A table that is not empty would give other ids to the scopes
+            assertFalse(loaded.load(file));
+
+            Files.write(file.toPath(), new byte[] { 1, 2 });
+            assertFalse(new OtelResourceTable().load(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelSpanHandle;
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+
+import io.opentelemetry.proto.trace.v1.Span;
+
+/**
+ * Tests for {@link OtelSpanHandle}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelSpanHandleTest {
+
+    private static Span createSpan(int spanId, String name) {
+        return Span.newBuilder()
+                .setTraceId(ByteString.copyFrom(new byte[] { 1, 2, 3, 4 }))
+                .setSpanId(ByteString.copyFrom(new byte[] { (byte) spanId }))
+                .setName(name)
+                .setStartTimeUnixNano(10)
+                .setEndTimeUnixNano(20)
+                .build();
+    }
+
+    /**
+     * Test that serialized and wrapped handles of a same span are equal, and
+     * that the serialized span is decoded when read
+     */
+    @Test
+    public void testEquals() {
+        Span span = createSpan(1, "GET /");
+        OtelSpanHandle serialized = OtelSpanHandle.serialize(span);
+        OtelSpanHandle wrapped = OtelSpanHandle.wrap(span);
+        assertEquals(serialized, OtelSpanHandle.serialize(createSpan(1, "GET /")));
+        assertEquals(serialized, wrapped);
+        assertEquals(wrapped, serialized);
+        assertEquals(serialized.hashCode(), wrapped.hashCode());
+        assertEquals(span, serialized.getSpan());
+
+        // Same span id, other content
+        assertNotEquals(serialized, OtelSpanHandle.serialize(createSpan(1, "POST /")));
+        assertNotEquals(wrapped, OtelSpanHandle.wrap(createSpan(2, "GET /")));
+    }
+
+    /**
+     * Test that the trace id read from a serialized span is the one of the
+     * decoded span, and that a span without trace id has an empty one
+     */
+    @Test
+    public void testTraceId() {
+        Span span = createSpan(1, "GET /");
+        assertEquals(span.getTraceId(), OtelSpanHandle.serialize(span).getTraceId());
+        assertEquals(span.getTraceId(), OtelSpanHandle.wrap(span).getTraceId());
+
+        Span noTraceId = span.toBuilder().clearTraceId().build();
+        assertEquals(ByteString.EMPTY, OtelSpanHandle.serialize(noTraceId).getTraceId());
+    }
+
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.otel.core.tests.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelSpanIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OtelSpanIndex}
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelSpanIndexTest {
+
+    private static final int NB_SPANS = 1000;
+
+    private File fDirectory;
+    private File fTraceFile;
+
+    /**
+     * Create the directory for the index and the runs, and the trace file of
+     * the index
+     *
+     * @throws IOException
+     *             if the files could not be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        fDirectory = Files.createTempDirectory("otel-index").toFile();
+        fTraceFile = Files.createTempFile("otel-trace", ".bin").toFile();
+        Files.write(fTraceFile.toPath(), new byte[] { 1, 2, 3 });
+    }
+
+    /**
+     * Delete the directory and the trace file
+     */
+    @After
+    public void tearDown() {
+        fTraceFile.delete();
+        File[] files = fDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        fDirectory.delete();
+    }
+
+    /**
+     * Test that the index is sorted when the entries are spilled to many runs,
+     * and that entries with the same timestamp keep their insertion order
+     *
+     * @throws IOException
+     *             if the index could not be written
+     */
+    @Test
+    public void testExternalSort() throws IOException {
+        File indexFile = new File(fDirectory, "index.idx");
+        Random random = new Random(42);
+        try (OtelSpanIndex.Builder builder = new OtelSpanIndex.Builder(fDirectory, 64)) {
+            for (int i = 0; i < NB_SPANS; i++) {
+                long start = random.nextInt(100);
+                builder.add(new OtelSpanIndex.Entry(start, i, 0, i, 0, OtelSpanIndex.KIND_SPAN_START));
+                builder.add(new OtelSpanIndex.Entry(start + random.nextInt(100), i, 0, i, 0, OtelSpanIndex.KIND_SPAN_END));
+            }
+            try (OtelSpanIndex index = builder.build(indexFile, fTraceFile)) {
+                assertEquals(2 * NB_SPANS, index.size());
+                OtelSpanIndex.Entry previous = index.get(0);
+                for (long rank = 1; rank < index.size(); rank++) {
+                    OtelSpanIndex.Entry entry = index.get(rank);
+                    assertTrue(previous.getTimestamp() <= entry.getTimestamp());
+                    if (previous.getTimestamp() == entry.getTimestamp()) {
+                        assertTrue(previous.getLocationTimestamp() <= entry.getLocationTimestamp());
+                    }
+                    previous = entry;
+                }
+            }
+        }
+        // Only the index remains, the runs are deleted
+        File[] files = fDirectory.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length);
+    }
+
+    /**
+     * Test that an existing index is reopened with the same content
+     *
+     * @throws IOException
+     *             if the index could not be written or read
+     */
+    @Test
+    public void testReopen() throws IOException {
+        File indexFile = new File(fDirectory, "index.idx");
+        try (OtelSpanIndex.Builder builder = new OtelSpanIndex.Builder(fDirectory, 1024)) {
+            builder.add(new OtelSpanIndex.Entry(20, 1, 2, 3, OtelSpanIndex.NO_SCOPE, OtelSpanIndex.KIND_METRIC));
+            builder.add(new OtelSpanIndex.Entry(10, 4, 5, 6, 7, OtelSpanIndex.KIND_SPAN_START));
+            builder.build(indexFile, fTraceFile).close();
+        }
+        try (OtelSpanIndex index = OtelSpanIndex.open(indexFile, fTraceFile)) {
+            assertNotNull(index);
+            assertEquals(2, index.size());
+            OtelSpanIndex.Entry entry = index.get(0);
+            assertEquals(10, entry.getTimestamp());
+            assertEquals(4, entry.getLocationTimestamp());
+            assertEquals(5, entry.getLocationIndex());
+            assertEquals(6, entry.getOrdinal());
+            assertEquals(7, entry.getScopeId());
+            assertTrue(entry.isStart());
+            entry = index.get(1);
+            assertEquals(20, entry.getTimestamp());
+            assertFalse(entry.isStart());
+            assertEquals(OtelSpanIndex.KIND_METRIC, entry.getKind());
+        }
+    }
+
+    /**
+     * Test that a missing or truncated index is not opened
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test
+    public void testInvalidIndex() throws IOException {
+        File indexFile = new File(fDirectory, "index.idx");
+        assertNull(OtelSpanIndex.open(indexFile, fTraceFile));
+        Files.write(indexFile.toPath(), new byte[] { 1, 2, 3 });
+        assertNull(OtelSpanIndex.open(indexFile, fTraceFile));
+    }
+
+    /**
+     * Test that an index is not reopened once its trace changed
+     *
+     * @throws IOException
+     *             if the index could not be written or read
+     */
+    @Test
+    public void testModifiedTrace() throws IOException {
+        File indexFile = new File(fDirectory, "index.idx");
+        try (OtelSpanIndex.Builder builder = new OtelSpanIndex.Builder(fDirectory, 1024)) {
+            builder.add(new OtelSpanIndex.Entry(10, 1, 2, 3, 0, OtelSpanIndex.KIND_SPAN_START));
+            builder.build(indexFile, fTraceFile).close();
+        }
+        Files.write(fTraceFile.toPath(), new byte[] { 1, 2, 3, 4 });
+        assertNull(OtelSpanIndex.open(indexFile, fTraceFile));
+    }
+
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.math.LongMath;
+
+/**
+ * Builds the critical paths of the OpenTelemetry traces as the span events are
+ * read, and writes them to a {@link CriticalPathStore}.
+ * <p>
+ * The spans of a trace id are kept until the trace is complete: all its
+ * started spans have ended and no span of the trace has ended during a grace
+ * period. The critical path of the trace is then computed and stored, and its
+ * spans are released, so only the traces in progress are in memory. The
+ * events must be given in time order.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class CriticalPathBuilder {
+
+    private final CriticalPathStore fStore;
+    private final long fGracePeriod;
+    private final Map<TraceKey, PendingTrace> fTraces = new HashMap<>();
+    /*
+     * Completion deadlines, in increasing order since the events are in time
+     * order and the grace period is the same for all the traces
+     */
+    private final ArrayDeque<Deadline> fDeadlines = new ArrayDeque<>();
+
+    private long fCompletedTraces = 0;
+    private long fLateSpans = 0;
+    private int fPeakTraces = 0;
+
+    /**
+     * Constructor
+     *
+     * @param store
+     *            the store of the critical paths
+     * @param gracePeriod
+     *            the time in nanoseconds after the last end of a span of a
+     *            trace before the trace is complete, for the spans that start
+     *            late
+     */
+    public CriticalPathBuilder(CriticalPathStore store, long gracePeriod) {
+        fStore = store;
+        fGracePeriod = Math.max(0, gracePeriod);
+    }
+
+    /**
+     * Handle the start of a span
+     *
+     * @param traceIdHigh
+     *            the high 64 bits of the trace id of the span
+     * @param traceIdLow
+     *            the low 64 bits of the trace id of the span
+     * @param timestamp
+     *            the time of the event
+     * @throws IOException
+     *             if a completed critical path could not be stored
+     */
+    public synchronized void startSpan(long traceIdHigh, long traceIdLow, long timestamp) throws IOException {
+        completeTraces(timestamp);
+        PendingTrace trace = getTrace(traceIdHigh, traceIdLow);
+        if (trace != null) {
+            trace.fOpenSpans++;
+        }
+    }
+
+    /**
+     * Handle the end of a span
+     *
+     * @param traceIdHigh
+     *            the high 64 bits of the trace id of the span
+     * @param traceIdLow
+     *            the low 64 bits of the trace id of the span
+     * @param span
+     *            the span that ended
+     * @param timestamp
+     *            the time of the event
+     * @throws IOException
+     *             if a completed critical path could not be stored
+     */
+    public synchronized void endSpan(long traceIdHigh, long traceIdLow, CriticalPathSpan span, long timestamp) throws IOException {
+        completeTraces(timestamp);
+        PendingTrace trace = getTrace(traceIdHigh, traceIdLow);
+        if (trace == null) {
+            return;
+        }
+        trace.fSpans.add(span);
+        // The start of the span may be missing
+        trace.fOpenSpans = Math.max(0, trace.fOpenSpans - 1);
+        if (trace.fOpenSpans == 0) {
+            trace.fDeadline = LongMath.saturatedAdd(timestamp, fGracePeriod);
+            fDeadlines.add(new Deadline(trace.fDeadline, trace));
+        }
+    }
+
+    /**
+     * Complete the traces still in progress, at the end of the events, and
+     * commit the store
+     *
+     * @throws IOException
+     *             if the critical paths could not be stored
+     */
+    public synchronized void finish() throws IOException {
+        for (PendingTrace trace : fTraces.values()) {
+            complete(trace);
+        }
+        fTraces.clear();
+        fDeadlines.clear();
+        fStore.commit();
+    }
+
+    /**
+     * @return the number of critical paths stored
+     */
+    public synchronized long getCompletedTraceCount() {
+        return fCompletedTraces;
+    }
+
+    /**
+     * @return the number of spans of traces that were already complete, which
+     *         are not on their critical path
+     */
+    public synchronized long getLateSpanCount() {
+        return fLateSpans;
+    }
+
+    /**
+     * @return the largest number of traces in progress at the same time
+     */
+    public synchronized int getPeakTraceCount() {
+        return fPeakTraces;
+    }
+
+    private @Nullable PendingTrace getTrace(long traceIdHigh, long traceIdLow) {
+        TraceKey key = new TraceKey(traceIdHigh, traceIdLow);
+        PendingTrace trace = fTraces.get(key);
+        if (trace == null) {
+            if (fStore.contains(traceIdHigh, traceIdLow)) {
+                // The trace was completed before this span
+                fLateSpans++;
+                return null;
+            }
+            trace = new PendingTrace(key);
+            fTraces.put(key, trace);
+            fPeakTraces = Math.max(fPeakTraces, fTraces.size());
+        }
+        return trace;
+    }
+
+    private void completeTraces(long timestamp) throws IOException {
+        Deadline deadline = fDeadlines.peek();
+        while (deadline != null && deadline.fTime < timestamp) {
+            fDeadlines.remove();
+            PendingTrace trace = deadline.fTrace;
+            // The trace may have new spans since this deadline
+            if (trace.fDeadline == deadline.fTime && trace.fOpenSpans == 0 && fTraces.remove(trace.fKey) != null) {
+                complete(trace);
+            }
+            deadline = fDeadlines.peek();
+        }
+    }
+
+    private void complete(PendingTrace trace) throws IOException {
+        fStore.put(trace.fKey.fHigh, trace.fKey.fLow, OtelCriticalPath.compute(trace.fSpans));
+        fCompletedTraces++;
+    }
+
+    private static final class TraceKey {
+        private final long fHigh;
+        private final long fLow;
+
+        TraceKey(long high, long low) {
+            fHigh = high;
+            fLow = low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fHigh * 31 + fLow);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof TraceKey)) {
+                return false;
+            }
+            TraceKey other = (TraceKey) obj;
+            return fHigh == other.fHigh && fLow == other.fLow;
+        }
+    }
+
+    private static final class PendingTrace {
+        private final TraceKey fKey;
+        private final List<CriticalPathSpan> fSpans = new ArrayList<>();
+        private int fOpenSpans = 0;
+        private long fDeadline = Long.MIN_VALUE;
+
+        PendingTrace(TraceKey key) {
+            fKey = key;
+        }
+    }
+
+    private static final class Deadline {
+        private final long fTime;
+        private final PendingTrace fTrace;
+
+        Deadline(long time, PendingTrace trace) {
+            fTime = time;
+            fTrace = trace;
+        }
+    }
+
+}
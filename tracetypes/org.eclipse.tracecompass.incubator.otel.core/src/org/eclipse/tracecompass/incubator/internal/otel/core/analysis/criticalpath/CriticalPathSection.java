@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath;
+
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
+
+/**
+ * A section of the critical path of an OpenTelemetry trace: a time range
+ * during which one span bounds the latency of the trace. The self time of a
+ * span on the critical path is the sum of the lengths of its sections.
+ * <p>
+ * A section is a gap when the span is between two of its children on the
+ * critical path, for instance the time between two sequential downstream
+ * calls.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class CriticalPathSection {
+
+    private final long fStart;
+    private final long fEnd;
+    private final long fSpanId;
+    private final String fName;
+    private final String fServiceName;
+    private final boolean fGap;
+
+    /**
+     * Constructor
+     *
+     * @param start
+     *            the start time of the section
+     * @param end
+     *            the end time of the section
+     * @param spanId
+     *            the id of the span on the critical path
+     * @param name
+     *            the name of the operation of the span
+     * @param serviceName
+     *            the name of the service of the span
+     * @param gap
+     *            whether the section is between two children of the span
+     */
+    public CriticalPathSection(long start, long end, long spanId, String name, String serviceName, boolean gap) {
+        fStart = start;
+        fEnd = end;
+        fSpanId = spanId;
+        fName = name;
+        fServiceName = serviceName;
+        fGap = gap;
+    }
+
+    /**
+     * @return the start time of the section
+     */
+    public long getStart() {
+        return fStart;
+    }
+
+    /**
+     * @return the end time of the section
+     */
+    public long getEnd() {
+        return fEnd;
+    }
+
+    /**
+     * @return the length of the section
+     */
+    public long getLength() {
+        return fEnd - fStart;
+    }
+
+    /**
+     * @return the id of the span on the critical path
+     */
+    public long getSpanId() {
+        return fSpanId;
+    }
+
+    /**
+     * @return the name of the operation of the span
+     */
+    public String getName() {
+        return fName;
+    }
+
+    /**
+     * @return the name of the service of the span
+     */
+    public String getServiceName() {
+        return fServiceName;
+    }
+
+    /**
+     * @return whether the section is between two children of the span on the
+     *         critical path
+     */
+    public boolean isGap() {
+        return fGap;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fStart, fEnd, fSpanId, fName, fServiceName, fGap);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CriticalPathSection)) {
+            return false;
+        }
+        CriticalPathSection other = (CriticalPathSection) obj;
+        return fStart == other.fStart && fEnd == other.fEnd && fSpanId == other.fSpanId && fGap == other.fGap
+                && fName.equals(other.fName) && fServiceName.equals(other.fServiceName);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + fStart + ", " + fEnd + "] " + fServiceName + " " + fName //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                + " (span_id=" + OtelIds.toHexString(fSpanId) + (fGap ? ", gap)" : ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath;
+
+/**
+ * A span of an OpenTelemetry trace, with only what the critical path needs:
+ * its ids, its times and its labels.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class CriticalPathSpan {
+
+    /**
+     * Parent span id of the root spans
+     */
+    public static final long NO_PARENT = 0L;
+
+    private final long fSpanId;
+    private final long fParentSpanId;
+    private final long fStart;
+    private final long fEnd;
+    private final String fName;
+    private final String fServiceName;
+
+    /**
+     * Constructor
+     *
+     * @param spanId
+     *            the span id
+     * @param parentSpanId
+     *            the id of the parent span, or {@link #NO_PARENT}
+     * @param start
+     *            the start time of the span
+     * @param end
+     *            the end time of the span
+     * @param name
+     *            the name of the operation of the span
+     * @param serviceName
+     *            the name of the service that created the span
+     */
+    public CriticalPathSpan(long spanId, long parentSpanId, long start, long end, String name, String serviceName) {
+        fSpanId = spanId;
+        fParentSpanId = parentSpanId;
+        fStart = start;
+        fEnd = Math.max(start, end);
+        fName = name;
+        fServiceName = serviceName;
+    }
+
+    /**
+     * @return the span id
+     */
+    public long getSpanId() {
+        return fSpanId;
+    }
+
+    /**
+     * @return the id of the parent span, or {@link #NO_PARENT}
+     */
+    public long getParentSpanId() {
+        return fParentSpanId;
+    }
+
+    /**
+     * @return the start time of the span
+     */
+    public long getStart() {
+        return fStart;
+    }
+
+    /**
+     * @return the end time of the span
+     */
+    public long getEnd() {
+        return fEnd;
+    }
+
+    /**
+     * @return the name of the operation of the span
+     */
+    public String getName() {
+        return fName;
+    }
+
+    /**
+     * @return the name of the service that created the span
+     */
+    public String getServiceName() {
+        return fServiceName;
+    }
+
+}
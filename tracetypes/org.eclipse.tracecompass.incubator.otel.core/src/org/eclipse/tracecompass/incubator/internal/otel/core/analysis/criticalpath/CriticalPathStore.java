@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Store of the critical paths of the OpenTelemetry traces, indexed by trace
+ * id.
+ * <p>
+ * The critical paths are appended to a file as their traces are completed,
+ * one record per trace id. The offset of each record is kept in a hash index
+ * of the trace ids, so that the critical path of one trace id is read with
+ * one lookup and one positional read, whatever the number of traces. The
+ * index is written to its own file when the store is committed: a store that
+ * was not committed, for instance because its analysis was cancelled, cannot
+ * be opened again.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class CriticalPathStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x4f544350; // "OTCP"
+    private static final int INDEX_MAGIC = 0x4f544349; // "OTCI"
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    /* Longest string written, in characters, writeUTF is limited to 64 KiB */
+    private static final int MAX_STRING_LENGTH = 1 << 13;
+
+    private final FileChannel fChannel;
+    private final File fIndexFile;
+    private final int fVersion;
+    private final TraceIdIndex fIndex;
+    private final ByteBuffer fWriteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteArrayOutputStream fRecord = new ByteArrayOutputStream();
+    private long fFlushedSize;
+
+    private CriticalPathStore(FileChannel channel, File indexFile, int version, TraceIdIndex index, long size) {
+        fChannel = channel;
+        fIndexFile = indexFile;
+        fVersion = version;
+        fIndex = index;
+        fFlushedSize = size;
+    }
+
+    /**
+     * Create an empty store, replacing the previous files
+     *
+     * @param file
+     *            the file of the critical paths
+     * @param indexFile
+     *            the file of the index, written when the store is committed
+     * @param version
+     *            the version of the analysis that fills the store
+     * @return the store
+     * @throws IOException
+     *             if the file could not be created
+     */
+    public static CriticalPathStore create(File file, File indexFile, int version) throws IOException {
+        Files.deleteIfExists(indexFile.toPath());
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        CriticalPathStore store = new CriticalPathStore(channel, indexFile, version, new TraceIdIndex(), 0L);
+        store.fWriteBuffer.putInt(MAGIC).putInt(version);
+        return store;
+    }
+
+    /**
+     * Open a store that was committed
+     *
+     * @param file
+     *            the file of the critical paths
+     * @param indexFile
+     *            the file of the index
+     * @param version
+     *            the expected version of the analysis
+     * @return the store, or null if the files do not exist, were not
+     *         committed or were written by another version
+     */
+    public static @Nullable CriticalPathStore open(File file, File indexFile, int version) {
+        if (!file.isFile() || !indexFile.isFile()) {
+            return null;
+        }
+        TraceIdIndex index = new TraceIdIndex();
+        long size;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != version) {
+                return null;
+            }
+            size = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                index.put(in.readLong(), in.readLong(), in.readLong());
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        @Nullable FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0L);
+            if (header.getInt() != MAGIC || header.getInt() != version || channel.size() != size) {
+                channel.close();
+                return null;
+            }
+            return new CriticalPathStore(channel, indexFile, version, index, size);
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e1) {
+                    // Nothing to do
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Add the critical path of a trace id. A critical path added again for
+     * the same trace id replaces the previous one.
+     *
+     * @param traceIdHigh
+     *            the high 64 bits of the trace id
+     * @param traceIdLow
+     *            the low 64 bits of the trace id
+     * @param path
+     *            the sections of the critical path
+     * @throws IOException
+     *             if the critical path could not be written
+     */
+    public synchronized void put(long traceIdHigh, long traceIdLow, List<CriticalPathSection> path) throws IOException {
+        fRecord.reset();
+        try (DataOutputStream out = new DataOutputStream(fRecord)) {
+            out.writeInt(0);
+            out.writeInt(path.size());
+            for (CriticalPathSection section : path) {
+                out.writeLong(section.getStart());
+                out.writeLong(section.getEnd());
+                out.writeLong(section.getSpanId());
+                out.writeBoolean(section.isGap());
+                writeString(out, section.getName());
+                writeString(out, section.getServiceName());
+            }
+        }
+        byte[] record = fRecord.toByteArray();
+        ByteBuffer.wrap(record).putInt(record.length - Integer.BYTES);
+        long offset = fFlushedSize + fWriteBuffer.position();
+        if (record.length > fWriteBuffer.remaining()) {
+            flush();
+            if (record.length > fWriteBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(record));
+                fIndex.put(traceIdHigh, traceIdLow, offset);
+                return;
+            }
+        }
+        fWriteBuffer.put(record);
+        fIndex.put(traceIdHigh, traceIdLow, offset);
+    }
+
+    /**
+     * Get the critical path of a trace id
+     *
+     * @param traceIdHigh
+     *            the high 64 bits of the trace id
+     * @param traceIdLow
+     *            the low 64 bits of the trace id
+     * @return the sections of the critical path, or null if the store has no
+     *         critical path for this trace id
+     * @throws IOException
+     *             if the critical path could not be read
+     */
+    public synchronized @Nullable List<CriticalPathSection> get(long traceIdHigh, long traceIdLow) throws IOException {
+        long offset = fIndex.get(traceIdHigh, traceIdLow);
+        if (offset == TraceIdIndex.NO_OFFSET) {
+            return null;
+        }
+        if (offset >= fFlushedSize) {
+            flush();
+        }
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(fChannel, length, offset);
+        ByteBuffer record = ByteBuffer.allocate(length.getInt());
+        readFully(fChannel, record, offset + Integer.BYTES);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.array()))) {
+            int count = in.readInt();
+            List<CriticalPathSection> path = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long start = in.readLong();
+                long end = in.readLong();
+                long spanId = in.readLong();
+                boolean gap = in.readBoolean();
+                String name = in.readUTF();
+                String serviceName = in.readUTF();
+                path.add(new CriticalPathSection(start, end, spanId, name, serviceName, gap));
+            }
+            return path;
+        }
+    }
+
+    /**
+     * Whether the store has the critical path of a trace id
+     *
+     * @param traceIdHigh
+     *            the high 64 bits of the trace id
+     * @param traceIdLow
+     *            the low 64 bits of the trace id
+     * @return true if the critical path of the trace id was added
+     */
+    public synchronized boolean contains(long traceIdHigh, long traceIdLow) {
+        return fIndex.get(traceIdHigh, traceIdLow) != TraceIdIndex.NO_OFFSET;
+    }
+
+    /**
+     * @return the number of trace ids in the store
+     */
+    public synchronized int size() {
+        return fIndex.size();
+    }
+
+    /**
+     * Write the pending critical paths and the index, so that the store can be
+     * opened again
+     *
+     * @throws IOException
+     *             if the files could not be written
+     */
+    public synchronized void commit() throws IOException {
+        flush();
+        fChannel.force(false);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fIndexFile), BUFFER_SIZE))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(fVersion);
+            out.writeLong(fFlushedSize);
+            out.writeInt(fIndex.size());
+            fIndex.forEach((high, low, offset) -> {
+                out.writeLong(high);
+                out.writeLong(low);
+                out.writeLong(offset);
+            });
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        fChannel.close();
+    }
+
+    private void flush() throws IOException {
+        fWriteBuffer.flip();
+        writeFully(fWriteBuffer);
+        fWriteBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            fFlushedSize += fChannel.write(buffer, fFlushedSize);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new EOFException("Critical path record past the end of the file"); //$NON-NLS-1$
+            }
+            current += read;
+        }
+        buffer.flip();
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        out.writeUTF(string.length() > MAX_STRING_LENGTH ? string.substring(0, MAX_STRING_LENGTH) : string);
+    }
+
+    /**
+     * Consumer of the entries of a {@link TraceIdIndex}
+     */
+    @FunctionalInterface
+    private interface IndexEntryConsumer {
+        void accept(long traceIdHigh, long traceIdLow, long offset) throws IOException;
+    }
+
+    /**
+     * Map of trace ids to record offsets, with open addressing and linear
+     * probing on primitive arrays
+     */
+    private static class TraceIdIndex {
+        static final long NO_OFFSET = -1L;
+
+        private static final int INITIAL_CAPACITY = 1 << 10;
+        private static final float LOAD_FACTOR = 0.5f;
+
+        private long[] fHighs = new long[INITIAL_CAPACITY];
+        private long[] fLows = new long[INITIAL_CAPACITY];
+        private long[] fOffsets = new long[INITIAL_CAPACITY];
+        private int fSize = 0;
+        private int fThreshold = (int) (INITIAL_CAPACITY * LOAD_FACTOR);
+
+        TraceIdIndex() {
+            Arrays.fill(fOffsets, NO_OFFSET);
+        }
+
+        long get(long high, long low) {
+            int mask = fOffsets.length - 1;
+            for (int i = index(high, low, mask); fOffsets[i] != NO_OFFSET; i = (i + 1) & mask) {
+                if (fHighs[i] == high && fLows[i] == low) {
+                    return fOffsets[i];
+                }
+            }
+            return NO_OFFSET;
+        }
+
+        void put(long high, long low, long offset) {
+            int mask = fOffsets.length - 1;
+            int i = index(high, low, mask);
+            while (fOffsets[i] != NO_OFFSET) {
+                if (fHighs[i] == high && fLows[i] == low) {
+                    fOffsets[i] = offset;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            fHighs[i] = high;
+            fLows[i] = low;
+            fOffsets[i] = offset;
+            fSize++;
+            if (fSize > fThreshold) {
+                resize(fOffsets.length * 2);
+            }
+        }
+
+        int size() {
+            return fSize;
+        }
+
+        void forEach(IndexEntryConsumer consumer) throws IOException {
+            for (int i = 0; i < fOffsets.length; i++) {
+                if (fOffsets[i] != NO_OFFSET) {
+                    consumer.accept(fHighs[i], fLows[i], fOffsets[i]);
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] highs = fHighs;
+            long[] lows = fLows;
+            long[] offsets = fOffsets;
+            fHighs = new long[capacity];
+            fLows = new long[capacity];
+            fOffsets = new long[capacity];
+            Arrays.fill(fOffsets, NO_OFFSET);
+            fThreshold = (int) (capacity * LOAD_FACTOR);
+            int mask = capacity - 1;
+            for (int j = 0; j < offsets.length; j++) {
+                if (offsets[j] != NO_OFFSET) {
+                    int i = index(highs[j], lows[j], mask);
+                    while (fOffsets[i] != NO_OFFSET) {
+                        i = (i + 1) & mask;
+                    }
+                    fHighs[i] = highs[j];
+                    fLows[i] = lows[j];
+                    fOffsets[i] = offsets[j];
+                }
+            }
+        }
+
+        private static int index(long high, long low, int mask) {
+            // Finalizer of MurmurHash3, some tracers generate ids with a
+            // fixed part
+            long h = high * 31 + low;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return (int) h & mask;
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Computes the critical path of the spans of an OpenTelemetry trace.
+ * <p>
+ * The critical path is walked backward from the end of the root span. At each
+ * step, the span on the path is blocked by its child that finishes last
+ * before the current time; when no child is left, the path returns to the
+ * parent at the start of the span. The children are first clipped to the time
+ * range of their parent, so that a child outliving its parent does not move
+ * the path outside of the trace. The time of a span on the path that is not
+ * covered by a child is its self time.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class OtelCriticalPath {
+
+    private static final int NONE = -1;
+
+    private OtelCriticalPath() {
+        // Do nothing
+    }
+
+    /**
+     * Compute the critical path of the spans of a trace
+     *
+     * @param spans
+     *            the spans of one trace id
+     * @return the sections of the critical path, in time order. The path
+     *         starts at the root span ending last, the spans whose parent is
+     *         missing being roots.
+     */
+    public static List<CriticalPathSection> compute(Collection<CriticalPathSpan> spans) {
+        if (spans.isEmpty()) {
+            return Collections.emptyList();
+        }
+        CriticalPathSpan[] nodes = spans.toArray(new CriticalPathSpan[spans.size()]);
+        int n = nodes.length;
+        Map<Long, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            indexes.putIfAbsent(nodes[i].getSpanId(), i);
+        }
+
+        /* Find the parents and the root ending last */
+        int[] parents = new int[n];
+        int root = NONE;
+        for (int i = 0; i < n; i++) {
+            long parentSpanId = nodes[i].getParentSpanId();
+            Integer parent = parentSpanId == CriticalPathSpan.NO_PARENT ? null : indexes.get(parentSpanId);
+            parents[i] = (parent == null || parent == i) ? NONE : parent;
+            if (parents[i] == NONE && (root == NONE || nodes[i].getEnd() > nodes[root].getEnd()
+                    || (nodes[i].getEnd() == nodes[root].getEnd() && nodes[i].getStart() < nodes[root].getStart()))) {
+                root = i;
+            }
+        }
+        if (root == NONE) {
+            // Every span is in a cycle of parents
+            return Collections.emptyList();
+        }
+
+        /* Clip the spans of the tree of the root to their parent */
+        int[] childOffsets = getChildOffsets(parents, null);
+        int[] children = new int[childOffsets[n]];
+        int[] fill = Arrays.copyOf(childOffsets, n);
+        for (int i = 0; i < n; i++) {
+            if (parents[i] != NONE) {
+                children[fill[parents[i]]++] = i;
+            }
+        }
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        boolean[] onTree = new boolean[n];
+        int[] queue = new int[n];
+        int queueSize = 0;
+        starts[root] = nodes[root].getStart();
+        ends[root] = nodes[root].getEnd();
+        onTree[root] = true;
+        queue[queueSize++] = root;
+        for (int head = 0; head < queueSize; head++) {
+            int parent = queue[head];
+            for (int j = childOffsets[parent]; j < childOffsets[parent + 1]; j++) {
+                int child = children[j];
+                long start = Math.max(nodes[child].getStart(), starts[parent]);
+                long end = Math.min(nodes[child].getEnd(), ends[parent]);
+                // Children that are empty once clipped cannot block
+                if (end > start && !onTree[child]) {
+                    starts[child] = start;
+                    ends[child] = end;
+                    onTree[child] = true;
+                    queue[queueSize++] = child;
+                }
+            }
+        }
+
+        /* Sort the children of each span by end time */
+        Integer[] byEnd = new Integer[queueSize - 1];
+        for (int i = 1; i < queueSize; i++) {
+            byEnd[i - 1] = queue[i];
+        }
+        Arrays.sort(byEnd, (a, b) -> Long.compare(ends[a], ends[b]));
+        int[] sortedOffsets = getChildOffsets(parents, onTree);
+        int[] sortedChildren = new int[sortedOffsets[n]];
+        fill = Arrays.copyOf(sortedOffsets, n);
+        for (Integer child : byEnd) {
+            sortedChildren[fill[parents[child]]++] = child;
+        }
+        // Next child to consider for each span, from the last one
+        int[] next = new int[n];
+        for (int i = 0; i < n; i++) {
+            next[i] = sortedOffsets[i + 1] - 1;
+        }
+
+        /* Walk the path backward from the end of the root */
+        List<CriticalPathSection> sections = new ArrayList<>();
+        int span = root;
+        long cursor = ends[root];
+        boolean afterChild = false;
+        while (true) {
+            int child = NONE;
+            while (next[span] >= sortedOffsets[span]) {
+                int candidate = sortedChildren[next[span]--];
+                // The cursor only goes back in time, skipped children will
+                // not be on the path
+                if (ends[candidate] <= cursor) {
+                    child = candidate;
+                    break;
+                }
+            }
+            if (child != NONE) {
+                if (cursor > ends[child]) {
+                    sections.add(newSection(nodes[span], ends[child], cursor, afterChild));
+                }
+                span = child;
+                cursor = ends[child];
+                afterChild = false;
+            } else {
+                if (cursor > starts[span]) {
+                    sections.add(newSection(nodes[span], starts[span], cursor, false));
+                }
+                if (span == root) {
+                    break;
+                }
+                cursor = starts[span];
+                span = parents[span];
+                afterChild = true;
+            }
+        }
+        Collections.reverse(sections);
+        return sections;
+    }
+
+    /**
+     * Get the self time of the spans on a critical path
+     *
+     * @param path
+     *            the sections of the critical path
+     * @return the self time of each span id of the path, in the order of the
+     *         path
+     */
+    public static Map<Long, Long> getSelfTimes(List<CriticalPathSection> path) {
+        Map<Long, Long> selfTimes = new LinkedHashMap<>();
+        for (CriticalPathSection section : path) {
+            selfTimes.merge(section.getSpanId(), section.getLength(), Long::sum);
+        }
+        return selfTimes;
+    }
+
+    /**
+     * Get the offsets of the children of each span in a flat array of
+     * children, optionally only for the spans on the tree of the root
+     */
+    private static int[] getChildOffsets(int[] parents, boolean @Nullable [] onTree) {
+        int n = parents.length;
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            if (parents[i] != NONE && (onTree == null || onTree[i])) {
+                offsets[parents[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        return offsets;
+    }
+
+    private static CriticalPathSection newSection(CriticalPathSpan span, long start, long end, boolean gap) {
+        return new CriticalPathSection(start, end, span.getSpanId(), span.getName(), span.getServiceName(), gap);
+    }
+
+}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.criticalpath;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.otel.core.Activator;
+import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife.SpanLifeStateProvider;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.Constants;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelEvent;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
+import org.eclipse.tracecompass.tmf.core.analysis.TmfAbstractAnalysisModule;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
+import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+
+import com.google.protobuf.ByteString;
+
+import io.opentelemetry.proto.trace.v1.Span;
+
+/**
+ * Critical paths of the OpenTelemetry traces: for each trace id, the chain of
+ * spans that bounded the latency of the trace, with their self time and the
+ * gaps between their children.
+ * <p>
+ * The span events are read once. The critical path of a trace id is computed
+ * when the trace is complete and appended to a {@link CriticalPathStore} in
+ * the supplementary files, so the critical path of one trace id is then read
+ * with one index lookup, without rebuilding the trace.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelCriticalPathAnalysis extends TmfAbstractAnalysisModule {
+
+    /**
+     * The ID of this analysis
+     */
+    public static final String ID = "org.eclipse.tracecompass.incubator.otel.analysis.criticalpath"; //$NON-NLS-1$
+    private static final int VERSION = 1;
+
+    private static final String STORE_FILE_SUFFIX = ".paths"; //$NON-NLS-1$
+    private static final String INDEX_FILE_SUFFIX = ".idx"; //$NON-NLS-1$
+
+    private @Nullable CriticalPathStore fStore = null;
+    private @Nullable CriticalPathBuilder fBuilder = null;
+    private @Nullable ITmfEventRequest fRequest = null;
+
+    /**
+     * Constructor
+     */
+    public OtelCriticalPathAnalysis() {
+        setId(ID);
+    }
+
+    @Override
+    protected boolean executeAnalysis(IProgressMonitor monitor) throws TmfAnalysisException {
+        ITmfTrace trace = getTrace();
+        if (trace == null) {
+            throw new IllegalStateException("The trace should not be null"); //$NON-NLS-1$
+        }
+        File file = getStoreFile(trace);
+        File indexFile = getIndexFile(trace);
+        CriticalPathStore store = CriticalPathStore.open(file, indexFile, VERSION);
+        if (store != null) {
+            // The analysis was built before
+            setStore(store);
+            return true;
+        }
+        try {
+            store = CriticalPathStore.create(file, indexFile, VERSION);
+        } catch (IOException e) {
+            throw new TmfAnalysisException("Error creating the critical path store of " + trace.getName(), e); //$NON-NLS-1$
+        }
+        CriticalPathBuilder builder = new CriticalPathBuilder(store, SpanLifeStateProvider.getConfiguredGracePeriod());
+        fBuilder = builder;
+        setStore(store);
+
+        CriticalPathRequest request = new CriticalPathRequest(builder, monitor);
+        fRequest = request;
+        trace.sendRequest(request);
+        try {
+            request.waitForCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        IOException error = request.getError();
+        if (error != null) {
+            throw new TmfAnalysisException("Error storing the critical paths of " + trace.getName(), error); //$NON-NLS-1$
+        }
+        if (!request.isCompleted() || request.isCancelled() || request.isFailed() || monitor.isCanceled()) {
+            return false;
+        }
+        try {
+            builder.finish();
+        } catch (IOException e) {
+            throw new TmfAnalysisException("Error storing the critical paths of " + trace.getName(), e); //$NON-NLS-1$
+        }
+        return true;
+    }
+
+    @Override
+    protected void canceling() {
+        ITmfEventRequest request = fRequest;
+        if (request != null && !request.isCompleted()) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Get the critical path of a trace id. The analysis must be completed to
+     * have the critical paths of all the trace ids.
+     *
+     * @param traceIdHigh
+     *            the high 64 bits of the trace id
+     * @param traceIdLow
+     *            the low 64 bits of the trace id
+     * @return the sections of the critical path, in time order, or null if
+     *         the critical path of this trace id is not available
+     */
+    public @Nullable List<CriticalPathSection> getCriticalPath(long traceIdHigh, long traceIdLow) {
+        CriticalPathStore store = fStore;
+        if (store == null) {
+            return null;
+        }
+        try {
+            return store.get(traceIdHigh, traceIdLow);
+        } catch (IOException e) {
+            Activator.getInstance().logError("Error reading the critical path of " + OtelIds.toHexString(traceIdHigh, traceIdLow), e); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    /**
+     * Get the critical path of a trace id
+     *
+     * @param traceIdHex
+     *            the hexadecimal string of the trace id
+     * @return the sections of the critical path, in time order, or null if
+     *         the critical path of this trace id is not available
+     */
+    public @Nullable List<CriticalPathSection> getCriticalPath(String traceIdHex) {
+        try {
+            return getCriticalPath(OtelIds.parseTraceIdHigh(traceIdHex), OtelIds.parseTraceIdLow(traceIdHex));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the file of the critical paths of a trace
+     *
+     * @param trace
+     *            the trace
+     * @return the file, in the supplementary files of the trace
+     */
+    public static File getStoreFile(ITmfTrace trace) {
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + ID + STORE_FILE_SUFFIX);
+    }
+
+    /**
+     * Get the file of the index of the critical paths of a trace
+     *
+     * @param trace
+     *            the trace
+     * @return the file, in the supplementary files of the trace
+     */
+    public static File getIndexFile(ITmfTrace trace) {
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + ID + INDEX_FILE_SUFFIX);
+    }
+
+    @Override
+    public @NonNull Map<@NonNull String, @NonNull String> getProperties() {
+        Map<@NonNull String, @NonNull String> properties = new LinkedHashMap<>(super.getProperties());
+        CriticalPathStore store = fStore;
+        if (store != null) {
+            properties.put("critical paths", String.valueOf(store.size())); //$NON-NLS-1$
+        }
+        CriticalPathBuilder builder = fBuilder;
+        if (builder != null) {
+            properties.put("peak traces in progress", String.valueOf(builder.getPeakTraceCount())); //$NON-NLS-1$
+            properties.put("late spans", String.valueOf(builder.getLateSpanCount())); //$NON-NLS-1$
+        }
+        return properties;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        setStore(null);
+    }
+
+    private synchronized void setStore(@Nullable CriticalPathStore store) {
+        CriticalPathStore previous = fStore;
+        fStore = store;
+        if (previous != null && previous != store) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                // Nothing to do
+            }
+        }
+    }
+
+    private static class CriticalPathRequest extends TmfEventRequest {
+        private final CriticalPathBuilder fPathBuilder;
+        private final IProgressMonitor fMonitor;
+        private @Nullable IOException fError = null;
+
+        public CriticalPathRequest(CriticalPathBuilder builder, IProgressMonitor monitor) {
+            super(ITmfEvent.class, TmfTimeRange.ETERNITY, 0, ITmfEventRequest.ALL_DATA, ExecutionType.BACKGROUND);
+            fPathBuilder = builder;
+            fMonitor = monitor;
+        }
+
+        @Override
+        public void handleData(ITmfEvent event) {
+            super.handleData(event);
+            if (fMonitor.isCanceled()) {
+                cancel();
+                return;
+            }
+            String type = event.getType().getName();
+            boolean start = Constants.SpanEvents.START_SPAN_EVENT_TYPE_ID.equals(type);
+            if (!start && !Constants.SpanEvents.END_SPAN_EVENT_TYPE_ID.equals(type)) {
+                return;
+            }
+            Span span = OtelEvent.getEventSpan(event);
+            ByteString traceId = span.getTraceId();
+            long traceIdHigh = OtelIds.getTraceIdHigh(traceId);
+            long traceIdLow = OtelIds.getTraceIdLow(traceId);
+            long timestamp = event.getTimestamp().toNanos();
+            try {
+                if (start) {
+                    fPathBuilder.startSpan(traceIdHigh, traceIdLow, timestamp);
+                } else {
+                    // The timestamp of the event may be synchronized, keep the
+                    // duration of the span
+                    long duration = Math.max(0L, span.getEndTimeUnixNano() - span.getStartTimeUnixNano());
+                    CriticalPathSpan pathSpan = new CriticalPathSpan(OtelIds.getSpanId(span.getSpanId()), OtelIds.getSpanId(span.getParentSpanId()),
+                            timestamp - duration, timestamp, span.getName(), OtelEvent.getServiceName(OtelEvent.getEventResource(event)));
+                    fPathBuilder.endSpan(traceIdHigh, traceIdLow, pathSpan, timestamp);
+                }
+            } catch (IOException e) {
+                fError = e;
+                cancel();
+            }
+        }
+
+        public @Nullable IOException getError() {
+            return fError;
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.latency;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.analysis.timing.core.segmentstore.AbstractSegmentStoreAnalysisEventBasedModule;
+import org.eclipse.tracecompass.datastore.core.interval.IHTIntervalReader;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.Constants;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelEvent;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+import org.eclipse.tracecompass.segmentstore.core.SegmentComparators;
+import org.eclipse.tracecompass.segmentstore.core.SegmentStoreFactory.SegmentStoreType;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.segment.ISegmentAspect;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+
+import io.opentelemetry.proto.trace.v1.Span;
+import io.opentelemetry.proto.trace.v1.Status;
+
+/**
+ * Segment store of the OpenTelemetry spans, one {@link OtelSpanSegment} per
+ * span, for the latency table, statistics, density and scatter views.
+ * <p>
+ * The segments are created at the end of the spans: the end time is the
+ * timestamp of the end event and the start time is computed from the duration
+ * of the span, so no span is kept in memory until its end. The segments are
+ * stored in an on-disk history tree.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelSpanLatencyAnalysis extends AbstractSegmentStoreAnalysisEventBasedModule {
+
+    /**
+     * The ID of this analysis
+     */
+    public static final String ID = "org.eclipse.tracecompass.incubator.otel.analysis.latency"; //$NON-NLS-1$
+    private static final int VERSION = 1;
+
+    private static final Collection<ISegmentAspect> BASE_ASPECTS = ImmutableList.of(
+            new OtelSpanAspect("Service", "The service that created the span", OtelSpanSegment::getServiceName), //$NON-NLS-1$ //$NON-NLS-2$
+            new OtelSpanAspect("Trace Id", "The trace id of the span", OtelSpanSegment::getTraceId), //$NON-NLS-1$ //$NON-NLS-2$
+            new OtelSpanAspect("Span Id", "The span id", OtelSpanSegment::getSpanId), //$NON-NLS-1$ //$NON-NLS-2$
+            new OtelSpanAspect("Error", "Whether the span has an error status", OtelSpanSegment::hasError)); //$NON-NLS-1$ //$NON-NLS-2$
+
+    /**
+     * Constructor
+     */
+    public OtelSpanLatencyAnalysis() {
+        // do nothing
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public Iterable<ISegmentAspect> getSegmentAspects() {
+        return BASE_ASPECTS;
+    }
+
+    @Override
+    protected int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    protected @NonNull SegmentStoreType getSegmentStoreType() {
+        return SegmentStoreType.OnDisk;
+    }
+
+    @Override
+    protected AbstractSegmentStoreAnalysisRequest createAnalysisRequest(ISegmentStore<@NonNull ISegment> segmentStore, IProgressMonitor monitor) {
+        return new OtelSpanLatencyAnalysisRequest(segmentStore, monitor);
+    }
+
+    @Override
+    protected @NonNull IHTIntervalReader<@NonNull ISegment> getSegmentReader() {
+        return OtelSpanSegment.READER;
+    }
+
+    private class OtelSpanLatencyAnalysisRequest extends AbstractSegmentStoreAnalysisRequest {
+        private final IProgressMonitor fMonitor;
+
+        public OtelSpanLatencyAnalysisRequest(ISegmentStore<@NonNull ISegment> segmentStore, IProgressMonitor monitor) {
+            super(segmentStore);
+            fMonitor = monitor;
+        }
+
+        @Override
+        public void handleData(final ITmfEvent event) {
+            super.handleData(event);
+            if (!Constants.SpanEvents.END_SPAN_EVENT_TYPE_ID.equals(event.getType().getName())) {
+                return;
+            }
+            Span span = OtelEvent.getEventSpan(event);
+            // The timestamp of the event may be synchronized, keep the
+            // duration of the span
+            long endTime = event.getTimestamp().toNanos();
+            long duration = Math.max(0L, span.getEndTimeUnixNano() - span.getStartTimeUnixNano());
+            ByteString traceId = span.getTraceId();
+            boolean hasError = span.hasStatus() && span.getStatus().getCode() == Status.StatusCode.STATUS_CODE_ERROR;
+            getSegmentStore().add(new OtelSpanSegment(endTime - duration, endTime, span.getName(), OtelEvent.getServiceName(OtelEvent.getEventResource(event)),
+                    OtelIds.getTraceIdHigh(traceId), OtelIds.getTraceIdLow(traceId), OtelIds.getSpanId(span.getSpanId()), hasError));
+        }
+
+        @Override
+        public void handleCancel() {
+            fMonitor.setCanceled(true);
+            super.handleCancel();
+        }
+    }
+
+    /**
+     * Aspect of an {@link OtelSpanSegment}, sorted by its value then by the
+     * times of the segments
+     */
+    private static final class OtelSpanAspect implements ISegmentAspect {
+        private final String fName;
+        private final String fHelpText;
+        private final Function<OtelSpanSegment, Object> fResolver;
+
+        public OtelSpanAspect(String name, String helpText, Function<OtelSpanSegment, Object> resolver) {
+            fName = name;
+            fHelpText = helpText;
+            fResolver = resolver;
+        }
+
+        @Override
+        public String getHelpText() {
+            return fHelpText;
+        }
+
+        @Override
+        public String getName() {
+            return fName;
+        }
+
+        @Override
+        public @Nullable Comparator<?> getComparator() {
+            return (ISegment segment1, ISegment segment2) -> {
+                if (segment1 == null) {
+                    return 1;
+                }
+                if (segment2 == null) {
+                    return -1;
+                }
+                if (segment1 instanceof OtelSpanSegment && segment2 instanceof OtelSpanSegment) {
+                    int res = String.valueOf(resolve(segment1)).compareTo(String.valueOf(resolve(segment2)));
+                    return (res != 0 ? res : SegmentComparators.INTERVAL_START_COMPARATOR.thenComparing(SegmentComparators.INTERVAL_END_COMPARATOR).compare(segment1, segment2));
+                }
+                return 1;
+            };
+        }
+
+        @Override
+        public @Nullable Object resolve(ISegment segment) {
+            if (segment instanceof OtelSpanSegment) {
+                return fResolver.apply((OtelSpanSegment) segment);
+            }
+            return EMPTY_STRING;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.latency;
+
+import org.eclipse.tracecompass.datastore.core.interval.IHTIntervalReader;
+import org.eclipse.tracecompass.datastore.core.serialization.ISafeByteBufferWriter;
+import org.eclipse.tracecompass.datastore.core.serialization.SafeByteBufferFactory;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.segment.interfaces.INamedSegment;
+
+/**
+ * An OpenTelemetry span, represented as an {@link ISegment} named after the
+ * operation of the span.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class OtelSpanSegment implements INamedSegment {
+
+    private static final long serialVersionUID = -2207306931620514389L;
+
+    /**
+     * The reader for this segment class
+     */
+    public static final IHTIntervalReader<ISegment> READER = buffer -> new OtelSpanSegment(buffer.getLong(), buffer.getLong(), buffer.getString(), buffer.getString(),
+            buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.get() != 0);
+
+    private final long fStartTime;
+    private final long fEndTime;
+    private final String fName;
+    private final String fServiceName;
+    private final long fTraceIdHigh;
+    private final long fTraceIdLow;
+    private final long fSpanId;
+    private final boolean fHasError;
+
+    /**
+     * Constructor
+     *
+     * @param startTime
+     *            Start time of the span
+     * @param endTime
+     *            End time of the span
+     * @param name
+     *            Name of the operation of the span
+     * @param serviceName
+     *            Name of the service that created the span
+     * @param traceIdHigh
+     *            High 64 bits of the trace id of the span
+     * @param traceIdLow
+     *            Low 64 bits of the trace id of the span
+     * @param spanId
+     *            The span id
+     * @param hasError
+     *            Whether the span has an error status
+     */
+    public OtelSpanSegment(long startTime, long endTime, String name, String serviceName,
+            long traceIdHigh, long traceIdLow, long spanId, boolean hasError) {
+        fStartTime = startTime;
+        fEndTime = endTime;
+        fName = name.intern();
+        fServiceName = serviceName.intern();
+        fTraceIdHigh = traceIdHigh;
+        fTraceIdLow = traceIdLow;
+        fSpanId = spanId;
+        fHasError = hasError;
+    }
+
+    @Override
+    public long getStart() {
+        return fStartTime;
+    }
+
+    @Override
+    public long getEnd() {
+        return fEndTime;
+    }
+
+    /**
+     * Get the name of the operation of the span
+     *
+     * @return Name
+     */
+    @Override
+    public String getName() {
+        return fName;
+    }
+
+    /**
+     * Get the name of the service that created the span
+     *
+     * @return The service name
+     */
+    public String getServiceName() {
+        return fServiceName;
+    }
+
+    /**
+     * @return The hexadecimal trace id of the span
+     */
+    public String getTraceId() {
+        return OtelIds.toHexString(fTraceIdHigh, fTraceIdLow);
+    }
+
+    /**
+     * @return The hexadecimal span id
+     */
+    public String getSpanId() {
+        return OtelIds.toHexString(fSpanId);
+    }
+
+    /**
+     * @return Whether the span has an error status
+     */
+    public boolean hasError() {
+        return fHasError;
+    }
+
+    @Override
+    public int getSizeOnDisk() {
+        return 5 * Long.BYTES + SafeByteBufferFactory.getStringSizeInBuffer(fName) + SafeByteBufferFactory.getStringSizeInBuffer(fServiceName) + Byte.BYTES;
+    }
+
+    @Override
+    public void writeSegment(ISafeByteBufferWriter buffer) {
+        buffer.putLong(fStartTime);
+        buffer.putLong(fEndTime);
+        buffer.putString(fName);
+        buffer.putString(fServiceName);
+        buffer.putLong(fTraceIdHigh);
+        buffer.putLong(fTraceIdLow);
+        buffer.putLong(fSpanId);
+        buffer.put((byte) (fHasError ? 1 : 0));
+    }
+
+    @Override
+    public int compareTo(ISegment o) {
+        int ret = INamedSegment.super.compareTo(o);
+        if (ret != 0) {
+            return ret;
+        }
+        if (o instanceof OtelSpanSegment) {
+            return Long.compareUnsigned(fSpanId, ((OtelSpanSegment) o).fSpanId);
+        }
+        return toString().compareTo(o.toString());
+    }
+
+    @Override
+    public String toString() {
+        return "Start Time = " + getStart() + //$NON-NLS-1$
+                "; End Time = " + getEnd() + //$NON-NLS-1$
+                "; Duration = " + getLength() + //$NON-NLS-1$
+                "; Name = " + getName() + //$NON-NLS-1$
+                "; Service = " + getServiceName() + //$NON-NLS-1$
+                "; Span Id = " + getSpanId(); //$NON-NLS-1$
+    }
+
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.metrics;
+
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+
+/**
+ * Multi-resolution summary of the data points of a metric.
+ * <p>
+ * For each resolution, the time is divided in buckets of 2^shift nanoseconds
+ * and the minimum, maximum and average of the data points of each bucket are
+ * written in the state system, under
+ * <code>summaryQuark/shift/{min, max, avg}</code>. The interval of a bucket
+ * covers the whole bucket, so a query at a resolution coarser than the bucket
+ * size reads one value per bucket instead of every data point.
+ * <p>
+ * A bucket is written when the first data point of a following bucket is
+ * received, so the data points must be given in time order.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelMetricSummary {
+
+    /**
+     * The bucket sizes of the summary, as powers of two of nanoseconds, from
+     * about 65 microseconds to about 68 seconds
+     */
+    private static final int[] SHIFTS = { 16, 20, 24, 28, 32, 36 };
+
+    /**
+     * Attribute name of the minimum of a bucket
+     */
+    public static final String MIN = "min"; //$NON-NLS-1$
+
+    /**
+     * Attribute name of the maximum of a bucket
+     */
+    public static final String MAX = "max"; //$NON-NLS-1$
+
+    /**
+     * Attribute name of the average of a bucket
+     */
+    public static final String AVG = "avg"; //$NON-NLS-1$
+
+    private final ITmfStateSystemBuilder fSs;
+    private final Level[] fLevels;
+
+    private static class Level {
+        private final int fShift;
+        private final int fMinQuark;
+        private final int fMaxQuark;
+        private final int fAvgQuark;
+        private long fBucket;
+        private double fMin;
+        private double fMax;
+        private double fSum;
+        private long fCount;
+
+        public Level(int shift, int minQuark, int maxQuark, int avgQuark) {
+            fShift = shift;
+            fMinQuark = minQuark;
+            fMaxQuark = maxQuark;
+            fAvgQuark = avgQuark;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param ss
+     *            the state system to write to
+     * @param summaryQuark
+     *            the quark under which to write the summary
+     */
+    public OtelMetricSummary(ITmfStateSystemBuilder ss, int summaryQuark) {
+        fSs = ss;
+        fLevels = new Level[SHIFTS.length];
+        for (int i = 0; i < SHIFTS.length; i++) {
+            int shift = SHIFTS[i];
+            int shiftQuark = ss.getQuarkRelativeAndAdd(summaryQuark, String.valueOf(shift));
+            fLevels[i] = new Level(shift,
+                    ss.getQuarkRelativeAndAdd(shiftQuark, MIN),
+                    ss.getQuarkRelativeAndAdd(shiftQuark, MAX),
+                    ss.getQuarkRelativeAndAdd(shiftQuark, AVG));
+        }
+    }
+
+    /**
+     * Get the bucket sizes of the summary
+     *
+     * @return the bucket sizes, as powers of two of nanoseconds, in increasing
+     *         order
+     */
+    public static int[] getShifts() {
+        return SHIFTS.clone();
+    }
+
+    /**
+     * Add a data point to the summary
+     *
+     * @param timestamp
+     *            the timestamp of the data point, not before the timestamp of
+     *            the previous data point
+     * @param value
+     *            the value of the data point
+     */
+    public void update(long timestamp, double value) {
+        for (Level level : fLevels) {
+            long bucket = timestamp >> level.fShift;
+            if (level.fCount > 0 && bucket != level.fBucket) {
+                writeBucket(level);
+                if (bucket != level.fBucket + 1) {
+                    // Leave the empty buckets in between without value
+                    writeEnd(level, (level.fBucket + 1) << level.fShift);
+                }
+                level.fCount = 0;
+            }
+            if (level.fCount == 0) {
+                level.fBucket = bucket;
+                level.fMin = value;
+                level.fMax = value;
+                level.fSum = 0;
+            }
+            level.fMin = Math.min(level.fMin, value);
+            level.fMax = Math.max(level.fMax, value);
+            level.fSum += value;
+            level.fCount++;
+        }
+    }
+
+    /**
+     * Write the buckets that are not complete. Their intervals will be closed
+     * at the end of the state system.
+     */
+    public void flush() {
+        for (Level level : fLevels) {
+            if (level.fCount > 0) {
+                writeBucket(level);
+                level.fCount = 0;
+            }
+        }
+    }
+
+    private void writeBucket(Level level) {
+        // The first bucket may start before the state system
+        long start = Math.max(level.fBucket << level.fShift, fSs.getStartTime());
+        fSs.modifyAttribute(start, level.fMin, level.fMinQuark);
+        fSs.modifyAttribute(start, level.fMax, level.fMaxQuark);
+        fSs.modifyAttribute(start, level.fSum / level.fCount, level.fAvgQuark);
+    }
+
+    private void writeEnd(Level level, long end) {
+        fSs.modifyAttribute(end, (Object) null, level.fMinQuark);
+        fSs.modifyAttribute(end, (Object) null, level.fMaxQuark);
+        fSs.modifyAttribute(end, (Object) null, level.fAvgQuark);
+    }
+
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.metrics;
+
+import java.util.Objects;
+
+import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
+import org.eclipse.tracecompass.tmf.core.statesystem.TmfStateSystemAnalysisModule;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+/**
+ * OpenTelemetry metrics analysis, tracks the values of the gauges, sums and
+ * histograms of the trace
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelMetricsAnalysis extends TmfStateSystemAnalysisModule {
+
+    /**
+     * ID
+     */
+    public static final String ID = "org.eclipse.tracecompass.incubator.otel.analysis.metrics"; //$NON-NLS-1$
+
+    /**
+     * Constructor
+     */
+    public OtelMetricsAnalysis() {
+        setId(ID);
+    }
+
+    @Override
+    protected ITmfStateProvider createStateProvider() {
+        ITmfTrace trace = getTrace();
+        return new OtelMetricsStateProvider(Objects.requireNonNull(trace));
+    }
+
+}
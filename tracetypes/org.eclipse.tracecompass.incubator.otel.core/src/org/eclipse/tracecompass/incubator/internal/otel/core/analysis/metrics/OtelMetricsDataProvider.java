@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.otel.core.Activator;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderParameterUtils;
+import org.eclipse.tracecompass.tmf.core.dataprovider.DataType;
+import org.eclipse.tracecompass.tmf.core.model.YModel;
+import org.eclipse.tracecompass.tmf.core.model.tree.TmfTreeDataModel;
+import org.eclipse.tracecompass.tmf.core.model.tree.TmfTreeModel;
+import org.eclipse.tracecompass.tmf.core.model.xy.AbstractTreeCommonXDataProvider;
+import org.eclipse.tracecompass.tmf.core.model.xy.IYModel;
+import org.eclipse.tracecompass.tmf.core.model.xy.TmfXYAxisDescription;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableList.Builder;
+
+/**
+ * XY data provider of the OpenTelemetry metrics.
+ * <p>
+ * When the requested times are further apart than the buckets of the
+ * {@link OtelMetricSummary} of a series, the averages of the coarsest such
+ * buckets are read instead of the values of the data points.
+ * <p>
+ * Each series has <code>min</code> and <code>max</code> children, the
+ * envelope of the series read from the minimums and maximums of the same
+ * buckets. At finer resolutions, they follow the values of the data points.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelMetricsDataProvider extends AbstractTreeCommonXDataProvider<OtelMetricsAnalysis, TmfTreeDataModel> {
+
+    /**
+     * Data provider ID
+     */
+    public static final String ID = OtelMetricsAnalysis.ID + ".xy.dataprovider"; //$NON-NLS-1$
+
+    private static final String TITLE = "OpenTelemetry Metrics"; //$NON-NLS-1$
+
+    private static final TmfXYAxisDescription Y_AXIS_DESCRIPTION = new TmfXYAxisDescription("Value", "", DataType.NUMBER); //$NON-NLS-1$ //$NON-NLS-2$
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            the trace for this provider
+     * @param analysisModule
+     *            the corresponding analysis module
+     */
+    public OtelMetricsDataProvider(ITmfTrace trace, OtelMetricsAnalysis analysisModule) {
+        super(trace, analysisModule);
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    protected @Nullable Collection<IYModel> getYSeriesModels(ITmfStateSystem ss, Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
+        Collection<Long> selectedItems = DataProviderParameterUtils.extractSelectedItems(fetchParameters);
+        if (selectedItems == null) {
+            return null;
+        }
+        List<Long> times = DataProviderParameterUtils.extractTimeRequested(fetchParameters);
+        if (times == null || times.isEmpty()) {
+            return null;
+        }
+
+        // Read each series from its summary when the resolution allows it
+        int shift = getSummaryShift(times);
+        Map<Integer, List<Integer>> queriedToSeries = new HashMap<>();
+        Map<Integer, double[]> quarkToValues = new HashMap<>();
+        for (Integer quark : getSelectedEntries(selectedItems).values()) {
+            int queried = getQueriedQuark(ss, quark, shift);
+            if (queried == ITmfStateSystem.INVALID_ATTRIBUTE) {
+                continue;
+            }
+            queriedToSeries.computeIfAbsent(queried, q -> new ArrayList<>()).add(quark);
+            quarkToValues.put(quark, new double[times.size()]);
+        }
+
+        try {
+            for (ITmfStateInterval interval : ss.query2D(queriedToSeries.keySet(), times)) {
+                if (monitor != null && monitor.isCanceled()) {
+                    return null;
+                }
+                List<Integer> seriesQuarks = queriedToSeries.get(interval.getAttribute());
+                Object value = interval.getValue();
+                if (seriesQuarks == null || !(value instanceof Number)) {
+                    continue;
+                }
+                double dblValue = ((Number) value).doubleValue();
+                for (Integer seriesQuark : seriesQuarks) {
+                    double[] row = quarkToValues.get(seriesQuark);
+                    if (row == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < times.size(); i++) {
+                        long time = times.get(i);
+                        if (interval.getStartTime() <= time && interval.getEndTime() >= time) {
+                            row[i] = dblValue;
+                        }
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException | TimeRangeException e) {
+            Activator.getInstance().logError(e.getMessage(), e);
+            return null;
+        }
+
+        ImmutableList.Builder<IYModel> ySeries = ImmutableList.builder();
+        for (Entry<Integer, double[]> values : quarkToValues.entrySet()) {
+            ySeries.add(new YModel(getId(values.getKey()), getSeriesName(ss, values.getKey()), values.getValue(), Y_AXIS_DESCRIPTION));
+        }
+        return ySeries.build();
+    }
+
+    /**
+     * Get the largest bucket size of the summaries that is not larger than the
+     * time between two requested times
+     *
+     * @param times
+     *            the requested times
+     * @return the bucket size as a power of two, or -1 if the data points must
+     *         be read
+     */
+    private static int getSummaryShift(List<Long> times) {
+        if (times.size() < 2) {
+            return -1;
+        }
+        long step = (times.get(times.size() - 1) - times.get(0)) / (times.size() - 1);
+        int shift = -1;
+        for (int candidate : OtelMetricSummary.getShifts()) {
+            if ((1L << candidate) <= step) {
+                shift = candidate;
+            }
+        }
+        return shift;
+    }
+
+    /**
+     * Get the quark to query for a series at a given resolution. The entry of a
+     * series is the quark of its values, the entries of its envelope are the
+     * minimum and maximum quarks of its finest summary.
+     */
+    private static int getQueriedQuark(ITmfStateSystem ss, int quark, int shift) {
+        String[] path = ss.getFullAttributePathArray(quark);
+        if (isEnvelope(path)) {
+            // Replace the summaries attribute and the bucket size of the path
+            String[] valuesPath = Arrays.copyOfRange(path, 0, path.length - 2);
+            valuesPath[0] = OtelMetricsStateProvider.VALUES;
+            int valuesQuark = ss.optQuarkAbsolute(valuesPath);
+            if (shift < 0) {
+                return valuesQuark;
+            }
+            return getSummaryQuark(ss, valuesQuark, shift, path[path.length - 1]);
+        }
+        if (shift < 0) {
+            return quark;
+        }
+        int summaryQuark = getSummaryQuark(ss, quark, shift, OtelMetricSummary.AVG);
+        return summaryQuark == ITmfStateSystem.INVALID_ATTRIBUTE ? quark : summaryQuark;
+    }
+
+    private static boolean isEnvelope(String[] path) {
+        return path.length > 3 && OtelMetricsStateProvider.SUMMARIES.equals(path[0])
+                && (OtelMetricSummary.MIN.equals(path[path.length - 1]) || OtelMetricSummary.MAX.equals(path[path.length - 1]));
+    }
+
+    private static int getSummaryQuark(ITmfStateSystem ss, int quark, int shift, String name) {
+        if (quark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+        String[] path = ss.getFullAttributePathArray(quark);
+        if (path.length == 0 || !OtelMetricsStateProvider.VALUES.equals(path[0])) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+        int summaryQuark = ss.optQuarkAbsolute(OtelMetricsStateProvider.SUMMARIES);
+        for (int i = 1; i < path.length && summaryQuark != ITmfStateSystem.INVALID_ATTRIBUTE; i++) {
+            summaryQuark = ss.optQuarkRelative(summaryQuark, path[i]);
+        }
+        if (summaryQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+        return ss.optQuarkRelative(summaryQuark, String.valueOf(shift), name);
+    }
+
+    private static String getSeriesName(ITmfStateSystem ss, int quark) {
+        String[] path = ss.getFullAttributePathArray(quark);
+        if (isEnvelope(path)) {
+            // Remove the summaries attribute and the bucket size from the name
+            String[] seriesPath = Arrays.copyOfRange(path, 1, path.length - 2);
+            return String.join("/", seriesPath) + '/' + path[path.length - 1]; //$NON-NLS-1$
+        }
+        // Remove the values attribute from the name
+        return String.join("/", path.length > 1 ? Arrays.copyOfRange(path, 1, path.length) : path); //$NON-NLS-1$
+    }
+
+    @Override
+    protected boolean isCacheable() {
+        return false;
+    }
+
+    @Override
+    protected TmfTreeModel<TmfTreeDataModel> getTree(ITmfStateSystem ss, Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
+        Builder<TmfTreeDataModel> builder = new Builder<>();
+        long parentId = getId(ITmfStateSystem.ROOT_ATTRIBUTE);
+        builder.add(new TmfTreeDataModel(parentId, -1, String.valueOf(getTrace().getName())));
+        int valuesQuark = ss.optQuarkAbsolute(OtelMetricsStateProvider.VALUES);
+        if (valuesQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+            addChildren(ss, builder, valuesQuark, parentId);
+        }
+        return new TmfTreeModel<>(Collections.emptyList(), builder.build());
+    }
+
+    private void addChildren(ITmfStateSystem ss, Builder<TmfTreeDataModel> builder, int quark, long parentId) {
+        int finestShift = OtelMetricSummary.getShifts()[0];
+        for (Integer child : ss.getSubAttributes(quark, false)) {
+            long childId = getId(child);
+            builder.add(new TmfTreeDataModel(childId, parentId, ss.getAttributeName(child)));
+            // The envelope of a series, if it has a summary
+            for (String name : new String[] { OtelMetricSummary.MIN, OtelMetricSummary.MAX }) {
+                int envelopeQuark = getSummaryQuark(ss, child, finestShift, name);
+                if (envelopeQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                    builder.add(new TmfTreeDataModel(getId(envelopeQuark), childId, name));
+                }
+            }
+            addChildren(ss, builder, child, childId);
+        }
+    }
+
+    @Override
+    protected String getTitle() {
+        return TITLE;
+    }
+
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.Constants;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelEvent;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
+import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+import io.opentelemetry.proto.resource.v1.Resource;
+
+/**
+ * OpenTelemetry metrics state provider.
+ * <p>
+ * The value of each data point is written under
+ * <code>values/service/metric[/attributes]</code>. For histograms and
+ * summaries, the value is the mean of the data point, the count and sum are
+ * written in the <code>count</code> and <code>sum</code> sub-attributes. A
+ * {@link OtelMetricSummary} of each series is written under the same path in
+ * <code>summaries</code>.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelMetricsStateProvider extends AbstractTmfStateProvider {
+
+    /**
+     * Quark name of the values of the data points
+     */
+    public static final String VALUES = "values"; //$NON-NLS-1$
+
+    /**
+     * Quark name of the summaries of the series
+     */
+    public static final String SUMMARIES = "summaries"; //$NON-NLS-1$
+
+    /**
+     * Quark name of the count of a histogram or summary
+     */
+    public static final String COUNT = "count"; //$NON-NLS-1$
+
+    /**
+     * Quark name of the sum of a histogram or summary
+     */
+    public static final String SUM = "sum"; //$NON-NLS-1$
+
+    private final Map<Integer, OtelMetricSummary> fSummaries = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            the trace to follow
+     */
+    public OtelMetricsStateProvider(ITmfTrace trace) {
+        super(trace, OtelMetricsAnalysis.ID);
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public ITmfStateProvider getNewInstance() {
+        return new OtelMetricsStateProvider(getTrace());
+    }
+
+    @Override
+    protected void eventHandle(ITmfEvent event) {
+        ITmfStateSystemBuilder ss = getStateSystemBuilder();
+        if (ss == null || !Constants.MetricEvents.METRIC_EVENT_TYPE_ID.equals(event.getType().getName())) {
+            return;
+        }
+        ITmfEventField content = event.getContent();
+        String name = content.getFieldValue(String.class, Constants.MetricEvents.Fields.NAME);
+        Double value = content.getFieldValue(Double.class, Constants.MetricEvents.Fields.VALUE);
+        if (name == null || value == null) {
+            return;
+        }
+        String serviceName = OtelEvent.getServiceName(content.getFieldValue(Resource.class, Constants.MetricEvents.Fields.RESOURCE));
+        String attributes = content.getFieldValue(String.class, Constants.MetricEvents.Fields.ATTRIBUTES);
+        String[] path = (attributes == null || attributes.isEmpty()) ? new String[] { serviceName, name } : new String[] { serviceName, name, attributes };
+
+        long timestamp = event.getTimestamp().toNanos();
+        int valuesQuark = ss.getQuarkAbsoluteAndAdd(VALUES);
+        int quark = ss.getQuarkRelativeAndAdd(valuesQuark, path);
+        ss.modifyAttribute(timestamp, value, quark);
+
+        String type = content.getFieldValue(String.class, Constants.MetricEvents.Fields.TYPE);
+        if (Constants.MetricEvents.HISTOGRAM.equals(type) || Constants.MetricEvents.SUMMARY.equals(type)) {
+            Long count = content.getFieldValue(Long.class, Constants.MetricEvents.Fields.COUNT);
+            Double sum = content.getFieldValue(Double.class, Constants.MetricEvents.Fields.SUM);
+            ss.modifyAttribute(timestamp, count, ss.getQuarkRelativeAndAdd(quark, COUNT));
+            ss.modifyAttribute(timestamp, sum, ss.getQuarkRelativeAndAdd(quark, SUM));
+        }
+
+        OtelMetricSummary summary = fSummaries.get(quark);
+        if (summary == null) {
+            int summariesQuark = ss.getQuarkAbsoluteAndAdd(SUMMARIES);
+            summary = new OtelMetricSummary(ss, ss.getQuarkRelativeAndAdd(summariesQuark, path));
+            fSummaries.put(quark, summary);
+        }
+        summary.update(timestamp, value);
+    }
+
+    @Override
+    public void done() {
+        for (OtelMetricSummary summary : fSummaries.values()) {
+            summary.flush();
+        }
+        fSummaries.clear();
+        super.done();
+    }
+
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife;
+
+import com.google.common.math.LongMath;
+
+/**
+ * Quarks of the spans that may still have children starting.
+ * <p>
+ * A span is added at its start and scheduled for eviction at its end. It is
+ * evicted once a grace period after its end is over, so that the children
+ * that start late still find their parent.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class LiveSpanMap {
+
+    private final SpanQuarkMap fSpanMap = new SpanQuarkMap();
+    private final EvictionQueue fEvictionQueue = new EvictionQueue();
+    private final long fGracePeriod;
+
+    private long fEvictedSpans = 0;
+    private long fMissedSpans = 0;
+    private int fPeakSpans = 0;
+
+    /**
+     * Constructor
+     *
+     * @param gracePeriod
+     *            the time in nanoseconds during which a span is kept after
+     *            its end
+     */
+    public LiveSpanMap(long gracePeriod) {
+        fGracePeriod = Math.max(0, gracePeriod);
+    }
+
+    /**
+     * Add a span that starts
+     *
+     * @param spanId
+     *            the span id
+     * @param quark
+     *            the quark of the span
+     */
+    public synchronized void add(long spanId, int quark) {
+        fSpanMap.put(spanId, quark);
+        fPeakSpans = Math.max(fPeakSpans, fSpanMap.size());
+    }
+
+    /**
+     * Find the quark of a span
+     *
+     * @param spanId
+     *            the span id
+     * @return the quark of the span, or {@link SpanQuarkMap#NO_QUARK} if the
+     *         span is not in the map
+     */
+    public synchronized int find(long spanId) {
+        int quark = fSpanMap.get(spanId);
+        if (quark == SpanQuarkMap.NO_QUARK) {
+            fMissedSpans++;
+        }
+        return quark;
+    }
+
+    /**
+     * Schedule the eviction of a span that ends
+     *
+     * @param endTimestamp
+     *            the end of the span
+     * @param spanId
+     *            the span id
+     * @param quark
+     *            the quark of the span
+     */
+    public synchronized void end(long endTimestamp, long spanId, int quark) {
+        fEvictionQueue.add(LongMath.saturatedAdd(endTimestamp, fGracePeriod), spanId, quark);
+    }
+
+    /**
+     * Evict the spans whose grace period is over. The timestamps must be given
+     * in increasing order.
+     *
+     * @param timestamp
+     *            the current time
+     */
+    public synchronized void evict(long timestamp) {
+        while (!fEvictionQueue.isEmpty() && fEvictionQueue.peekDeadline() < timestamp) {
+            long spanId = fEvictionQueue.peekSpanId();
+            int quark = fEvictionQueue.peekQuark();
+            fEvictionQueue.remove();
+            // The span id may have been reused by a span that is still alive
+            if (fSpanMap.get(spanId) == quark) {
+                fSpanMap.remove(spanId);
+                fEvictedSpans++;
+            }
+        }
+    }
+
+    /**
+     * @return the number of spans in the map
+     */
+    public synchronized int size() {
+        return fSpanMap.size();
+    }
+
+    /**
+     * @return the number of spans removed from the map after their grace
+     *         period
+     */
+    public synchronized long getEvictedSpanCount() {
+        return fEvictedSpans;
+    }
+
+    /**
+     * @return the number of lookups that did not find the span in the map
+     */
+    public synchronized long getMissedSpanCount() {
+        return fMissedSpans;
+    }
+
+    /**
+     * @return the largest number of spans that were in the map at the same
+     *         time
+     */
+    public synchronized int getPeakSpanCount() {
+        return fPeakSpans;
+    }
+
+}
+
+/**
+ * First in, first out queue of the spans to evict. The events are handled in
+ * time order and the grace period is constant, so the deadlines are in
+ * increasing order.
+ */
+class EvictionQueue {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] fDeadlines = new long[INITIAL_CAPACITY];
+    private long[] fSpanIds = new long[INITIAL_CAPACITY];
+    private int[] fQuarks = new int[INITIAL_CAPACITY];
+    private int fHead = 0;
+    private int fSize = 0;
+
+    public void add(long deadline, long spanId, int quark) {
+        if (fSize == fDeadlines.length) {
+            grow();
+        }
+        int tail = (fHead + fSize) & (fDeadlines.length - 1);
+        fDeadlines[tail] = deadline;
+        fSpanIds[tail] = spanId;
+        fQuarks[tail] = quark;
+        fSize++;
+    }
+
+    public boolean isEmpty() {
+        return fSize == 0;
+    }
+
+    public long peekDeadline() {
+        return fDeadlines[fHead];
+    }
+
+    public long peekSpanId() {
+        return fSpanIds[fHead];
+    }
+
+    public int peekQuark() {
+        return fQuarks[fHead];
+    }
+
+    public void remove() {
+        fHead = (fHead + 1) & (fDeadlines.length - 1);
+        fSize--;
+    }
+
+    private void grow() {
+        int capacity = fDeadlines.length * 2;
+        long[] deadlines = new long[capacity];
+        long[] spanIds = new long[capacity];
+        int[] quarks = new int[capacity];
+        for (int i = 0; i < fSize; i++) {
+            int index = (fHead + i) & (fDeadlines.length - 1);
+            deadlines[i] = fDeadlines[index];
+            spanIds[i] = fSpanIds[index];
+            quarks[i] = fQuarks[index];
+        }
+        fDeadlines = deadlines;
+        fSpanIds = spanIds;
+        fQuarks = quarks;
+        fHead = 0;
+    }
+}
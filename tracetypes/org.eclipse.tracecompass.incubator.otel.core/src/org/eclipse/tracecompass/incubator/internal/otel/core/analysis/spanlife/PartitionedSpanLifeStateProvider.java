@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.otel.core.Activator;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelEvent;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
+import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Span life state provider that builds the spans of each OpenTelemetry trace
+ * id in one of several partitions, in parallel.
+ * <p>
+ * The subtree of a trace id does not depend on the other trace ids, so the
+ * span events are dispatched by trace id to one {@link SpanLifeStateProvider}
+ * per partition, each writing its own state system. The events of a partition
+ * are handled in batches on a {@link ForkJoinPool}, one batch at a time and in
+ * order. The state system of this provider only holds the time range of the
+ * analysis, the spans are read through a {@link PartitionedStateSystem}.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class PartitionedSpanLifeStateProvider extends AbstractTmfStateProvider {
+
+    private static final int BATCH_SIZE = 1 << 10;
+    private static final int MAX_PENDING_BATCHES = 4;
+    private static final int QUEUE_SIZE = 10000;
+    /* Interval at which the waits for the partitions check for a dispose */
+    private static final long WAIT_INTERVAL_MS = 100;
+
+    private final int fPartitionCount;
+    private final long fGracePeriod;
+    private final List<Partition> fPartitions = new ArrayList<>();
+    private final ForkJoinPool fPool;
+
+    private volatile @Nullable RuntimeException fFailure = null;
+    private volatile boolean fDone = false;
+    private volatile boolean fDisposed = false;
+    private long fLastTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            the trace to follow
+     * @param partitionCount
+     *            the number of partitions, and of worker threads
+     */
+    public PartitionedSpanLifeStateProvider(ITmfTrace trace, int partitionCount) {
+        this(trace, partitionCount, SpanLifeStateProvider.getConfiguredGracePeriod());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            the trace to follow
+     * @param partitionCount
+     *            the number of partitions, and of worker threads
+     * @param gracePeriod
+     *            the time in nanoseconds during which a span is kept after
+     *            its end, for the children that start late
+     */
+    public PartitionedSpanLifeStateProvider(ITmfTrace trace, int partitionCount, long gracePeriod) {
+        super(trace, SpanLifeAnalysis.ID);
+        fPartitionCount = Math.max(1, partitionCount);
+        fGracePeriod = gracePeriod;
+        fPool = new ForkJoinPool(fPartitionCount);
+    }
+
+    /**
+     * Get the version of the state systems built with a number of partitions.
+     * The number of partitions is part of the version, so that the analysis
+     * is built again when it changes.
+     *
+     * @param partitionCount
+     *            the number of partitions
+     * @return the version
+     */
+    public static int getVersion(int partitionCount) {
+        return (partitionCount << 16) | SpanLifeStateProvider.VERSION;
+    }
+
+    @Override
+    public int getVersion() {
+        return getVersion(fPartitionCount);
+    }
+
+    @Override
+    public @NonNull ITmfStateProvider getNewInstance() {
+        return new PartitionedSpanLifeStateProvider(getTrace(), fPartitionCount, fGracePeriod);
+    }
+
+    @Override
+    public void assignTargetStateSystem(ITmfStateSystemBuilder ssb) {
+        long startTime = getStartTime();
+        synchronized (fPartitions) {
+            for (int i = 0; i < fPartitionCount; i++) {
+                String id = SpanLifeAnalysis.getPartitionId(i);
+                IStateHistoryBackend backend;
+                try {
+                    backend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(id, SpanLifeAnalysis.getPartitionFile(getTrace(), i), getVersion(), startTime, QUEUE_SIZE);
+                } catch (IOException e) {
+                    Activator.getInstance().logWarning("Error creating the history file of " + id + ", keeping it in memory", e); //$NON-NLS-1$ //$NON-NLS-2$
+                    backend = StateHistoryBackendFactory.createInMemoryBackend(id, startTime);
+                }
+                fPartitions.add(new Partition(new SpanLifeStateProvider(getTrace(), fGracePeriod), StateSystemFactory.newStateSystem(backend)));
+            }
+        }
+        super.assignTargetStateSystem(ssb);
+    }
+
+    /**
+     * @return the state systems of the partitions, empty until the state
+     *         system of this provider is assigned
+     */
+    public List<ITmfStateSystem> getPartitionStateSystems() {
+        synchronized (fPartitions) {
+            List<ITmfStateSystem> stateSystems = new ArrayList<>(fPartitions.size());
+            for (Partition partition : fPartitions) {
+                stateSystems.add(partition.fStateSystem);
+            }
+            return stateSystems;
+        }
+    }
+
+    /**
+     * @return the state providers of the partitions, empty until the state
+     *         system of this provider is assigned
+     */
+    public List<SpanLifeStateProvider> getPartitionProviders() {
+        synchronized (fPartitions) {
+            List<SpanLifeStateProvider> providers = new ArrayList<>(fPartitions.size());
+            for (Partition partition : fPartitions) {
+                providers.add(partition.fProvider);
+            }
+            return Collections.unmodifiableList(providers);
+        }
+    }
+
+    @Override
+    protected void eventHandle(ITmfEvent event) {
+        RuntimeException failure = fFailure;
+        if (failure != null) {
+            throw failure;
+        }
+        fLastTimestamp = Math.max(fLastTimestamp, event.getTimestamp().toNanos());
+        if (!SpanLifeStateProvider.isSpanEvent(event) || fPartitions.isEmpty()) {
+            return;
+        }
+        // Only the trace id is read here, the span is decoded by the worker
+        ByteString traceId = OtelEvent.getEventTraceId(event);
+        fPartitions.get(getPartition(traceId, fPartitionCount)).add(event);
+    }
+
+    /**
+     * Get the partition of a trace id
+     *
+     * @param traceId
+     *            the trace id
+     * @param partitionCount
+     *            the number of partitions
+     * @return the index of the partition
+     */
+    static int getPartition(ByteString traceId, int partitionCount) {
+        // Mix the bits, some tracers generate ids with a fixed part
+        long h = OtelIds.getTraceIdHigh(traceId) * 31 + OtelIds.getTraceIdLow(traceId);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) partitionCount);
+    }
+
+    @Override
+    public void done() {
+        for (Partition partition : fPartitions) {
+            partition.submit();
+        }
+        if (!awaitPartitions()) {
+            // Cancelled, dispose() disposes the partitions that are not closed
+            fPool.shutdownNow();
+            super.done();
+            return;
+        }
+        fPool.shutdown();
+        fDone = true;
+        RuntimeException failure = fFailure;
+        if (failure != null) {
+            // Do not leave incomplete partitions to be opened next time
+            for (int i = 0; i < fPartitions.size(); i++) {
+                fPartitions.get(i).fStateSystem.dispose();
+                deleteFile(SpanLifeAnalysis.getPartitionFile(getTrace(), i));
+                deleteFile(SpanLifeAnalysis.getSpanMetadataFile(getTrace(), i));
+            }
+            throw failure;
+        }
+        for (int i = 0; i < fPartitions.size(); i++) {
+            Partition partition = fPartitions.get(i);
+            // Close all the partitions at the same time, the end of the trace
+            partition.fStateSystem.closeHistory(Math.max(fLastTimestamp, partition.fStateSystem.getCurrentEndTime()));
+            partition.fProvider.writeSpanMetadata(SpanLifeAnalysis.getSpanMetadataFile(getTrace(), i), getVersion());
+        }
+        super.done();
+    }
+
+    @Override
+    public void dispose() {
+        fDisposed = true;
+        fPool.shutdownNow();
+        if (!fDone) {
+            // The analysis was cancelled, the partitions will not be closed
+            for (ITmfStateSystem ss : getPartitionStateSystems()) {
+                ss.dispose();
+            }
+        }
+        super.dispose();
+    }
+
+    /**
+     * Wait for the batches submitted to the partitions
+     *
+     * @return true if all the batches were handled, false if the provider was
+     *         disposed or the thread interrupted while waiting
+     */
+    private boolean awaitPartitions() {
+        CompletableFuture<?>[] tails = new CompletableFuture<?>[fPartitions.size()];
+        for (int i = 0; i < tails.length; i++) {
+            tails[i] = fPartitions.get(i).fTail;
+        }
+        CompletableFuture<?> all = CompletableFuture.allOf(tails);
+        while (!fDisposed) {
+            try {
+                all.get(WAIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                // Check for a dispose and wait again
+            } catch (ExecutionException e) {
+                // The failure of the batch is already recorded
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        if (fFailure == null) {
+            fFailure = e;
+            Activator.getInstance().logError("Error in a span life partition of " + getTrace().getName(), e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * The state provider and state system of a partition, with the batch of
+     * events being filled and the last batch submitted to the pool
+     */
+    private final class Partition {
+        private final SpanLifeStateProvider fProvider;
+        private final ITmfStateSystemBuilder fStateSystem;
+        /* Bounds the memory used by the events waiting for the partition */
+        private final Semaphore fPendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+        private List<ITmfEvent> fBatch = new ArrayList<>(BATCH_SIZE);
+        private CompletableFuture<@Nullable Void> fTail = CompletableFuture.completedFuture(null);
+
+        Partition(SpanLifeStateProvider provider, ITmfStateSystemBuilder stateSystem) {
+            fProvider = provider;
+            fProvider.setFillsStateSystem();
+            fStateSystem = stateSystem;
+        }
+
+        void add(ITmfEvent event) {
+            fBatch.add(event);
+            if (fBatch.size() >= BATCH_SIZE) {
+                submit();
+            }
+        }
+
+        void submit() {
+            if (fBatch.isEmpty()) {
+                return;
+            }
+            List<ITmfEvent> batch = fBatch;
+            fBatch = new ArrayList<>(BATCH_SIZE);
+            if (!acquirePermit()) {
+                // Disposed or interrupted, the events are not needed anymore
+                return;
+            }
+            /*
+             * Chaining keeps the batches of a partition in order. The batch
+             * runs even if a previous one completed exceptionally, and the
+             * permit is released however the stage completes, also if the
+             * pool rejects it.
+             */
+            fTail = fTail.<@Nullable Void> handleAsync((result, error) -> {
+                handleBatch(batch);
+                return null;
+            }, fPool).whenComplete((result, error) -> {
+                fPendingBatches.release();
+                if (error != null && !fDisposed) {
+                    fail(new IllegalStateException(error));
+                }
+            });
+        }
+
+        private boolean acquirePermit() {
+            try {
+                while (!fPendingBatches.tryAcquire(WAIT_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                    if (fDisposed) {
+                        return false;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (fDisposed) {
+                fPendingBatches.release();
+                return false;
+            }
+            return true;
+        }
+
+        private void handleBatch(List<ITmfEvent> batch) {
+            if (fFailure != null) {
+                return;
+            }
+            try {
+                for (ITmfEvent event : batch) {
+                    fProvider.handleEvent(event, fStateSystem);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+    }
+
+}
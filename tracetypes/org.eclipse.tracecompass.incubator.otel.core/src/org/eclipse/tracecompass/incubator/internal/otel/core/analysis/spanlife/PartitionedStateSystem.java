@@ -0,0 +1,413 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * Read-only view of several state systems whose top-level attributes are
+ * disjoint, as one state system.
+ * <p>
+ * The quarks of the partitions are interleaved: quark <code>q</code> of
+ * partition <code>p</code> is quark <code>q * n + p</code> of the view, where
+ * <code>n</code> is the number of partitions. Some quarks lower than
+ * {@link #getNbAttributes()} may therefore not exist. The top-level
+ * attributes of the view are the top-level attributes of all the partitions.
+ * <p>
+ * The main state system gives the identifier, start time and build status of
+ * the view, it is not queried for attributes. While the partitions are being
+ * built, each one is queried at most at the latest time it reached.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class PartitionedStateSystem implements ITmfStateSystem {
+
+    private final ITmfStateSystem fMain;
+    private final List<ITmfStateSystem> fPartitions;
+
+    /**
+     * Constructor
+     *
+     * @param main
+     *            the state system of the analysis, which gives the identifier
+     *            and build status of the view
+     * @param partitions
+     *            the state systems of the partitions, at least one
+     */
+    public PartitionedStateSystem(ITmfStateSystem main, List<ITmfStateSystem> partitions) {
+        if (partitions.isEmpty()) {
+            throw new IllegalArgumentException("No partition for " + main.getSSID()); //$NON-NLS-1$
+        }
+        fMain = main;
+        fPartitions = new ArrayList<>(partitions);
+    }
+
+    /**
+     * @return the number of partitions
+     */
+    public int getPartitionCount() {
+        return fPartitions.size();
+    }
+
+    /**
+     * Get the state system of a partition
+     *
+     * @param partition
+     *            the index of the partition
+     * @return the state system of the partition
+     */
+    public ITmfStateSystem getPartition(int partition) {
+        return fPartitions.get(partition);
+    }
+
+    /**
+     * Get the quark of the view of a quark of a partition
+     *
+     * @param partition
+     *            the index of the partition
+     * @param partitionQuark
+     *            the quark in the state system of the partition
+     * @return the quark in this view. The root and invalid attributes are
+     *         returned as is.
+     */
+    public int toQuark(int partition, int partitionQuark) {
+        if (partitionQuark < 0) {
+            return partitionQuark;
+        }
+        return partitionQuark * fPartitions.size() + partition;
+    }
+
+    private int partitionIndex(int quark) {
+        return quark < 0 ? 0 : quark % fPartitions.size();
+    }
+
+    private ITmfStateSystem partitionOf(int quark) {
+        return fPartitions.get(partitionIndex(quark));
+    }
+
+    private int partitionQuark(int quark) {
+        return quark < 0 ? quark : quark / fPartitions.size();
+    }
+
+    private List<Integer> toQuarks(int partition, List<Integer> partitionQuarks) {
+        List<Integer> quarks = new ArrayList<>(partitionQuarks.size());
+        for (int partitionQuark : partitionQuarks) {
+            quarks.add(toQuark(partition, partitionQuark));
+        }
+        return quarks;
+    }
+
+    private List<Integer> fromAllPartitions(IntFunction<List<Integer>> query) {
+        List<Integer> quarks = new ArrayList<>();
+        for (int i = 0; i < fPartitions.size(); i++) {
+            quarks.addAll(toQuarks(i, query.apply(i)));
+        }
+        return quarks;
+    }
+
+    private ITmfStateInterval toInterval(int partition, ITmfStateInterval interval) {
+        return new TmfStateInterval(interval.getStartTime(), interval.getEndTime(), toQuark(partition, interval.getAttribute()), interval.getValue());
+    }
+
+    // ------------------------------------------------------------------------
+    // ITmfStateSystem
+    // ------------------------------------------------------------------------
+
+    @Override
+    public String getSSID() {
+        return fMain.getSSID();
+    }
+
+    @Override
+    public long getStartTime() {
+        return fMain.getStartTime();
+    }
+
+    @Override
+    public long getCurrentEndTime() {
+        long end = fMain.getCurrentEndTime();
+        for (ITmfStateSystem partition : fPartitions) {
+            end = Math.max(end, partition.getCurrentEndTime());
+        }
+        return end;
+    }
+
+    @Override
+    public boolean waitUntilBuilt() {
+        boolean built = fMain.waitUntilBuilt();
+        for (ITmfStateSystem partition : fPartitions) {
+            built &= partition.waitUntilBuilt();
+        }
+        return built;
+    }
+
+    @Override
+    public boolean waitUntilBuilt(long timeout) {
+        if (!fMain.waitUntilBuilt(timeout)) {
+            return false;
+        }
+        // The partitions are closed before the main state system
+        for (ITmfStateSystem partition : fPartitions) {
+            if (!partition.waitUntilBuilt(0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        if (fMain.isCancelled()) {
+            return true;
+        }
+        for (ITmfStateSystem partition : fPartitions) {
+            if (partition.isCancelled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dispose the state systems of the partitions. The main state system is
+     * disposed by its analysis.
+     */
+    @Override
+    public void dispose() {
+        for (ITmfStateSystem partition : fPartitions) {
+            partition.dispose();
+        }
+    }
+
+    @Override
+    public int getNbAttributes() {
+        int nbAttributes = 0;
+        for (ITmfStateSystem partition : fPartitions) {
+            nbAttributes = Math.max(nbAttributes, partition.getNbAttributes());
+        }
+        return nbAttributes * fPartitions.size();
+    }
+
+    @Override
+    public int getQuarkAbsolute(String... attribute) throws AttributeNotFoundException {
+        int quark = optQuarkAbsolute(attribute);
+        if (quark == INVALID_ATTRIBUTE) {
+            throw new AttributeNotFoundException(getSSID() + " Path:" + Arrays.toString(attribute)); //$NON-NLS-1$
+        }
+        return quark;
+    }
+
+    @Override
+    public int optQuarkAbsolute(String... attribute) {
+        for (int i = 0; i < fPartitions.size(); i++) {
+            int quark = fPartitions.get(i).optQuarkAbsolute(attribute);
+            if (quark != INVALID_ATTRIBUTE) {
+                return toQuark(i, quark);
+            }
+        }
+        return INVALID_ATTRIBUTE;
+    }
+
+    @Override
+    public int getQuarkRelative(int startingNodeQuark, String... subPath) throws AttributeNotFoundException {
+        if (startingNodeQuark == ROOT_ATTRIBUTE) {
+            return getQuarkAbsolute(subPath);
+        }
+        int partition = partitionIndex(startingNodeQuark);
+        return toQuark(partition, fPartitions.get(partition).getQuarkRelative(partitionQuark(startingNodeQuark), subPath));
+    }
+
+    @Override
+    public int optQuarkRelative(int startingNodeQuark, String... subPath) {
+        if (startingNodeQuark == ROOT_ATTRIBUTE) {
+            return optQuarkAbsolute(subPath);
+        }
+        int partition = partitionIndex(startingNodeQuark);
+        return toQuark(partition, fPartitions.get(partition).optQuarkRelative(partitionQuark(startingNodeQuark), subPath));
+    }
+
+    @Override
+    public List<Integer> getSubAttributes(int quark, boolean recursive) {
+        if (quark == ROOT_ATTRIBUTE) {
+            return fromAllPartitions(i -> fPartitions.get(i).getSubAttributes(ROOT_ATTRIBUTE, recursive));
+        }
+        int partition = partitionIndex(quark);
+        return toQuarks(partition, fPartitions.get(partition).getSubAttributes(partitionQuark(quark), recursive));
+    }
+
+    @Override
+    public List<Integer> getSubAttributes(int quark, boolean recursive, String pattern) {
+        if (quark == ROOT_ATTRIBUTE) {
+            return fromAllPartitions(i -> fPartitions.get(i).getSubAttributes(ROOT_ATTRIBUTE, recursive, pattern));
+        }
+        int partition = partitionIndex(quark);
+        return toQuarks(partition, fPartitions.get(partition).getSubAttributes(partitionQuark(quark), recursive, pattern));
+    }
+
+    @Override
+    public List<Integer> getQuarks(String... pattern) {
+        return getQuarks(ROOT_ATTRIBUTE, pattern);
+    }
+
+    @Override
+    public List<Integer> getQuarks(int startingNodeQuark, String... pattern) {
+        if (startingNodeQuark == ROOT_ATTRIBUTE) {
+            return fromAllPartitions(i -> fPartitions.get(i).getQuarks(ROOT_ATTRIBUTE, pattern));
+        }
+        int partition = partitionIndex(startingNodeQuark);
+        return toQuarks(partition, fPartitions.get(partition).getQuarks(partitionQuark(startingNodeQuark), pattern));
+    }
+
+    @Override
+    public String getAttributeName(int attributeQuark) {
+        return partitionOf(attributeQuark).getAttributeName(partitionQuark(attributeQuark));
+    }
+
+    @Override
+    public String getFullAttributePath(int attributeQuark) {
+        return partitionOf(attributeQuark).getFullAttributePath(partitionQuark(attributeQuark));
+    }
+
+    @Override
+    public String[] getFullAttributePathArray(int attributeQuark) {
+        return partitionOf(attributeQuark).getFullAttributePathArray(partitionQuark(attributeQuark));
+    }
+
+    @Override
+    public int getParentAttributeQuark(int attributeQuark) {
+        int partition = partitionIndex(attributeQuark);
+        return toQuark(partition, fPartitions.get(partition).getParentAttributeQuark(partitionQuark(attributeQuark)));
+    }
+
+    @Override
+    public ITmfStateValue queryOngoingState(int attributeQuark) {
+        return partitionOf(attributeQuark).queryOngoingState(partitionQuark(attributeQuark));
+    }
+
+    @Override
+    public @Nullable Object queryOngoing(int attributeQuark) {
+        return partitionOf(attributeQuark).queryOngoing(partitionQuark(attributeQuark));
+    }
+
+    @Override
+    public long getOngoingStartTime(int attribute) {
+        return partitionOf(attribute).getOngoingStartTime(partitionQuark(attribute));
+    }
+
+    @Override
+    public List<ITmfStateInterval> queryFullState(long t) throws StateSystemDisposedException {
+        int nbAttributes = getNbAttributes();
+        List<ITmfStateInterval> fullState = new ArrayList<>(nbAttributes);
+        List<List<ITmfStateInterval>> partitionStates = new ArrayList<>(fPartitions.size());
+        for (ITmfStateSystem partition : fPartitions) {
+            partitionStates.add(partition.queryFullState(clamp(partition, t)));
+        }
+        for (int quark = 0; quark < nbAttributes; quark++) {
+            int partition = partitionIndex(quark);
+            List<ITmfStateInterval> partitionState = partitionStates.get(partition);
+            int partitionQuark = partitionQuark(quark);
+            if (partitionQuark < partitionState.size()) {
+                fullState.add(toInterval(partition, partitionState.get(partitionQuark)));
+            } else {
+                // This quark does not exist in its partition
+                fullState.add(new TmfStateInterval(getStartTime(), getCurrentEndTime(), quark, (Object) null));
+            }
+        }
+        return fullState;
+    }
+
+    @Override
+    public ITmfStateInterval querySingleState(long t, int attributeQuark) throws StateSystemDisposedException {
+        int partition = partitionIndex(attributeQuark);
+        ITmfStateSystem ss = fPartitions.get(partition);
+        return toInterval(partition, ss.querySingleState(clamp(ss, t), partitionQuark(attributeQuark)));
+    }
+
+    @Override
+    public Iterable<ITmfStateInterval> query2D(Collection<Integer> quarks, Collection<Long> times) throws StateSystemDisposedException, IndexOutOfBoundsException, TimeRangeException {
+        List<Iterable<ITmfStateInterval>> results = new ArrayList<>();
+        List<List<Integer>> partitionQuarks = groupByPartition(quarks);
+        for (int i = 0; i < fPartitions.size(); i++) {
+            ITmfStateSystem ss = fPartitions.get(i);
+            List<Integer> partitionQuarkList = partitionQuarks.get(i);
+            if (partitionQuarkList.isEmpty()) {
+                continue;
+            }
+            long end = ss.getCurrentEndTime();
+            List<Long> partitionTimes = new ArrayList<>(times.size());
+            for (long time : times) {
+                if (time <= end) {
+                    partitionTimes.add(time);
+                }
+            }
+            if (!partitionTimes.isEmpty()) {
+                int partition = i;
+                results.add(Iterables.transform(ss.query2D(partitionQuarkList, partitionTimes), interval -> toInterval(partition, interval)));
+            }
+        }
+        return Iterables.concat(results);
+    }
+
+    @Override
+    public Iterable<ITmfStateInterval> query2D(Collection<Integer> quarks, long start, long end) throws StateSystemDisposedException, IndexOutOfBoundsException, TimeRangeException {
+        List<Iterable<ITmfStateInterval>> results = new ArrayList<>();
+        List<List<Integer>> partitionQuarks = groupByPartition(quarks);
+        for (int i = 0; i < fPartitions.size(); i++) {
+            ITmfStateSystem ss = fPartitions.get(i);
+            List<Integer> partitionQuarkList = partitionQuarks.get(i);
+            long partitionEnd = Math.min(end, ss.getCurrentEndTime());
+            if (partitionQuarkList.isEmpty() || start > partitionEnd) {
+                continue;
+            }
+            int partition = i;
+            results.add(Iterables.transform(ss.query2D(partitionQuarkList, start, partitionEnd), interval -> toInterval(partition, interval)));
+        }
+        return Iterables.concat(results);
+    }
+
+    private List<List<Integer>> groupByPartition(Collection<Integer> quarks) {
+        List<List<Integer>> partitionQuarks = new ArrayList<>(fPartitions.size());
+        for (int i = 0; i < fPartitions.size(); i++) {
+            partitionQuarks.add(new ArrayList<>());
+        }
+        for (int quark : quarks) {
+            if (quark < 0) {
+                throw new IndexOutOfBoundsException("Invalid quark " + quark); //$NON-NLS-1$
+            }
+            partitionQuarks.get(partitionIndex(quark)).add(partitionQuark(quark));
+        }
+        return partitionQuarks;
+    }
+
+    /**
+     * Clamp a time to the range of a partition that may be behind the others
+     */
+    private static long clamp(ITmfStateSystem partition, long t) {
+        return Math.max(partition.getStartTime(), Math.min(t, partition.getCurrentEndTime()));
+    }
+
+}
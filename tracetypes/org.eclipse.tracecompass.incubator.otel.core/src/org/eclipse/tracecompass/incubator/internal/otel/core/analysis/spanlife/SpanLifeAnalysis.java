@@ -11,12 +11,29 @@
 
 package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.otel.core.Activator;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.TmfStateSystemAnalysisModule;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
 /**
  * Spans life tracker
@@ -30,17 +47,320 @@ public class SpanLifeAnalysis extends TmfStateSystemAnalysisModule {
      */
     public static final String ID = "org.eclipse.tracecompass.incubator.otel.analysis.spanlife"; //$NON-NLS-1$
 
+    /**
+     * System property to set the number of partitions of the analysis. With
+     * more than one partition, the spans of the OpenTelemetry trace ids are
+     * dispatched to the partitions and built in parallel.
+     */
+    public static final String PARTITIONS_PROPERTY = "org.eclipse.tracecompass.incubator.otel.core.spanlife.partitions"; //$NON-NLS-1$
+
+    private static final String SPAN_METADATA_FILE_SUFFIX = ".spans"; //$NON-NLS-1$
+    private static final String HISTORY_FILE_SUFFIX = ".ht"; //$NON-NLS-1$
+    private static final String PARTITION_SUFFIX = ".partition"; //$NON-NLS-1$
+
+    private static final Pattern SPAN_ID_REGEX = Pattern.compile("span_id=(?<spanId>.*?)(/|$)"); //$NON-NLS-1$
+    private static final Pattern ERROR_TAG_REGEX = Pattern.compile("has_error=(?<hasError>.*?)(/|$)"); //$NON-NLS-1$
+    private static final Pattern PROCESS_NAME_REGEX = Pattern.compile("process_name=(?<processName>.*?)(/|$)"); //$NON-NLS-1$
+
+    private final int fPartitionCount;
+    private @Nullable SpanLifeStateProvider fStateProvider = null;
+    private @Nullable PartitionedSpanLifeStateProvider fPartitionedStateProvider = null;
+    private @Nullable PartitionedStateSystem fPartitionedStateSystem = null;
+    private @Nullable SpanMetadataTable fSpanMetadata = null;
+
     /**
      * Constructor
      */
     public SpanLifeAnalysis() {
         setId(ID);
+        fPartitionCount = Math.max(1, Integer.getInteger(PARTITIONS_PROPERTY, 1));
     }
 
     @Override
     protected @NonNull ITmfStateProvider createStateProvider() {
+        ITmfTrace trace = Objects.requireNonNull(getTrace());
+        fSpanMetadata = null;
+        fPartitionedStateSystem = null;
+        if (fPartitionCount > 1) {
+            PartitionedSpanLifeStateProvider stateProvider = new PartitionedSpanLifeStateProvider(trace, fPartitionCount);
+            fPartitionedStateProvider = stateProvider;
+            fStateProvider = null;
+            return stateProvider;
+        }
+        SpanLifeStateProvider stateProvider = new SpanLifeStateProvider(trace);
+        fStateProvider = stateProvider;
+        fPartitionedStateProvider = null;
+        return stateProvider;
+    }
+
+    /**
+     * Get the state system of the analysis. When the analysis is partitioned,
+     * this is a {@link PartitionedStateSystem} of the partitions.
+     */
+    @Override
+    public @Nullable ITmfStateSystem getStateSystem() {
+        ITmfStateSystem ss = super.getStateSystem();
+        if (ss == null || fPartitionCount <= 1) {
+            return ss;
+        }
+        return getPartitionedStateSystem(ss);
+    }
+
+    @Override
+    public @NonNull Iterable<@NonNull ITmfStateSystem> getStateSystems() {
+        ITmfStateSystem ss = getStateSystem();
+        return ss == null ? Collections.emptyList() : Collections.singletonList(ss);
+    }
+
+    private synchronized ITmfStateSystem getPartitionedStateSystem(ITmfStateSystem main) {
+        PartitionedStateSystem partitioned = fPartitionedStateSystem;
+        if (partitioned != null) {
+            return partitioned;
+        }
+        PartitionedSpanLifeStateProvider stateProvider = fPartitionedStateProvider;
+        List<ITmfStateSystem> partitions = stateProvider != null ? stateProvider.getPartitionStateSystems() : Collections.emptyList();
+        if (partitions.isEmpty()) {
+            if (!main.waitUntilBuilt(0)) {
+                // The state provider did not create the partitions yet
+                return main;
+            }
+            // The analysis was built before, open its partitions
+            partitions = openPartitions(Objects.requireNonNull(getTrace()));
+            if (partitions.isEmpty()) {
+                return main;
+            }
+        }
+        partitioned = new PartitionedStateSystem(main, partitions);
+        fPartitionedStateSystem = partitioned;
+        return partitioned;
+    }
+
+    private List<ITmfStateSystem> openPartitions(ITmfTrace trace) {
+        List<ITmfStateSystem> partitions = new ArrayList<>(fPartitionCount);
+        try {
+            for (int i = 0; i < fPartitionCount; i++) {
+                IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendExistingFile(getPartitionId(i), getPartitionFile(trace, i),
+                        PartitionedSpanLifeStateProvider.getVersion(fPartitionCount));
+                partitions.add(StateSystemFactory.newStateSystem(backend, false));
+            }
+        } catch (IOException e) {
+            Activator.getInstance().logError("Error opening the span life partitions of " + trace.getName(), e); //$NON-NLS-1$
+            for (ITmfStateSystem partition : partitions) {
+                partition.dispose();
+            }
+            return Collections.emptyList();
+        }
+        return partitions;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        PartitionedStateSystem partitioned;
+        PartitionedSpanLifeStateProvider stateProvider;
+        synchronized (this) {
+            partitioned = fPartitionedStateSystem;
+            stateProvider = fPartitionedStateProvider;
+            fPartitionedStateSystem = null;
+        }
+        if (partitioned != null) {
+            partitioned.dispose();
+        } else if (stateProvider != null) {
+            for (ITmfStateSystem partition : stateProvider.getPartitionStateSystems()) {
+                partition.dispose();
+            }
+        }
+    }
+
+    /**
+     * Get the identifier of the state system of a partition
+     *
+     * @param partition
+     *            the index of the partition
+     * @return the identifier of the state system
+     */
+    public static String getPartitionId(int partition) {
+        return ID + PARTITION_SUFFIX + partition;
+    }
+
+    /**
+     * Get the history file of a partition of a trace
+     *
+     * @param trace
+     *            the trace
+     * @param partition
+     *            the index of the partition
+     * @return the history file, in the supplementary files of the trace
+     */
+    public static File getPartitionFile(ITmfTrace trace, int partition) {
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + getPartitionId(partition) + HISTORY_FILE_SUFFIX);
+    }
+
+    /**
+     * Get the file where the span metadata of a partition of a trace is saved
+     *
+     * @param trace
+     *            the trace
+     * @param partition
+     *            the index of the partition
+     * @return the span metadata file, in the supplementary files of the trace
+     */
+    public static File getSpanMetadataFile(ITmfTrace trace, int partition) {
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + getPartitionId(partition) + SPAN_METADATA_FILE_SUFFIX);
+    }
+
+    /**
+     * Get the file where the span metadata of a trace is saved
+     *
+     * @param trace
+     *            the trace
+     * @return the span metadata file, in the supplementary files of the trace
+     */
+    public static File getSpanMetadataFile(ITmfTrace trace) {
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + ID + SPAN_METADATA_FILE_SUFFIX);
+    }
+
+    /**
+     * Get the metadata of the spans of the state system, indexed by the quark
+     * of the span.
+     * <p>
+     * If the state system is being built, this is the table filled by the
+     * state provider. If the state system was built before, the table is read
+     * from the supplementary files or, if it is missing, rebuilt once from the
+     * attribute names. When the analysis is partitioned, the tables of the
+     * partitions are merged with the quarks of the
+     * {@link PartitionedStateSystem}.
+     *
+     * @return the span metadata table
+     */
+    public synchronized SpanMetadataTable getSpanMetadata() {
+        SpanMetadataTable spanMetadata = fSpanMetadata;
+        if (spanMetadata != null) {
+            return spanMetadata;
+        }
         ITmfTrace trace = getTrace();
-        return new SpanLifeStateProvider(Objects.requireNonNull(trace));
+        ITmfStateSystem ss = getStateSystem();
+        if (trace == null || ss == null) {
+            return new SpanMetadataTable();
+        }
+        if (ss instanceof PartitionedStateSystem) {
+            PartitionedStateSystem partitioned = (PartitionedStateSystem) ss;
+            PartitionedSpanLifeStateProvider stateProvider = fPartitionedStateProvider;
+            List<SpanLifeStateProvider> partitionProviders = stateProvider != null ? stateProvider.getPartitionProviders() : Collections.emptyList();
+            int version = PartitionedSpanLifeStateProvider.getVersion(partitioned.getPartitionCount());
+            spanMetadata = new SpanMetadataTable();
+            for (int i = 0; i < partitioned.getPartitionCount(); i++) {
+                int partition = i;
+                SpanLifeStateProvider partitionProvider = i < partitionProviders.size() ? partitionProviders.get(i) : null;
+                SpanMetadataTable partitionMetadata = loadSpanMetadata(partitionProvider, getSpanMetadataFile(trace, i), version, partitioned.getPartition(i));
+                spanMetadata.addAll(partitionMetadata, quark -> partitioned.toQuark(partition, quark));
+            }
+            if (!ss.waitUntilBuilt(0)) {
+                // The partitions are still filling their tables, merge them
+                // again next time
+                return spanMetadata;
+            }
+        } else if (fPartitionCount > 1) {
+            // The partitions are not created yet
+            return new SpanMetadataTable();
+        } else {
+            spanMetadata = loadSpanMetadata(fStateProvider, getSpanMetadataFile(trace), SpanLifeStateProvider.VERSION, ss);
+            if (!ss.waitUntilBuilt(0)) {
+                // The state provider is still filling the table
+                return spanMetadata;
+            }
+        }
+        fSpanMetadata = spanMetadata;
+        return spanMetadata;
+    }
+
+    private static SpanMetadataTable loadSpanMetadata(@Nullable SpanLifeStateProvider stateProvider, File file, int version, ITmfStateSystem ss) {
+        if (stateProvider != null && stateProvider.fillsStateSystem()) {
+            // The state system is built by this state provider
+            return stateProvider.getSpanMetadata();
+        }
+        SpanMetadataTable spanMetadata = SpanMetadataTable.readFrom(file, version);
+        return spanMetadata != null ? spanMetadata : rebuildSpanMetadata(ss);
+    }
+
+    private static SpanMetadataTable rebuildSpanMetadata(ITmfStateSystem ss) {
+        SpanMetadataTable spanMetadata = new SpanMetadataTable();
+        for (int traceQuark : ss.getSubAttributes(ITmfStateSystem.ROOT_ATTRIBUTE, false)) {
+            int spansQuark = ss.optQuarkRelative(traceQuark, SpanLifeStateProvider.OTEL_SPANS_ATTRIBUTE);
+            if (spansQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+                continue;
+            }
+            Map<String, Integer> logQuarks = getChildrenByName(ss, ss.optQuarkRelative(traceQuark, IOpenTracingConstants.LOGS));
+            Map<String, Integer> resourceQuarks = getChildrenByName(ss, ss.optQuarkRelative(traceQuark, IOpenTracingConstants.RESOURCES));
+            for (int spanQuark : ss.getSubAttributes(spansQuark, true)) {
+                String name = ss.getAttributeName(spanQuark);
+                String spanIdHex = getMatch(SPAN_ID_REGEX, name, "spanId"); //$NON-NLS-1$
+                long spanId;
+                try {
+                    spanId = Long.parseUnsignedLong(spanIdHex, 16);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                spanMetadata.addSpan(spanQuark, spanId, getMatch(PROCESS_NAME_REGEX, name, "processName"), //$NON-NLS-1$
+                        getMatch(ERROR_TAG_REGEX, name, "hasError").equals("true")); //$NON-NLS-1$ //$NON-NLS-2$
+                Integer logQuark = logQuarks.get(spanIdHex);
+                if (logQuark != null) {
+                    spanMetadata.setLogQuark(spanQuark, logQuark);
+                }
+                Integer resourceQuark = resourceQuarks.get(spanIdHex);
+                if (resourceQuark != null) {
+                    spanMetadata.setResourceQuark(spanQuark, resourceQuark);
+                }
+            }
+        }
+        return spanMetadata;
+    }
+
+    private static Map<String, Integer> getChildrenByName(ITmfStateSystem ss, int quark) {
+        Map<String, Integer> children = new HashMap<>();
+        if (quark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+            for (int child : ss.getSubAttributes(quark, false)) {
+                children.put(ss.getAttributeName(child), child);
+            }
+        }
+        return children;
+    }
+
+    @SuppressWarnings("null")
+    private static String getMatch(Pattern pattern, String input, String group) {
+        Matcher matcher = pattern.matcher(input);
+        if (matcher.find()) {
+            return matcher.group(group);
+        }
+        return ""; //$NON-NLS-1$
+    }
+
+    @Override
+    public @NonNull Map<@NonNull String, @NonNull String> getProperties() {
+        Map<@NonNull String, @NonNull String> properties = new LinkedHashMap<>(super.getProperties());
+        SpanLifeStateProvider serialStateProvider = fStateProvider;
+        PartitionedSpanLifeStateProvider partitionedStateProvider = fPartitionedStateProvider;
+        List<SpanLifeStateProvider> stateProviders = serialStateProvider != null ? Collections.singletonList(serialStateProvider)
+                : partitionedStateProvider != null ? partitionedStateProvider.getPartitionProviders() : Collections.emptyList();
+        if (!stateProviders.isEmpty()) {
+            // Size of the span maps, the state providers keep them bounded by
+            // evicting the spans after their grace period
+            long peakSpans = 0;
+            long evictedSpans = 0;
+            long missedSpans = 0;
+            for (SpanLifeStateProvider stateProvider : stateProviders) {
+                peakSpans += stateProvider.getPeakSpanCount();
+                evictedSpans += stateProvider.getEvictedSpanCount();
+                missedSpans += stateProvider.getMissedSpanCount();
+            }
+            properties.put("peak tracked spans", String.valueOf(peakSpans)); //$NON-NLS-1$
+            properties.put("evicted spans", String.valueOf(evictedSpans)); //$NON-NLS-1$
+            properties.put("missed span lookups", String.valueOf(missedSpans)); //$NON-NLS-1$
+        }
+        if (fPartitionCount > 1) {
+            properties.put("partitions", String.valueOf(fPartitionCount)); //$NON-NLS-1$
+        }
+        return properties;
     }
 
 }
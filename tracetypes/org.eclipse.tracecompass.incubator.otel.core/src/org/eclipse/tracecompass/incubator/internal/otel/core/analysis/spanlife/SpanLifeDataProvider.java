@@ -23,14 +23,13 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.incubator.internal.otel.core.Activator;
 import org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife.SpanLifeEntryModel.LogEvent;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
 import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.StateSystemUtils;
@@ -88,14 +87,6 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
 
     public static String SUFFIX = ".dataprovider"; //$NON-NLS-1$
 
-    private static Pattern SPAN_ID_REGEX = Pattern.compile("span_id=(?<spanId>.*?)(/|$)"); //$NON-NLS-1$
-    // private static Pattern SPAN_NAME_REGEX =
-    // Pattern.compile("name=(?<name>.*?)(/|$)"); //$NON-NLS-1$
-    private static Pattern ERROR_TAG_REGEX = Pattern.compile("has_error=(?<hasError>.*?)(/|$)"); //$NON-NLS-1$
-    private static Pattern PROCESS_NAME_REGEX = Pattern.compile("process_name=(?<processName>.*?)(/|$)"); //$NON-NLS-1$
-    // private static Pattern SERVICE_NAME_REGEX =
-    // Pattern.compile("service_name=(?<serviceName>.*?)(/|$)"); //$NON-NLS-1$
-
     /**
      * Constructor
      *
@@ -132,18 +123,10 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
             return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
         }
 
-        int resourcesQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
-        int traceLogsQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
-        try {
-            String traceId = ss.getFullAttributePathArray(quarks.iterator().next())[0];
-            resourcesQuark = ss.getQuarkRelative(ss.getQuarkAbsolute(traceId), IOpenTracingConstants.RESOURCES);
-            traceLogsQuark = ss.getQuarkRelative(ss.getQuarkAbsolute(traceId), IOpenTracingConstants.LOGS);
-        } catch (AttributeNotFoundException e) {
-            return new TmfModelResponse<>(null, ITmfResponse.Status.CANCELLED, CommonStatusMessage.TASK_CANCELLED);
-        }
-
-        int resourceQuark = getResourceQuark(ss, ss.getAttributeName(quarks.iterator().next()), ss.getSubAttributes(resourcesQuark, false));
-        int spanLogQuark = getLogQuark(ss, ss.getAttributeName(quarks.iterator().next()), ss.getSubAttributes(traceLogsQuark, false));
+        SpanMetadataTable spanMetadata = getAnalysisModule().getSpanMetadata();
+        int spanQuark = quarks.iterator().next();
+        int resourceQuark = spanMetadata.getResourceQuark(spanQuark);
+        int spanLogQuark = spanMetadata.getLogQuark(spanQuark);
 
         try {
             Map<@NonNull String, @NonNull String> retMap = new HashMap<>();
@@ -239,22 +222,15 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
         long rootId = getId(ITmfStateSystem.ROOT_ATTRIBUTE);
         builder.add(new TimeGraphEntryModel(rootId, -1, Collections.singletonList(String.valueOf(getTrace().getName())), ss.getStartTime(), ss.getCurrentEndTime()));
 
+        SpanMetadataTable spanMetadata = getAnalysisModule().getSpanMetadata();
         for (int traceQuark : ss.getSubAttributes(ITmfStateSystem.ROOT_ATTRIBUTE, false)) {
-            addTrace(ss, builder, traceQuark, rootId);
+            addTrace(ss, spanMetadata, builder, traceQuark, rootId);
         }
 
         return new TmfTreeModel<>(Collections.emptyList(), builder.build());
     }
 
-    private void addTrace(ITmfStateSystem ss, Builder<@NonNull TimeGraphEntryModel> builder, int quark, long parentId) {
-        List<@NonNull Integer> logsQuarks;
-        try {
-            int logsQuark = ss.getQuarkRelative(quark, IOpenTracingConstants.LOGS);
-            logsQuarks = ss.getSubAttributes(logsQuark, false);
-        } catch (AttributeNotFoundException e) {
-            logsQuarks = new ArrayList<>();
-        }
-
+    private void addTrace(ITmfStateSystem ss, SpanMetadataTable spanMetadata, Builder<@NonNull TimeGraphEntryModel> builder, int quark, long parentId) {
         int openTracingSpansQuark;
         try {
             openTracingSpansQuark = ss.getQuarkRelative(quark, SpanLifeStateProvider.OTEL_SPANS_ATTRIBUTE);
@@ -269,19 +245,19 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
         try {
             ustSpansQuark = ss.getQuarkRelative(quark, SpanLifeStateProvider.UST_ATTRIBUTE);
         } catch (AttributeNotFoundException e) {
-            addChildren(ss, builder, openTracingSpansQuark, traceQuarkId, logsQuarks);
+            addChildren(ss, spanMetadata, builder, openTracingSpansQuark, traceQuarkId);
             return;
         }
-        addUstChildren(ss, builder, openTracingSpansQuark, ustSpansQuark, traceQuarkId, logsQuarks);
+        addUstChildren(ss, spanMetadata, builder, openTracingSpansQuark, ustSpansQuark, traceQuarkId);
     }
 
-    private void addChildren(ITmfStateSystem ss, Builder<@NonNull TimeGraphEntryModel> builder, int quark, long parentId, List<Integer> logsQuarks) {
+    private void addChildren(ITmfStateSystem ss, SpanMetadataTable spanMetadata, Builder<@NonNull TimeGraphEntryModel> builder, int quark, long parentId) {
         for (Integer child : ss.getSubAttributes(quark, false)) {
             long childId = getId(child);
             String childName = ss.getAttributeName(child);
             if (!childName.equals(IOpenTracingConstants.LOGS)) {
                 List<LogEvent> logs = new ArrayList<>();
-                int logQuark = getLogQuark(ss, childName, logsQuarks);
+                int logQuark = spanMetadata.getLogQuark(child);
                 try {
                     for (ITmfStateInterval interval : ss.query2D(Collections.singletonList(logQuark), ss.getStartTime(), ss.getCurrentEndTime())) {
                         Object value = interval.getValue();
@@ -291,18 +267,18 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
                     }
                 } catch (IndexOutOfBoundsException | TimeRangeException | StateSystemDisposedException e) {
                 }
-                builder.add(new SpanLifeEntryModel(childId, parentId, Collections.singletonList(getSpanName(childName)), ss.getStartTime(), ss.getCurrentEndTime(), logs, getErrorTag(childName), getProcessName(childName)));
-                addChildren(ss, builder, child, childId, logsQuarks);
+                builder.add(new SpanLifeEntryModel(childId, parentId, Collections.singletonList(getSpanName(childName)), ss.getStartTime(), ss.getCurrentEndTime(), logs, spanMetadata.hasError(child), spanMetadata.getProcessName(child)));
+                addChildren(ss, spanMetadata, builder, child, childId);
             }
         }
     }
 
-    private void addUstChildren(ITmfStateSystem ss, Builder<@NonNull TimeGraphEntryModel> builder, int openTracingQuark, int ustQuark, long parentId, List<Integer> logsQuarks) {
+    private void addUstChildren(ITmfStateSystem ss, SpanMetadataTable spanMetadata, Builder<@NonNull TimeGraphEntryModel> builder, int openTracingQuark, int ustQuark, long parentId) {
         for (Integer child : ss.getSubAttributes(openTracingQuark, false)) {
             String childName = ss.getAttributeName(child);
 
             List<LogEvent> logs = new ArrayList<>();
-            int logQuark = getLogQuark(ss, childName, logsQuarks);
+            int logQuark = spanMetadata.getLogQuark(child);
             try {
                 for (ITmfStateInterval interval : ss.query2D(Collections.singletonList(logQuark), ss.getStartTime(), ss.getCurrentEndTime())) {
                     if (!interval.getStateValue().isNull()) {
@@ -312,7 +288,7 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
             } catch (IndexOutOfBoundsException | TimeRangeException | StateSystemDisposedException e) {
             }
 
-            String spanId = getSpanId(childName);
+            String spanId = OtelIds.toHexString(spanMetadata.getSpanId(child));
 
             int ustSpan;
             try {
@@ -321,27 +297,9 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
                 return;
             }
             long childId = getId(ustSpan);
-            builder.add(new SpanLifeEntryModel(childId, parentId, Collections.singletonList(getSpanName(childName)), ss.getStartTime(), ss.getCurrentEndTime(), logs, getErrorTag(childName), getProcessName(childName)));
-            addUstChildren(ss, builder, child, ustQuark, childId, logsQuarks);
-        }
-    }
-
-    private static int getLogQuark(ITmfStateSystem ss, String spanName, List<Integer> logsQuarks) {
-        for (int logsQuark : logsQuarks) {
-            if (ss.getAttributeName(logsQuark).equals(getSpanId(spanName))) {
-                return logsQuark;
-            }
+            builder.add(new SpanLifeEntryModel(childId, parentId, Collections.singletonList(getSpanName(childName)), ss.getStartTime(), ss.getCurrentEndTime(), logs, spanMetadata.hasError(child), spanMetadata.getProcessName(child)));
+            addUstChildren(ss, spanMetadata, builder, child, ustQuark, childId);
         }
-        return ITmfStateSystem.INVALID_ATTRIBUTE;
-    }
-
-    private static int getResourceQuark(ITmfStateSystem ss, String spanName, List<Integer> resourcesQuarks) {
-        for (int resourcesQuark : resourcesQuarks) {
-            if (ss.getAttributeName(resourcesQuark).equals(getSpanId(spanName))) {
-                return resourcesQuark;
-            }
-        }
-        return ITmfStateSystem.INVALID_ATTRIBUTE;
     }
 
     private static String getSpanName(String attributeName) {
@@ -350,23 +308,6 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
         // //$NON-NLS-1$
     }
 
-    private static String getSpanId(String attributeName) {
-        return getMatch(SPAN_ID_REGEX, attributeName, "spanId"); //$NON-NLS-1$
-    }
-
-    private static Boolean getErrorTag(String attributeName) {
-        return getMatch(ERROR_TAG_REGEX, attributeName, "hasError").equals("true"); //$NON-NLS-1$ //$NON-NLS-2$
-    }
-
-    private static String getProcessName(String attributeName) {
-        return getMatch(PROCESS_NAME_REGEX, attributeName, "processName"); //$NON-NLS-1$
-    }
-
-    // private static String getServiceName(String attributeName) {
-    // return getMatch(SERVICE_NAME_REGEX, attributeName, "serviceName");
-    // //$NON-NLS-1$
-    // }
-
     @Override
     public TmfModelResponse<AnnotationCategoriesModel> fetchAnnotationCategories(Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) {
         ITmfStateSystem ss = getAnalysisModule().getStateSystem();
@@ -404,21 +345,11 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
             lookup.put(entry.getValue(), entry.getKey());
         }
 
-        int traceQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
-        int traceLogsQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
-        try {
-            String traceId = ss.getFullAttributePathArray(quarks.iterator().next())[0];
-            traceQuark = ss.getQuarkAbsolute(traceId);
-            traceLogsQuark = ss.getQuarkRelative(traceQuark, IOpenTracingConstants.LOGS);
-        } catch (AttributeNotFoundException e) {
-            return new TmfModelResponse<>(null, ITmfResponse.Status.CANCELLED, CommonStatusMessage.TASK_CANCELLED);
-        }
-
+        SpanMetadataTable spanMetadata = getAnalysisModule().getSpanMetadata();
         Map<Integer, Long> spanLookup = new HashMap<>();
         List<Integer> spanLogQuarks = new ArrayList<>();
-        quarks.remove(traceQuark);
         for (int quark : quarks) {
-            int spanLogQuark = getLogQuark(ss, ss.getAttributeName(quark), ss.getSubAttributes(traceLogsQuark, false));
+            int spanLogQuark = spanMetadata.getLogQuark(quark);
             if (spanLogQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
                 spanLogQuarks.add(spanLogQuark);
                 Long value = lookup.get(quark);
@@ -455,13 +386,4 @@ public class SpanLifeDataProvider extends AbstractTimeGraphDataProvider<@NonNull
         return new TmfModelResponse<>(new AnnotationModel(Collections.singletonMap(IOpenTracingConstants.LOGS, annotations)), Status.COMPLETED, "");
     }
 
-    @SuppressWarnings("null")
-    private static String getMatch(Pattern pattern, String input, String group) {
-        Matcher matcher = pattern.matcher(input);
-        if (matcher.find()) {
-            return matcher.group(group);
-        }
-        return ""; //$NON-NLS-1$
-    }
-
 }
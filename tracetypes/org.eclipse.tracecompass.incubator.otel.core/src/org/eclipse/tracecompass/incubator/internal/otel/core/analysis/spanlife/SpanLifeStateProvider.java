@@ -11,13 +11,18 @@
 
 package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiConsumer;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.incubator.internal.otel.core.Activator;
 import org.eclipse.tracecompass.incubator.internal.otel.core.trace.Constants;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelEvent;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
@@ -50,12 +55,31 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
      */
     public static final String UST_ATTRIBUTE = "ustSpans"; //$NON-NLS-1$
 
-    // TODO : Replace the cache with one with an expiration policy so it does
-    // not grow too big
-    private final Map<String, Integer> fSpanMap;
+    /**
+     * System property to set the grace period, in nanoseconds, during which a
+     * span is kept after its end for the children that start late
+     */
+    public static final String GRACE_PERIOD_PROPERTY = "org.eclipse.tracecompass.incubator.otel.core.spanlife.gracePeriod"; //$NON-NLS-1$
+
+    /**
+     * Version of the state provider
+     */
+    static final int VERSION = 3;
+
+    private static final long DEFAULT_GRACE_PERIOD = 10_000_000_000L;
+
+    /**
+     * Quarks of the spans that may still have children starting. A span is
+     * evicted once the grace period after its end is over.
+     */
+    private final LiveSpanMap fSpanMap;
+    private final SpanMetadataTable fSpanMetadata = new SpanMetadataTable();
+    private final long fGracePeriod;
 
     private final Map<String, BiConsumer<ITmfEvent, ITmfStateSystemBuilder>> fHandlers;
 
+    private volatile boolean fFillsStateSystem = false;
+
     /**
      * Constructor
      *
@@ -63,21 +87,122 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
      *            the trace to follow
      */
     public SpanLifeStateProvider(ITmfTrace trace) {
+        this(trace, getConfiguredGracePeriod());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            the trace to follow
+     * @param gracePeriod
+     *            the time in nanoseconds during which a span is kept after
+     *            its end, for the children that start late
+     */
+    public SpanLifeStateProvider(ITmfTrace trace, long gracePeriod) {
         super(trace, SpanLifeAnalysis.ID);
-        fSpanMap = new HashMap<>();
+        fGracePeriod = Math.max(0, gracePeriod);
+        fSpanMap = new LiveSpanMap(fGracePeriod);
         fHandlers = new HashMap<>();
         fHandlers.put(Constants.SpanEvents.START_SPAN_EVENT_TYPE_ID, this::handleStartSpanEvent);
         fHandlers.put(Constants.SpanEvents.END_SPAN_EVENT_TYPE_ID, this::handleEndSpanEvent);
     }
 
+    /**
+     * @return the grace period set by {@link #GRACE_PERIOD_PROPERTY}, or the
+     *         default grace period
+     */
+    public static long getConfiguredGracePeriod() {
+        return Long.getLong(GRACE_PERIOD_PROPERTY, DEFAULT_GRACE_PERIOD);
+    }
+
     @Override
     public int getVersion() {
-        return 3;
+        return VERSION;
     }
 
     @Override
     public @NonNull ITmfStateProvider getNewInstance() {
-        return new SpanLifeStateProvider(getTrace());
+        return new SpanLifeStateProvider(getTrace(), fGracePeriod);
+    }
+
+    /**
+     * Get the metadata of the spans, filled as the events are handled
+     *
+     * @return the span metadata table
+     */
+    public SpanMetadataTable getSpanMetadata() {
+        return fSpanMetadata;
+    }
+
+    @Override
+    public void assignTargetStateSystem(ITmfStateSystemBuilder ssb) {
+        fFillsStateSystem = true;
+        super.assignTargetStateSystem(ssb);
+    }
+
+    /**
+     * Mark this provider as the one filling a state system through
+     * {@link #handleEvent(ITmfEvent, ITmfStateSystemBuilder)}, when it is not
+     * assigned a target state system
+     */
+    void setFillsStateSystem() {
+        fFillsStateSystem = true;
+    }
+
+    /**
+     * @return true if this provider fills the state system of the spans, even
+     *         if no span was handled yet, false if the state system was read
+     *         from the supplementary files
+     */
+    public boolean fillsStateSystem() {
+        return fFillsStateSystem;
+    }
+
+    @Override
+    public void done() {
+        writeSpanMetadata(SpanLifeAnalysis.getSpanMetadataFile(getTrace()), getVersion());
+        super.done();
+    }
+
+    /**
+     * Save the metadata of the spans
+     *
+     * @param file
+     *            the file to write
+     * @param version
+     *            the version of the state system of the spans
+     */
+    void writeSpanMetadata(File file, int version) {
+        try {
+            fSpanMetadata.writeTo(file, version);
+        } catch (IOException e) {
+            Activator.getInstance().logWarning("Error writing the span metadata of " + getTrace().getName(), e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @return the number of spans removed from the span map after their grace
+     *         period
+     */
+    public long getEvictedSpanCount() {
+        return fSpanMap.getEvictedSpanCount();
+    }
+
+    /**
+     * @return the number of parent and end span lookups that did not find
+     *         the span in the span map
+     */
+    public long getMissedSpanCount() {
+        return fSpanMap.getMissedSpanCount();
+    }
+
+    /**
+     * @return the largest number of spans that were in the span map at the
+     *         same time
+     */
+    public int getPeakSpanCount() {
+        return fSpanMap.getPeakSpanCount();
     }
 
     @Override
@@ -86,15 +211,30 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
         if (ss == null) {
             return;
         }
+        handleEvent(event, ss);
+    }
+
+    /**
+     * Handle an event in a state system. The
+     * {@link PartitionedSpanLifeStateProvider} calls it from its workers with
+     * the state system of the partition of the event.
+     *
+     * @param event
+     *            the event to handle
+     * @param ss
+     *            the state system to write
+     */
+    void handleEvent(ITmfEvent event, ITmfStateSystemBuilder ss) {
         BiConsumer<ITmfEvent, ITmfStateSystemBuilder> handler = fHandlers.get(event.getType().getName());
         if (handler != null) {
+            fSpanMap.evict(event.getTimestamp().toNanos());
             handler.accept(event, ss);
         }
     }
 
     private void handleStartSpanEvent(ITmfEvent event, ITmfStateSystemBuilder ss) {
         // Get the process name and service name of the span creator
-        Resource resource = getResource(event);
+        Resource resource = OtelEvent.getEventResource(event);
         String serviceName = getServiceName(resource);
         String processName = getProcessName(resource);
 
@@ -102,23 +242,23 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
         // timestamp.
         // Because we will not change span data even after a trace
         // synchronization
-        Span span = getSpan(event);
+        Span span = OtelEvent.getEventSpan(event);
         long startTimestamp = event.getTimestamp().toNanos();
 
         // Check if the operation within the span was successful or not
         boolean errorTag = getErrorTag(span);
 
         // Get the trace id, span id and name
-        String traceId = byteStringToHex(span.getTraceId());
-        String spanId = byteStringToHex(span.getSpanId());
+        ByteString traceIdBs = span.getTraceId();
+        long spanId = OtelIds.getSpanId(span.getSpanId());
         String name = span.getName();
 
         // Create the trace and span identifier. We add lot of details to make
         // filtering
         // easier
-        String traceIdentifier = getTraceIdentifier(traceId);
+        String traceIdentifier = getTraceIdentifier(OtelIds.toHexString(OtelIds.getTraceIdHigh(traceIdBs), OtelIds.getTraceIdLow(traceIdBs)));
         @SuppressWarnings("null")
-        String spanIdentifier = getSpanIdentifier(name, spanId, serviceName, processName, errorTag);
+        String spanIdentifier = getSpanIdentifier(name, OtelIds.toHexString(spanId), serviceName, processName, errorTag);
 
         // Update the State System
         int traceQuark = ss.getQuarkAbsoluteAndAdd(traceIdentifier);
@@ -129,9 +269,9 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
         if (parentSpanIdBs == null) {
             spanQuark = ss.getQuarkRelativeAndAdd(openTracingSpansQuark, spanIdentifier);
         } else {
-            String parentSpanId = byteStringToHex(parentSpanIdBs);
-            Integer parentQuark = fSpanMap.get(parentSpanId);
-            if (parentQuark == null) {
+            // Root spans have an empty parent span id
+            int parentQuark = parentSpanIdBs.isEmpty() ? SpanQuarkMap.NO_QUARK : fSpanMap.find(OtelIds.getSpanId(parentSpanIdBs));
+            if (parentQuark == SpanQuarkMap.NO_QUARK) {
                 // We don't have the parent span, just start this span at root
                 parentQuark = openTracingSpansQuark;
             }
@@ -140,12 +280,13 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
 
         ss.modifyAttribute(startTimestamp, name, spanQuark);
 
-        fSpanMap.put(spanId, spanQuark);
+        fSpanMap.add(spanId, spanQuark);
+        fSpanMetadata.addSpan(spanQuark, spanId, processName, errorTag);
     }
 
     private void handleEndSpanEvent(ITmfEvent event, ITmfStateSystemBuilder ss) {
         // Get the process name and service name of the span creator
-        Resource resource = getResource(event);
+        Resource resource = OtelEvent.getEventResource(event);
         String serviceName = getServiceName(resource);
         String processName = getProcessName(resource);
 
@@ -153,31 +294,31 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
         // timestamp.
         // Because we will not change span data even after a trace
         // synchronization
-        Span span = getSpan(event);
+        Span span = OtelEvent.getEventSpan(event);
         long endTimestamp = event.getTimestamp().toNanos();
 
         // Check if the operation within the span was successful or not
         boolean errorTag = getErrorTag(span);
 
         // Get the trace id, span id and name
-        @SuppressWarnings("null")
-        String traceId = byteStringToHex(span.getTraceId());
-        @SuppressWarnings("null")
-        String spanId = byteStringToHex(span.getSpanId());
+        ByteString traceIdBs = span.getTraceId();
+        long spanId = OtelIds.getSpanId(span.getSpanId());
+        String spanIdHex = OtelIds.toHexString(spanId);
         String name = span.getName();
 
         // Create the trace and span identifier. We add lot of details to make
         // filtering
         // easier
-        String traceIdentifier = getTraceIdentifier(traceId);
-        @SuppressWarnings("null")
-        String spanIdentifier = getSpanIdentifier(name, spanId, serviceName, processName, errorTag);
+        String traceIdentifier = getTraceIdentifier(OtelIds.toHexString(OtelIds.getTraceIdHigh(traceIdBs), OtelIds.getTraceIdLow(traceIdBs)));
 
         // Update the State System
         int traceQuark = ss.getQuarkAbsoluteAndAdd(traceIdentifier);
-        Integer spanQuark = fSpanMap.get(spanId);
-        if (spanQuark == null) {
+        int spanQuark = fSpanMap.find(spanId);
+        if (spanQuark == SpanQuarkMap.NO_QUARK) {
+            @SuppressWarnings("null")
+            String spanIdentifier = getSpanIdentifier(name, spanIdHex, serviceName, processName, errorTag);
             spanQuark = ss.getQuarkRelativeAndAdd(traceQuark, spanIdentifier);
+            fSpanMetadata.addSpan(spanQuark, spanId, processName, errorTag);
         }
 
         if (span.getEventsCount() > 0) {
@@ -187,7 +328,8 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
                 // One attribute for each span where each state value is the
                 // logs at the timestamp corresponding to the start time of the
                 // state
-                Integer logQuark = ss.getQuarkRelativeAndAdd(logsQuark, spanId);
+                int logQuark = ss.getQuarkRelativeAndAdd(logsQuark, spanIdHex);
+                fSpanMetadata.setLogQuark(spanQuark, logQuark);
                 // TODO: Adjust event timestamp
                 Long logTimestamp = spanEvent.getTimeUnixNano();
                 ss.modifyAttribute(logTimestamp, spanEvent, logQuark);
@@ -196,12 +338,15 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
         }
 
         ss.modifyAttribute(endTimestamp, (Object) null, spanQuark);
+        // Keep the span for its late children until the grace period is over
+        fSpanMap.end(endTimestamp, spanId, spanQuark);
 
         if (resource.getAttributesCount() > 0) {
             // We put all the resources in the state system under the RESOURCES
             // attribute
             Integer resourcesQuark = ss.getQuarkRelativeAndAdd(traceQuark, IOpenTracingConstants.RESOURCES);
-            Integer resourceQuark = ss.getQuarkRelativeAndAdd(resourcesQuark, spanId);
+            int resourceQuark = ss.getQuarkRelativeAndAdd(resourcesQuark, spanIdHex);
+            fSpanMetadata.setResourceQuark(spanQuark, resourceQuark);
             long startTimestamp = ss.queryOngoingState(spanQuark).unboxLong();
             ss.modifyAttribute(startTimestamp, resource, resourceQuark);
             ss.modifyAttribute(endTimestamp, (Object) null, resourceQuark);
@@ -209,8 +354,16 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
 
     }
 
-    private static Span getSpan(ITmfEvent event) {
-        return (Span) event.getContent().getField(Constants.SpanEvents.Fields.SPAN).getValue();
+    /**
+     * Whether an event starts or ends a span
+     *
+     * @param event
+     *            the event
+     * @return true if the event is handled by this state provider
+     */
+    static boolean isSpanEvent(ITmfEvent event) {
+        String name = event.getType().getName();
+        return Constants.SpanEvents.START_SPAN_EVENT_TYPE_ID.equals(name) || Constants.SpanEvents.END_SPAN_EVENT_TYPE_ID.equals(name);
     }
 
     private static String getServiceName(Resource resource) {
@@ -230,10 +383,6 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
         return ""; //$NON-NLS-1$
     }
 
-    private static Resource getResource(ITmfEvent event) {
-        return (Resource) event.getContent().getField(Constants.SpanEvents.Fields.RESOURCE).getValue();
-    }
-
     private static boolean getErrorTag(Span span) {
         boolean errorTag = false;
         if (span.hasStatus()) {
@@ -245,15 +394,6 @@ public class SpanLifeStateProvider extends AbstractTmfStateProvider {
         return errorTag;
     }
 
-    private static String byteStringToHex(ByteString byteString) {
-        byte[] bytes = byteString.toByteArray();
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b)); //$NON-NLS-1$
-        }
-        return sb.toString();
-    }
-
     private static String getSpanIdentifier(String name, String spanId, String serviceName, String processName, boolean hasError) {
         return String.format(
                 "name=%s/span_id=%s/service_name=%s/process_name=%s/has_error=%s", //$NON-NLS-1$
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+
+/**
+ * Metadata of the spans of the span life analysis, indexed by the quark of
+ * the span.
+ * <p>
+ * The metadata is stored in columns, one array per field, so that the data
+ * provider finds the span id, error flag, process name, log quark and
+ * resource quark of a span in constant time instead of parsing the name of
+ * the span attribute or scanning the log and resource attributes. The process
+ * names are stored once in a string pool.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class SpanMetadataTable {
+
+    private static final int MAGIC = 0x4f54534d; // "OTSM"
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte PRESENT = 1;
+    private static final byte ERROR = 1 << 1;
+
+    private long[] fSpanIds = new long[INITIAL_CAPACITY];
+    private int[] fProcessNames = new int[INITIAL_CAPACITY];
+    private int[] fLogQuarks = new int[INITIAL_CAPACITY];
+    private int[] fResourceQuarks = new int[INITIAL_CAPACITY];
+    private byte[] fFlags = new byte[INITIAL_CAPACITY];
+
+    private final List<String> fStrings = new ArrayList<>();
+    private final Map<String, Integer> fStringIds = new HashMap<>();
+
+    /**
+     * Constructor
+     */
+    public SpanMetadataTable() {
+        Arrays.fill(fLogQuarks, ITmfStateSystem.INVALID_ATTRIBUTE);
+        Arrays.fill(fResourceQuarks, ITmfStateSystem.INVALID_ATTRIBUTE);
+    }
+
+    /**
+     * Add a span to the table
+     *
+     * @param quark
+     *            the quark of the span
+     * @param spanId
+     *            the span id
+     * @param processName
+     *            the name of the process of the span
+     * @param hasError
+     *            whether the span has an error status
+     */
+    public synchronized void addSpan(int quark, long spanId, String processName, boolean hasError) {
+        ensureCapacity(quark);
+        fSpanIds[quark] = spanId;
+        fProcessNames[quark] = intern(processName);
+        fFlags[quark] = (byte) (PRESENT | (hasError ? ERROR : 0));
+    }
+
+    /**
+     * Set the quark of the logs of a span
+     *
+     * @param quark
+     *            the quark of the span
+     * @param logQuark
+     *            the quark of the logs of the span
+     */
+    public synchronized void setLogQuark(int quark, int logQuark) {
+        ensureCapacity(quark);
+        fLogQuarks[quark] = logQuark;
+    }
+
+    /**
+     * Set the quark of the resource of a span
+     *
+     * @param quark
+     *            the quark of the span
+     * @param resourceQuark
+     *            the quark of the resource of the span
+     */
+    public synchronized void setResourceQuark(int quark, int resourceQuark) {
+        ensureCapacity(quark);
+        fResourceQuarks[quark] = resourceQuark;
+    }
+
+    /**
+     * Add the spans of another table, with their quarks mapped to the quarks
+     * of this table
+     *
+     * @param other
+     *            the table to copy
+     * @param quarkMapper
+     *            function mapping the quarks of the other table to the quarks
+     *            of this table
+     */
+    public synchronized void addAll(SpanMetadataTable other, IntUnaryOperator quarkMapper) {
+        synchronized (other) {
+            for (int quark = 0; quark < other.fFlags.length; quark++) {
+                if ((other.fFlags[quark] & PRESENT) == 0) {
+                    continue;
+                }
+                int mapped = quarkMapper.applyAsInt(quark);
+                ensureCapacity(mapped);
+                fSpanIds[mapped] = other.fSpanIds[quark];
+                fProcessNames[mapped] = intern(other.fStrings.get(other.fProcessNames[quark]));
+                fFlags[mapped] = other.fFlags[quark];
+                int logQuark = other.fLogQuarks[quark];
+                fLogQuarks[mapped] = logQuark == ITmfStateSystem.INVALID_ATTRIBUTE ? logQuark : quarkMapper.applyAsInt(logQuark);
+                int resourceQuark = other.fResourceQuarks[quark];
+                fResourceQuarks[mapped] = resourceQuark == ITmfStateSystem.INVALID_ATTRIBUTE ? resourceQuark : quarkMapper.applyAsInt(resourceQuark);
+            }
+        }
+    }
+
+    /**
+     * Whether a quark is a span of the table
+     *
+     * @param quark
+     *            the quark
+     * @return true if the quark is a span of the table
+     */
+    public synchronized boolean contains(int quark) {
+        return quark >= 0 && quark < fFlags.length && (fFlags[quark] & PRESENT) != 0;
+    }
+
+    /**
+     * Get the id of a span
+     *
+     * @param quark
+     *            the quark of the span
+     * @return the span id, or 0 if the span is not in the table
+     */
+    public synchronized long getSpanId(int quark) {
+        return contains(quark) ? fSpanIds[quark] : 0L;
+    }
+
+    /**
+     * Get the process name of a span
+     *
+     * @param quark
+     *            the quark of the span
+     * @return the process name, or an empty string if the span is not in the
+     *         table
+     */
+    public synchronized String getProcessName(int quark) {
+        return contains(quark) ? fStrings.get(fProcessNames[quark]) : ""; //$NON-NLS-1$
+    }
+
+    /**
+     * Whether a span has an error status
+     *
+     * @param quark
+     *            the quark of the span
+     * @return true if the span has an error status
+     */
+    public synchronized boolean hasError(int quark) {
+        return contains(quark) && (fFlags[quark] & ERROR) != 0;
+    }
+
+    /**
+     * Get the quark of the logs of a span
+     *
+     * @param quark
+     *            the quark of the span
+     * @return the quark of the logs, or
+     *         {@link ITmfStateSystem#INVALID_ATTRIBUTE} if the span has no logs
+     */
+    public synchronized int getLogQuark(int quark) {
+        return quark >= 0 && quark < fLogQuarks.length ? fLogQuarks[quark] : ITmfStateSystem.INVALID_ATTRIBUTE;
+    }
+
+    /**
+     * Get the quark of the resource of a span
+     *
+     * @param quark
+     *            the quark of the span
+     * @return the quark of the resource, or
+     *         {@link ITmfStateSystem#INVALID_ATTRIBUTE} if the span has no
+     *         resource
+     */
+    public synchronized int getResourceQuark(int quark) {
+        return quark >= 0 && quark < fResourceQuarks.length ? fResourceQuarks[quark] : ITmfStateSystem.INVALID_ATTRIBUTE;
+    }
+
+    /**
+     * Write the table to a file
+     *
+     * @param file
+     *            the file to write
+     * @param version
+     *            the version of the state provider that filled the table
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public synchronized void writeTo(File file, int version) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            out.writeInt(fStrings.size());
+            for (String string : fStrings) {
+                out.writeUTF(string);
+            }
+            int length = fFlags.length;
+            while (length > 0 && fFlags[length - 1] == 0 && fLogQuarks[length - 1] == ITmfStateSystem.INVALID_ATTRIBUTE && fResourceQuarks[length - 1] == ITmfStateSystem.INVALID_ATTRIBUTE) {
+                length--;
+            }
+            out.writeInt(length);
+            for (int quark = 0; quark < length; quark++) {
+                out.writeByte(fFlags[quark]);
+                out.writeLong(fSpanIds[quark]);
+                out.writeInt(fProcessNames[quark]);
+                out.writeInt(fLogQuarks[quark]);
+                out.writeInt(fResourceQuarks[quark]);
+            }
+        }
+    }
+
+    /**
+     * Read a table from a file
+     *
+     * @param file
+     *            the file to read
+     * @param version
+     *            the expected version of the state provider
+     * @return the table, or null if the file does not exist or was written by
+     *         another version
+     */
+    public static @Nullable SpanMetadataTable readFrom(File file, int version) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != version) {
+                return null;
+            }
+            SpanMetadataTable table = new SpanMetadataTable();
+            int nbStrings = in.readInt();
+            for (int i = 0; i < nbStrings; i++) {
+                table.intern(in.readUTF());
+            }
+            int length = in.readInt();
+            table.ensureCapacity(length - 1);
+            for (int quark = 0; quark < length; quark++) {
+                table.fFlags[quark] = in.readByte();
+                table.fSpanIds[quark] = in.readLong();
+                table.fProcessNames[quark] = in.readInt();
+                table.fLogQuarks[quark] = in.readInt();
+                table.fResourceQuarks[quark] = in.readInt();
+                if (table.fProcessNames[quark] < 0 || table.fProcessNames[quark] >= Math.max(1, nbStrings)) {
+                    return null;
+                }
+            }
+            return table;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private int intern(String string) {
+        Integer id = fStringIds.get(string);
+        if (id == null) {
+            id = fStrings.size();
+            fStrings.add(string);
+            fStringIds.put(string, id);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int quark) {
+        if (quark < fFlags.length) {
+            return;
+        }
+        int oldCapacity = fFlags.length;
+        int capacity = Math.max(oldCapacity * 2, quark + 1);
+        fSpanIds = Arrays.copyOf(fSpanIds, capacity);
+        fProcessNames = Arrays.copyOf(fProcessNames, capacity);
+        fLogQuarks = Arrays.copyOf(fLogQuarks, capacity);
+        fResourceQuarks = Arrays.copyOf(fResourceQuarks, capacity);
+        fFlags = Arrays.copyOf(fFlags, capacity);
+        Arrays.fill(fLogQuarks, oldCapacity, capacity, ITmfStateSystem.INVALID_ATTRIBUTE);
+        Arrays.fill(fResourceQuarks, oldCapacity, capacity, ITmfStateSystem.INVALID_ATTRIBUTE);
+    }
+
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.analysis.spanlife;
+
+import java.util.Arrays;
+
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+
+/**
+ * Map of span ids to quarks, with primitive keys and values.
+ * <p>
+ * The entries are stored in two arrays with open addressing and linear
+ * probing, so that a lookup does not box the key nor allocate.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class SpanQuarkMap {
+
+    /**
+     * Value returned when a span id is not in the map
+     */
+    public static final int NO_QUARK = ITmfStateSystem.INVALID_ATTRIBUTE;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] fKeys;
+    private int[] fValues;
+    private int fSize = 0;
+    private int fThreshold;
+
+    /**
+     * Constructor
+     */
+    public SpanQuarkMap() {
+        fKeys = new long[INITIAL_CAPACITY];
+        fValues = new int[INITIAL_CAPACITY];
+        Arrays.fill(fValues, NO_QUARK);
+        fThreshold = (int) (INITIAL_CAPACITY * LOAD_FACTOR);
+    }
+
+    /**
+     * Get the quark of a span
+     *
+     * @param spanId
+     *            the span id
+     * @return the quark, or {@link #NO_QUARK} if the span is not in the map
+     */
+    public int get(long spanId) {
+        int mask = fKeys.length - 1;
+        for (int i = index(spanId, mask); fValues[i] != NO_QUARK; i = (i + 1) & mask) {
+            if (fKeys[i] == spanId) {
+                return fValues[i];
+            }
+        }
+        return NO_QUARK;
+    }
+
+    /**
+     * Set the quark of a span
+     *
+     * @param spanId
+     *            the span id
+     * @param quark
+     *            the quark of the span, must be a valid quark
+     */
+    public void put(long spanId, int quark) {
+        if (quark == NO_QUARK) {
+            throw new IllegalArgumentException("Invalid quark for span " + spanId); //$NON-NLS-1$
+        }
+        int mask = fKeys.length - 1;
+        int i = index(spanId, mask);
+        while (fValues[i] != NO_QUARK) {
+            if (fKeys[i] == spanId) {
+                fValues[i] = quark;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        fKeys[i] = spanId;
+        fValues[i] = quark;
+        fSize++;
+        if (fSize > fThreshold) {
+            resize(fKeys.length * 2);
+        }
+    }
+
+    /**
+     * Remove a span from the map
+     *
+     * @param spanId
+     *            the span id
+     * @return the quark of the span, or {@link #NO_QUARK} if the span was not
+     *         in the map
+     */
+    public int remove(long spanId) {
+        int mask = fKeys.length - 1;
+        int i = index(spanId, mask);
+        while (fValues[i] != NO_QUARK) {
+            if (fKeys[i] == spanId) {
+                int quark = fValues[i];
+                shiftBack(i, mask);
+                fSize--;
+                return quark;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_QUARK;
+    }
+
+    /**
+     * @return the number of spans in the map
+     */
+    public int size() {
+        return fSize;
+    }
+
+    /**
+     * Remove all the spans from the map
+     */
+    public void clear() {
+        Arrays.fill(fValues, NO_QUARK);
+        fSize = 0;
+    }
+
+    /**
+     * Fill the hole left at a removed slot with the following entries of its
+     * probe sequence, so that lookups do not stop at the hole
+     */
+    private void shiftBack(int removed, int mask) {
+        int hole = removed;
+        int i = (hole + 1) & mask;
+        while (fValues[i] != NO_QUARK) {
+            int home = index(fKeys[i], mask);
+            // Move the entry if the hole is between its home slot and its slot
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                fKeys[hole] = fKeys[i];
+                fValues[hole] = fValues[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        fValues[hole] = NO_QUARK;
+    }
+
+    private void resize(int capacity) {
+        long[] keys = fKeys;
+        int[] values = fValues;
+        fKeys = new long[capacity];
+        fValues = new int[capacity];
+        Arrays.fill(fValues, NO_QUARK);
+        fThreshold = (int) (capacity * LOAD_FACTOR);
+        int mask = capacity - 1;
+        for (int j = 0; j < keys.length; j++) {
+            if (values[j] != NO_QUARK) {
+                int i = index(keys[j], mask);
+                while (fValues[i] != NO_QUARK) {
+                    i = (i + 1) & mask;
+                }
+                fKeys[i] = keys[j];
+                fValues[i] = values[j];
+            }
+        }
+    }
+
+    private static int index(long key, int mask) {
+        // Finalizer of MurmurHash3, the span ids may not be uniformly random
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+}
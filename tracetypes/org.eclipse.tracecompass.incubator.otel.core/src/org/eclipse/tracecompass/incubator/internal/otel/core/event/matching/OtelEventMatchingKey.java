@@ -13,36 +13,35 @@ package org.eclipse.tracecompass.incubator.internal.otel.core.event.matching;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelEventType;
+import org.eclipse.tracecompass.incubator.internal.otel.core.trace.OtelIds;
 import org.eclipse.tracecompass.tmf.core.event.matching.IEventMatchingKey;
 
-import com.google.common.base.Preconditions;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
 import com.google.protobuf.ByteString;
 
 class OtelEventMatchingKey implements IEventMatchingKey {
 
-    private static final HashFunction HF = Preconditions.checkNotNull(Hashing.goodFastHash(32));
     private final OtelEventType fOtelEventType;
-    private final String fOtelTraceId;
-    private final String fOtelSpanId;
+    private final long fOtelTraceIdHigh;
+    private final long fOtelTraceIdLow;
+    private final long fOtelSpanId;
 
     public OtelEventMatchingKey(
             OtelEventType otelEventType,
             ByteString otelTraceId,
             ByteString otelSpanId) {
         fOtelEventType = otelEventType;
-        fOtelTraceId = byteArrayToHexString(otelTraceId);
-        fOtelSpanId = byteArrayToHexString(otelSpanId);
+        fOtelTraceIdHigh = OtelIds.getTraceIdHigh(otelTraceId);
+        fOtelTraceIdLow = OtelIds.getTraceIdLow(otelTraceId);
+        fOtelSpanId = OtelIds.getSpanId(otelSpanId);
     }
 
     @Override
     public int hashCode() {
-        return HF.newHasher()
-                .putInt(fOtelEventType.hashCode())
-                .putInt(fOtelTraceId.hashCode())
-                .putInt(fOtelSpanId.hashCode())
-                .hash().asInt();
+        int result = fOtelEventType.hashCode();
+        result = 31 * result + Long.hashCode(fOtelTraceIdHigh);
+        result = 31 * result + Long.hashCode(fOtelTraceIdLow);
+        result = 31 * result + Long.hashCode(fOtelSpanId);
+        return result;
     }
 
     @Override
@@ -54,18 +53,16 @@ class OtelEventMatchingKey implements IEventMatchingKey {
              * using the trace ID and the parent
              */
             return (fOtelEventType.equals(key.fOtelEventType)
-                    && fOtelTraceId.equals(key.fOtelTraceId)
-                    && fOtelSpanId.equals(key.fOtelSpanId));
+                    && fOtelTraceIdHigh == key.fOtelTraceIdHigh
+                    && fOtelTraceIdLow == key.fOtelTraceIdLow
+                    && fOtelSpanId == key.fOtelSpanId);
         }
         return false;
     }
 
-    public static String byteArrayToHexString(ByteString byteString) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : byteString.toByteArray()) {
-            sb.append(String.format("%02X", b)); //$NON-NLS-1$
-        }
-        return sb.toString();
+    @Override
+    public String toString() {
+        return fOtelEventType + "/" + OtelIds.toHexString(fOtelTraceIdHigh, fOtelTraceIdLow) + "/" + OtelIds.toHexString(fOtelSpanId); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 }
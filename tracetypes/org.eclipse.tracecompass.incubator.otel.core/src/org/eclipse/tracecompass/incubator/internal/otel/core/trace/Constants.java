@@ -44,6 +44,12 @@ public class Constants {
      */
     public static final String RESOURCE_METRICS_FIELD_FULL_NAME = PROVIDER_NAME + RESOURCE_METRICS;
 
+    /**
+     * Service name of the resources without a service.name attribute, as
+     * specified by the OpenTelemetry semantic conventions
+     */
+    public static final String UNKNOWN_SERVICE = "unknown_service"; //$NON-NLS-1$
+
     /**
      * All constants related to start_span event
      */
@@ -89,4 +95,84 @@ public class Constants {
 
     }
 
+    /**
+     * All constants related to metric events
+     */
+    public class MetricEvents {
+
+        /**
+         * metric event EventType id
+         */
+        public static final String METRIC_EVENT_TYPE_ID = "metric"; //$NON-NLS-1$
+
+        /**
+         * Type of a gauge metric
+         */
+        public static final String GAUGE = "gauge"; //$NON-NLS-1$
+
+        /**
+         * Type of a sum metric
+         */
+        public static final String SUM = "sum"; //$NON-NLS-1$
+
+        /**
+         * Type of a histogram metric
+         */
+        public static final String HISTOGRAM = "histogram"; //$NON-NLS-1$
+
+        /**
+         * Type of a summary metric
+         */
+        public static final String SUMMARY = "summary"; //$NON-NLS-1$
+
+        /**
+         * All metric event fields constants
+         */
+        public class Fields {
+
+            /**
+             * resource field
+             */
+            public static final String RESOURCE = "resource"; //$NON-NLS-1$
+            /**
+             * instrumentation_library field
+             */
+            public static final String INSTRUMENTATION_LIBRARY = "instrumentation_library"; //$NON-NLS-1$
+            /**
+             * Name of the metric
+             */
+            public static final String NAME = "name"; //$NON-NLS-1$
+            /**
+             * Unit of the metric
+             */
+            public static final String UNIT = "unit"; //$NON-NLS-1$
+            /**
+             * Type of the metric, one of {@link MetricEvents#GAUGE},
+             * {@link MetricEvents#SUM}, {@link MetricEvents#HISTOGRAM} or
+             * {@link MetricEvents#SUMMARY}
+             */
+            public static final String TYPE = "type"; //$NON-NLS-1$
+            /**
+             * Attributes of the data point, formatted as a comma separated
+             * list of key=value
+             */
+            public static final String ATTRIBUTES = "attributes"; //$NON-NLS-1$
+            /**
+             * Value of the data point. For histograms and summaries, this is
+             * the mean of the data point
+             */
+            public static final String VALUE = "value"; //$NON-NLS-1$
+            /**
+             * Number of values in a histogram or summary data point
+             */
+            public static final String COUNT = "count"; //$NON-NLS-1$
+            /**
+             * Sum of the values in a histogram or summary data point
+             */
+            public static final String SUM = "sum"; //$NON-NLS-1$
+
+        }
+
+    }
+
 }
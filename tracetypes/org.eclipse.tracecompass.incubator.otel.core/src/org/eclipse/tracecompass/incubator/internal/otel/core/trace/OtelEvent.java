@@ -12,30 +12,52 @@
 
 package org.eclipse.tracecompass.incubator.internal.otel.core.trace;
 
+import java.lang.ref.SoftReference;
+import java.util.Objects;
+
 import org.apache.commons.lang3.tuple.Pair;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventType;
 import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
 import com.google.protobuf.ByteString;
 
+import io.opentelemetry.proto.common.v1.InstrumentationLibrary;
+import io.opentelemetry.proto.common.v1.KeyValue;
 import io.opentelemetry.proto.metrics.v1.ResourceMetrics;
+import io.opentelemetry.proto.resource.v1.Resource;
 import io.opentelemetry.proto.trace.v1.InstrumentationLibrarySpans;
 import io.opentelemetry.proto.trace.v1.ResourceSpans;
 import io.opentelemetry.proto.trace.v1.Span;
+import io.opentelemetry.semconv.resource.attributes.ResourceAttributes;
 
 /**
  * Event type for use in OpenTelemetry traces.
+ * <p>
+ * The event only keeps the id of its scope in the {@link OtelResourceTable} of
+ * the trace and a handle to its span. The content fields are built the first
+ * time {@link #getContent()} is called and then cached.
  *
  * @author Eya-Tom Augustin SANGAM
  */
 public class OtelEvent extends TmfEvent {
 
     private final OtelEventType fOtelEventType;
+    private final int fScopeId;
+    private final @Nullable OtelSpanHandle fSpanHandle;
+    /*
+     * The content holds the decoded span, it is softly referenced like the
+     * decoded span of the handle
+     */
+    private volatile @Nullable SoftReference<ITmfEventField> fContent = null;
 
     /**
      * Default constructor. Only for use by extension points, should not be
@@ -44,6 +66,8 @@ public class OtelEvent extends TmfEvent {
     public OtelEvent() {
         super();
         fOtelEventType = null;
+        fScopeId = -1;
+        fSpanHandle = null;
     }
 
     /**
@@ -58,20 +82,90 @@ public class OtelEvent extends TmfEvent {
      *            the timestamp of the event
      * @param type
      *            the event type
-     * @param content
-     *            the event content (payload)
      * @param otelEventType
      *            the Otel event type
+     * @param scopeId
+     *            the id of the scope of the span in the resource table of the
+     *            trace
+     * @param spanHandle
+     *            the handle to the span
+     */
+    protected OtelEvent(
+            OtelTrace trace,
+            long rank,
+            @NonNull ITmfTimestamp timestamp,
+            ITmfEventType type,
+            OtelEventType otelEventType,
+            int scopeId,
+            OtelSpanHandle spanHandle) {
+        super(trace, rank, timestamp, type, null);
+        fOtelEventType = otelEventType;
+        fScopeId = scopeId;
+        fSpanHandle = spanHandle;
+    }
+
+    /**
+     * Constructor for events whose content is built eagerly, such as metric
+     * events
+     *
+     * @param trace
+     *            the parent trace
+     * @param rank
+     *            the event rank (in the trace). You can use
+     *            {@link ITmfContext#UNKNOWN_RANK} as default value
+     * @param timestamp
+     *            the timestamp of the event
+     * @param type
+     *            the event type
+     * @param otelEventType
+     *            the Otel event type
+     * @param scopeId
+     *            the id of the scope of the event in the resource table of the
+     *            trace
+     * @param content
+     *            the content of the event
      */
     protected OtelEvent(
             OtelTrace trace,
             long rank,
             @NonNull ITmfTimestamp timestamp,
             ITmfEventType type,
-            ITmfEventField content,
-            OtelEventType otelEventType) {
+            OtelEventType otelEventType,
+            int scopeId,
+            ITmfEventField content) {
         super(trace, rank, timestamp, type, content);
         fOtelEventType = otelEventType;
+        fScopeId = scopeId;
+        fSpanHandle = null;
+    }
+
+    @Override
+    public ITmfEventField getContent() {
+        OtelSpanHandle spanHandle = fSpanHandle;
+        OtelResourceTable resourceTable = spanHandle != null ? getResourceTable() : null;
+        if (resourceTable == null || spanHandle == null) {
+            return super.getContent();
+        }
+        SoftReference<ITmfEventField> contentRef = fContent;
+        ITmfEventField content = contentRef != null ? contentRef.get() : null;
+        if (content == null) {
+            content = buildContent(resourceTable, spanHandle);
+            fContent = new SoftReference<>(content);
+        }
+        return content;
+    }
+
+    private ITmfEventField buildContent(OtelResourceTable resourceTable, OtelSpanHandle spanHandle) {
+        return new TmfEventField(
+                ITmfEventField.ROOT_FIELD_ID,
+                null,
+                new TmfEventField[] {
+                        new TmfEventField(Constants.SpanEvents.Fields.RESOURCE, resourceTable.getResource(fScopeId), null),
+                        new TmfEventField(Constants.SpanEvents.Fields.RESOURCE_SCHEMA_URL, resourceTable.getResourceSchemaUrl(fScopeId), null),
+                        new TmfEventField(Constants.SpanEvents.Fields.INSTRUMENTATION_LIBRARY, resourceTable.getInstrumentationLibrary(fScopeId), null),
+                        new TmfEventField(Constants.SpanEvents.Fields.INSTRUMENTATION_LIBRARY_SCHEMA_URL, resourceTable.getInstrumentationLibrarySchemaUrl(fScopeId), null),
+                        new TmfEventField(Constants.SpanEvents.Fields.SPAN, spanHandle.getSpan(), null),
+                });
     }
 
     /**
@@ -100,7 +194,10 @@ public class OtelEvent extends TmfEvent {
             }
         }
         if (resourceMetrics != null) {
-            // TODO : Read metrics timestamp
+            for (long timestamp : MetricEvent.getTimestamps(resourceMetrics)) {
+                start = Math.min(start, timestamp);
+                end = Math.max(end, timestamp);
+            }
         }
         if (end == Long.MIN_VALUE) {
             end = ctfEventTimestamp.toNanos();
@@ -116,12 +213,58 @@ public class OtelEvent extends TmfEvent {
     }
 
     /**
-     * @return The Otel trace id of the span
+     * @return The span of the event, or null if the event is not a span event
      */
-    public ByteString getOtelTraceId() {
+    public @Nullable Span getSpan() {
+        OtelSpanHandle spanHandle = fSpanHandle;
+        if (spanHandle != null) {
+            return spanHandle.getSpan();
+        }
         ITmfEventField field = getContent().getField(Constants.SpanEvents.Fields.SPAN);
         if (field != null) {
-            Span span = (Span) field.getValue();
+            return (Span) field.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * @return The resource of the span or metric, or null if the event has no
+     *         resource
+     */
+    public @Nullable Resource getResource() {
+        OtelResourceTable resourceTable = fSpanHandle != null ? getResourceTable() : null;
+        if (resourceTable != null) {
+            return resourceTable.getResource(fScopeId);
+        }
+        ITmfEventField field = getContent().getField(Constants.SpanEvents.Fields.RESOURCE);
+        if (field != null) {
+            return (Resource) field.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * @return The instrumentation library of the span or metric, or null if
+     *         the event has no instrumentation library
+     */
+    public @Nullable InstrumentationLibrary getInstrumentationLibrary() {
+        OtelResourceTable resourceTable = fSpanHandle != null ? getResourceTable() : null;
+        if (resourceTable != null) {
+            return resourceTable.getInstrumentationLibrary(fScopeId);
+        }
+        ITmfEventField field = getContent().getField(Constants.SpanEvents.Fields.INSTRUMENTATION_LIBRARY);
+        if (field != null) {
+            return (InstrumentationLibrary) field.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * @return The Otel trace id of the span
+     */
+    public ByteString getOtelTraceId() {
+        Span span = getSpan();
+        if (span != null) {
             return span.getTraceId();
         }
         return null;
@@ -131,9 +274,8 @@ public class OtelEvent extends TmfEvent {
      * @return The Otel span id of the span
      */
     public ByteString getOtelSpanId() {
-        ITmfEventField field = getContent().getField(Constants.SpanEvents.Fields.SPAN);
-        if (field != null) {
-            Span span = (Span) field.getValue();
+        Span span = getSpan();
+        if (span != null) {
             return span.getSpanId();
         }
         return null;
@@ -143,12 +285,103 @@ public class OtelEvent extends TmfEvent {
      * @return The Otel parent span id of the span
      */
     public ByteString getOtelParentSpanId() {
-        ITmfEventField field = getContent().getField(Constants.SpanEvents.Fields.SPAN);
-        if (field != null) {
-            Span span = (Span) field.getValue();
+        Span span = getSpan();
+        if (span != null) {
             return span.getParentSpanId();
         }
         return null;
     }
 
+    /**
+     * Get the span of a span event. The content of an {@link OtelEvent} is not
+     * built, the span is read from its handle.
+     *
+     * @param event
+     *            the span event
+     * @return the span
+     */
+    public static Span getEventSpan(ITmfEvent event) {
+        if (event instanceof OtelEvent) {
+            return Objects.requireNonNull(((OtelEvent) event).getSpan());
+        }
+        return (Span) event.getContent().getField(Constants.SpanEvents.Fields.SPAN).getValue();
+    }
+
+    /**
+     * Get the trace id of a span event. The span of an {@link OtelEvent} kept
+     * serialized is not decoded, only its trace id is read.
+     *
+     * @param event
+     *            the span event
+     * @return the trace id of the span
+     */
+    public static ByteString getEventTraceId(ITmfEvent event) {
+        if (event instanceof OtelEvent) {
+            OtelSpanHandle spanHandle = ((OtelEvent) event).fSpanHandle;
+            if (spanHandle != null) {
+                return spanHandle.getTraceId();
+            }
+        }
+        return getEventSpan(event).getTraceId();
+    }
+
+    /**
+     * Get the resource of a span event. The content of an {@link OtelEvent} is
+     * not built, the resource is read from the resource table of the trace.
+     *
+     * @param event
+     *            the span event
+     * @return the resource of the span
+     */
+    public static Resource getEventResource(ITmfEvent event) {
+        if (event instanceof OtelEvent) {
+            return Objects.requireNonNull(((OtelEvent) event).getResource());
+        }
+        return (Resource) event.getContent().getField(Constants.SpanEvents.Fields.RESOURCE).getValue();
+    }
+
+    /**
+     * Get the service name of a resource
+     *
+     * @param resource
+     *            the resource, may be null
+     * @return the value of the service.name attribute of the resource, or
+     *         {@link Constants#UNKNOWN_SERVICE} if it has none
+     */
+    public static String getServiceName(@Nullable Resource resource) {
+        if (resource != null) {
+            for (KeyValue attr : resource.getAttributesList()) {
+                if (attr.getKey().equals(ResourceAttributes.SERVICE_NAME.getKey())) {
+                    String serviceName = attr.getValue().getStringValue();
+                    return serviceName.isEmpty() ? Constants.UNKNOWN_SERVICE : serviceName;
+                }
+            }
+        }
+        return Constants.UNKNOWN_SERVICE;
+    }
+
+    private @Nullable OtelResourceTable getResourceTable() {
+        ITmfTrace trace = getTrace();
+        if (trace instanceof OtelTrace) {
+            return ((OtelTrace) trace).getResourceTable();
+        }
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), fOtelEventType, fScopeId, fSpanHandle);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (!super.equals(obj) || !(obj instanceof OtelEvent)) {
+            return false;
+        }
+        OtelEvent other = (OtelEvent) obj;
+        return fOtelEventType == other.fOtelEventType
+                && fScopeId == other.fScopeId
+                && Objects.equals(fSpanHandle, other.fSpanHandle);
+    }
+
 }
@@ -26,5 +26,10 @@ public enum OtelEventType {
     /**
      * Event corresponding to the end of a span
      */
-    END_SPAN
+    END_SPAN,
+
+    /**
+     * Event corresponding to a data point of a metric
+     */
+    METRIC
 }
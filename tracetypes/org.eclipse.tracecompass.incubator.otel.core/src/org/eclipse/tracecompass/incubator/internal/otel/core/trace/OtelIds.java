@@ -0,0 +1,145 @@
+/**********************************************************************
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.trace;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Conversions of the OpenTelemetry trace and span ids to fixed-width binary
+ * values.
+ * <p>
+ * A trace id is 16 bytes, it is read as two longs, the high long being its
+ * first 8 bytes. A span id is 8 bytes, it is read as one long. The bytes are
+ * read in big-endian order, so the hexadecimal string of the longs is the
+ * hexadecimal string of the id. Ids are only converted to strings when they
+ * are displayed.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class OtelIds {
+
+    private static final int LONG_BYTES = Long.BYTES;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+    private OtelIds() {
+        // Do nothing
+    }
+
+    /**
+     * Get the high 64 bits of a trace id
+     *
+     * @param traceId
+     *            the 16 bytes trace id
+     * @return the first 8 bytes of the id, as a long
+     */
+    public static long getTraceIdHigh(ByteString traceId) {
+        return toLong(traceId, 0, traceId.size() - LONG_BYTES);
+    }
+
+    /**
+     * Get the low 64 bits of a trace id
+     *
+     * @param traceId
+     *            the 16 bytes trace id
+     * @return the last 8 bytes of the id, as a long
+     */
+    public static long getTraceIdLow(ByteString traceId) {
+        return toLong(traceId, Math.max(0, traceId.size() - LONG_BYTES), traceId.size());
+    }
+
+    /**
+     * Get a span id as a long
+     *
+     * @param spanId
+     *            the 8 bytes span id
+     * @return the span id, as a long. An empty span id is 0.
+     */
+    public static long getSpanId(ByteString spanId) {
+        return toLong(spanId, 0, spanId.size());
+    }
+
+    /**
+     * Get the hexadecimal string of a span id
+     *
+     * @param spanId
+     *            the span id, as a long
+     * @return the 16 characters lower case hexadecimal string of the id
+     */
+    public static String toHexString(long spanId) {
+        char[] chars = new char[2 * LONG_BYTES];
+        appendHex(chars, 0, spanId);
+        return new String(chars);
+    }
+
+    /**
+     * Get the hexadecimal string of a trace id
+     *
+     * @param traceIdHigh
+     *            the high 64 bits of the trace id
+     * @param traceIdLow
+     *            the low 64 bits of the trace id
+     * @return the 32 characters lower case hexadecimal string of the id
+     */
+    public static String toHexString(long traceIdHigh, long traceIdLow) {
+        char[] chars = new char[4 * LONG_BYTES];
+        appendHex(chars, 0, traceIdHigh);
+        appendHex(chars, 2 * LONG_BYTES, traceIdLow);
+        return new String(chars);
+    }
+
+    /**
+     * Get the high 64 bits of a trace id from its hexadecimal string
+     *
+     * @param traceIdHex
+     *            the hexadecimal string of the trace id, up to 32 characters
+     * @return the high 64 bits of the trace id
+     * @throws NumberFormatException
+     *             if the string is not a hexadecimal trace id
+     */
+    public static long parseTraceIdHigh(String traceIdHex) {
+        int split = traceIdHex.length() - 2 * LONG_BYTES;
+        return split <= 0 ? 0L : Long.parseUnsignedLong(traceIdHex.substring(0, split), 16);
+    }
+
+    /**
+     * Get the low 64 bits of a trace id from its hexadecimal string
+     *
+     * @param traceIdHex
+     *            the hexadecimal string of the trace id, up to 32 characters
+     * @return the low 64 bits of the trace id
+     * @throws NumberFormatException
+     *             if the string is not a hexadecimal trace id
+     */
+    public static long parseTraceIdLow(String traceIdHex) {
+        return Long.parseUnsignedLong(traceIdHex.substring(Math.max(0, traceIdHex.length() - 2 * LONG_BYTES)), 16);
+    }
+
+    private static void appendHex(char[] chars, int offset, long value) {
+        for (int i = 0; i < 2 * LONG_BYTES; i++) {
+            int shift = (2 * LONG_BYTES - 1 - i) * 4;
+            chars[offset + i] = HEX_DIGITS[(int) (value >>> shift) & 0xf];
+        }
+    }
+
+    /**
+     * Read the bytes [from, to) in big-endian order. Ids longer than 8 bytes
+     * keep their last 8 bytes.
+     */
+    private static long toLong(ByteString bytes, int from, int to) {
+        long value = 0;
+        for (int i = Math.max(0, from); i < to; i++) {
+            value = (value << 8) | (bytes.byteAt(i) & 0xffL);
+        }
+        return value;
+    }
+
+}
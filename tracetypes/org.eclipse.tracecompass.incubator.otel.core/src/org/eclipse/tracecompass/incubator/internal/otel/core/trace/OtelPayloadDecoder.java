@@ -0,0 +1,120 @@
+/**********************************************************************
+
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.trace;
+
+import java.io.IOException;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.protobuf.CodedInputStream;
+
+import io.opentelemetry.proto.metrics.v1.ResourceMetrics;
+import io.opentelemetry.proto.trace.v1.ResourceSpans;
+
+/**
+ * Decoder of the protobuf payloads of the OpenTelemetry LTTng UST events.
+ * <p>
+ * The payloads are CTF sequences of bytes, that the CTF parser gives as arrays
+ * of longs. Instead of copying every payload to a new byte array before
+ * parsing it, the decoder narrows the values in a buffer that is reused from
+ * one payload to the next and parses the message from a
+ * {@link CodedInputStream} over that buffer. The bytes fields of the messages
+ * are copied by the protobuf parser, so the decoded messages do not share the
+ * buffer.
+ * <p>
+ * This class is not thread safe, each thread should use its own decoder.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelPayloadDecoder {
+
+    private static final int INITIAL_BUFFER_SIZE = 1 << 12;
+
+    /**
+     * Buffers larger than this are not kept after decoding, so that a single
+     * huge payload does not pin memory for the life of the trace
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 24;
+
+    private byte[] fBuffer = new byte[INITIAL_BUFFER_SIZE];
+
+    /**
+     * Decode resource spans
+     *
+     * @param values
+     *            the bytes of the payload, as given by the CTF sequence field
+     * @return the resource spans, or null if the payload could not be decoded
+     */
+    public @Nullable ResourceSpans parseResourceSpans(long[] values) {
+        try {
+            return ResourceSpans.parseFrom(newInput(values));
+        } catch (IOException e) {
+            return null;
+        } finally {
+            releaseBuffer();
+        }
+    }
+
+    /**
+     * Decode resource metrics
+     *
+     * @param values
+     *            the bytes of the payload, as given by the CTF sequence field
+     * @return the resource metrics, or null if the payload could not be
+     *         decoded
+     */
+    public @Nullable ResourceMetrics parseResourceMetrics(long[] values) {
+        try {
+            return ResourceMetrics.parseFrom(newInput(values));
+        } catch (IOException e) {
+            return null;
+        } finally {
+            releaseBuffer();
+        }
+    }
+
+    /**
+     * Copy the values of a CTF sequence of bytes to a new byte array. This is
+     * what the decoder avoids for each payload.
+     *
+     * @param values
+     *            the bytes of the payload, as given by the CTF sequence field
+     * @return a new byte array with the payload
+     */
+    public static byte[] toByteArray(long[] values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private CodedInputStream newInput(long[] values) {
+        byte[] buffer = fBuffer;
+        if (buffer.length < values.length) {
+            buffer = new byte[Math.max(values.length, buffer.length * 2)];
+            fBuffer = buffer;
+        }
+        for (int i = 0; i < values.length; i++) {
+            buffer[i] = (byte) values[i];
+        }
+        return CodedInputStream.newInstance(buffer, 0, values.length);
+    }
+
+    private void releaseBuffer() {
+        if (fBuffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            fBuffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+    }
+
+}
@@ -0,0 +1,240 @@
+/**********************************************************************
+
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.trace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import io.opentelemetry.proto.common.v1.InstrumentationLibrary;
+import io.opentelemetry.proto.resource.v1.Resource;
+
+/**
+ * Per-trace dictionary of the resources and instrumentation libraries of the
+ * spans. The protobuf messages are compared by content, so all the spans of a
+ * same resource share a single {@link Resource} instance, and the events only
+ * keep the id of their scope (resource, instrumentation library and their
+ * schema URLs).
+ * <p>
+ * The table can be saved next to the span index of a trace, so that the scope
+ * ids stored in the index are still valid when the trace is reopened.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class OtelResourceTable {
+
+    private static final int MAGIC = 0x4f545343; // "OTSC"
+    private static final String TMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
+    private final Map<Resource, Resource> fResources = new HashMap<>();
+    private final Map<InstrumentationLibrary, InstrumentationLibrary> fInstrumentationLibraries = new HashMap<>();
+    private final Map<Scope, Integer> fScopeIds = new HashMap<>();
+    private final List<Scope> fScopes = new ArrayList<>();
+
+    private static final class Scope {
+        private final Resource fResource;
+        private final String fResourceSchemaUrl;
+        private final InstrumentationLibrary fInstrumentationLibrary;
+        private final String fInstrumentationLibrarySchemaUrl;
+
+        public Scope(Resource resource, String resourceSchemaUrl, InstrumentationLibrary instrumentationLibrary, String instrumentationLibrarySchemaUrl) {
+            fResource = resource;
+            fResourceSchemaUrl = resourceSchemaUrl;
+            fInstrumentationLibrary = instrumentationLibrary;
+            fInstrumentationLibrarySchemaUrl = instrumentationLibrarySchemaUrl;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fResource, fResourceSchemaUrl, fInstrumentationLibrary, fInstrumentationLibrarySchemaUrl);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Scope)) {
+                return false;
+            }
+            Scope other = (Scope) obj;
+            return fResource.equals(other.fResource)
+                    && fResourceSchemaUrl.equals(other.fResourceSchemaUrl)
+                    && fInstrumentationLibrary.equals(other.fInstrumentationLibrary)
+                    && fInstrumentationLibrarySchemaUrl.equals(other.fInstrumentationLibrarySchemaUrl);
+        }
+    }
+
+    /**
+     * Get the id of a scope, adding it to the table if it is not already there
+     *
+     * @param resource
+     *            the resource
+     * @param resourceSchemaUrl
+     *            the schema URL of the resource
+     * @param instrumentationLibrary
+     *            the instrumentation library
+     * @param instrumentationLibrarySchemaUrl
+     *            the schema URL of the instrumentation library
+     * @return the id of the scope
+     */
+    public synchronized int intern(Resource resource, String resourceSchemaUrl, InstrumentationLibrary instrumentationLibrary, String instrumentationLibrarySchemaUrl) {
+        Scope scope = new Scope(
+                fResources.computeIfAbsent(resource, r -> r),
+                resourceSchemaUrl.intern(),
+                fInstrumentationLibraries.computeIfAbsent(instrumentationLibrary, il -> il),
+                instrumentationLibrarySchemaUrl.intern());
+        Integer id = fScopeIds.get(scope);
+        if (id == null) {
+            id = fScopes.size();
+            fScopes.add(scope);
+            fScopeIds.put(scope, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param scopeId
+     *            the id of the scope
+     * @return the resource of the scope
+     */
+    public synchronized Resource getResource(int scopeId) {
+        return fScopes.get(scopeId).fResource;
+    }
+
+    /**
+     * @param scopeId
+     *            the id of the scope
+     * @return the schema URL of the resource of the scope
+     */
+    public synchronized String getResourceSchemaUrl(int scopeId) {
+        return fScopes.get(scopeId).fResourceSchemaUrl;
+    }
+
+    /**
+     * @param scopeId
+     *            the id of the scope
+     * @return the instrumentation library of the scope
+     */
+    public synchronized InstrumentationLibrary getInstrumentationLibrary(int scopeId) {
+        return fScopes.get(scopeId).fInstrumentationLibrary;
+    }
+
+    /**
+     * @param scopeId
+     *            the id of the scope
+     * @return the schema URL of the instrumentation library of the scope
+     */
+    public synchronized String getInstrumentationLibrarySchemaUrl(int scopeId) {
+        return fScopes.get(scopeId).fInstrumentationLibrarySchemaUrl;
+    }
+
+    /**
+     * Save the scopes of the table, in the order of their ids
+     *
+     * @param file
+     *            the file to write
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public synchronized void save(File file) throws IOException {
+        File tmpFile = new File(file.getPath() + TMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(fScopes.size());
+            for (Scope scope : fScopes) {
+                writeBytes(out, scope.fResource.toByteArray());
+                out.writeUTF(scope.fResourceSchemaUrl);
+                writeBytes(out, scope.fInstrumentationLibrary.toByteArray());
+                out.writeUTF(scope.fInstrumentationLibrarySchemaUrl);
+            }
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Load the scopes saved by {@link #save(File)} in this table, which must be
+     * empty so that the scopes keep their ids
+     *
+     * @param file
+     *            the file to read
+     * @return true if the scopes were loaded, false if the file does not
+     *         exist, is not complete or the table is not empty
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public synchronized boolean load(File file) throws IOException {
+        if (!fScopes.isEmpty() || !file.isFile()) {
+            return false;
+        }
+        List<Scope> scopes = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return false;
+            }
+            int nbScopes = in.readInt();
+            for (int i = 0; i < nbScopes; i++) {
+                Resource resource = Resource.parseFrom(readBytes(in));
+                String resourceSchemaUrl = in.readUTF();
+                InstrumentationLibrary instrumentationLibrary = InstrumentationLibrary.parseFrom(readBytes(in));
+                scopes.add(new Scope(resource, resourceSchemaUrl, instrumentationLibrary, in.readUTF()));
+            }
+        } catch (EOFException | InvalidProtocolBufferException e) {
+            return false;
+        }
+        for (Scope scope : scopes) {
+            intern(scope.fResource, scope.fResourceSchemaUrl, scope.fInstrumentationLibrary, scope.fInstrumentationLibrarySchemaUrl);
+        }
+        return true;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return the number of distinct scopes in the table
+     */
+    public synchronized int size() {
+        return fScopes.size();
+    }
+
+}
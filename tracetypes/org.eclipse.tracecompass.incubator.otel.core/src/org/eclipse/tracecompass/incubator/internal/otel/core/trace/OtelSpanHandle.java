@@ -0,0 +1,165 @@
+/**********************************************************************
+
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.trace;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import io.opentelemetry.proto.trace.v1.Span;
+
+/**
+ * Handle to a span, shared by the start and end events of the span.
+ * <p>
+ * For events that are kept in memory, the span is kept in its serialized form,
+ * which is much smaller than the decoded message, and decoded lazily the first
+ * time it is read. The decoded span is softly referenced so it can be
+ * reclaimed when memory is low. Comparing handles never decodes the span.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class OtelSpanHandle {
+
+    private final @Nullable ByteString fSerializedSpan;
+    private final @Nullable Span fSpan;
+    private final int fSpanIdHash;
+    private SoftReference<@Nullable Span> fDecodedSpan = new SoftReference<>(null);
+
+    private OtelSpanHandle(@Nullable ByteString serializedSpan, @Nullable Span span, int spanIdHash) {
+        fSerializedSpan = serializedSpan;
+        fSpan = span;
+        fSpanIdHash = spanIdHash;
+    }
+
+    /**
+     * Create a handle that keeps the span serialized, for events kept in
+     * memory for the life of the trace
+     *
+     * @param span
+     *            the span
+     * @return the handle
+     */
+    public static OtelSpanHandle serialize(Span span) {
+        return new OtelSpanHandle(span.toByteString(), null, span.getSpanId().hashCode());
+    }
+
+    /**
+     * Create a handle that keeps the decoded span, for short-lived events
+     *
+     * @param span
+     *            the span
+     * @return the handle
+     */
+    public static OtelSpanHandle wrap(Span span) {
+        return new OtelSpanHandle(null, span, span.getSpanId().hashCode());
+    }
+
+    /**
+     * Get the span, decoding it if needed
+     *
+     * @return the span
+     */
+    public synchronized Span getSpan() {
+        Span span = fSpan;
+        if (span != null) {
+            return span;
+        }
+        span = fDecodedSpan.get();
+        ByteString serializedSpan = fSerializedSpan;
+        if (span == null && serializedSpan != null) {
+            try {
+                span = Span.parseFrom(serializedSpan);
+            } catch (InvalidProtocolBufferException e) {
+                // The bytes were produced by serializing a valid span
+                throw new IllegalStateException(e);
+            }
+            fDecodedSpan = new SoftReference<>(span);
+        }
+        if (span == null) {
+            throw new IllegalStateException("Span handle without span"); //$NON-NLS-1$
+        }
+        return span;
+    }
+
+    /**
+     * Get the trace id of the span. A serialized span is not decoded, only its
+     * trace id field is read.
+     *
+     * @return the trace id
+     */
+    public ByteString getTraceId() {
+        Span span = fSpan;
+        if (span != null) {
+            return span.getTraceId();
+        }
+        CodedInputStream input = getSerializedSpan().newCodedInput();
+        try {
+            int tag = input.readTag();
+            while (tag != 0) {
+                if (WireFormat.getTagFieldNumber(tag) == Span.TRACE_ID_FIELD_NUMBER) {
+                    return input.readBytes();
+                }
+                input.skipField(tag);
+                tag = input.readTag();
+            }
+        } catch (IOException e) {
+            // The bytes were produced by serializing a valid span
+            throw new IllegalStateException(e);
+        }
+        return ByteString.EMPTY;
+    }
+
+    private ByteString getSerializedSpan() {
+        ByteString serializedSpan = fSerializedSpan;
+        if (serializedSpan != null) {
+            return serializedSpan;
+        }
+        Span span = fSpan;
+        if (span == null) {
+            throw new IllegalStateException("Span handle without span"); //$NON-NLS-1$
+        }
+        return span.toByteString();
+    }
+
+    @Override
+    public int hashCode() {
+        return fSpanIdHash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OtelSpanHandle)) {
+            return false;
+        }
+        OtelSpanHandle other = (OtelSpanHandle) obj;
+        if (fSpanIdHash != other.fSpanIdHash) {
+            return false;
+        }
+        Span span = fSpan;
+        Span otherSpan = other.fSpan;
+        if (span != null && otherSpan != null) {
+            return span.equals(otherSpan);
+        }
+        return getSerializedSpan().equals(other.getSerializedSpan());
+    }
+
+}
@@ -0,0 +1,494 @@
+/**********************************************************************
+
+ * Copyright (c) 2023 Polytechnique de Montreal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.otel.core.trace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * On-disk, rank ordered index of the span and metric events of an
+ * {@link OtelTrace}.
+ * <p>
+ * Each record is a fixed-width entry, so the offset of the event at a given
+ * rank is computed directly from the rank. A record does not contain the span
+ * or metric itself but the location of the CTF event holding the
+ * {@link io.opentelemetry.proto.trace.v1.ResourceSpans} or
+ * {@link io.opentelemetry.proto.metrics.v1.ResourceMetrics} and the position
+ * of the span or data point in it, so that events can be decoded lazily. Span
+ * records also keep the id of the scope of the span in the
+ * {@link OtelResourceTable}, so that it is not interned again.
+ * <p>
+ * The index is built with a bounded external sort: the records are buffered
+ * until the run capacity is reached, then the sorted run is spilled to a
+ * temporary file. The runs are then merged into the final index file.
+ * <p>
+ * The header of the index keeps the total size and the last modification time
+ * of the files of the trace, so that an index is not reused once the trace
+ * changed.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public final class OtelSpanIndex implements AutoCloseable {
+
+    /**
+     * Size in bytes of one record of the index
+     */
+    public static final int RECORD_SIZE = 36;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x4f54454c; // "OTEL"
+    private static final int VERSION = 4;
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    private static final String RUN_PREFIX = "otel-run-"; //$NON-NLS-1$
+    private static final String TMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator.comparingLong(Entry::getTimestamp);
+
+    private final FileChannel fChannel;
+    private final long fSize;
+
+    /**
+     * Kind of the entry for the end of a span
+     */
+    public static final int KIND_SPAN_END = 0;
+
+    /**
+     * Kind of the entry for the start of a span
+     */
+    public static final int KIND_SPAN_START = 1;
+
+    /**
+     * Kind of the entry for a metric data point
+     */
+    public static final int KIND_METRIC = 2;
+
+    /**
+     * Scope id of the entries of metric data points, whose scopes are interned
+     * when the metric events are decoded
+     */
+    public static final int NO_SCOPE = -1;
+
+    /**
+     * One record of the index
+     */
+    public static final class Entry {
+        private final long fTimestamp;
+        private final long fLocationTimestamp;
+        private final long fLocationIndex;
+        private final int fOrdinal;
+        private final int fScopeId;
+        private final int fKind;
+
+        /**
+         * Constructor
+         *
+         * @param timestamp
+         *            the timestamp of the span event
+         * @param locationTimestamp
+         *            the timestamp of the location of the CTF event containing
+         *            the span
+         * @param locationIndex
+         *            the index of the location of the CTF event containing the
+         *            span
+         * @param ordinal
+         *            the position of the span or data point in the payload of
+         *            the CTF event
+         * @param scopeId
+         *            the id of the scope of the span in the resource table of
+         *            the trace, or {@link #NO_SCOPE} for a metric data point
+         * @param kind
+         *            the kind of entry, one of {@link #KIND_SPAN_START},
+         *            {@link #KIND_SPAN_END} or {@link #KIND_METRIC}
+         */
+        public Entry(long timestamp, long locationTimestamp, long locationIndex, int ordinal, int scopeId, int kind) {
+            fTimestamp = timestamp;
+            fLocationTimestamp = locationTimestamp;
+            fLocationIndex = locationIndex;
+            fOrdinal = ordinal;
+            fScopeId = scopeId;
+            fKind = kind;
+        }
+
+        /**
+         * @return the timestamp of the span event
+         */
+        public long getTimestamp() {
+            return fTimestamp;
+        }
+
+        /**
+         * @return the timestamp of the location of the CTF event
+         */
+        public long getLocationTimestamp() {
+            return fLocationTimestamp;
+        }
+
+        /**
+         * @return the index of the location of the CTF event
+         */
+        public long getLocationIndex() {
+            return fLocationIndex;
+        }
+
+        /**
+         * @return the position of the span or data point in the payload
+         */
+        public int getOrdinal() {
+            return fOrdinal;
+        }
+
+        /**
+         * @return the id of the scope of the span in the resource table, or
+         *         {@link #NO_SCOPE} for a metric data point
+         */
+        public int getScopeId() {
+            return fScopeId;
+        }
+
+        /**
+         * @return the kind of entry
+         */
+        public int getKind() {
+            return fKind;
+        }
+
+        /**
+         * @return true if this entry is a span start
+         */
+        public boolean isStart() {
+            return fKind == KIND_SPAN_START;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(fTimestamp);
+            out.writeLong(fLocationTimestamp);
+            out.writeLong(fLocationIndex);
+            out.writeInt(fOrdinal);
+            out.writeInt(fScopeId);
+            out.writeInt(fKind);
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            return new Entry(in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readInt(), in.readInt());
+        }
+
+        private static Entry read(ByteBuffer buffer) {
+            return new Entry(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+        }
+    }
+
+    /**
+     * Builder of the index, sorting the entries with sorted runs spilled to
+     * disk when more than a given number of entries are added.
+     */
+    public static final class Builder implements AutoCloseable {
+
+        private final File fDirectory;
+        private final int fRunCapacity;
+        private final List<Entry> fBuffer = new ArrayList<>();
+        private final List<File> fRuns = new ArrayList<>();
+
+        /**
+         * Constructor
+         *
+         * @param directory
+         *            the directory where to spill the sorted runs
+         * @param runCapacity
+         *            the maximum number of entries kept in memory
+         */
+        public Builder(File directory, int runCapacity) {
+            fDirectory = directory;
+            fRunCapacity = Math.max(1, runCapacity);
+        }
+
+        /**
+         * Add an entry to the index
+         *
+         * @param entry
+         *            the entry to add
+         * @throws IOException
+         *             if the run could not be spilled to disk
+         */
+        public void add(Entry entry) throws IOException {
+            fBuffer.add(entry);
+            if (fBuffer.size() >= fRunCapacity) {
+                spill();
+            }
+        }
+
+        /**
+         * Sort all entries and write the index file. The sort is stable, entries
+         * with the same timestamp keep the order in which they were added.
+         *
+         * @param indexFile
+         *            the index file to write
+         * @param traceFile
+         *            the file or directory of the trace of the entries
+         * @return the index, opened for reading
+         * @throws IOException
+         *             if the index could not be written
+         */
+        public OtelSpanIndex build(File indexFile, File traceFile) throws IOException {
+            File tmpFile = new File(indexFile.getPath() + TMP_SUFFIX);
+            TraceStamp traceStamp = new TraceStamp(traceFile);
+            long size = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), STREAM_BUFFER_SIZE))) {
+                // Header, the size is written once the merge is done
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(-1L);
+                out.writeLong(traceStamp.fSize);
+                out.writeLong(traceStamp.fLastModified);
+                if (fRuns.isEmpty()) {
+                    fBuffer.sort(ENTRY_COMPARATOR);
+                    for (Entry entry : fBuffer) {
+                        entry.write(out);
+                    }
+                    size = fBuffer.size();
+                    fBuffer.clear();
+                } else {
+                    spill();
+                    size = merge(out);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.WRITE)) {
+                ByteBuffer sizeBuffer = ByteBuffer.allocate(Long.BYTES);
+                sizeBuffer.putLong(size);
+                sizeBuffer.flip();
+                channel.write(sizeBuffer, 8);
+            }
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            OtelSpanIndex index = open(indexFile, traceFile);
+            if (index == null) {
+                throw new IOException("Invalid span index " + indexFile); //$NON-NLS-1$
+            }
+            return index;
+        }
+
+        private void spill() throws IOException {
+            if (fBuffer.isEmpty()) {
+                return;
+            }
+            fBuffer.sort(ENTRY_COMPARATOR);
+            File run = File.createTempFile(RUN_PREFIX, TMP_SUFFIX, fDirectory);
+            fRuns.add(run);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), STREAM_BUFFER_SIZE))) {
+                for (Entry entry : fBuffer) {
+                    entry.write(out);
+                }
+            }
+            fBuffer.clear();
+        }
+
+        private long merge(DataOutputStream out) throws IOException {
+            PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, fRuns.size()),
+                    Comparator.<RunReader> comparingLong(r -> r.getCurrent().getTimestamp())
+                            .thenComparingInt(RunReader::getRunIndex));
+            long size = 0;
+            try {
+                for (int i = 0; i < fRuns.size(); i++) {
+                    RunReader reader = new RunReader(fRuns.get(i), i);
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    reader.getCurrent().write(out);
+                    size++;
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+            } finally {
+                for (RunReader reader : queue) {
+                    reader.close();
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public void close() {
+            fBuffer.clear();
+            for (File run : fRuns) {
+                if (!run.delete()) {
+                    run.deleteOnExit();
+                }
+            }
+            fRuns.clear();
+        }
+    }
+
+    private static final class RunReader implements AutoCloseable {
+        private final DataInputStream fInput;
+        private final int fRunIndex;
+        private @Nullable Entry fCurrent;
+
+        public RunReader(File run, int runIndex) throws IOException {
+            fInput = new DataInputStream(new BufferedInputStream(new FileInputStream(run), STREAM_BUFFER_SIZE));
+            fRunIndex = runIndex;
+        }
+
+        public boolean advance() throws IOException {
+            try {
+                fCurrent = Entry.read(fInput);
+                return true;
+            } catch (EOFException e) {
+                fCurrent = null;
+                return false;
+            }
+        }
+
+        public Entry getCurrent() {
+            Entry current = fCurrent;
+            if (current == null) {
+                throw new IllegalStateException("Run is exhausted"); //$NON-NLS-1$
+            }
+            return current;
+        }
+
+        public int getRunIndex() {
+            return fRunIndex;
+        }
+
+        @Override
+        public void close() throws IOException {
+            fInput.close();
+        }
+    }
+
+    /**
+     * The total size and the last modification time of the files of a trace
+     */
+    private static final class TraceStamp {
+        private long fSize = 0;
+        private long fLastModified = 0;
+
+        public TraceStamp(File traceFile) {
+            add(traceFile);
+        }
+
+        private void add(File file) {
+            File[] children = file.listFiles();
+            if (children == null) {
+                fSize += file.length();
+                fLastModified = Math.max(fLastModified, file.lastModified());
+                return;
+            }
+            for (File child : children) {
+                add(child);
+            }
+        }
+    }
+
+    private OtelSpanIndex(FileChannel channel, long size) {
+        fChannel = channel;
+        fSize = size;
+    }
+
+    /**
+     * Open an existing index file
+     *
+     * @param indexFile
+     *            the index file
+     * @param traceFile
+     *            the file or directory of the trace of the entries
+     * @return the index, or null if the file does not exist, is not a
+     *         complete index or was built for another version of the trace
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public static @Nullable OtelSpanIndex open(File indexFile, File traceFile) throws IOException {
+        if (!indexFile.isFile() || indexFile.length() < HEADER_SIZE) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // read the full header
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            channel.close();
+            return null;
+        }
+        long size = header.getLong();
+        TraceStamp traceStamp = new TraceStamp(traceFile);
+        if (size < 0 || channel.size() != HEADER_SIZE + size * RECORD_SIZE
+                || header.getLong() != traceStamp.fSize || header.getLong() != traceStamp.fLastModified) {
+            channel.close();
+            return null;
+        }
+        return new OtelSpanIndex(channel, size);
+    }
+
+    /**
+     * @return the number of entries in the index
+     */
+    public long size() {
+        return fSize;
+    }
+
+    /**
+     * Read the entry at a given rank
+     *
+     * @param rank
+     *            the rank of the entry
+     * @return the entry
+     * @throws IOException
+     *             if the entry could not be read
+     */
+    public Entry get(long rank) throws IOException {
+        if (rank < 0 || rank >= fSize) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of " + fSize); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        long offset = HEADER_SIZE + rank * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            if (fChannel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return Entry.read(buffer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fChannel.close();
+    }
+
+}
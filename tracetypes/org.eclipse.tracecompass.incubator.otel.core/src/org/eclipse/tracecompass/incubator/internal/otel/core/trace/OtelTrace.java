@@ -12,11 +12,16 @@
 
 package org.eclipse.tracecompass.incubator.internal.otel.core.trace;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.core.resources.IProject;
@@ -24,6 +29,7 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.incubator.internal.otel.core.Activator;
 import org.eclipse.tracecompass.lttng2.ust.core.trace.LttngUstEvent;
 import org.eclipse.tracecompass.lttng2.ust.core.trace.LttngUstTrace;
@@ -40,19 +46,27 @@ import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
 import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+import org.eclipse.tracecompass.tmf.ctf.core.context.CtfLocation;
+import org.eclipse.tracecompass.tmf.ctf.core.context.CtfLocationInfo;
 import org.eclipse.tracecompass.tmf.ctf.core.event.CtfTmfEventField;
 import org.eclipse.tracecompass.tmf.ctf.core.trace.CtfTmfTrace;
 import org.eclipse.tracecompass.tmf.ctf.core.trace.CtfTraceValidationStatus;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
-import com.google.protobuf.InvalidProtocolBufferException;
 
-import io.opentelemetry.proto.common.v1.InstrumentationLibrary;
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.metrics.v1.HistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.InstrumentationLibraryMetrics;
+import io.opentelemetry.proto.metrics.v1.Metric;
+import io.opentelemetry.proto.metrics.v1.NumberDataPoint;
 import io.opentelemetry.proto.metrics.v1.ResourceMetrics;
+import io.opentelemetry.proto.metrics.v1.SummaryDataPoint;
 import io.opentelemetry.proto.resource.v1.Resource;
 import io.opentelemetry.proto.trace.v1.InstrumentationLibrarySpans;
 import io.opentelemetry.proto.trace.v1.ResourceSpans;
@@ -67,6 +81,30 @@ public class OtelTrace extends TmfTrace {
 
     private static final int BASE_CONFIDENCE = 100;
 
+    /**
+     * System property to select the streaming mode, enabled by default. In
+     * streaming mode, the spans and metric data points are not kept in memory,
+     * they are sorted on disk in a supplementary file and decoded lazily when
+     * the events are read. Set it to <code>false</code> to keep all the events
+     * in memory instead.
+     */
+    public static final String STREAMING_PROPERTY = "org.eclipse.tracecompass.incubator.otel.core.streaming"; //$NON-NLS-1$
+
+    private static final String SPAN_INDEX_FILE_NAME = "otel-span-index.idx"; //$NON-NLS-1$
+    private static final String SCOPES_FILE_NAME = "otel-scopes.dat"; //$NON-NLS-1$
+
+    /**
+     * Maximum number of span events sorted in memory before being spilled to
+     * disk in streaming mode
+     */
+    private static final int RUN_CAPACITY = 1 << 20;
+
+    /**
+     * Number of decoded payloads kept in memory in streaming mode, the start
+     * and end events of a span are often close to each other
+     */
+    private static final int LOCATION_CACHE_SIZE = 64;
+
     private static final @NonNull Collection<ITmfEventAspect<?>> OTEL_ASPECTS;
 
     static {
@@ -79,11 +117,19 @@ public class OtelTrace extends TmfTrace {
 
     private @NonNull Collection<ITmfEventAspect<?>> fOtelTraceAspects = ImmutableSet.copyOf(OTEL_ASPECTS);
 
+    private final OtelPayloadDecoder fDecoder = new OtelPayloadDecoder();
+    private final OtelResourceTable fResourceTable = new OtelResourceTable();
+
     private List<OtelEvent> fEvents = new ArrayList<>();
     private long fNbEvents = 0;
 
     TmfLongLocation fCurrent;
 
+    private @Nullable OtelSpanIndex fSpanIndex = null;
+    private @Nullable LttngUstTrace fUstTrace = null;
+    private final Map<CtfLocationInfo, ResourceSpans> fResourceSpansCache = newLocationCache();
+    private final Map<CtfLocationInfo, List<MetricEvent>> fMetricEventsCache = newLocationCache();
+
     /**
      * {@inheritDoc}
      * <p>
@@ -110,6 +156,10 @@ public class OtelTrace extends TmfTrace {
     @Override
     public void initTrace(IResource resource, String path, Class<? extends ITmfEvent> type) throws TmfTraceException {
         super.initTrace(resource, path, type);
+        if (Boolean.parseBoolean(System.getProperty(STREAMING_PROPERTY, Boolean.TRUE.toString()))) {
+            initStreamingTrace(resource, path, type);
+            return;
+        }
         List<Timestamped<? extends RawEvent>> events = getUnsortedEvents(resource, path, type);
         fEvents = sortEvents(events, this);
         fNbEvents = fEvents.size();
@@ -154,6 +204,10 @@ public class OtelTrace extends TmfTrace {
         if (rank >= fNbEvents) {
             return null;
         }
+        OtelSpanIndex spanIndex = fSpanIndex;
+        if (spanIndex != null) {
+            return parseStreamingEvent(spanIndex, rank);
+        }
         return fEvents.get((int) context.getRank());
     }
 
@@ -162,6 +216,201 @@ public class OtelTrace extends TmfTrace {
         return fNbEvents;
     }
 
+    /**
+     * Get the dictionary of the resources and instrumentation libraries of the
+     * spans of this trace
+     *
+     * @return the resource table
+     */
+    public OtelResourceTable getResourceTable() {
+        return fResourceTable;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        OtelSpanIndex spanIndex = fSpanIndex;
+        if (spanIndex != null) {
+            try {
+                spanIndex.close();
+            } catch (IOException e) {
+                Activator.getInstance().logWarning("Error closing the span index of " + getName(), e); //$NON-NLS-1$
+            }
+            fSpanIndex = null;
+        }
+        LttngUstTrace ustTrace = fUstTrace;
+        if (ustTrace != null) {
+            ustTrace.dispose();
+            fUstTrace = null;
+        }
+        fResourceSpansCache.clear();
+        fMetricEventsCache.clear();
+        super.dispose();
+    }
+
+    private void initStreamingTrace(IResource resource, String path, Class<? extends ITmfEvent> type) throws TmfTraceException {
+        fCurrent = new TmfLongLocation(0L);
+        File indexFile = new File(TmfTraceManager.getSupplementaryFileDir(this) + SPAN_INDEX_FILE_NAME);
+        File scopesFile = new File(TmfTraceManager.getSupplementaryFileDir(this) + SCOPES_FILE_NAME);
+        LttngUstTrace lttngUstTrace = new LttngUstTrace();
+        lttngUstTrace.initTrace(resource, path, type);
+        try {
+            File traceFile = new File(path);
+            OtelSpanIndex spanIndex = OtelSpanIndex.open(indexFile, traceFile);
+            if (spanIndex != null && !fResourceTable.load(scopesFile)) {
+                // The scope ids of the index are meaningless without the table
+                spanIndex.close();
+                spanIndex = null;
+            }
+            if (spanIndex == null) {
+                spanIndex = buildSpanIndex(fDecoder, fResourceTable, lttngUstTrace, indexFile, scopesFile, traceFile);
+            }
+            fSpanIndex = spanIndex;
+            fUstTrace = lttngUstTrace;
+            fNbEvents = spanIndex.size();
+        } catch (IOException e) {
+            lttngUstTrace.dispose();
+            throw new TmfTraceException(e.getMessage(), e);
+        }
+    }
+
+    private static OtelSpanIndex buildSpanIndex(OtelPayloadDecoder decoder, OtelResourceTable resourceTable, LttngUstTrace lttngUstTrace,
+            File indexFile, File scopesFile, File traceFile) throws IOException {
+        ITmfContext context = lttngUstTrace.seekEvent(0.0);
+        try (OtelSpanIndex.Builder builder = new OtelSpanIndex.Builder(indexFile.getParentFile(), RUN_CAPACITY)) {
+            while (true) {
+                // The context points to the event that will be read next
+                ITmfLocation currentLocation = context.getLocation();
+                if (!(currentLocation instanceof CtfLocation)) {
+                    break;
+                }
+                CtfLocationInfo location = ((CtfLocation) currentLocation).getLocationInfo();
+                LttngUstEvent lttngEvent = (LttngUstEvent) lttngUstTrace.getNext(context);
+                if (lttngEvent == null) {
+                    break;
+                }
+                ResourceSpans resourceSpans = getResourceSpansFromEvent(decoder, lttngEvent);
+                if (resourceSpans != null) {
+                    int spanOrdinal = 0;
+                    for (InstrumentationLibrarySpans ilSpans : resourceSpans.getInstrumentationLibrarySpansList()) {
+                        int scopeId = resourceTable.intern(resourceSpans.getResource(), resourceSpans.getSchemaUrl(), ilSpans.getInstrumentationLibrary(), ilSpans.getSchemaUrl());
+                        for (Span span : ilSpans.getSpansList()) {
+                            builder.add(new OtelSpanIndex.Entry(span.getStartTimeUnixNano(), location.getTimestamp(), location.getIndex(), spanOrdinal, scopeId, OtelSpanIndex.KIND_SPAN_START));
+                            builder.add(new OtelSpanIndex.Entry(span.getEndTimeUnixNano(), location.getTimestamp(), location.getIndex(), spanOrdinal, scopeId, OtelSpanIndex.KIND_SPAN_END));
+                            spanOrdinal++;
+                        }
+                    }
+                }
+                ResourceMetrics resourceMetrics = getResourceMetricsFromEvent(decoder, lttngEvent);
+                if (resourceMetrics != null) {
+                    long[] timestamps = MetricEvent.getTimestamps(resourceMetrics);
+                    for (int pointOrdinal = 0; pointOrdinal < timestamps.length; pointOrdinal++) {
+                        builder.add(new OtelSpanIndex.Entry(timestamps[pointOrdinal], location.getTimestamp(), location.getIndex(), pointOrdinal, OtelSpanIndex.NO_SCOPE, OtelSpanIndex.KIND_METRIC));
+                    }
+                }
+            }
+            // Saved before the index, an index is never valid without its scopes
+            resourceTable.save(scopesFile);
+            return builder.build(indexFile, traceFile);
+        } finally {
+            context.dispose();
+        }
+    }
+
+    private @Nullable ITmfEvent parseStreamingEvent(OtelSpanIndex spanIndex, long rank) {
+        try {
+            OtelSpanIndex.Entry entry = spanIndex.get(rank);
+            CtfLocationInfo location = new CtfLocationInfo(entry.getLocationTimestamp(), entry.getLocationIndex());
+            if (entry.getKind() == OtelSpanIndex.KIND_METRIC) {
+                List<MetricEvent> metricEvents = readMetricEvents(location);
+                if (metricEvents == null || entry.getOrdinal() >= metricEvents.size()) {
+                    return null;
+                }
+                return metricEvents.get(entry.getOrdinal()).createEvent(this, rank);
+            }
+            ResourceSpans resourceSpans = readResourceSpans(location);
+            if (resourceSpans == null) {
+                return null;
+            }
+            int spanOrdinal = entry.getOrdinal();
+            for (InstrumentationLibrarySpans ilSpans : resourceSpans.getInstrumentationLibrarySpansList()) {
+                if (spanOrdinal >= ilSpans.getSpansCount()) {
+                    spanOrdinal -= ilSpans.getSpansCount();
+                    continue;
+                }
+                // The event is not kept, no need to serialize the span
+                OtelSpanHandle spanHandle = OtelSpanHandle.wrap(ilSpans.getSpans(spanOrdinal));
+                SpanEvent spanEvent;
+                if (entry.isStart()) {
+                    spanEvent = new SpanStartEvent(entry.getScopeId(), spanHandle);
+                } else {
+                    spanEvent = new SpanEndEvent(entry.getScopeId(), spanHandle);
+                }
+                return spanEvent.createEvent(this, rank);
+            }
+        } catch (IOException e) {
+            Activator.getInstance().logError("Error reading the span index of " + getName(), e); //$NON-NLS-1$
+        }
+        return null;
+    }
+
+    private synchronized @Nullable ResourceSpans readResourceSpans(CtfLocationInfo location) {
+        ResourceSpans resourceSpans = fResourceSpansCache.get(location);
+        if (resourceSpans != null) {
+            return resourceSpans;
+        }
+        LttngUstEvent lttngEvent = readUstEvent(location);
+        if (lttngEvent == null) {
+            return null;
+        }
+        resourceSpans = getResourceSpansFromEvent(fDecoder, lttngEvent);
+        if (resourceSpans != null) {
+            fResourceSpansCache.put(location, resourceSpans);
+        }
+        return resourceSpans;
+    }
+
+    private synchronized @Nullable List<MetricEvent> readMetricEvents(CtfLocationInfo location) {
+        List<MetricEvent> metricEvents = fMetricEventsCache.get(location);
+        if (metricEvents != null) {
+            return metricEvents;
+        }
+        LttngUstEvent lttngEvent = readUstEvent(location);
+        if (lttngEvent == null) {
+            return null;
+        }
+        ResourceMetrics resourceMetrics = getResourceMetricsFromEvent(fDecoder, lttngEvent);
+        if (resourceMetrics == null) {
+            return null;
+        }
+        metricEvents = MetricEvent.create(resourceMetrics, fResourceTable);
+        fMetricEventsCache.put(location, metricEvents);
+        return metricEvents;
+    }
+
+    private @Nullable LttngUstEvent readUstEvent(CtfLocationInfo location) {
+        LttngUstTrace lttngUstTrace = fUstTrace;
+        if (lttngUstTrace == null) {
+            return null;
+        }
+        ITmfContext context = lttngUstTrace.seekEvent(new CtfLocation(location));
+        try {
+            return (LttngUstEvent) lttngUstTrace.getNext(context);
+        } finally {
+            context.dispose();
+        }
+    }
+
+    private static <V> Map<CtfLocationInfo, V> newLocationCache() {
+        return new LinkedHashMap<CtfLocationInfo, V>(LOCATION_CACHE_SIZE, 0.75f, true) {
+            private static final long serialVersionUID = -2457614566286286428L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CtfLocationInfo, V> eldest) {
+                return size() > LOCATION_CACHE_SIZE;
+            }
+        };
+    }
+
     private List<Timestamped<? extends RawEvent>> getUnsortedEvents(IResource resource, String path, Class<? extends ITmfEvent> type) throws TmfTraceException {
         List<Timestamped<? extends RawEvent>> events = new ArrayList<>();
 
@@ -177,8 +426,8 @@ public class OtelTrace extends TmfTrace {
                 if (lttngEvent == null) {
                     break;
                 }
-                ResourceSpans resourceSpans = getResourceSpansFromEvent(lttngEvent);
-                ResourceMetrics resourceMetrics = getResourceMetricsFromEvent(lttngEvent);
+                ResourceSpans resourceSpans = getResourceSpansFromEvent(fDecoder, lttngEvent);
+                ResourceMetrics resourceMetrics = getResourceMetricsFromEvent(fDecoder, lttngEvent);
                 if (resourceSpans == null && resourceMetrics == null) {
                     continue;
                 }
@@ -186,18 +435,21 @@ public class OtelTrace extends TmfTrace {
                     Resource traceResource = resourceSpans.getResource();
                     String resourceSchemaUrl = resourceSpans.getSchemaUrl();
                     for (InstrumentationLibrarySpans ilSpans : resourceSpans.getInstrumentationLibrarySpansList()) {
-                        InstrumentationLibrary instrumentationLibrary = ilSpans.getInstrumentationLibrary();
-                        String instrumentationLibrarySchemaUrl = ilSpans.getSchemaUrl();
+                        int scopeId = fResourceTable.intern(traceResource, resourceSchemaUrl, ilSpans.getInstrumentationLibrary(), ilSpans.getSchemaUrl());
                         for (Span span : ilSpans.getSpansList()) {
-                            SpanStartEvent spanStartData = new SpanStartEvent(traceResource, resourceSchemaUrl, instrumentationLibrary, instrumentationLibrarySchemaUrl, span);
+                            // The start and end events share the same span
+                            OtelSpanHandle spanHandle = OtelSpanHandle.serialize(span);
+                            SpanStartEvent spanStartData = new SpanStartEvent(scopeId, spanHandle);
                             events.add(new Timestamped<>(span.getStartTimeUnixNano(), spanStartData));
-                            SpanEndEvent spanEndData = new SpanEndEvent(traceResource, resourceSchemaUrl, instrumentationLibrary, instrumentationLibrarySchemaUrl, span);
+                            SpanEndEvent spanEndData = new SpanEndEvent(scopeId, spanHandle);
                             events.add(new Timestamped<>(span.getEndTimeUnixNano(), spanEndData));
                         }
                     }
                 }
                 if (resourceMetrics != null) {
-                    // TODO : Handle metrics events
+                    for (MetricEvent metricEvent : MetricEvent.create(resourceMetrics, fResourceTable)) {
+                        events.add(new Timestamped<>(metricEvent.getTimestamp(), metricEvent));
+                    }
                 }
             }
 
@@ -214,48 +466,33 @@ public class OtelTrace extends TmfTrace {
         return Streams.mapWithIndex(events.stream(), (event, rank) -> event.getData().createEvent(trace, rank)).collect(Collectors.toList());
     }
 
-    private static ResourceSpans getResourceSpansFromEvent(LttngUstEvent event) {
-        byte[] bytes = getByteArray(event, Constants.RESOURCE_SPANS);
-        if (bytes == null) {
-            return null;
-        }
-        try {
-            return ResourceSpans.parseFrom(bytes);
-        } catch (InvalidProtocolBufferException e) {
+    private static ResourceSpans getResourceSpansFromEvent(OtelPayloadDecoder decoder, LttngUstEvent event) {
+        long[] values = getLongArray(event, Constants.RESOURCE_SPANS);
+        if (values == null) {
             return null;
         }
+        return decoder.parseResourceSpans(values);
     }
 
-    private static ResourceMetrics getResourceMetricsFromEvent(LttngUstEvent event) {
-        byte[] bytes = getByteArray(event, Constants.RESOURCE_METRICS);
-        if (bytes == null) {
-            return null;
-        }
-        try {
-            return ResourceMetrics.parseFrom(bytes);
-        } catch (InvalidProtocolBufferException e) {
+    private static ResourceMetrics getResourceMetricsFromEvent(OtelPayloadDecoder decoder, LttngUstEvent event) {
+        long[] values = getLongArray(event, Constants.RESOURCE_METRICS);
+        if (values == null) {
             return null;
         }
+        return decoder.parseResourceMetrics(values);
     }
 
-    private static byte[] getByteArray(LttngUstEvent event, String field) {
+    private static long[] getLongArray(LttngUstEvent event, String field) {
         CtfTmfEventField ctfField = (CtfTmfEventField) event.getContent().getField(field);
         if (ctfField == null) {
             return null;
         }
 
-        long[] longArr;
         try {
-            longArr = (long[]) ctfField.getValue();
+            return (long[]) ctfField.getValue();
         } catch (ClassCastException e) {
             return null;
         }
-
-        byte[] bytes = new byte[longArr.length];
-        for (int i = 0; i < longArr.length; i++) {
-            bytes[i] = (byte) longArr[i];
-        }
-        return bytes;
     }
 
 }
@@ -283,71 +520,42 @@ class Timestamped<T> {
 }
 
 abstract class SpanEvent implements RawEvent {
-    private Resource fResource;
-    private String fResourceSchemaUrl;
-    private InstrumentationLibrary fInstrumentationLibrary;
-    private String fInstrumentationLibrarySchemaUrl;
-    private Span fSpan;
-
-    public SpanEvent(
-            Resource resource,
-            String resourceSchemaUrl,
-            InstrumentationLibrary instrumentationLibrary,
-            String instrumentationLibrarySchemaUrl,
-            Span span) {
+    private static final ITmfEventField SPAN_EVENT_FIELDS = new TmfEventField(
+            ITmfEventField.ROOT_FIELD_ID,
+            null,
+            new TmfEventField[] {
+                    new TmfEventField(Constants.SpanEvents.Fields.RESOURCE, null, null),
+                    new TmfEventField(Constants.SpanEvents.Fields.RESOURCE_SCHEMA_URL, null, null),
+                    new TmfEventField(Constants.SpanEvents.Fields.INSTRUMENTATION_LIBRARY, null, null),
+                    new TmfEventField(Constants.SpanEvents.Fields.INSTRUMENTATION_LIBRARY_SCHEMA_URL, null, null),
+                    new TmfEventField(Constants.SpanEvents.Fields.SPAN, null, null),
+            });
+    protected static final ITmfEventType START_SPAN_TYPE = new TmfEventType(Constants.SpanEvents.START_SPAN_EVENT_TYPE_ID, SPAN_EVENT_FIELDS);
+    protected static final ITmfEventType END_SPAN_TYPE = new TmfEventType(Constants.SpanEvents.END_SPAN_EVENT_TYPE_ID, SPAN_EVENT_FIELDS);
+
+    private final int fScopeId;
+    private final OtelSpanHandle fSpanHandle;
+
+    public SpanEvent(int scopeId, OtelSpanHandle spanHandle) {
         super();
-        fResource = resource;
-        fResourceSchemaUrl = resourceSchemaUrl;
-        fInstrumentationLibrary = instrumentationLibrary;
-        fInstrumentationLibrarySchemaUrl = instrumentationLibrarySchemaUrl;
-        fSpan = span;
-    }
-
-    public Resource getResource() {
-        return fResource;
-    }
-
-    public String getResourceSchemaUrl() {
-        return fResourceSchemaUrl;
-    }
-
-    public InstrumentationLibrary getInstrumentationLibrary() {
-        return fInstrumentationLibrary;
-    }
-
-    public String getInstrumentationLibrarySchemaUrl() {
-        return fInstrumentationLibrarySchemaUrl;
+        fScopeId = scopeId;
+        fSpanHandle = spanHandle;
     }
 
     public Span getSpan() {
-        return fSpan;
+        return fSpanHandle.getSpan();
     }
 
-    public OtelEvent createEvent(OtelTrace trace, long rank, @NonNull ITmfTimestamp timestamp, @NonNull String eventId, @NonNull OtelEventType otelEventType) {
-        ITmfEventField eventContent = new TmfEventField(
-                ITmfEventField.ROOT_FIELD_ID,
-                null,
-                new TmfEventField[] {
-                        new TmfEventField(Constants.SpanEvents.Fields.RESOURCE, fResource, null),
-                        new TmfEventField(Constants.SpanEvents.Fields.RESOURCE_SCHEMA_URL, fResourceSchemaUrl, null),
-                        new TmfEventField(Constants.SpanEvents.Fields.INSTRUMENTATION_LIBRARY, fInstrumentationLibrary, null),
-                        new TmfEventField(Constants.SpanEvents.Fields.INSTRUMENTATION_LIBRARY_SCHEMA_URL, fInstrumentationLibrarySchemaUrl, null),
-                        new TmfEventField(Constants.SpanEvents.Fields.SPAN, fSpan, null),
-                });
-        ITmfEventType eventType = new TmfEventType(eventId, eventContent);
-        return new OtelEvent(trace, rank, timestamp, eventType, eventContent, otelEventType);
+    public OtelEvent createEvent(OtelTrace trace, long rank, @NonNull ITmfTimestamp timestamp, @NonNull ITmfEventType eventType, @NonNull OtelEventType otelEventType) {
+        return new OtelEvent(trace, rank, timestamp, eventType, otelEventType, fScopeId, fSpanHandle);
     }
 
 }
 
 class SpanStartEvent extends SpanEvent {
 
-    public SpanStartEvent(Resource resource, String resourceSchemaUrl, InstrumentationLibrary instrumentationLibrary, String instrumentationLibrarySchemaUrl, Span span) {
-        super(resource,
-                resourceSchemaUrl,
-                instrumentationLibrary,
-                instrumentationLibrarySchemaUrl,
-                span);
+    public SpanStartEvent(int scopeId, OtelSpanHandle spanHandle) {
+        super(scopeId, spanHandle);
     }
 
     @Override
@@ -355,7 +563,7 @@ class SpanStartEvent extends SpanEvent {
         return super.createEvent(trace,
                 rank,
                 TmfTimestamp.fromNanos(getSpan().getStartTimeUnixNano()),
-                Constants.SpanEvents.START_SPAN_EVENT_TYPE_ID,
+                START_SPAN_TYPE,
                 OtelEventType.START_SPAN);
     }
 
@@ -363,12 +571,8 @@ class SpanStartEvent extends SpanEvent {
 
 class SpanEndEvent extends SpanEvent {
 
-    public SpanEndEvent(Resource resource, String resourceSchemaUrl, InstrumentationLibrary instrumentationLibrary, String instrumentationLibrarySchemaUrl, Span span) {
-        super(resource,
-                resourceSchemaUrl,
-                instrumentationLibrary,
-                instrumentationLibrarySchemaUrl,
-                span);
+    public SpanEndEvent(int scopeId, OtelSpanHandle spanHandle) {
+        super(scopeId, spanHandle);
     }
 
     @Override
@@ -376,8 +580,193 @@ class SpanEndEvent extends SpanEvent {
         return super.createEvent(trace,
                 rank,
                 TmfTimestamp.fromNanos(getSpan().getEndTimeUnixNano()),
-                Constants.SpanEvents.END_SPAN_EVENT_TYPE_ID,
+                END_SPAN_TYPE,
                 OtelEventType.END_SPAN);
     }
 
 }
+
+/**
+ * Data point of a gauge, sum, histogram or summary metric. The exponential
+ * histograms are not read.
+ */
+class MetricEvent implements RawEvent {
+    private static final ITmfEventField METRIC_EVENT_FIELDS = new TmfEventField(
+            ITmfEventField.ROOT_FIELD_ID,
+            null,
+            new TmfEventField[] {
+                    new TmfEventField(Constants.MetricEvents.Fields.RESOURCE, null, null),
+                    new TmfEventField(Constants.MetricEvents.Fields.INSTRUMENTATION_LIBRARY, null, null),
+                    new TmfEventField(Constants.MetricEvents.Fields.NAME, null, null),
+                    new TmfEventField(Constants.MetricEvents.Fields.UNIT, null, null),
+                    new TmfEventField(Constants.MetricEvents.Fields.TYPE, null, null),
+                    new TmfEventField(Constants.MetricEvents.Fields.ATTRIBUTES, null, null),
+                    new TmfEventField(Constants.MetricEvents.Fields.VALUE, null, null),
+            });
+    private static final ITmfEventType METRIC_TYPE = new TmfEventType(Constants.MetricEvents.METRIC_EVENT_TYPE_ID, METRIC_EVENT_FIELDS);
+
+    private final int fScopeId;
+    private final String fName;
+    private final String fUnit;
+    private final String fType;
+    private final String fAttributes;
+    private final long fTimestamp;
+    private final double fValue;
+    private final long fCount;
+    private final double fSum;
+
+    private interface DataPointVisitor {
+        void visit(InstrumentationLibraryMetrics ilMetrics, Metric metric, String type, List<KeyValue> attributes, long timestamp, double value, long count, double sum);
+    }
+
+    private MetricEvent(int scopeId, Metric metric, String type, String attributes, long timestamp, double value, long count, double sum) {
+        fScopeId = scopeId;
+        fName = metric.getName();
+        fUnit = metric.getUnit();
+        fType = type;
+        fAttributes = attributes;
+        fTimestamp = timestamp;
+        fValue = value;
+        fCount = count;
+        fSum = sum;
+    }
+
+    /**
+     * Create the events of all the data points of resource metrics
+     *
+     * @param resourceMetrics
+     *            the resource metrics of a CTF event
+     * @param resourceTable
+     *            the table where to intern the scopes of the metrics
+     * @return the events, in the order of the data points in the payload
+     */
+    static List<MetricEvent> create(ResourceMetrics resourceMetrics, OtelResourceTable resourceTable) {
+        List<MetricEvent> metricEvents = new ArrayList<>();
+        Map<InstrumentationLibraryMetrics, Integer> scopeIds = new IdentityHashMap<>();
+        visit(resourceMetrics, (ilMetrics, metric, type, attributes, timestamp, value, count, sum) -> {
+            int scopeId = scopeIds.computeIfAbsent(ilMetrics, il -> resourceTable.intern(resourceMetrics.getResource(), resourceMetrics.getSchemaUrl(), il.getInstrumentationLibrary(), il.getSchemaUrl()));
+            metricEvents.add(new MetricEvent(scopeId, metric, type, attributesToString(attributes), timestamp, value, count, sum));
+        });
+        return metricEvents;
+    }
+
+    /**
+     * Get the timestamps of all the data points of resource metrics
+     *
+     * @param resourceMetrics
+     *            the resource metrics of a CTF event
+     * @return the timestamps, in the order of the data points in the payload
+     */
+    static long[] getTimestamps(ResourceMetrics resourceMetrics) {
+        List<Long> timestamps = new ArrayList<>();
+        visit(resourceMetrics, (ilMetrics, metric, type, attributes, timestamp, value, count, sum) -> timestamps.add(timestamp));
+        return timestamps.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void visit(ResourceMetrics resourceMetrics, DataPointVisitor visitor) {
+        for (InstrumentationLibraryMetrics ilMetrics : resourceMetrics.getInstrumentationLibraryMetricsList()) {
+            for (Metric metric : ilMetrics.getMetricsList()) {
+                switch (metric.getDataCase()) {
+                case GAUGE:
+                    for (NumberDataPoint point : metric.getGauge().getDataPointsList()) {
+                        visitor.visit(ilMetrics, metric, Constants.MetricEvents.GAUGE, point.getAttributesList(), point.getTimeUnixNano(), getValue(point), 0, 0);
+                    }
+                    break;
+                case SUM:
+                    for (NumberDataPoint point : metric.getSum().getDataPointsList()) {
+                        visitor.visit(ilMetrics, metric, Constants.MetricEvents.SUM, point.getAttributesList(), point.getTimeUnixNano(), getValue(point), 0, 0);
+                    }
+                    break;
+                case HISTOGRAM:
+                    for (HistogramDataPoint point : metric.getHistogram().getDataPointsList()) {
+                        long count = point.getCount();
+                        double mean = count > 0 ? point.getSum() / count : 0.0;
+                        visitor.visit(ilMetrics, metric, Constants.MetricEvents.HISTOGRAM, point.getAttributesList(), point.getTimeUnixNano(), mean, count, point.getSum());
+                    }
+                    break;
+                case SUMMARY:
+                    // The quantiles are not kept, like the histogram buckets
+                    for (SummaryDataPoint point : metric.getSummary().getDataPointsList()) {
+                        long count = point.getCount();
+                        double mean = count > 0 ? point.getSum() / count : 0.0;
+                        visitor.visit(ilMetrics, metric, Constants.MetricEvents.SUMMARY, point.getAttributesList(), point.getTimeUnixNano(), mean, count, point.getSum());
+                    }
+                    break;
+                // $CASES-OMITTED$
+                default:
+                    /*
+                     * Exponential histograms are skipped on purpose: they were
+                     * added to OTLP around the time instrumentation libraries
+                     * were renamed to scopes, and the protocol bundle that this
+                     * trace type is built against does not reliably have them.
+                     */
+                    break;
+                }
+            }
+        }
+    }
+
+    private static double getValue(NumberDataPoint point) {
+        if (point.getValueCase() == NumberDataPoint.ValueCase.AS_INT) {
+            return point.getAsInt();
+        }
+        return point.getAsDouble();
+    }
+
+    private static String attributesToString(List<KeyValue> attributes) {
+        if (attributes.isEmpty()) {
+            return ""; //$NON-NLS-1$
+        }
+        StringBuilder sb = new StringBuilder();
+        for (KeyValue attribute : attributes) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            AnyValue value = attribute.getValue();
+            sb.append(attribute.getKey()).append('=');
+            switch (value.getValueCase()) {
+            case STRING_VALUE:
+                sb.append(value.getStringValue());
+                break;
+            case BOOL_VALUE:
+                sb.append(value.getBoolValue());
+                break;
+            case INT_VALUE:
+                sb.append(value.getIntValue());
+                break;
+            case DOUBLE_VALUE:
+                sb.append(value.getDoubleValue());
+                break;
+            // $CASES-OMITTED$
+            default:
+                sb.append(value.toString().trim());
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    long getTimestamp() {
+        return fTimestamp;
+    }
+
+    @Override
+    public OtelEvent createEvent(@NonNull OtelTrace trace, long rank) {
+        OtelResourceTable resourceTable = trace.getResourceTable();
+        List<TmfEventField> fields = new ArrayList<>();
+        fields.add(new TmfEventField(Constants.MetricEvents.Fields.RESOURCE, resourceTable.getResource(fScopeId), null));
+        fields.add(new TmfEventField(Constants.MetricEvents.Fields.INSTRUMENTATION_LIBRARY, resourceTable.getInstrumentationLibrary(fScopeId), null));
+        fields.add(new TmfEventField(Constants.MetricEvents.Fields.NAME, fName, null));
+        fields.add(new TmfEventField(Constants.MetricEvents.Fields.UNIT, fUnit, null));
+        fields.add(new TmfEventField(Constants.MetricEvents.Fields.TYPE, fType, null));
+        fields.add(new TmfEventField(Constants.MetricEvents.Fields.ATTRIBUTES, fAttributes, null));
+        fields.add(new TmfEventField(Constants.MetricEvents.Fields.VALUE, fValue, null));
+        if (Constants.MetricEvents.HISTOGRAM.equals(fType) || Constants.MetricEvents.SUMMARY.equals(fType)) {
+            fields.add(new TmfEventField(Constants.MetricEvents.Fields.COUNT, fCount, null));
+            fields.add(new TmfEventField(Constants.MetricEvents.Fields.SUM, fSum, null));
+        }
+        ITmfEventField content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, fields.toArray(new TmfEventField[fields.size()]));
+        return new OtelEvent(trace, rank, TmfTimestamp.fromNanos(fTimestamp), METRIC_TYPE, OtelEventType.METRIC, fScopeId, content);
+    }
+
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.traceevent.core.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+
+import org.eclipse.tracecompass.incubator.internal.traceevent.core.event.ITraceEventConstants;
+import org.eclipse.tracecompass.incubator.internal.traceevent.core.event.TraceEventField;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Test the parsing of the Trace Event JSON objects, with the tokenizer and with
+ * the objects it leaves to Gson
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+public class TraceEventFieldTest {
+
+    /**
+     * Test the fixed fields of a complete event
+     */
+    @Test
+    public void testParseCompleteEvent() {
+        TraceEventField field = TraceEventField.parseJson("{\"name\":\"foo\",\"cat\":\"bar\",\"ph\":\"X\",\"ts\":1234.5,\"dur\":10,\"pid\":2,\"tid\":3,\"id\":\"0x1\",\"args\":{}}");
+        assertNotNull(field);
+        assertEquals("foo", field.getName());
+        assertEquals("bar", field.getCategory());
+        assertEquals('X', field.getPhase());
+        assertEquals(1234500L, field.getTs());
+        assertEquals((Long) 10000L, field.getDuration());
+        assertEquals("2", String.valueOf(field.getPid()));
+        assertEquals((Integer) 3, field.getTid());
+        assertEquals("0x1", field.getId());
+        assertNull(field.getArgs());
+
+        ITmfEventField content = field.getContent();
+        assertEquals("1234.5", content.getFieldValue(String.class, ITraceEventConstants.TIMESTAMP));
+        assertEquals("X", content.getFieldValue(String.class, ITraceEventConstants.PHASE));
+        assertEquals((Integer) 3, content.getFieldValue(Integer.class, ITraceEventConstants.TID));
+        assertEquals(10000.0, content.getFieldValue(Double.class, ITraceEventConstants.DURATION), 0.0);
+    }
+
+    /**
+     * Test the arguments, that are decoded when they are first read
+     */
+    @Test
+    public void testParseArgs() {
+        TraceEventField field = TraceEventField.parseJson("{\"ts\":1, \"ph\":\"M\", \"pid\":\"main\", \"args\":{\"name\":\"a\\\"b\", \"count\":12, \"valid\":true, \"none\":null, \"nested\":{ \"x\": [1, 2] }}}");
+        assertNotNull(field);
+        assertEquals("main", field.getPid());
+        Map<String, Object> args = field.getArgs();
+        assertEquals(ImmutableMap.of("name", "a\"b", "count", "12", "valid", "true", "none", "null", "nested", "{\"x\":[1,2]}"), args);
+        assertEquals("12", field.getContent().getFieldValue(String.class, ITraceEventConstants.ARGS + "/count"));
+    }
+
+    /**
+     * Test the default names of the events without name
+     */
+    @Test
+    public void testDefaultNames() {
+        TraceEventField field = TraceEventField.parseJson("{\"ts\":1,\"ph\":\"E\"}");
+        assertNotNull(field);
+        assertEquals(TraceEventField.UNKNOWN_DURATION_EXIT_EVENT, field.getName());
+        field = TraceEventField.parseJson("{\"ts\":1}");
+        assertNotNull(field);
+        assertEquals('I', field.getPhase());
+        assertEquals(TraceEventField.UNKNOWN_EXIT_EVENT, field.getName());
+    }
+
+    /**
+     * Test the objects that are not events
+     */
+    @Test
+    public void testParseNonEvents() {
+        assertNull(TraceEventField.parseJson("{}"));
+        assertNull(TraceEventField.parseJson("{\"name\":\"foo\",\"ph\":\"B\"}"));
+    }
+
+    /**
+     * Test that the objects left to Gson are read like the others
+     */
+    @Test
+    public void testParseLenientObjects() {
+        // Escaped name and unquoted key
+        TraceEventField field = TraceEventField.parseJson("{\"ts\":1,\"name\":\"f\\u006fo\",tid:3,\"args\":{\"a\":1}}");
+        assertNotNull(field);
+        assertEquals("foo", field.getName());
+        assertEquals((Integer) 3, field.getTid());
+        assertEquals(ImmutableMap.of("a", "1"), field.getArgs());
+
+        // Timestamp as a string
+        field = TraceEventField.parseJson("{\"ts\":\"2.5\",\"ph\":\"i\"}");
+        assertNotNull(field);
+        assertEquals(2500L, field.getTs());
+        assertEquals("2.5", field.getContent().getFieldValue(String.class, ITraceEventConstants.TIMESTAMP));
+    }
+}
@@ -12,10 +12,10 @@
 package org.eclipse.tracecompass.incubator.internal.traceevent.core.event;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -45,12 +45,15 @@ public class TraceEventField {
      */
     public static final String UNKNOWN_DURATION_EXIT_EVENT = "duration exit"; //$NON-NLS-1$
     private static final double MICRO_TO_NANO = 1000.0;
+    private static final String ARGS_PREFIX = ITraceEventConstants.ARGS + "/"; //$NON-NLS-1$
 
     private final long fTs;
     private final char fPhase;
     private final String fName;
-    private ITmfEventField fContent;
-    private final @Nullable Map<String, Object> fArgs;
+    private volatile @Nullable ITmfEventField fContent;
+    private @Nullable Map<String, Object> fArgs;
+    // The tokens of the content and arguments that are not decoded yet
+    private @Nullable TraceEventTokenizer fTokens;
     private final @Nullable Integer fTid;
     private final @Nullable String fCategory;
     private final @Nullable String fId;
@@ -69,6 +72,14 @@ public class TraceEventField {
     public static @Nullable TraceEventField parseJson(String fieldsString) {
         // looks like this
         // {"ts":94824347413117,"phase":"B","tid":39,"name":"TimeGraphView:BuildThread","args"={"trace":"django-httpd"}}
+        TraceEventTokenizer tokens = TraceEventTokenizer.tokenize(fieldsString);
+        if (tokens != null) {
+            if (tokens.isEmpty() || !tokens.has(TraceEventTokenizer.TIMESTAMP)) {
+                return null;
+            }
+            return new TraceEventField(tokens);
+        }
+        // The objects that the tokenizer leaves are read in a JSON tree
         JsonObject root;
         Map<@NonNull String, @NonNull Object> argsMap = new HashMap<>();
         root = G_SON.fromJson(fieldsString, JsonObject.class);
@@ -111,7 +122,7 @@ public class TraceEventField {
                 String key = Objects.requireNonNull(entry.getKey());
                 JsonElement element = Objects.requireNonNull(entry.getValue());
                 String value = String.valueOf(element.isJsonPrimitive() ? element.getAsJsonPrimitive().getAsString() : element.toString());
-                argsMap.put(ITraceEventConstants.ARGS + "/" + key, value); //$NON-NLS-1$
+                argsMap.put(ARGS_PREFIX + key, value);
             }
         }
         argsMap.put(ITraceEventConstants.TIMESTAMP, timestamp.getAsString());
@@ -162,6 +173,15 @@ public class TraceEventField {
         return optString(root, key, null);
     }
 
+    private static String getPhase(TraceEventTokenizer tokens) {
+        return Objects.requireNonNull(tokens.getString(TraceEventTokenizer.PHASE, "I")); //$NON-NLS-1$
+    }
+
+    private static double getDuration(TraceEventTokenizer tokens) {
+        double duration = tokens.getDouble(TraceEventTokenizer.DURATION);
+        return Double.isFinite(duration) ? duration * MICRO_TO_NANO : duration;
+    }
+
     /**
      * Constructor
      *
@@ -190,22 +210,99 @@ public class TraceEventField {
         fTid = tid;
         fCategory = category;
         fId = id;
-        ITmfEventField[] array = fields.entrySet().stream()
-                .map(entry -> new TmfEventField(entry.getKey(), entry.getValue(), null))
-                .toArray(ITmfEventField[]::new);
-        fContent = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, fields, array);
-        fields.put(ITraceEventConstants.TIMESTAMP, ts / MICRO_TO_NANO);
         fTs = ts;
         fDuration = duration == null ? null : Double.isFinite(duration) ? duration.longValue() : null;
         fPhase = phase.charAt(0);
-        @SuppressWarnings("null")
-        Map<@NonNull String, @NonNull Object> args = fields.entrySet().stream()
-                .filter(entry -> {
-                    return entry.getKey().startsWith(ITraceEventConstants.ARGS + "/"); //$NON-NLS-1$
-                })
-                .collect(Collectors.toMap(entry -> entry.getKey().substring(5), Entry::getValue));
-        fArgs = args.isEmpty() ? null : args;
+        setFields(fields);
+    }
+
+    /**
+     * Constructor of the fields read by the tokenizer. The fixed fields are
+     * read from the tokens, the content and the arguments are decoded when
+     * they are first needed.
+     *
+     * @param tokens
+     *            the tokens of the JSON object
+     */
+    private TraceEventField(TraceEventTokenizer tokens) {
+        double tso = tokens.getDouble(TraceEventTokenizer.TIMESTAMP);
+        fTs = Double.isFinite(tso) ? (long) (tso * MICRO_TO_NANO) : 0;
+        String phase = getPhase(tokens);
+        fName = String.valueOf(tokens.getString(TraceEventTokenizer.NAME, TraceEventPhases.DURATION_END.equals(phase) ? UNKNOWN_DURATION_EXIT_EVENT : UNKNOWN_EXIT_EVENT));
+        int tid = tokens.getInt(TraceEventTokenizer.TID);
+        fTid = tid == Integer.MIN_VALUE ? null : tid;
+        fPid = tokens.getNumberOrString(TraceEventTokenizer.PID);
+        fCategory = tokens.getString(TraceEventTokenizer.CATEGORY, null);
+        fId = tokens.getString(TraceEventTokenizer.ID, null);
+        double duration = getDuration(tokens);
+        fDuration = Double.isFinite(duration) ? (long) duration : null;
+        fPhase = phase.charAt(0);
+        fTokens = tokens;
+    }
+
+    /**
+     * Decode the content and the arguments from the tokens, in the same map
+     * as {@link #parseJson(String)}
+     */
+    private synchronized void decode() {
+        TraceEventTokenizer tokens = fTokens;
+        if (tokens == null) {
+            return;
+        }
+        Map<@NonNull String, @NonNull Object> fields = new HashMap<>();
+        List<String> args = tokens.getArgs();
+        for (int i = 0; i < args.size(); i += 2) {
+            fields.put(ARGS_PREFIX + args.get(i), args.get(i + 1));
+        }
+        fields.put(ITraceEventConstants.TIMESTAMP, Objects.requireNonNull(tokens.getString(TraceEventTokenizer.TIMESTAMP, null)));
+        fields.put(ITraceEventConstants.PHASE, getPhase(tokens));
+        fields.put(ITraceEventConstants.NAME, fName);
+        Integer tid = fTid;
+        if (tid != null) {
+            fields.put(ITraceEventConstants.TID, tid);
+        }
+        Object pid = fPid;
+        if (pid != null) {
+            fields.put(ITraceEventConstants.PID, pid);
+        }
+        double duration = getDuration(tokens);
+        if (Double.isFinite(duration)) {
+            fields.put(ITraceEventConstants.DURATION, duration);
+        }
+        String category = fCategory;
+        if (category != null) {
+            fields.put(ITraceEventConstants.CATEGORY, category);
+        }
+        String id = fId;
+        if (id != null) {
+            fields.put(ITraceEventConstants.ID, id);
+        }
+        String scope = tokens.getString(TraceEventTokenizer.SCOPE, null);
+        if (scope != null) {
+            fields.put(ITraceEventConstants.SCOPE, scope);
+        }
+        setFields(fields);
+        fTokens = null;
+    }
 
+    private void setFields(Map<String, Object> fields) {
+        ITmfEventField[] array = new ITmfEventField[fields.size()];
+        int i = 0;
+        for (Entry<String, Object> entry : fields.entrySet()) {
+            array[i++] = new TmfEventField(entry.getKey(), entry.getValue(), null);
+        }
+        ITmfEventField content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, fields, array);
+        fields.put(ITraceEventConstants.TIMESTAMP, fTs / MICRO_TO_NANO);
+        Map<@NonNull String, @NonNull Object> args = new HashMap<>();
+        for (Entry<String, Object> entry : fields.entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(ARGS_PREFIX)) {
+                args.put(key.substring(ARGS_PREFIX.length()), entry.getValue());
+            }
+        }
+        fArgs = args.isEmpty() ? null : args;
+        // The content is set last, it publishes the arguments
+        fContent = content;
     }
 
     /**
@@ -223,7 +320,12 @@ public class TraceEventField {
      * @return the event content
      */
     public ITmfEventField getContent() {
-        return fContent;
+        ITmfEventField content = fContent;
+        if (content == null) {
+            decode();
+            content = Objects.requireNonNull(fContent);
+        }
+        return content;
     }
 
     /**
@@ -298,6 +400,9 @@ public class TraceEventField {
      */
     @Nullable
     public Map<String, Object> getArgs() {
+        if (fContent == null) {
+            decode();
+        }
         return fArgs;
     }
 }
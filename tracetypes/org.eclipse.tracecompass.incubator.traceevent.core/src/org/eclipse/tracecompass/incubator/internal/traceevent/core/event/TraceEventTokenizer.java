@@ -0,0 +1,550 @@
+/*******************************************************************************
+ * Copyright (c) 2023 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.traceevent.core.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Hand-written streaming tokenizer for the Trace Event JSON objects, like:
+ *
+ * <pre>
+ * {"ts":94824347413117,"ph":"B","tid":39,"name":"TimeGraphView:BuildThread","args":{"trace":"django-httpd"}}
+ * </pre>
+ *
+ * It validates an object in a single pass and keeps the position of the
+ * values of the fixed fields, without building a JSON tree. The arguments are
+ * kept as a raw slice of the object, that is only decoded when they are
+ * needed.
+ *
+ * The objects it is not sure to read like Gson, for instance those that are
+ * not strict JSON or whose fixed fields have escaped characters or unexpected
+ * types, are left to Gson.
+ *
+ * @author Eya-Tom Augustin SANGAM
+ */
+@NonNullByDefault
+final class TraceEventTokenizer {
+
+    /** Index of the timestamp */
+    public static final int TIMESTAMP = 0;
+    /** Index of the phase */
+    public static final int PHASE = 1;
+    /** Index of the name */
+    public static final int NAME = 2;
+    /** Index of the thread ID */
+    public static final int TID = 3;
+    /** Index of the process ID */
+    public static final int PID = 4;
+    /** Index of the duration */
+    public static final int DURATION = 5;
+    /** Index of the category */
+    public static final int CATEGORY = 6;
+    /** Index of the ID */
+    public static final int ID = 7;
+    /** Index of the scope */
+    public static final int SCOPE = 8;
+    /** Index of the arguments */
+    public static final int ARGS = 9;
+
+    private static final String[] KEYS = {
+            ITraceEventConstants.TIMESTAMP,
+            ITraceEventConstants.PHASE,
+            ITraceEventConstants.NAME,
+            ITraceEventConstants.TID,
+            ITraceEventConstants.PID,
+            ITraceEventConstants.DURATION,
+            ITraceEventConstants.CATEGORY,
+            ITraceEventConstants.ID,
+            ITraceEventConstants.SCOPE,
+            ITraceEventConstants.ARGS,
+    };
+
+    private static final String[] LITERALS = { "true", "false", "null" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    private static final byte ABSENT = 0;
+    private static final byte STRING = 1;
+    private static final byte ESCAPED_STRING = 2;
+    private static final byte NUMBER = 3;
+    private static final byte INTEGER = 4;
+    private static final byte LITERAL = 5;
+    private static final byte OBJECT = 6;
+    private static final byte ARRAY = 7;
+
+    // Below Gson's nesting limit
+    private static final int MAX_DEPTH = 200;
+    // Integers with more digits may not fit in an int
+    private static final int MAX_INT_DIGITS = 9;
+    // Integers with more digits may not be exact doubles
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // The numbers Gson reads for the most frequent process IDs
+    private static final int MAX_CACHED_NUMBERS = 4096;
+    private static final Map<String, Number> NUMBERS = new ConcurrentHashMap<>();
+    private static final Gson G_SON = new Gson();
+
+    private final String fJson;
+    private final int[] fStarts = new int[KEYS.length];
+    private final int[] fEnds = new int[KEYS.length];
+    private final byte[] fKinds = new byte[KEYS.length];
+    private boolean fEmpty = true;
+    // The kind of the last value read, set by the scanning methods
+    private byte fKind = ABSENT;
+
+    private TraceEventTokenizer(String json) {
+        fJson = json;
+    }
+
+    /**
+     * Tokenize a Trace Event JSON object
+     *
+     * @param json
+     *            The JSON object
+     * @return The tokens of the object, or null if the object must be read by
+     *         Gson
+     */
+    public static @Nullable TraceEventTokenizer tokenize(String json) {
+        TraceEventTokenizer tokens = new TraceEventTokenizer(json);
+        int pos = tokens.skipWhitespaces(0);
+        if (pos >= json.length() || json.charAt(pos) != '{') {
+            return null;
+        }
+        pos = tokens.scanObject(pos, 1, true);
+        if (pos < 0 || tokens.skipWhitespaces(pos) != json.length()) {
+            return null;
+        }
+        return tokens.hasExpectedKinds() ? tokens : null;
+    }
+
+    /**
+     * Get whether the object has no member
+     *
+     * @return true if the object is empty
+     */
+    public boolean isEmpty() {
+        return fEmpty;
+    }
+
+    /**
+     * Get whether the object has a fixed field
+     *
+     * @param index
+     *            The index of the field
+     * @return true if the field is in the object
+     */
+    public boolean has(int index) {
+        return fKinds[index] != ABSENT;
+    }
+
+    /**
+     * Get a field as a string, like {@link JsonElement#getAsString()}
+     *
+     * @param index
+     *            The index of the field
+     * @param defaultValue
+     *            The value if the field is not in the object
+     * @return The string or number text of the field
+     */
+    public @Nullable String getString(int index, @Nullable String defaultValue) {
+        if (fKinds[index] == ABSENT) {
+            return defaultValue;
+        }
+        return fJson.substring(fStarts[index], fEnds[index]);
+    }
+
+    /**
+     * Get a numeric field as a double, like {@link JsonElement#getAsDouble()}
+     *
+     * @param index
+     *            The index of the field
+     * @return The value of the field, or {@link Double#NaN} if the field is
+     *         not in the object
+     */
+    public double getDouble(int index) {
+        if (fKinds[index] == ABSENT) {
+            return Double.NaN;
+        }
+        int start = fStarts[index];
+        int end = fEnds[index];
+        boolean negative = fJson.charAt(start) == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            char c = fJson.charAt(i);
+            if (c == '.') {
+                fractionDigits = 0;
+            } else if (isDigit(c) && digits < MAX_EXACT_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else {
+                // Exponents and long numbers are left to the JDK
+                return Double.parseDouble(fJson.substring(start, end));
+            }
+        }
+        /*
+         * Both the mantissa and the power of ten are exact doubles, so their
+         * quotient is correctly rounded like the parsed number
+         */
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Get an integer field as an int, like {@link JsonElement#getAsInt()}
+     *
+     * @param index
+     *            The index of the field
+     * @return The value of the field, or {@link Integer#MIN_VALUE} if the
+     *         field is not in the object
+     */
+    public int getInt(int index) {
+        if (fKinds[index] == ABSENT) {
+            return Integer.MIN_VALUE;
+        }
+        int start = fStarts[index];
+        boolean negative = fJson.charAt(start) == '-';
+        int value = 0;
+        for (int i = negative ? start + 1 : start; i < fEnds[index]; i++) {
+            value = value * 10 + (fJson.charAt(i) - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Get a field that is either a number or a string, like the number of a
+     * {@link JsonPrimitive} or its string
+     *
+     * @param index
+     *            The index of the field
+     * @return The number or the string, or null if the field is not in the
+     *         object
+     */
+    public @Nullable Object getNumberOrString(int index) {
+        String text = getString(index, null);
+        if (text == null || fKinds[index] == STRING) {
+            return text;
+        }
+        @Nullable Number number = NUMBERS.get(text);
+        if (number == null) {
+            number = G_SON.fromJson(text, JsonPrimitive.class).getAsNumber();
+            if (NUMBERS.size() < MAX_CACHED_NUMBERS) {
+                NUMBERS.put(text, number);
+            }
+        }
+        return number;
+    }
+
+    /**
+     * Decode the arguments of the object, like Gson would read them
+     *
+     * @return The names of the arguments and their values as strings,
+     *         alternated, in the order of the object
+     */
+    public List<String> getArgs() {
+        List<String> args = new ArrayList<>();
+        if (fKinds[ARGS] == ABSENT) {
+            return args;
+        }
+        int pos = skipWhitespaces(fStarts[ARGS] + 1);
+        while (fJson.charAt(pos) == '"') {
+            int keyEnd = scanString(pos);
+            args.add(fKind == STRING ? fJson.substring(pos + 1, keyEnd - 1) : decode(pos, keyEnd).getAsString());
+            int valueStart = skipWhitespaces(skipWhitespaces(keyEnd) + 1);
+            int valueEnd = scanValue(valueStart, 2);
+            switch (fKind) {
+            case STRING:
+                args.add(fJson.substring(valueStart + 1, valueEnd - 1));
+                break;
+            case NUMBER:
+            case INTEGER:
+            case LITERAL:
+                // The text of numbers, booleans and null
+                args.add(fJson.substring(valueStart, valueEnd));
+                break;
+            case ESCAPED_STRING:
+                args.add(decode(valueStart, valueEnd).getAsString());
+                break;
+            default:
+                // Nested values are written back by Gson
+                args.add(decode(valueStart, valueEnd).toString());
+                break;
+            }
+            pos = skipWhitespaces(valueEnd);
+            if (fJson.charAt(pos) == ',') {
+                pos = skipWhitespaces(pos + 1);
+            }
+        }
+        return args;
+    }
+
+    private JsonElement decode(int start, int end) {
+        return G_SON.fromJson(fJson.substring(start, end), JsonElement.class);
+    }
+
+    private boolean hasExpectedKinds() {
+        byte[] kinds = fKinds;
+        return isNumber(kinds[TIMESTAMP]) &&
+                isOptionalText(kinds[PHASE]) &&
+                isOptionalText(kinds[NAME]) &&
+                (kinds[TID] == ABSENT || kinds[TID] == INTEGER) &&
+                isOptionalText(kinds[PID]) &&
+                (kinds[DURATION] == ABSENT || isNumber(kinds[DURATION])) &&
+                isOptionalText(kinds[CATEGORY]) &&
+                isOptionalText(kinds[ID]) &&
+                isOptionalText(kinds[SCOPE]) &&
+                (kinds[ARGS] == ABSENT || kinds[ARGS] == OBJECT);
+    }
+
+    private static boolean isNumber(byte kind) {
+        return kind == NUMBER || kind == INTEGER;
+    }
+
+    private static boolean isOptionalText(byte kind) {
+        return kind == ABSENT || kind == STRING || isNumber(kind);
+    }
+
+    /*
+     * The scanning methods return the position after the value, or -1 if the
+     * value is not strict JSON
+     */
+
+    private int scanValue(int pos, int depth) {
+        if (pos >= fJson.length()) {
+            return -1;
+        }
+        char c = fJson.charAt(pos);
+        if (c == '"') {
+            return scanString(pos);
+        } else if (c == '{') {
+            return scanObject(pos, depth + 1, false);
+        } else if (c == '[') {
+            return scanArray(pos, depth + 1);
+        } else if (c == '-' || isDigit(c)) {
+            return scanNumber(pos);
+        }
+        fKind = LITERAL;
+        for (String literal : LITERALS) {
+            if (fJson.startsWith(literal, pos)) {
+                return pos + literal.length();
+            }
+        }
+        return -1;
+    }
+
+    private int scanObject(int start, int depth, boolean root) {
+        if (depth > MAX_DEPTH) {
+            return -1;
+        }
+        int pos = skipWhitespaces(start + 1);
+        if (pos < fJson.length() && fJson.charAt(pos) == '}') {
+            fKind = OBJECT;
+            return pos + 1;
+        }
+        while (pos < fJson.length() && fJson.charAt(pos) == '"') {
+            int keyEnd = scanString(pos);
+            if (keyEnd < 0) {
+                return -1;
+            }
+            if (root && fKind != STRING) {
+                // The escaped keys may be fixed fields
+                return -1;
+            }
+            int index = root ? indexOf(pos + 1, keyEnd - 1) : -1;
+            pos = skipWhitespaces(keyEnd);
+            if (pos >= fJson.length() || fJson.charAt(pos) != ':') {
+                return -1;
+            }
+            int valueStart = skipWhitespaces(pos + 1);
+            int valueEnd = scanValue(valueStart, depth);
+            if (valueEnd < 0) {
+                return -1;
+            }
+            if (index >= 0) {
+                // The last duplicated field is kept, like Gson
+                boolean string = fKind == STRING;
+                fStarts[index] = string ? valueStart + 1 : valueStart;
+                fEnds[index] = string ? valueEnd - 1 : valueEnd;
+                fKinds[index] = fKind;
+            }
+            if (root) {
+                fEmpty = false;
+            }
+            pos = skipWhitespaces(valueEnd);
+            if (pos >= fJson.length()) {
+                return -1;
+            }
+            char c = fJson.charAt(pos);
+            if (c == '}') {
+                fKind = OBJECT;
+                return pos + 1;
+            }
+            if (c != ',') {
+                return -1;
+            }
+            pos = skipWhitespaces(pos + 1);
+        }
+        return -1;
+    }
+
+    private int scanArray(int start, int depth) {
+        if (depth > MAX_DEPTH) {
+            return -1;
+        }
+        int pos = skipWhitespaces(start + 1);
+        if (pos < fJson.length() && fJson.charAt(pos) == ']') {
+            fKind = ARRAY;
+            return pos + 1;
+        }
+        while (true) {
+            pos = scanValue(pos, depth);
+            if (pos < 0) {
+                return -1;
+            }
+            pos = skipWhitespaces(pos);
+            if (pos >= fJson.length()) {
+                return -1;
+            }
+            char c = fJson.charAt(pos);
+            if (c == ']') {
+                fKind = ARRAY;
+                return pos + 1;
+            }
+            if (c != ',') {
+                return -1;
+            }
+            pos = skipWhitespaces(pos + 1);
+        }
+    }
+
+    private int scanString(int start) {
+        String json = fJson;
+        int length = json.length();
+        fKind = STRING;
+        int pos = start + 1;
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                return pos + 1;
+            } else if (c == '\\') {
+                fKind = ESCAPED_STRING;
+                if (pos + 1 >= length) {
+                    return -1;
+                }
+                char escaped = json.charAt(pos + 1);
+                if (escaped == 'u') {
+                    for (int i = pos + 2; i < pos + 6; i++) {
+                        if (i >= length || Character.digit(json.charAt(i), 16) < 0) {
+                            return -1;
+                        }
+                    }
+                    pos += 6;
+                } else if ("\"\\/bfnrt".indexOf(escaped) >= 0) { //$NON-NLS-1$
+                    pos += 2;
+                } else {
+                    return -1;
+                }
+            } else if (c < ' ') {
+                return -1;
+            } else {
+                pos++;
+            }
+        }
+        return -1;
+    }
+
+    private int scanNumber(int start) {
+        String json = fJson;
+        int pos = json.charAt(start) == '-' ? start + 1 : start;
+        int integerStart = pos;
+        if (pos < json.length() && json.charAt(pos) == '0') {
+            pos++;
+        } else {
+            pos = skipDigits(pos);
+        }
+        if (pos == integerStart) {
+            return -1;
+        }
+        fKind = pos - integerStart <= MAX_INT_DIGITS ? INTEGER : NUMBER;
+        if (pos < json.length() && json.charAt(pos) == '.') {
+            int fractionEnd = skipDigits(pos + 1);
+            if (fractionEnd == pos + 1) {
+                return -1;
+            }
+            pos = fractionEnd;
+            fKind = NUMBER;
+        }
+        if (pos < json.length() && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < json.length() && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) {
+                pos++;
+            }
+            int exponentEnd = skipDigits(pos);
+            if (exponentEnd == pos) {
+                return -1;
+            }
+            pos = exponentEnd;
+            fKind = NUMBER;
+        }
+        return pos;
+    }
+
+    private int indexOf(int start, int end) {
+        for (int i = 0; i < KEYS.length; i++) {
+            String key = KEYS[i];
+            if (key.length() == end - start && fJson.startsWith(key, start)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int skipWhitespaces(int start) {
+        int pos = start;
+        while (pos < fJson.length()) {
+            char c = fJson.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private int skipDigits(int start) {
+        int pos = start;
+        while (pos < fJson.length() && isDigit(fJson.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}